@@ -0,0 +1,139 @@
+package de.larssh.budget.aggregator.cache;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.math.BigInteger;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.List;
+import java.util.Optional;
+
+import de.larssh.budget.aggregator.data.Budget;
+import de.larssh.budget.aggregator.data.Descriptions;
+import de.larssh.utils.Finals;
+import de.larssh.utils.annotations.PackagePrivate;
+import edu.umd.cs.findbugs.annotations.SuppressFBWarnings;
+import lombok.RequiredArgsConstructor;
+
+/**
+ * On-disk cache of the budgets parsed from source files, keyed by the SHA-256
+ * hash of the source content and the cache version.
+ *
+ * <p>
+ * Entries are written to a temporary file and moved into place afterwards, so
+ * concurrent processes sharing a cache directory never see partial entries.
+ * Unreadable entries are treated as missing and overwritten by the next
+ * {@link #put(String, String, List)}.
+ */
+@RequiredArgsConstructor
+public class BudgetCache {
+	/**
+	 * Version of the parsers and of the cache file format. Increase it whenever
+	 * parsing results or the cache file format change to invalidate existing
+	 * entries.
+	 */
+	@PackagePrivate
+	static final int VERSION = Finals.constant(1);
+
+	private static final String FILE_EXTENSION = ".budgets";
+
+	private static final String HASH_ALGORITHM = "SHA-256";
+
+	private static final int BUFFER_SIZE = 64 * 1024;
+
+	/**
+	 * Calculates the hex encoded SHA-256 hash of the content of {@code source}.
+	 *
+	 * @param source the source file
+	 * @return the hex encoded hash
+	 * @throws IOException on IO error
+	 */
+	public static String hash(final Path source) throws IOException {
+		final MessageDigest digest = createMessageDigest();
+		final byte[] buffer = new byte[BUFFER_SIZE];
+		try (InputStream inputStream = Files.newInputStream(source)) {
+			for (int read = inputStream.read(buffer); read != -1; read = inputStream.read(buffer)) {
+				digest.update(buffer, 0, read);
+			}
+		}
+		return String.format("%064x", new BigInteger(1, digest.digest()));
+	}
+
+	@SuppressFBWarnings(value = "EXS_EXCEPTION_SOFTENING_NO_CONSTRAINTS",
+			justification = "SHA-256 is supported by every Java platform")
+	private static MessageDigest createMessageDigest() {
+		try {
+			return MessageDigest.getInstance(HASH_ALGORITHM);
+		} catch (final NoSuchAlgorithmException e) {
+			throw new IllegalStateException(String.format("Missing hash algorithm %s.", HASH_ALGORITHM), e);
+		}
+	}
+
+	/**
+	 * The cache directory
+	 */
+	Path directory;
+
+	/**
+	 * Reads the budgets cached for {@code hash}. References to the file name the
+	 * entry has been created for are replaced by {@code fileName}, as identical
+	 * content might be uploaded using different file names.
+	 *
+	 * @param hash         the hash of the source content
+	 * @param fileName     the current file name of the source
+	 * @param descriptions the dictionary of descriptions
+	 * @return the cached budgets or an empty optional if not cached or unreadable
+	 */
+	public Optional<List<Budget>> get(final String hash, final String fileName, final Descriptions descriptions) {
+		final Path file = getFile(hash);
+		if (!Files.isRegularFile(file)) {
+			return Optional.empty();
+		}
+
+		try (DataInputStream inputStream
+				= new DataInputStream(new BufferedInputStream(Files.newInputStream(file), BUFFER_SIZE))) {
+			return Optional.of(BudgetCacheCodec.read(inputStream, fileName, Files.size(file), descriptions));
+		} catch (final IOException e) {
+			return Optional.empty();
+		}
+	}
+
+	/**
+	 * Caches {@code budgets} for {@code hash}.
+	 *
+	 * @param hash     the hash of the source content
+	 * @param fileName the file name of the source
+	 * @param budgets  the budgets parsed from the source
+	 * @throws IOException on IO error
+	 */
+	@SuppressFBWarnings(value = { "AFBR_ABNORMAL_FINALLY_BLOCK_RETURN", "PATH_TRAVERSAL_IN" },
+			justification = "failing to delete the temporary file is an IO error, the cache directory is given by the user")
+	public void put(final String hash, final String fileName, final List<Budget> budgets) throws IOException {
+		final Path temporaryFile = Files.createTempFile(directory, hash, ".tmp");
+		try {
+			try (OutputStream outputStream = Files.newOutputStream(temporaryFile);
+					DataOutputStream dataOutputStream
+							= new DataOutputStream(new BufferedOutputStream(outputStream, BUFFER_SIZE))) {
+				BudgetCacheCodec.write(dataOutputStream, fileName, budgets);
+			}
+			Files.move(temporaryFile,
+					getFile(hash),
+					StandardCopyOption.ATOMIC_MOVE,
+					StandardCopyOption.REPLACE_EXISTING);
+		} finally {
+			Files.deleteIfExists(temporaryFile);
+		}
+	}
+
+	private Path getFile(final String hash) {
+		return directory.resolve(hash + "-v" + VERSION + FILE_EXTENSION);
+	}
+}
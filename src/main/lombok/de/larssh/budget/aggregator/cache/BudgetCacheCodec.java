@@ -0,0 +1,217 @@
+package de.larssh.budget.aggregator.cache;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+
+import de.larssh.budget.aggregator.data.Account;
+import de.larssh.budget.aggregator.data.AccountDictionary;
+import de.larssh.budget.aggregator.data.Balance;
+import de.larssh.budget.aggregator.data.Budget;
+import de.larssh.budget.aggregator.data.BudgetReference;
+import de.larssh.budget.aggregator.data.BudgetType;
+import de.larssh.budget.aggregator.data.Descriptions;
+import de.larssh.budget.aggregator.data.Municipality;
+import de.larssh.budget.aggregator.data.Product;
+import de.larssh.utils.annotations.PackagePrivate;
+import lombok.experimental.UtilityClass;
+
+/**
+ * Binary format of {@link BudgetCache} entries
+ *
+ * <p>
+ * Municipalities, products and accounts are written once into dictionaries,
+ * which budgets refer to by index. Values are written as scale and unscaled
+ * bytes, keeping {@link BigDecimal} values exact.
+ */
+@UtilityClass
+@PackagePrivate
+class BudgetCacheCodec {
+	/**
+	 * Leading bytes of cache entries, {@code BACE} in ASCII
+	 */
+	private static final int MAGIC = 0x42_41_43_45;
+
+	/**
+	 * Reads the budgets of a cache entry. Counts, lengths and indexes are
+	 * validated, so corrupt entries result in an {@link IOException}.
+	 *
+	 * @param input        the cache entry
+	 * @param fileName     the current file name of the source
+	 * @param size         the size of the cache entry in bytes, limiting counts and
+	 *                     lengths
+	 * @param descriptions the dictionary of descriptions
+	 * @return the budgets
+	 * @throws IOException on IO error or if the cache entry is corrupt
+	 */
+	@PackagePrivate
+	static List<Budget> read(final DataInput input,
+			final String fileName,
+			final long size,
+			final Descriptions descriptions) throws IOException {
+		final int magic = input.readInt();
+		final int version = input.readInt();
+		if (magic != MAGIC || version != BudgetCache.VERSION) {
+			throw new IOException(
+					String.format("Unsupported cache entry of magic %08x and version %d.", magic, version));
+		}
+		try {
+			final String cachedFileName = readString(input, size);
+			final Account[] accounts = readAccounts(input, size, descriptions);
+
+			final int budgetCount = readLength(input, size);
+			final List<Budget> budgets = new ArrayList<>(budgetCount);
+			for (int index = 0; index < budgetCount; index += 1) {
+				budgets.add(readBudget(input, size, fileName, cachedFileName, accounts));
+			}
+			return budgets;
+		} catch (final IllegalArgumentException e) {
+			throw new IOException(String.format("Corrupt cache entry: %s", e.getMessage()), e);
+		}
+	}
+
+	/**
+	 * Reads a count or length. As each element takes at least one byte, counts and
+	 * lengths cannot exceed the size of the cache entry.
+	 *
+	 * @param input the cache entry
+	 * @param size  the size of the cache entry in bytes
+	 * @return the count or length
+	 * @throws IOException on IO error or if the value is out of range
+	 */
+	private static int readLength(final DataInput input, final long size) throws IOException {
+		final int length = input.readInt();
+		if (length < 0 || length > size) {
+			throw new IOException(String.format("Corrupt cache entry: Length %d is out of range.", length));
+		}
+		return length;
+	}
+
+	/**
+	 * Reads an index into {@code values}.
+	 *
+	 * @param <T>    the element type
+	 * @param input  the cache entry
+	 * @param values the values
+	 * @return the value at the read index
+	 * @throws IOException on IO error or if the index is out of range
+	 */
+	@SafeVarargs
+	private static <T> T readIndexed(final DataInput input, final T... values) throws IOException {
+		final int index = input.readInt();
+		if (index < 0 || index >= values.length) {
+			throw new IOException(String.format("Corrupt cache entry: Index %d is out of range.", index));
+		}
+		return values[index];
+	}
+
+	private static Account[] readAccounts(final DataInput input, final long size, final Descriptions descriptions)
+			throws IOException {
+		final Municipality[] municipalities = new Municipality[readLength(input, size)];
+		for (int index = 0; index < municipalities.length; index += 1) {
+			municipalities[index] = Municipality.of(input.readInt());
+		}
+
+		final Product[] products = new Product[readLength(input, size)];
+		for (int index = 0; index < products.length; index += 1) {
+			products[index] = Product
+					.of(readIndexed(input, municipalities), input.readInt(), descriptions.get(readString(input, size)));
+		}
+
+		final Account[] accounts = new Account[readLength(input, size)];
+		for (int index = 0; index < accounts.length; index += 1) {
+			accounts[index] = Account
+					.of(readIndexed(input, products), input.readInt(), descriptions.get(readString(input, size)));
+		}
+		return accounts;
+	}
+
+	private static Budget readBudget(final DataInput input,
+			final long size,
+			final String fileName,
+			final String cachedFileName,
+			final Account... accounts) throws IOException {
+		final Budget budget = Budget.of(input.readInt(), BudgetType.of(readString(input, size)));
+
+		final int referenceCount = readLength(input, size);
+		for (int index = 0; index < referenceCount; index += 1) {
+			final BudgetReference reference = readIndexed(input, BudgetReference.values());
+			final String value = readString(input, size);
+			budget.setReferenceIfAbsent(reference,
+					reference == BudgetReference.FILE_NAME && value.equals(cachedFileName) ? fileName : value);
+		}
+
+		final int balanceCount = readLength(input, size);
+		for (int index = 0; index < balanceCount; index += 1) {
+			budget.putBalance(readIndexed(input, accounts), readValue(input, size));
+		}
+		return budget;
+	}
+
+	private static BigDecimal readValue(final DataInput input, final long size) throws IOException {
+		final int scale = input.readInt();
+		final byte[] unscaledValue = new byte[readLength(input, size)];
+		input.readFully(unscaledValue);
+		return new BigDecimal(new BigInteger(unscaledValue), scale);
+	}
+
+	@PackagePrivate
+	static void write(final DataOutput output, final String fileName, final Collection<Budget> budgets)
+			throws IOException {
+		output.writeInt(MAGIC);
+		output.writeInt(BudgetCache.VERSION);
+		writeString(output, fileName);
+
+		final AccountDictionary accounts = AccountDictionary.of(budgets);
+		accounts.write(output, BudgetCacheCodec::writeString);
+
+		output.writeInt(budgets.size());
+		for (final Budget budget : budgets) {
+			writeBudget(output, budget, accounts);
+		}
+	}
+
+	private static void writeBudget(final DataOutput output, final Budget budget, final AccountDictionary accounts)
+			throws IOException {
+		output.writeInt(budget.getYear());
+		writeString(output, budget.getType().getName());
+
+		final Map<BudgetReference, String> references = budget.getReferences();
+		output.writeInt(references.size());
+		for (final Entry<BudgetReference, String> reference : references.entrySet()) {
+			output.writeInt(reference.getKey().ordinal());
+			writeString(output, reference.getValue());
+		}
+
+		final Map<Account, Balance> balances = budget.getBalances();
+		output.writeInt(balances.size());
+		for (final Entry<Account, Balance> balance : balances.entrySet()) {
+			final BigDecimal value = balance.getValue().getValue();
+			final byte[] unscaledValue = value.unscaledValue().toByteArray();
+			output.writeInt(accounts.indexOf(balance.getKey()));
+			output.writeInt(value.scale());
+			output.writeInt(unscaledValue.length);
+			output.write(unscaledValue);
+		}
+	}
+
+	private static String readString(final DataInput input, final long size) throws IOException {
+		final byte[] bytes = new byte[readLength(input, size)];
+		input.readFully(bytes);
+		return new String(bytes, StandardCharsets.UTF_8);
+	}
+
+	private static void writeString(final DataOutput output, final String value) throws IOException {
+		final byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+		output.writeInt(bytes.length);
+		output.write(bytes);
+	}
+}
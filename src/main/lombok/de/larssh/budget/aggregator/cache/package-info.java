@@ -0,0 +1,5 @@
+/**
+ * On-disk cache of parsed sources
+ */
+@de.larssh.utils.annotations.NonNullByDefault
+package de.larssh.budget.aggregator.cache;
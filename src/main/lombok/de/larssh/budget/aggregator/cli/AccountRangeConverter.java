@@ -0,0 +1,47 @@
+package de.larssh.budget.aggregator.cli;
+
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import de.larssh.budget.aggregator.data.AccountRange;
+import de.larssh.budget.aggregator.data.AccountType;
+import de.larssh.utils.Nullables;
+import de.larssh.utils.text.Patterns;
+import edu.umd.cs.findbugs.annotations.Nullable;
+import edu.umd.cs.findbugs.annotations.SuppressFBWarnings;
+import lombok.RequiredArgsConstructor;
+import picocli.CommandLine.ITypeConverter;
+
+/**
+ * Converts account IDs (e.g. {@code 5110000}), ranges of account IDs (e.g.
+ * {@code 5000000-5099999}) and account types (e.g. {@code RESULT_NEGATIVE} or
+ * {@code Aufwendungen}) to an {@link AccountRange}.
+ */
+@RequiredArgsConstructor
+public class AccountRangeConverter implements ITypeConverter<AccountRange> {
+	private static final Pattern RANGE_PATTERN = Pattern.compile("^\\s*(?<from>\\d+)\\s*(-\\s*(?<to>\\d+))?\\s*$");
+
+	private static final String RANGE_PATTERN_TO = "to";
+
+	private static final String RANGE_PATTERN_FROM = "from";
+
+	@Override
+	@SuppressWarnings("PMD.ShortVariable")
+	@SuppressFBWarnings(value = "IMPROPER_UNICODE", justification = "display values contain German umlauts")
+	public AccountRange convert(@Nullable final String value) {
+		final String trimmed = Nullables.orElseThrow(value).trim();
+		for (final AccountType accountType : AccountType.values()) {
+			if (accountType.name().equalsIgnoreCase(trimmed)
+					|| accountType.getDisplayValue().equalsIgnoreCase(trimmed)) {
+				return AccountRange.of(accountType);
+			}
+		}
+
+		final Matcher matcher = Patterns.matches(RANGE_PATTERN, trimmed)
+				.orElseThrow(() -> new IllegalArgumentException(
+						String.format("Unexpected account range or type \"%s\".", value)));
+		final int from = Integer.parseInt(matcher.group(RANGE_PATTERN_FROM));
+		final String to = matcher.group(RANGE_PATTERN_TO);
+		return new AccountRange(from, to == null ? from : Integer.parseInt(to));
+	}
+}
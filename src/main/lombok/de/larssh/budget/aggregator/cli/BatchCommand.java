@@ -0,0 +1,260 @@
+package de.larssh.budget.aggregator.cli;
+
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.io.StringWriter;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import de.larssh.utils.Nullables;
+import edu.umd.cs.findbugs.annotations.Nullable;
+import edu.umd.cs.findbugs.annotations.SuppressFBWarnings;
+import lombok.AccessLevel;
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+import lombok.experimental.NonFinal;
+import picocli.CommandLine;
+import picocli.CommandLine.Command;
+import picocli.CommandLine.ExitCode;
+import picocli.CommandLine.Model.CommandSpec;
+import picocli.CommandLine.Option;
+import picocli.CommandLine.ParameterException;
+import picocli.CommandLine.Parameters;
+import picocli.CommandLine.ParseResult;
+import picocli.CommandLine.Spec;
+
+/**
+ * Runs multiple aggregations in one process
+ *
+ * <p>
+ * Each line of the job file contains the arguments of one aggregation as
+ * accepted by {@link BudgetAggregatorCli}. Arguments are separated by
+ * whitespace and might be quoted using single or double quotes. Empty lines and
+ * lines starting with {@code #} are ignored.
+ *
+ * <p>
+ * All jobs are validated before the first one starts. Jobs run concurrently and
+ * share parsed sources, so each source is parsed once only. Outputs of jobs are
+ * printed in the order of the job file.
+ */
+@Getter
+@RequiredArgsConstructor
+@Command(name = "batch",
+		mixinStandardHelpOptions = true,
+		showDefaultValues = true,
+		usageHelpWidth = 160,
+		description = "Runs the aggregations of a job file, one aggregation per line, in one process.")
+public class BatchCommand implements Callable<Integer> {
+	private static final char DOUBLE_QUOTE = '"';
+
+	private static final char ESCAPE = '\\';
+
+	private static final char SINGLE_QUOTE = '\'';
+
+	/**
+	 * Splits a line of the job file into arguments. Arguments are separated by
+	 * whitespace and might be quoted using single or double quotes. Inside double
+	 * quotes a backslash escapes the following character.
+	 *
+	 * @param line the line to split
+	 * @return the arguments
+	 * @throws IllegalArgumentException if a quote is not terminated
+	 */
+	@SuppressWarnings({ "PMD.CognitiveComplexity", "PMD.ConfusingTernary", "PMD.CyclomaticComplexity" })
+	private static List<String> splitArguments(final String line) {
+		final List<String> arguments = new ArrayList<>();
+		final StringBuilder argument = new StringBuilder();
+		boolean inArgument = false;
+		boolean escaped = false;
+		char quote = 0;
+
+		for (final char character : line.toCharArray()) {
+			if (escaped) {
+				argument.append(character);
+				escaped = false;
+			} else if (quote == DOUBLE_QUOTE && character == ESCAPE) {
+				escaped = true;
+			} else if (quote != 0) {
+				if (character == quote) {
+					quote = 0;
+				} else {
+					argument.append(character);
+				}
+			} else if (character == DOUBLE_QUOTE || character == SINGLE_QUOTE) {
+				quote = character;
+				inArgument = true;
+			} else if (Character.isWhitespace(character)) {
+				if (inArgument) {
+					arguments.add(argument.toString());
+					argument.setLength(0);
+					inArgument = false;
+				}
+			} else {
+				argument.append(character);
+				inArgument = true;
+			}
+		}
+
+		if (quote != 0) {
+			throw new IllegalArgumentException(String.format("Missing closing quote %s.", quote));
+		}
+		if (inArgument) {
+			arguments.add(argument.toString());
+		}
+		return arguments;
+	}
+
+	/**
+	 * Current {@link CommandSpec} instance
+	 */
+	@Spec
+	@NonFinal
+	@Nullable
+	CommandSpec commandSpec;
+
+	@NonFinal
+	@Parameters(paramLabel = "JOB_FILE", arity = "1")
+	Path jobFile = Paths.get("");
+
+	@NonFinal
+	@Option(names = "--threads")
+	int threads = Runtime.getRuntime().availableProcessors();
+
+	@Override
+	@SuppressWarnings("PMD.DoNotUseThreads")
+	@SuppressFBWarnings(value = "HES_LOCAL_EXECUTOR_SERVICE", justification = "executor is shut down in finally block")
+	public Integer call() throws InterruptedException, IOException {
+		final SharedSourceReader sourceReader = new SharedSourceReader(BudgetAggregatorCli::readSource);
+		final List<BatchJob> jobs = readJobs(sourceReader);
+
+		final ExecutorService executor = Executors.newFixedThreadPool(Math.max(1, getThreads()));
+		try {
+			final List<Future<Integer>> futures = new ArrayList<>(jobs.size());
+			for (final BatchJob job : jobs) {
+				futures.add(executor.submit(job.getCli()));
+			}
+
+			int exitCode = ExitCode.OK;
+			for (int index = 0; index < jobs.size(); index += 1) {
+				if (!awaitJob(jobs.get(index), futures.get(index))) {
+					exitCode = ExitCode.SOFTWARE;
+				}
+			}
+			return exitCode;
+		} finally {
+			executor.shutdownNow();
+		}
+	}
+
+	/**
+	 * Reads and validates all jobs of the job file and registers their sources at
+	 * {@code sourceReader}.
+	 *
+	 * @param sourceReader the source reader shared by all jobs
+	 * @return the jobs
+	 * @throws IOException on IO error
+	 */
+	private List<BatchJob> readJobs(final SharedSourceReader sourceReader) throws IOException {
+		final List<String> lines = Files.readAllLines(getJobFile());
+		final List<BatchJob> jobs = new ArrayList<>();
+		for (int index = 0; index < lines.size(); index += 1) {
+			final String line = lines.get(index).trim();
+			if (!line.isEmpty() && line.charAt(0) != '#') {
+				jobs.add(createJob(index + 1, line, sourceReader));
+			}
+		}
+		return jobs;
+	}
+
+	private BatchJob createJob(final int lineNumber, final String line, final SharedSourceReader sourceReader) {
+		final BudgetAggregatorCli cli = new BudgetAggregatorCli(sourceReader);
+		final StringWriter output = new StringWriter();
+		final CommandLine commandLine = new CommandLine(cli);
+		commandLine.setOut(new PrintWriter(output));
+
+		final ParseResult parseResult;
+		try {
+			parseResult = commandLine.parseArgs(splitArguments(line).toArray(new String[0]));
+		} catch (final IllegalArgumentException | ParameterException e) {
+			throw new ParameterException(getCommandSpec().commandLine(),
+					String.format("Invalid job in line %d: %s", lineNumber, e.getMessage()),
+					e);
+		}
+		if (parseResult.hasSubcommand()
+				|| parseResult.isUsageHelpRequested()
+				|| parseResult.isVersionHelpRequested()
+				|| cli.isWatch()) {
+			throw new ParameterException(getCommandSpec().commandLine(),
+					String.format("Invalid job in line %d: Subcommands, help options and watch mode are not supported.",
+							lineNumber));
+		}
+
+		cli.getSources().forEach(sourceReader::register);
+		return new BatchJob(lineNumber, cli, output);
+	}
+
+	/**
+	 * Waits for {@code job} to finish and prints its output or error.
+	 *
+	 * @param job    the job
+	 * @param future the future of the running job
+	 * @return {@code true} if the job succeeded, else {@code false}
+	 * @throws InterruptedException if interrupted while waiting
+	 */
+	@SuppressWarnings({ "checkstyle:SuppressWarnings", "PMD.CloseResource", "resource" })
+	@SuppressFBWarnings(
+			value = { "EXS_EXCEPTION_SOFTENING_RETURN_FALSE", "INFORMATION_EXPOSURE_THROUGH_AN_ERROR_MESSAGE" },
+			justification = "failed jobs are reported to the error writer of the command line")
+	private boolean awaitJob(final BatchJob job, final Future<Integer> future) throws InterruptedException {
+		final CommandLine commandLine = getCommandSpec().commandLine();
+		try {
+			future.get();
+			final PrintWriter writer = commandLine.getOut();
+			writer.print(job.getOutput());
+			writer.flush();
+			return true;
+		} catch (final ExecutionException e) {
+			final PrintWriter writer = commandLine.getErr();
+			writer.println(String.format("Job in line %d failed: %s", job.getLineNumber(), e.getCause()));
+			e.getCause().printStackTrace(writer);
+			writer.flush();
+			return false;
+		}
+	}
+
+	private CommandSpec getCommandSpec() {
+		return Nullables.orElseThrow(commandSpec);
+	}
+
+	/**
+	 * Dummy to avoid the IDE to mark some fields as {@code final}.
+	 */
+	@SuppressWarnings({ "PMD.NullAssignment", "PMD.UnusedPrivateMethod" })
+	@SuppressFBWarnings(value = "UPM_UNCALLED_PRIVATE_METHOD", justification = "dummy method")
+	private void nonFinalDummy() {
+		commandSpec = null;
+		jobFile = Paths.get("");
+		threads = 0;
+	}
+
+	/**
+	 * A single job of the job file
+	 */
+	@Getter
+	@RequiredArgsConstructor(access = AccessLevel.PRIVATE)
+	private static final class BatchJob {
+		int lineNumber;
+
+		BudgetAggregatorCli cli;
+
+		StringWriter output;
+	}
+}
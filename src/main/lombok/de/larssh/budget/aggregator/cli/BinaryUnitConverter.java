@@ -0,0 +1,16 @@
+package de.larssh.budget.aggregator.cli;
+
+import de.larssh.utils.Nullables;
+import de.larssh.utils.text.StringParseException;
+import de.larssh.utils.text.Strings;
+import edu.umd.cs.findbugs.annotations.Nullable;
+import lombok.RequiredArgsConstructor;
+import picocli.CommandLine.ITypeConverter;
+
+@RequiredArgsConstructor
+public class BinaryUnitConverter implements ITypeConverter<Long> {
+	@Override
+	public Long convert(@Nullable final String value) throws StringParseException {
+		return Strings.parseBinaryUnit(Nullables.orElseThrow(value).trim()).longValueExact();
+	}
+}
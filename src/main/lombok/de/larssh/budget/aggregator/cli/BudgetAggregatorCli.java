@@ -4,37 +4,74 @@ import static java.util.Collections.emptyList;
 import static java.util.Collections.emptySet;
 import static java.util.Collections.sort;
 import static java.util.Collections.unmodifiableList;
+import static java.util.stream.Collectors.toList;
+import static java.util.stream.Collectors.toSet;
 
 import java.awt.Desktop;
+import java.io.BufferedOutputStream;
 import java.io.IOException;
 import java.io.OutputStream;
 import java.io.PrintWriter;
 import java.io.Writer;
+import java.nio.file.FileSystems;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
 import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.Optional;
 import java.util.Set;
 import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
 import java.util.jar.Attributes.Name;
 
-import org.apache.poi.poifs.filesystem.FileMagic;
-
+import de.larssh.budget.aggregator.cache.BudgetCache;
+import de.larssh.budget.aggregator.data.AccountFilter;
+import de.larssh.budget.aggregator.data.AccountRange;
+import de.larssh.budget.aggregator.data.BalanceSpill;
 import de.larssh.budget.aggregator.data.Budget;
+import de.larssh.budget.aggregator.data.BudgetReference;
 import de.larssh.budget.aggregator.data.BudgetType;
+import de.larssh.budget.aggregator.data.BudgetVariance;
 import de.larssh.budget.aggregator.data.Budgets;
+import de.larssh.budget.aggregator.data.Descriptions;
+import de.larssh.budget.aggregator.data.DeviationOrder;
+import de.larssh.budget.aggregator.data.Municipality;
+import de.larssh.budget.aggregator.data.ParseContext;
+import de.larssh.budget.aggregator.sheets.SheetFilter;
 import de.larssh.budget.aggregator.sheets.csv.CsvFiles;
 import de.larssh.budget.aggregator.sheets.excel.ExcelFiles;
+import de.larssh.budget.aggregator.sheets.snapshot.SnapshotFiles;
+import de.larssh.budget.aggregator.sheets.tidy.TidyFiles;
+import de.larssh.budget.aggregator.sheets.tidy.TidyFormat;
+import de.larssh.budget.aggregator.sources.Sources;
+import de.larssh.budget.aggregator.stats.Phase;
+import de.larssh.budget.aggregator.stats.Statistics;
+import de.larssh.budget.aggregator.stats.StatisticsFormat;
 import de.larssh.utils.Nullables;
+import de.larssh.utils.annotations.PackagePrivate;
 import de.larssh.utils.io.Resources;
+import de.larssh.utils.text.Csv;
 import de.larssh.utils.text.StringParseException;
 import de.larssh.utils.text.Strings;
 import edu.umd.cs.findbugs.annotations.Nullable;
 import edu.umd.cs.findbugs.annotations.SuppressFBWarnings;
 import lombok.Getter;
-import lombok.RequiredArgsConstructor;
 import lombok.experimental.NonFinal;
 import picocli.CommandLine;
 import picocli.CommandLine.Command;
@@ -42,6 +79,7 @@ import picocli.CommandLine.ExitCode;
 import picocli.CommandLine.IVersionProvider;
 import picocli.CommandLine.Model.CommandSpec;
 import picocli.CommandLine.Option;
+import picocli.CommandLine.ParameterException;
 import picocli.CommandLine.Parameters;
 import picocli.CommandLine.Spec;
 
@@ -49,14 +87,39 @@ import picocli.CommandLine.Spec;
  * The CLI interface of the Budget Aggregator
  */
 @Getter
-@RequiredArgsConstructor
-@SuppressWarnings({ "PMD.DataClass", "PMD.ExcessiveImports" })
+@SuppressWarnings({
+		"PMD.CouplingBetweenObjects",
+		"PMD.CyclomaticComplexity",
+		"PMD.ExcessiveImports",
+		"PMD.GodClass",
+		"PMD.TooManyFields" })
 @Command(name = "budget-aggregator",
 		mixinStandardHelpOptions = true,
 		showDefaultValues = true,
 		usageHelpWidth = 160,
-		versionProvider = BudgetAggregatorCli.class)
+		versionProvider = BudgetAggregatorCli.class,
+		subcommands = { BatchCommand.class, GenerateCommand.class, ServerCommand.class })
 public class BudgetAggregatorCli implements Callable<Integer>, IVersionProvider {
+	private static final String CSV_FILE_EXTENSION = ".csv";
+
+	/**
+	 * Default value of optional path options, treated as not given
+	 */
+	private static final Path EMPTY_PATH = Paths.get("");
+
+	/**
+	 * Placeholder of the municipality ID inside the output path when splitting by
+	 * municipality
+	 */
+	private static final String OUTPUT_PLACEHOLDER_MUNICIPALITY = "{municipality}";
+
+	private static final String PHASE_WRITE = "write";
+
+	/**
+	 * Time to wait for further changes in watch mode before re-aggregating
+	 */
+	private static final long WATCH_QUIET_PERIOD_MILLIS = 500;
+
 	/**
 	 * The CLI interface of the Budget Aggregator
 	 *
@@ -67,6 +130,21 @@ public class BudgetAggregatorCli implements Callable<Integer>, IVersionProvider
 		System.exit(new CommandLine(new BudgetAggregatorCli()).execute(args));
 	}
 
+	/**
+	 * Reads the budgets of {@code path}, detecting its file format by the leading
+	 * bytes.
+	 *
+	 * @param path    the source file
+	 * @param context the context of reading
+	 * @return the budgets of {@code path}
+	 * @throws IOException          on IO error
+	 * @throws StringParseException on parse error
+	 */
+	public static List<Budget> readSource(final Path path, final ParseContext context)
+			throws IOException, StringParseException {
+		return Sources.read(path, context);
+	}
+
 	/**
 	 * Current {@link CommandSpec} instance
 	 */
@@ -75,13 +153,42 @@ public class BudgetAggregatorCli implements Callable<Integer>, IVersionProvider
 	@Nullable
 	CommandSpec commandSpec;
 
+	/**
+	 * Reader used to read the budgets of each source
+	 */
+	SourceReader sourceReader;
+
 	@NonFinal
 	@Parameters(descriptionKey = "SOURCES")
 	List<Path> sources = emptyList();
 
 	@NonFinal
 	@Option(names = "--output")
-	Path output = Paths.get("");
+	Path output = EMPTY_PATH;
+
+	@NonFinal
+	@Option(names = "--cache-dir")
+	Path cacheDir = EMPTY_PATH;
+
+	@NonFinal
+	@Option(names = "--max-memory", converter = BinaryUnitConverter.class)
+	long maxMemory;
+
+	@NonFinal
+	@Option(names = "--csv-sums", defaultValue = "false", negatable = true)
+	boolean csvSums;
+
+	@NonFinal
+	@Option(names = "--filter-municipalities", split = ",")
+	Set<Integer> filterMunicipalities = emptySet();
+
+	@NonFinal
+	@Option(names = "--filter-products", split = ",")
+	Set<Integer> filterProducts = emptySet();
+
+	@NonFinal
+	@Option(names = "--filter-accounts", split = ",", converter = AccountRangeConverter.class)
+	List<AccountRange> filterAccounts = emptyList();
 
 	@NonFinal
 	@Option(names = "--filter-budget-types", converter = BudgetTypeConverter.class)
@@ -107,6 +214,10 @@ public class BudgetAggregatorCli implements Callable<Integer>, IVersionProvider
 	@Option(names = "--hide-empty-budgets", defaultValue = "true", fallbackValue = "true", negatable = true)
 	boolean hideEmptyBudgets;
 
+	@NonFinal
+	@Option(names = "--list-budgets", defaultValue = "false", negatable = true)
+	boolean listBudgets;
+
 	@NonFinal
 	@Option(names = "--open-output", defaultValue = "false", negatable = true)
 	boolean openOutput;
@@ -115,45 +226,554 @@ public class BudgetAggregatorCli implements Callable<Integer>, IVersionProvider
 	@Option(names = "--reverse-budgets", defaultValue = "false", negatable = true)
 	boolean reverseBudgets;
 
+	@NonFinal
+	@Option(names = "--sheets", split = ",")
+	List<String> sheets = emptyList();
+
+	@NonFinal
+	@Option(names = "--split-by-municipality", defaultValue = "false", negatable = true)
+	boolean splitByMunicipality;
+
+	@NonFinal
+	@Nullable
+	@Option(names = "--stats", arity = "0..1", fallbackValue = "TEXT")
+	StatisticsFormat stats;
+
+	@NonFinal
+	@Option(names = "--threads")
+	int threads = Runtime.getRuntime().availableProcessors();
+
+	@NonFinal
+	@Nullable
+	@Option(names = "--top-deviations", converter = VarianceConverter.class)
+	BudgetVariance topDeviations;
+
+	@NonFinal
+	@Option(names = "--top-deviations-by", defaultValue = "ABSOLUTE")
+	DeviationOrder topDeviationsBy = DeviationOrder.ABSOLUTE;
+
+	@NonFinal
+	@Option(names = "--top-deviations-limit", defaultValue = "100")
+	int topDeviationsLimit;
+
+	@NonFinal
+	@Option(names = "--update", defaultValue = "false", negatable = true)
+	boolean update;
+
+	@NonFinal
+	@Option(names = "--variance", split = ",", converter = VarianceConverter.class)
+	List<BudgetVariance> variances = emptyList();
+
+	@NonFinal
+	@Option(names = "--watch", defaultValue = "false", negatable = true)
+	boolean watch;
+
+	/**
+	 * The CLI interface of the Budget Aggregator, reading sources using
+	 * {@link #readSource(Path, ParseContext)}
+	 */
+	@SuppressFBWarnings(value = "MC_OVERRIDABLE_METHOD_CALL_IN_CONSTRUCTOR",
+			justification = "false-positive, referencing a static method")
+	public BudgetAggregatorCli() {
+		this(BudgetAggregatorCli::readSource);
+	}
+
+	/**
+	 * The CLI interface of the Budget Aggregator, reading sources using
+	 * {@code sourceReader}
+	 *
+	 * @param sourceReader reader used to read the budgets of each source
+	 */
+	public BudgetAggregatorCli(final SourceReader sourceReader) {
+		this.sourceReader = sourceReader;
+	}
+
 	@Override
-	public Integer call() throws IOException, StringParseException {
-		final List<Budget> budgets = new ArrayList<>();
-		for (final Path source : getSources()) {
-			budgets.addAll(readSource(source));
+	public Integer call() throws InterruptedException, IOException, StringParseException {
+		if (getStats() == null) {
+			return aggregateSources();
 		}
 
-		applyFiltersAndHide(budgets);
-		sortAndHideDuplicates(budgets);
-		writeOutput(budgets);
-		openFile();
+		Statistics.enable();
+		try {
+			return aggregateSources();
+		} finally {
+			Statistics.disable();
+		}
+	}
 
+	@SuppressWarnings("PMD.CyclomaticComplexity")
+	private int aggregateSources() throws InterruptedException, IOException, StringParseException {
+		if (isListBudgets()) {
+			writeBudgetList();
+			writeStatistics();
+			return ExitCode.OK;
+		}
+		if (isSplitByMunicipality() && (!hasOutput() || isOpenOutput() || isUpdate())) {
+			throw new ParameterException(getCommandSpec().commandLine(),
+					String.format(
+							"Splitting by municipality requires an output path, e.g. \"overview-%s.xlsx\","
+									+ " and does not support opening or updating outputs.",
+							OUTPUT_PLACEHOLDER_MUNICIPALITY));
+		}
+
+		final SourceReader reader = hasCacheDir()
+				? new CachingSourceReader(new BudgetCache(Files.createDirectories(getCacheDir())), getSourceReader())
+				: getSourceReader();
+
+		final ParseContext context
+				= ParseContext.of(getAccountFilter(), SheetFilter.of(getSheets()), Descriptions.create());
+		try (BalanceSpill balanceSpill = new BalanceSpill(getMaxMemory())) {
+			final List<Path> sourcePaths = getSources();
+			final Map<Path, List<Budget>> sourceBudgets = new HashMap<>(sourcePaths.size() + 1);
+			if (isUpdate()) {
+				sourceBudgets.put(getOutput(), readExistingOutput(context));
+				spillIfRequired(balanceSpill, sourceBudgets);
+			}
+			for (final Path source : sourcePaths) {
+				sourceBudgets.put(source, read(reader, source, context));
+				spillIfRequired(balanceSpill, sourceBudgets);
+			}
+
+			if (isWatch()) {
+				aggregate(getBudgets(sourceBudgets, true));
+				openFile();
+				watchSources(reader, context, sourceBudgets, balanceSpill);
+			} else {
+				aggregate(getBudgets(sourceBudgets, false));
+				openFile();
+			}
+		}
 		return ExitCode.OK;
 	}
 
-	private List<Budget> readSource(final Path path) throws IOException, StringParseException {
-		return FileMagic.valueOf(path.toFile()) == FileMagic.UNKNOWN //
-				? CsvFiles.read(path)
-				: ExcelFiles.read(path);
+	/**
+	 * Prints the budget type, year, file and sheet of the budgets of all sources as
+	 * tab-separated values. Sources are listed based on their headers only, see
+	 * {@link Sources#list(Path, SheetFilter)}, so listing does not depend on the
+	 * size of the sources.
+	 *
+	 * @throws IOException          on IO error
+	 * @throws StringParseException on parse error
+	 */
+	@SuppressWarnings({ "checkstyle:SuppressWarnings", "PMD.CloseResource", "PMD.LooseCoupling", "resource" })
+	private void writeBudgetList() throws IOException, StringParseException {
+		final Csv csv = new Csv();
+		csv.add(new ArrayList<>(Arrays.asList(TidyFiles.COLUMN_NAME_BUDGET_TYPE,
+				TidyFiles.COLUMN_NAME_YEAR,
+				BudgetReference.FILE_NAME.getDisplayValue(),
+				BudgetReference.SHEET.getDisplayValue())));
+		final SheetFilter sheetFilter = SheetFilter.of(getSheets());
+		for (final Path source : getSources()) {
+			final List<Budget> budgets = Sources.list(source, sheetFilter);
+			Budgets.removeSheets(budgets, sheetFilter);
+			for (final Budget budget : budgets) {
+				csv.add(new ArrayList<>(Arrays.asList(budget.getType().getName(),
+						Integer.toString(budget.getYear()),
+						budget.getReferences().getOrDefault(BudgetReference.FILE_NAME, ""),
+						budget.getReferences().getOrDefault(BudgetReference.SHEET, ""))));
+			}
+		}
+
+		final PrintWriter writer = getStandardOutputWriter();
+		writer.println(csv.toString(CsvFiles.SEPARATOR, CsvFiles.ESCAPER));
+		writer.flush();
+	}
+
+	/**
+	 * Spills the balances of budgets held in memory to disk if {@code --max-memory}
+	 * is given and exceeded.
+	 *
+	 * @param balanceSpill  the balance spill
+	 * @param sourceBudgets the budgets per source
+	 * @throws IOException on IO error
+	 */
+	private void spillIfRequired(final BalanceSpill balanceSpill, final Map<Path, List<Budget>> sourceBudgets)
+			throws IOException {
+		if (getMaxMemory() > 0) {
+			balanceSpill.spillIfRequired(sourceBudgets.values().stream().flatMap(List::stream).collect(toList()));
+		}
+	}
+
+	/**
+	 * Reads the budgets of the existing output to merge new sources into. Duplicate
+	 * detection applies to the existing budgets the same way it applies to sources.
+	 *
+	 * @param context the context of reading
+	 * @return the budgets of the existing output or an empty list if the output
+	 *         does not exist, yet
+	 * @throws IOException          on IO error
+	 * @throws StringParseException on parse error
+	 */
+	private List<Budget> readExistingOutput(final ParseContext context) throws IOException, StringParseException {
+		// CSV and long format outputs cannot be read back
+		if (!hasOutput()
+				|| Strings.endsWithIgnoreCaseAscii(getOutput().toString(), CSV_FILE_EXTENSION)
+				|| TidyFormat.of(getOutput()).isPresent()) {
+			throw new ParameterException(getCommandSpec().commandLine(),
+					String.format("Updating requires an existing or new XLSX or snapshot file as output, got \"%s\".",
+							getOutput()));
+		}
+		return Files.exists(getOutput()) ? read(BudgetAggregatorCli::readSource, getOutput(), context) : emptyList();
+	}
+
+	/**
+	 * Reads the budgets of {@code source}, passing down the sheet and account
+	 * filters to parsing. Sheets and accounts not matching are removed afterwards,
+	 * too, as readers sharing or caching parsed sources do not pass down filters.
+	 *
+	 * @param reader  the reader
+	 * @param source  the source file
+	 * @param context the context of reading
+	 * @return the budgets of {@code source}
+	 * @throws IOException          on IO error
+	 * @throws StringParseException on parse error
+	 */
+	private List<Budget> read(final SourceReader reader, final Path source, final ParseContext context)
+			throws IOException, StringParseException {
+		try (Phase phase = Statistics.start("read", source.toString())) {
+			final List<Budget> budgets = reader.read(source, context);
+			Budgets.removeSheets(budgets, context.getSheetFilter());
+			Budgets.removeAccounts(budgets, context.getAccountFilter());
+			phase.produced(budgets);
+			return budgets;
+		}
+	}
+
+	private AccountFilter getAccountFilter() {
+		return AccountFilter.of(getFilterMunicipalities(), getFilterProducts(), getFilterAccounts());
+	}
+
+	/**
+	 * Collects the budgets of the existing output in update mode and all sources in
+	 * order of the sources.
+	 *
+	 * @param sourceBudgets the budgets per source
+	 * @param copy          {@code true} to collect copies, keeping the budgets of
+	 *                      {@code sourceBudgets} unmodified for later aggregations
+	 * @return the budgets of all sources
+	 */
+	private List<Budget> getBudgets(final Map<Path, List<Budget>> sourceBudgets, final boolean copy)
+			throws IOException {
+		final List<Path> inputs = new ArrayList<>();
+		if (isUpdate()) {
+			inputs.add(getOutput());
+		}
+		inputs.addAll(getSources());
+
+		final List<Budget> budgets = new ArrayList<>();
+		for (final Path input : inputs) {
+			for (final Budget budget : sourceBudgets.get(input)) {
+				budgets.add(copy ? budget.copy() : budget);
+			}
+		}
+		return budgets;
+	}
+
+	private void aggregate(final List<Budget> budgets) throws InterruptedException, IOException {
+		if (!getVariances().isEmpty()) {
+			try (Phase phase = Statistics.start("variances")) {
+				final List<Budget> variances = new ArrayList<>();
+				for (final BudgetVariance variance : getVariances()) {
+					checkVarianceBudgets("--variance", variance, budgets);
+					variances.addAll(variance.apply(budgets));
+				}
+				budgets.addAll(variances);
+				phase.produced(variances);
+			}
+		}
+		final BudgetVariance deviations = getTopDeviations();
+		if (deviations != null) {
+			checkTopDeviations(deviations, budgets);
+			try (Phase phase = Statistics.start("top deviations")) {
+				final List<Budget> report = deviations.top(budgets, getTopDeviationsLimit(), getTopDeviationsBy());
+				budgets.clear();
+				budgets.addAll(report);
+				phase.produced(report);
+			}
+		}
+		if (isSplitByMunicipality()) {
+			final Map<Municipality, List<Budget>> partitions;
+			try (Phase ignored = Statistics.start("split by municipality")) {
+				partitions = Budgets.partitionByMunicipality(budgets);
+			}
+			aggregatePartitions(partitions);
+		} else {
+			filterSortAndHide(budgets);
+			try (Phase ignored
+					= hasOutput() ? Statistics.start(PHASE_WRITE, output.toString()) : Statistics.start(PHASE_WRITE)) {
+				writeOutput(budgets);
+			}
+		}
+		writeStatistics();
+	}
+
+	/**
+	 * Checks that the minuend and subtrahend of {@code variance} exist, as its
+	 * result would be empty otherwise, e.g. due to a typo.
+	 *
+	 * @param option   the name of the option of {@code variance}
+	 * @param variance the variance
+	 * @param budgets  the budgets of all sources
+	 */
+	private void checkVarianceBudgets(final String option,
+			final BudgetVariance variance,
+			final Collection<Budget> budgets) {
+		final List<String> missingBudgets = variance.getMissingBudgets(budgets);
+		if (!missingBudgets.isEmpty()) {
+			throw new ParameterException(getCommandSpec().commandLine(),
+					String.format("%s requires the budgets %s, which are missing in all sources.",
+							option,
+							String.join(", ", missingBudgets)));
+		}
+	}
+
+	/**
+	 * Checks that the minuend and subtrahend of {@code --top-deviations} exist and
+	 * that {@code --top-deviations-limit} is positive, as the report would be empty
+	 * otherwise.
+	 *
+	 * @param deviations the variance to report the top deviations of
+	 * @param budgets    the budgets of all sources
+	 */
+	private void checkTopDeviations(final BudgetVariance deviations, final Collection<Budget> budgets) {
+		checkVarianceBudgets("--top-deviations", deviations, budgets);
+		if (getTopDeviationsLimit() < 1) {
+			throw new ParameterException(getCommandSpec().commandLine(),
+					String.format("Top deviations require a positive limit, got %d.", getTopDeviationsLimit()));
+		}
+	}
+
+	private void filterSortAndHide(final List<Budget> budgets) {
+		try (Phase phase = Statistics.start("filter and hide")) {
+			applyFiltersAndHide(budgets);
+			phase.produced(budgets);
+		}
+		try (Phase phase = Statistics.start("sort and dedupe")) {
+			sortAndHideDuplicates(budgets);
+			phase.produced(budgets);
+		}
+	}
+
+	/**
+	 * Filters, hides, sorts and writes the partition of each municipality to its
+	 * own output concurrently, using up to {@code --threads} threads. Phases of
+	 * partitions are not part of {@code --stats}, as statistics are measured per
+	 * thread.
+	 *
+	 * @param partitions the budgets per municipality
+	 * @throws InterruptedException if interrupted while waiting for partitions
+	 * @throws IOException          on IO error
+	 */
+	@SuppressWarnings({ "PMD.DoNotUseThreads", "PMD.PreserveStackTrace" })
+	@SuppressFBWarnings(value = { "HES_LOCAL_EXECUTOR_SERVICE", "LEST_LOST_EXCEPTION_STACK_TRACE" },
+			justification = "executor is shut down in finally block, rethrowing the cause of the partition failure")
+	private void aggregatePartitions(final Map<Municipality, List<Budget>> partitions)
+			throws InterruptedException, IOException {
+		final ExecutorService executor
+				= Executors.newFixedThreadPool(Math.max(1, Math.min(getThreads(), partitions.size())));
+		try (Phase ignored = Statistics.start("aggregate municipalities")) {
+			final List<Future<Path>> futures = new ArrayList<>(partitions.size());
+			for (final Entry<Municipality, List<Budget>> partition : partitions.entrySet()) {
+				final Path partitionOutput = getOutput(partition.getKey());
+				futures.add(executor.submit(() -> {
+					filterSortAndHide(partition.getValue());
+					try (Phase ignoredPartition = Statistics.start(PHASE_WRITE, partitionOutput.toString())) {
+						write(partition.getValue(), partitionOutput);
+					}
+					return partitionOutput;
+				}));
+			}
+
+			for (final Future<Path> future : futures) {
+				try {
+					printOutputWritten(future.get());
+				} catch (final ExecutionException e) {
+					throw rethrow(e.getCause());
+				}
+			}
+		} finally {
+			executor.shutdownNow();
+		}
+	}
+
+	@SuppressFBWarnings(value = "ITC_INHERITANCE_TYPE_CHECKING",
+			justification = "unwrapping the cause of the partition failure")
+	private static IOException rethrow(final Throwable cause) {
+		if (cause instanceof IOException) {
+			return (IOException) cause;
+		}
+		if (cause instanceof RuntimeException) {
+			throw (RuntimeException) cause;
+		}
+		if (cause instanceof Error) {
+			throw (Error) cause;
+		}
+		return new IOException(cause);
+	}
+
+	/**
+	 * Writes and clears the statistics measured since the last call if
+	 * {@code --stats} is given.
+	 *
+	 * @throws IOException on IO error
+	 */
+	private void writeStatistics() throws IOException {
+		final StatisticsFormat format = getStats();
+		final Optional<Statistics> statistics = Statistics.current();
+		if (format != null && statistics.isPresent()) {
+			statistics.get().write(format, getVersion()[0], getCommandSpec().commandLine().getErr());
+			statistics.get().clear();
+		}
+	}
+
+	/**
+	 * Watches the directories of all sources and re-aggregates after sources
+	 * changed. Only changed sources are read again, deleting the spilled balances
+	 * of their previous budgets. Waits for {@link #WATCH_QUIET_PERIOD_MILLIS} after
+	 * the last change, as applications tend to save files in multiple steps.
+	 *
+	 * @param reader        reader used to read changed sources
+	 * @param context       the context of reading
+	 * @param sourceBudgets the budgets per source, updated for changed sources
+	 * @param balanceSpill  the balance spill
+	 * @throws InterruptedException if interrupted while waiting for changes
+	 * @throws IOException          on IO error
+	 */
+	@SuppressWarnings({ "PMD.AvoidInstantiatingObjectsInLoops", "PMD.CloseResource", "PMD.DoNotUseThreads" })
+	private void watchSources(final SourceReader reader,
+			final ParseContext context,
+			final Map<Path, List<Budget>> sourceBudgets,
+			final BalanceSpill balanceSpill) throws InterruptedException, IOException {
+		final List<Path> watchedSources = getSources();
+		final Map<Path, Path> sourcesByAbsolutePath = new HashMap<>(watchedSources.size());
+		for (final Path source : watchedSources) {
+			sourcesByAbsolutePath.put(source.toAbsolutePath().normalize(), source);
+		}
+
+		try (WatchService watchService = FileSystems.getDefault().newWatchService()) {
+			for (final Path directory : sourcesByAbsolutePath.keySet()
+					.stream()
+					.map(path -> Nullables.orElseThrow(path.getParent()))
+					.collect(toSet())) {
+				directory.register(watchService,
+						StandardWatchEventKinds.ENTRY_CREATE,
+						StandardWatchEventKinds.ENTRY_MODIFY);
+			}
+
+			final PrintWriter writer = getCommandSpec().commandLine().getErr();
+			writer.println(String.format("Watching %d sources for changes.", sourcesByAbsolutePath.size()));
+			writer.flush();
+
+			while (!Thread.currentThread().isInterrupted()) {
+				final Set<Path> changedSources = new LinkedHashSet<>();
+				collectChangedSources(watchService.take(), sourcesByAbsolutePath, changedSources);
+				for (WatchKey key = watchService.poll(WATCH_QUIET_PERIOD_MILLIS, TimeUnit.MILLISECONDS);
+						key != null;
+						key = watchService.poll(WATCH_QUIET_PERIOD_MILLIS, TimeUnit.MILLISECONDS)) {
+					collectChangedSources(key, sourcesByAbsolutePath, changedSources);
+				}
+
+				for (final Path source : changedSources) {
+					readChangedSource(reader, context, source, sourceBudgets, balanceSpill);
+				}
+				if (!changedSources.isEmpty()) {
+					aggregate(getBudgets(sourceBudgets, true));
+				}
+			}
+		}
+	}
+
+	/**
+	 * Reads {@code source} again after it changed and deletes the spilled balances
+	 * of its previous budgets. The previous budgets are kept if reading fails.
+	 *
+	 * @param reader        reader used to read {@code source}
+	 * @param context       the context of reading
+	 * @param source        the changed source
+	 * @param sourceBudgets the budgets per source, updated for {@code source}
+	 * @param balanceSpill  the balance spill
+	 */
+	@SuppressWarnings({ "checkstyle:IllegalCatch", "PMD.AvoidCatchingGenericException", "PMD.CloseResource" })
+	private void readChangedSource(final SourceReader reader,
+			final ParseContext context,
+			final Path source,
+			final Map<Path, List<Budget>> sourceBudgets,
+			final BalanceSpill balanceSpill) {
+		final PrintWriter writer = getCommandSpec().commandLine().getErr();
+		final List<Budget> budgets;
+		try {
+			budgets = read(reader, source, context);
+		} catch (final IOException | StringParseException | RuntimeException e) {
+			writer.println(String.format("Failed reading changed source \"%s\", keeping its previous budgets: %s",
+					source,
+					e.getMessage()));
+			writer.flush();
+			return;
+		}
+
+		try {
+			final List<Budget> previousBudgets = sourceBudgets.put(source, budgets);
+			if (previousBudgets != null) {
+				balanceSpill.delete(previousBudgets);
+			}
+			spillIfRequired(balanceSpill, sourceBudgets);
+			writer.println(String.format("Read changed source \"%s\".", source));
+		} catch (final IOException e) {
+			writer.println(String.format("Failed spilling changed source \"%s\": %s", source, e.getMessage()));
+		}
+		writer.flush();
+	}
+
+	private static void collectChangedSources(final WatchKey key,
+			final Map<Path, Path> sourcesByAbsolutePath,
+			final Set<Path> changedSources) {
+		final Path directory = (Path) key.watchable();
+		for (final WatchEvent<?> event : key.pollEvents()) {
+			if (event.kind() == StandardWatchEventKinds.OVERFLOW) {
+				sourcesByAbsolutePath.keySet()
+						.stream()
+						.filter(path -> directory.equals(path.getParent()))
+						.map(sourcesByAbsolutePath::get)
+						.forEach(changedSources::add);
+			} else {
+				final Path source = sourcesByAbsolutePath.get(directory.resolve((Path) event.context()));
+				if (source != null) {
+					changedSources.add(source);
+				}
+			}
+		}
+		key.reset();
 	}
 
 	private void applyFiltersAndHide(final List<Budget> budgets) {
 		// Apply Filters
 		if (!getFilterBudgetTypes().isEmpty()) {
-			budgets.removeIf(budget -> !getFilterBudgetTypes().contains(budget.getType()));
+			try (Phase ignored = Statistics.start("filter budget types")) {
+				budgets.removeIf(budget -> !getFilterBudgetTypes().contains(budget.getType()));
+			}
 		}
 		if (!getFilterYears().isEmpty()) {
-			budgets.removeIf(budget -> !getFilterYears().contains(budget.getYear()));
+			try (Phase ignored = Statistics.start("filter years")) {
+				budgets.removeIf(budget -> !getFilterYears().contains(budget.getYear()));
+			}
 		}
 
 		// Hide Empty Accounts/Balances/Budgets
 		if (isHideEmptyAccounts()) {
-			Budgets.removeEmptyAccounts(budgets);
+			try (Phase ignored = Statistics.start("hide empty accounts")) {
+				Budgets.removeEmptyAccounts(budgets);
+			}
 		}
 		if (isHideEmptyBalances()) {
-			budgets.forEach(Budget::removeEmptyBalances);
+			try (Phase ignored = Statistics.start("hide empty balances")) {
+				budgets.forEach(Budget::removeEmptyBalances);
+			}
 		}
 		if (isHideEmptyBudgets()) {
-			Budgets.removeEmptyBudgets(budgets);
+			try (Phase ignored = Statistics.start("hide empty budgets")) {
+				Budgets.removeEmptyBudgets(budgets);
+			}
 		}
 	}
 
@@ -175,27 +795,51 @@ public class BudgetAggregatorCli implements Callable<Integer>, IVersionProvider
 	@SuppressWarnings("PMD.CloseResource")
 	private void writeOutput(final List<Budget> budgets) throws IOException {
 		if (hasOutput() || isOpenOutput()) {
-			if (Strings.endsWithIgnoreCaseAscii(getOutput().toString(), ".csv")) {
-				try (Writer writer = Files.newBufferedWriter(getOutput())) {
-					CsvFiles.write(budgets, writer);
-				}
-			} else {
-				try (OutputStream outputStream = Files.newOutputStream(getOutput())) {
-					ExcelFiles.write(budgets, outputStream);
-				}
-			}
-
-			@SuppressWarnings({ "checkstyle:SuppressWarnings", "resource" })
-			final PrintWriter writer = getStandardOutputWriter();
-			writer.println(String.format("Output written to \"%s\".", getOutput()));
+			write(budgets, getOutput());
+			printOutputWritten(getOutput());
 		} else {
 			@SuppressWarnings({ "checkstyle:SuppressWarnings", "resource" })
 			final Writer writer = getStandardOutputWriter();
-			CsvFiles.write(budgets, writer);
+			CsvFiles.write(budgets, writer, isCsvSums());
 			writer.flush();
 		}
 	}
 
+	/**
+	 * Writes {@code budgets} to {@code path}, selecting the file format by the file
+	 * extension of {@code path}.
+	 *
+	 * @param budgets the budgets to write
+	 * @param path    the output file
+	 * @throws IOException on IO error
+	 */
+	private void write(final List<Budget> budgets, final Path path) throws IOException {
+		final Optional<TidyFormat> tidyFormat = TidyFormat.of(path);
+		if (Strings.endsWithIgnoreCaseAscii(path.toString(), CSV_FILE_EXTENSION)) {
+			try (Writer writer = Files.newBufferedWriter(path)) {
+				CsvFiles.write(budgets, writer, isCsvSums());
+			}
+		} else if (Strings.endsWithIgnoreCaseAscii(path.toString(), SnapshotFiles.FILE_EXTENSION)) {
+			try (OutputStream outputStream = new BufferedOutputStream(Files.newOutputStream(path))) {
+				SnapshotFiles.write(budgets, outputStream);
+			}
+		} else if (tidyFormat.isPresent()) {
+			try (Writer writer = Files.newBufferedWriter(path)) {
+				TidyFiles.write(budgets, tidyFormat.get(), writer);
+			}
+		} else {
+			try (OutputStream outputStream = Files.newOutputStream(path)) {
+				ExcelFiles.write(budgets, outputStream);
+			}
+		}
+	}
+
+	@SuppressWarnings({ "checkstyle:SuppressWarnings", "PMD.CloseResource", "resource" })
+	private void printOutputWritten(final Path path) {
+		final PrintWriter writer = getStandardOutputWriter();
+		writer.println(String.format("Output written to \"%s\".", path));
+	}
+
 	private void openFile() throws IOException {
 		if (isOpenOutput() && Desktop.isDesktopSupported()) {
 			Desktop.getDesktop().open(getOutput().toFile());
@@ -213,7 +857,33 @@ public class BudgetAggregatorCli implements Callable<Integer>, IVersionProvider
 		return output;
 	}
 
-	private List<Path> getSources() {
+	/**
+	 * Output path of the partition of {@code municipality}. The placeholder
+	 * {@link #OUTPUT_PLACEHOLDER_MUNICIPALITY} is replaced by the municipality ID.
+	 * Without placeholder the municipality ID is appended to the file name in front
+	 * of its file extension.
+	 *
+	 * @param municipality the municipality
+	 * @return the output path
+	 * @throws IOException on IO error
+	 */
+	@SuppressFBWarnings(value = "PATH_TRAVERSAL_IN", justification = "the output path is given by the user")
+	private Path getOutput(final Municipality municipality) throws IOException {
+		final String path = getOutput().toString();
+		final String municipalityId = Integer.toString(municipality.getId());
+		if (path.contains(OUTPUT_PLACEHOLDER_MUNICIPALITY)) {
+			return Paths.get(path.replace(OUTPUT_PLACEHOLDER_MUNICIPALITY, municipalityId));
+		}
+
+		final String fileName = Nullables.orElseThrow(getOutput().getFileName()).toString();
+		final int extensionIndex = fileName.lastIndexOf('.');
+		return getOutput().resolveSibling(extensionIndex < 1
+				? fileName + '-' + municipalityId
+				: fileName.substring(0, extensionIndex) + '-' + municipalityId + fileName.substring(extensionIndex));
+	}
+
+	@PackagePrivate
+	List<Path> getSources() {
 		return unmodifiableList(sources);
 	}
 
@@ -235,6 +905,10 @@ public class BudgetAggregatorCli implements Callable<Integer>, IVersionProvider
 						.orElse("unknown") };
 	}
 
+	private boolean hasCacheDir() {
+		return !Strings.isBlank(cacheDir.toString());
+	}
+
 	private boolean hasOutput() {
 		return !Strings.isBlank(output.toString());
 	}
@@ -245,9 +919,17 @@ public class BudgetAggregatorCli implements Callable<Integer>, IVersionProvider
 	@SuppressWarnings({ "PMD.NullAssignment", "PMD.UnusedPrivateMethod" })
 	@SuppressFBWarnings(value = "UPM_UNCALLED_PRIVATE_METHOD", justification = "dummy method")
 	private void nonFinalDummy() {
+		cacheDir = Paths.get("");
 		commandSpec = null;
+		filterAccounts = emptyList();
 		filterBudgetTypes = emptySet();
+		filterMunicipalities = emptySet();
+		filterProducts = emptySet();
 		filterYears = emptySet();
+		sheets = emptyList();
 		sources = emptyList();
+		threads = 0;
+		topDeviationsBy = DeviationOrder.ABSOLUTE;
+		variances = emptyList();
 	}
 }
@@ -0,0 +1,47 @@
+package de.larssh.budget.aggregator.cli;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Optional;
+
+import de.larssh.budget.aggregator.cache.BudgetCache;
+import de.larssh.budget.aggregator.data.Budget;
+import de.larssh.budget.aggregator.data.ParseContext;
+import de.larssh.utils.Nullables;
+import de.larssh.utils.text.StringParseException;
+import lombok.RequiredArgsConstructor;
+
+/**
+ * Source reader looking up sources inside a {@link BudgetCache} by their
+ * content before parsing them. Parsed sources are added to the cache.
+ */
+@RequiredArgsConstructor
+public class CachingSourceReader implements SourceReader {
+	/**
+	 * The cache
+	 */
+	BudgetCache cache;
+
+	/**
+	 * Reader used to parse sources missing in the cache
+	 */
+	SourceReader sourceReader;
+
+	/** {@inheritDoc} */
+	@Override
+	public List<Budget> read(final Path path, final ParseContext context) throws IOException, StringParseException {
+		final String hash = BudgetCache.hash(path);
+		final String fileName = Nullables.orElseThrow(path.getFileName()).toString();
+
+		final Optional<List<Budget>> cached = cache.get(hash, fileName, context.getDescriptions());
+		if (cached.isPresent()) {
+			return cached.get();
+		}
+
+		// Cached budgets must not depend on the filters of the current reader
+		final List<Budget> budgets = sourceReader.read(path, context.withoutFilters());
+		cache.put(hash, fileName, budgets);
+		return budgets;
+	}
+}
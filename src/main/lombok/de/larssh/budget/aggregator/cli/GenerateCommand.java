@@ -0,0 +1,196 @@
+package de.larssh.budget.aggregator.cli;
+
+import java.io.BufferedOutputStream;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.PrintWriter;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.concurrent.Callable;
+import java.util.regex.Pattern;
+import java.util.zip.GZIPOutputStream;
+
+import de.larssh.budget.aggregator.generator.SourceGenerator;
+import de.larssh.utils.Nullables;
+import de.larssh.utils.text.Strings;
+import edu.umd.cs.findbugs.annotations.Nullable;
+import edu.umd.cs.findbugs.annotations.SuppressFBWarnings;
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+import lombok.experimental.NonFinal;
+import picocli.CommandLine.Command;
+import picocli.CommandLine.ExitCode;
+import picocli.CommandLine.Model.CommandSpec;
+import picocli.CommandLine.Option;
+import picocli.CommandLine.ParameterException;
+import picocli.CommandLine.Parameters;
+import picocli.CommandLine.Spec;
+
+/**
+ * Generates synthetic sources for load testing using {@link SourceGenerator}
+ *
+ * <p>
+ * The file extension of the output file selects the format: {@code .xlsx}
+ * results in workbooks, anything else in tab separated values. Appending
+ * {@code .gz} compresses the output using GZIP. Multiple sources are numbered
+ * in front of the file extension, e.g. {@code load-1.tsv} and
+ * {@code load-2.tsv}.
+ */
+@RequiredArgsConstructor
+@Command(name = "generate",
+		mixinStandardHelpOptions = true,
+		showDefaultValues = true,
+		usageHelpWidth = 160,
+		description = "Generates synthetic sources for load testing. The same seed results in the same sources.")
+public class GenerateCommand implements Callable<Integer> {
+	private static final Pattern GZIP_FILE_EXTENSION = Pattern.compile("\\.gz$", Pattern.CASE_INSENSITIVE);
+
+	private static final Pattern WORKBOOK_FILE_EXTENSION = Pattern.compile("\\.xlsx$", Pattern.CASE_INSENSITIVE);
+
+	private static final int BUFFER_SIZE = 64 * 1024;
+
+	/**
+	 * Current {@link CommandSpec} instance
+	 */
+	@Spec
+	@NonFinal
+	@Nullable
+	CommandSpec commandSpec;
+
+	@Getter
+	@NonFinal
+	@Parameters(paramLabel = "OUTPUT", arity = "1")
+	Path output = Paths.get("");
+
+	@NonFinal
+	@Option(names = "--seed", defaultValue = "1")
+	long seed;
+
+	@NonFinal
+	@Option(names = "--rows", defaultValue = "100000", description = "Number of account rows per source")
+	long rows;
+
+	@NonFinal
+	@Option(names = "--year", defaultValue = "2024")
+	int year;
+
+	@NonFinal
+	@Option(names = "--budget-columns",
+			defaultValue = "3",
+			description = "Number of balance columns, starting with \"Plan <year>\", \"Ist\" and \"Vorjahr\"")
+	int budgetColumns;
+
+	@NonFinal
+	@Option(names = "--municipalities", defaultValue = "1")
+	int municipalities;
+
+	@NonFinal
+	@Option(names = "--sparsity", defaultValue = "0.1", description = "Share of empty balances")
+	double sparsity;
+
+	@Getter
+	@NonFinal
+	@Option(names = "--sources", defaultValue = "1")
+	int sources;
+
+	@NonFinal
+	@Option(names = "--duplicate-ratio",
+			defaultValue = "0.5",
+			description = "Share of balance columns of additional sources duplicating the first source")
+	double duplicateRatio;
+
+	@Override
+	@SuppressWarnings({ "checkstyle:SuppressWarnings", "PMD.CloseResource", "resource" })
+	public Integer call() throws IOException {
+		final SourceGenerator generator = createGenerator();
+		final boolean workbook = isWorkbook(getOutput());
+		if (workbook && !generator.isWorkbookSupported()) {
+			throw new ParameterException(getCommandSpec().commandLine(),
+					String.format("Workbooks cannot contain %d rows. Use tab separated values instead.",
+							generator.getRows()));
+		}
+
+		final PrintWriter writer = getCommandSpec().commandLine().getOut();
+		for (int sourceIndex = 0; sourceIndex < Math.max(1, getSources()); sourceIndex += 1) {
+			final Path path = getOutputPath(sourceIndex);
+			write(generator, sourceIndex, path, workbook);
+			writer.println(path);
+			writer.flush();
+		}
+		return ExitCode.OK;
+	}
+
+	/**
+	 * Creates the generator configured by the options of this command. The options
+	 * are passed on as they are, so the generator validates them.
+	 *
+	 * @return the generator
+	 * @throws ParameterException if an option is out of range
+	 */
+	private SourceGenerator createGenerator() {
+		try {
+			return new SourceGenerator(seed, rows, year, budgetColumns, municipalities, sparsity, duplicateRatio);
+		} catch (final IllegalArgumentException e) {
+			throw new ParameterException(getCommandSpec().commandLine(), e.getMessage(), e);
+		}
+	}
+
+	/**
+	 * Determines the path of the source with index {@code sourceIndex}. The index
+	 * is inserted in front of the file extension if multiple sources are generated.
+	 *
+	 * @param sourceIndex zero based index of the source
+	 * @return the output path
+	 */
+	private Path getOutputPath(final int sourceIndex) {
+		if (getSources() <= 1) {
+			return getOutput();
+		}
+
+		final String fileName = Nullables.orElseThrow(getOutput().getFileName()).toString();
+		final int extensionIndex = fileName.indexOf('.', 1);
+		final String numberedFileName = extensionIndex == -1
+				? fileName + '-' + (sourceIndex + 1)
+				: fileName.substring(0, extensionIndex) + '-' + (sourceIndex + 1) + fileName.substring(extensionIndex);
+		return getOutput().resolveSibling(numberedFileName);
+	}
+
+	private static boolean isWorkbook(final Path path) {
+		final String fileName = Nullables.orElseThrow(path.getFileName()).toString();
+		return WORKBOOK_FILE_EXTENSION.matcher(Strings.replaceFirst(fileName, GZIP_FILE_EXTENSION, "")).find();
+	}
+
+	private static void write(final SourceGenerator generator,
+			final int sourceIndex,
+			final Path path,
+			final boolean workbook) throws IOException {
+		final boolean gzip = GZIP_FILE_EXTENSION.matcher(path.toString()).find();
+		try (OutputStream fileOutputStream = new BufferedOutputStream(Files.newOutputStream(path), BUFFER_SIZE);
+				OutputStream outputStream
+						= gzip ? new GZIPOutputStream(fileOutputStream, BUFFER_SIZE) : fileOutputStream) {
+			if (workbook) {
+				generator.writeWorkbook(sourceIndex, outputStream);
+			} else {
+				generator.writeCsv(sourceIndex,
+						new BufferedWriter(new OutputStreamWriter(outputStream, StandardCharsets.UTF_8), BUFFER_SIZE));
+			}
+		}
+	}
+
+	private CommandSpec getCommandSpec() {
+		return Nullables.orElseThrow(commandSpec);
+	}
+
+	/**
+	 * Dummy to avoid the IDE to mark some fields as {@code final}.
+	 */
+	@SuppressWarnings("PMD.UnusedPrivateMethod")
+	@SuppressFBWarnings(value = "UPM_UNCALLED_PRIVATE_METHOD", justification = "dummy method")
+	private void nonFinalDummy() {
+		output = Paths.get("");
+	}
+}
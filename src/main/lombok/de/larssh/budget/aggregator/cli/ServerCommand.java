@@ -0,0 +1,119 @@
+package de.larssh.budget.aggregator.cli;
+
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.net.InetSocketAddress;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.concurrent.Callable;
+
+import de.larssh.budget.aggregator.cache.BudgetCache;
+import de.larssh.budget.aggregator.server.BudgetAggregatorServer;
+import de.larssh.utils.Nullables;
+import de.larssh.utils.text.Strings;
+import edu.umd.cs.findbugs.annotations.Nullable;
+import edu.umd.cs.findbugs.annotations.SuppressFBWarnings;
+import lombok.RequiredArgsConstructor;
+import lombok.experimental.NonFinal;
+import picocli.CommandLine;
+import picocli.CommandLine.Command;
+import picocli.CommandLine.ExitCode;
+import picocli.CommandLine.Model.CommandSpec;
+import picocli.CommandLine.Option;
+import picocli.CommandLine.Spec;
+
+/**
+ * Starts the resident HTTP server of the Budget Aggregator
+ */
+@RequiredArgsConstructor
+@Command(name = "serve",
+		mixinStandardHelpOptions = true,
+		showDefaultValues = true,
+		usageHelpWidth = 160,
+		description = "Serves aggregations of multipart/form-data uploads via HTTP.")
+public class ServerCommand implements Callable<Integer> {
+	/**
+	 * Current {@link CommandSpec} instance
+	 */
+	@Spec
+	@NonFinal
+	@Nullable
+	CommandSpec commandSpec;
+
+	@NonFinal
+	@SuppressWarnings("PMD.AvoidUsingHardCodedIP")
+	@Option(names = "--bind", defaultValue = "127.0.0.1")
+	String bind = "";
+
+	@NonFinal
+	@Option(names = "--port", defaultValue = "8080")
+	int port;
+
+	@NonFinal
+	@Option(names = "--cache-dir")
+	Path cacheDir = Paths.get("");
+
+	@NonFinal
+	@Option(names = "--threads")
+	int threads = Runtime.getRuntime().availableProcessors();
+
+	@NonFinal
+	@Option(names = "--queue-size", defaultValue = "64")
+	int queueSize;
+
+	@NonFinal
+	@Option(names = "--max-request-size", defaultValue = "64M", converter = BinaryUnitConverter.class)
+	long maxRequestSize;
+
+	@Override
+	@SuppressWarnings({ "checkstyle:SuppressWarnings", "PMD.CloseResource", "PMD.DoNotUseThreads", "resource" })
+	public Integer call() throws InterruptedException, IOException {
+		final BudgetAggregatorServer server = createServer();
+		Runtime.getRuntime().addShutdownHook(new Thread(server::stop));
+		server.start();
+
+		final PrintWriter writer = getCommandSpec().commandLine().getOut();
+		writer.println(String.format("Listening on http://%s:%d/", bind, port));
+		writer.flush();
+
+		server.awaitStop();
+		return ExitCode.OK;
+	}
+
+	/**
+	 * Creates the server configured by the options of this command. Requests are
+	 * aggregated by new CLI instances, sharing the parse cache if given.
+	 *
+	 * @return the server
+	 * @throws IOException on IO error creating the cache directory
+	 */
+	private BudgetAggregatorServer createServer() throws IOException {
+		final SourceReader sourceReader = Strings.isBlank(cacheDir.toString())
+				? BudgetAggregatorCli::readSource
+				: new CachingSourceReader(new BudgetCache(Files.createDirectories(cacheDir)),
+						BudgetAggregatorCli::readSource);
+		return new BudgetAggregatorServer(new InetSocketAddress(bind, port),
+				threads,
+				queueSize,
+				maxRequestSize,
+				() -> new CommandLine(new BudgetAggregatorCli(sourceReader)),
+				getCommandSpec().commandLine().getErr());
+	}
+
+	private CommandSpec getCommandSpec() {
+		return Nullables.orElseThrow(commandSpec);
+	}
+
+	/**
+	 * Dummy to avoid the IDE to mark some fields as {@code final}.
+	 */
+	@SuppressWarnings({ "PMD.NullAssignment", "PMD.UnusedPrivateMethod" })
+	@SuppressFBWarnings(value = "UPM_UNCALLED_PRIVATE_METHOD", justification = "dummy method")
+	private void nonFinalDummy() {
+		commandSpec = null;
+		bind = "";
+		cacheDir = Paths.get("");
+		threads = 0;
+	}
+}
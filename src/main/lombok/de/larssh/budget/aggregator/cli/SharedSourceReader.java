@@ -0,0 +1,146 @@
+package de.larssh.budget.aggregator.cli;
+
+import static java.util.stream.Collectors.toList;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import de.larssh.budget.aggregator.data.Budget;
+import de.larssh.budget.aggregator.data.ParseContext;
+import de.larssh.utils.annotations.PackagePrivate;
+import de.larssh.utils.text.StringParseException;
+import edu.umd.cs.findbugs.annotations.SuppressFBWarnings;
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+
+/**
+ * Source reader sharing the parsed budgets of registered sources between
+ * multiple readers, e.g. the jobs of a batch.
+ *
+ * <p>
+ * Each registered source is parsed at most once, even if read concurrently.
+ * Readers receive copies of the parsed budgets, so modifying them does not
+ * affect other readers. The parsed budgets are released as soon as a source has
+ * been read as often as it has been registered.
+ */
+@RequiredArgsConstructor
+public class SharedSourceReader implements SourceReader {
+	/**
+	 * Reader used to parse each source
+	 */
+	SourceReader sourceReader;
+
+	ConcurrentMap<Path, SharedSource> sharedSources = new ConcurrentHashMap<>();
+
+	private static Path getKey(final Path path) {
+		return path.toAbsolutePath().normalize();
+	}
+
+	/**
+	 * Registers an upcoming read of {@code path}. Sources not registered are not
+	 * shared.
+	 *
+	 * @param path the source file
+	 */
+	public void register(final Path path) {
+		sharedSources.computeIfAbsent(getKey(path), key -> new SharedSource()).getUsages().incrementAndGet();
+	}
+
+	/** {@inheritDoc} */
+	@Override
+	public List<Budget> read(final Path path, final ParseContext context) throws IOException, StringParseException {
+		final Path key = getKey(path);
+		final SharedSource sharedSource = sharedSources.get(key);
+		if (sharedSource == null) {
+			return sourceReader.read(path, context);
+		}
+
+		try {
+			return sharedSource.get(sourceReader, path, context).stream().map(Budget::copy).collect(toList());
+		} finally {
+			if (sharedSource.getUsages().decrementAndGet() == 0) {
+				sharedSources.remove(key, sharedSource);
+			}
+		}
+	}
+
+	/**
+	 * Parsed budgets of a source and the number of pending reads
+	 */
+	@PackagePrivate
+	static class SharedSource {
+		@Getter
+		AtomicInteger usages = new AtomicInteger();
+
+		AtomicBoolean parsing = new AtomicBoolean();
+
+		CompletableFuture<List<Budget>> budgets = new CompletableFuture<>();
+
+		/**
+		 * Returns the parsed budgets, parsing {@code path} using {@code sourceReader}
+		 * if not done by another reader already. Shared budgets must not depend on the
+		 * filters of the first reader, therefore parsing ignores the filters of
+		 * {@code context}.
+		 *
+		 * @param sourceReader reader used to parse
+		 * @param path         the source file
+		 * @param context      the context of reading
+		 * @return the parsed budgets, which must not be modified
+		 * @throws IOException          on IO error
+		 * @throws StringParseException on parse error
+		 */
+		@SuppressWarnings({
+				"checkstyle:IllegalCatch",
+				"PMD.AvoidCatchingGenericException",
+				"PMD.DoNotUseThreads",
+				"PMD.PreserveStackTrace" })
+		@SuppressFBWarnings(value = { "AI_ANNOTATION_ISSUES_NEEDS_NULLABLE", "LEST_LOST_EXCEPTION_STACK_TRACE" },
+				justification = "source readers never return null, rethrowing the cause of the parse failure")
+		public List<Budget> get(final SourceReader sourceReader, final Path path, final ParseContext context)
+				throws IOException, StringParseException {
+			if (parsing.compareAndSet(false, true)) {
+				try {
+					budgets.complete(sourceReader.read(path, context.withoutFilters()));
+				} catch (final IOException | StringParseException | RuntimeException e) {
+					budgets.completeExceptionally(e);
+					throw e;
+				}
+			}
+
+			try {
+				return budgets.get();
+			} catch (final InterruptedException e) {
+				Thread.currentThread().interrupt();
+				throw (IOException) new InterruptedIOException(e.getMessage()).initCause(e);
+			} catch (final ExecutionException e) {
+				throw rethrow(e.getCause());
+			}
+		}
+
+		@SuppressFBWarnings(value = "ITC_INHERITANCE_TYPE_CHECKING",
+				justification = "unwrapping the cause of the parse failure")
+		private static IOException rethrow(final Throwable cause) throws StringParseException {
+			if (cause instanceof IOException) {
+				return (IOException) cause;
+			}
+			if (cause instanceof StringParseException) {
+				throw (StringParseException) cause;
+			}
+			if (cause instanceof RuntimeException) {
+				throw (RuntimeException) cause;
+			}
+			if (cause instanceof Error) {
+				throw (Error) cause;
+			}
+			return new IOException(cause);
+		}
+	}
+}
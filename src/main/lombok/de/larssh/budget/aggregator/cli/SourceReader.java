@@ -0,0 +1,29 @@
+package de.larssh.budget.aggregator.cli;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.List;
+
+import de.larssh.budget.aggregator.data.Budget;
+import de.larssh.budget.aggregator.data.ParseContext;
+import de.larssh.utils.text.StringParseException;
+
+/**
+ * Reads the budgets of a source file
+ */
+@FunctionalInterface
+public interface SourceReader {
+	/**
+	 * Reads the budgets of {@code path}. The returned budgets are owned by the
+	 * caller and might be modified. Readers sharing or caching parsed sources read
+	 * without the filters of {@code context}, see
+	 * {@link ParseContext#withoutFilters()}.
+	 *
+	 * @param path    the source file
+	 * @param context the context of reading
+	 * @return the budgets of {@code path}
+	 * @throws IOException          on IO error
+	 * @throws StringParseException on parse error
+	 */
+	List<Budget> read(Path path, ParseContext context) throws IOException, StringParseException;
+}
@@ -0,0 +1,34 @@
+package de.larssh.budget.aggregator.cli;
+
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import de.larssh.budget.aggregator.data.BudgetType;
+import de.larssh.budget.aggregator.data.BudgetVariance;
+import de.larssh.utils.Nullables;
+import de.larssh.utils.text.Patterns;
+import edu.umd.cs.findbugs.annotations.Nullable;
+import lombok.RequiredArgsConstructor;
+import picocli.CommandLine.ITypeConverter;
+
+/**
+ * Converts values like {@code Ist 2024:Plan 2024} to a {@link BudgetVariance}
+ * of the minuend {@code Ist 2024} and the subtrahend {@code Plan 2024}.
+ */
+@RequiredArgsConstructor
+public class VarianceConverter implements ITypeConverter<BudgetVariance> {
+	private static final Pattern VARIANCE_PATTERN = Pattern.compile(
+			"^\\s*(?<minuendType>.+?)\\s+(?<minuendYear>\\d+)\\s*:\\s*(?<subtrahendType>.+?)\\s+(?<subtrahendYear>\\d+)\\s*$");
+
+	@Override
+	public BudgetVariance convert(@Nullable final String value) {
+		final Matcher matcher = Patterns.matches(VARIANCE_PATTERN, Nullables.orElseThrow(value))
+				.orElseThrow(() -> new IllegalArgumentException(String
+						.format("Unexpected variance pattern \"%s\", expected e.g. \"Ist 2024:Plan 2024\".", value)));
+
+		return new BudgetVariance(BudgetType.of(matcher.group("minuendType")),
+				Integer.parseInt(matcher.group("minuendYear")),
+				BudgetType.of(matcher.group("subtrahendType")),
+				Integer.parseInt(matcher.group("subtrahendYear")));
+	}
+}
@@ -2,6 +2,7 @@ package de.larssh.budget.aggregator.data;
 
 import java.util.Comparator;
 import java.util.Optional;
+import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
 import de.larssh.budget.aggregator.sheets.Row;
@@ -30,10 +31,30 @@ public final class Account implements Comparable<Account> {
 			.thenComparingInt(Account::getId)
 			.thenComparing(Comparators.compareCaseInsensitiveFirst(Account::getDescription));
 
+	@SuppressWarnings({ "PMD.ShortMethodName", "PMD.ShortVariable" })
+	public static Account of(final Product product, final int id, final String description) {
+		return new Account(product, id, description);
+	}
+
 	@PackagePrivate
 	@SuppressWarnings("PMD.ShortMethodName")
 	static Optional<Account> of(final Row row) {
-		final Optional<Product> product = Product.of(row);
+		return of(row, AccountFilter.ALL, Descriptions.NONE);
+	}
+
+	/**
+	 * Reads the account of {@code row}, skipping rows not matching {@code filter}
+	 * as early as possible.
+	 *
+	 * @param row          the row
+	 * @param filter       the filter
+	 * @param descriptions the dictionary of descriptions
+	 * @return the account or empty if missing or not matching {@code filter}
+	 */
+	@PackagePrivate
+	@SuppressWarnings("PMD.ShortMethodName")
+	static Optional<Account> of(final Row row, final AccountFilter filter, final Descriptions descriptions) {
+		final Optional<Product> product = Product.of(row, filter, descriptions);
 		if (!product.isPresent()) {
 			return Optional.empty();
 		}
@@ -43,10 +64,16 @@ public final class Account implements Comparable<Account> {
 			return Optional.empty();
 		}
 
-		return Patterns.matches(CELL_PATTERN, accountCell.get())
-				.map(matcher -> new Account(product.get(),
-						Integer.parseInt(matcher.group("id")),
-						matcher.group("description")));
+		final Optional<Matcher> matcher = Patterns.matches(CELL_PATTERN, accountCell.get());
+		if (!matcher.isPresent()) {
+			return Optional.empty();
+		}
+		final int accountId = Integer.parseInt(matcher.get().group("id"));
+		if (!filter.testAccount(accountId)) {
+			return Optional.empty();
+		}
+
+		return Optional.of(new Account(product.get(), accountId, descriptions.get(matcher.get().group("description"))));
 	}
 
 	@EqualsAndHashCode.Include
@@ -0,0 +1,144 @@
+package de.larssh.budget.aggregator.data;
+
+import java.io.DataOutput;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import lombok.AccessLevel;
+import lombok.NoArgsConstructor;
+
+/**
+ * Dictionaries of the municipalities, products and accounts of budgets, used by
+ * binary formats to write each of them once and refer to them by their zero
+ * based index.
+ *
+ * <p>
+ * Products and accounts are keyed including their descriptions, as those are
+ * not part of equality.
+ */
+@NoArgsConstructor(access = AccessLevel.PRIVATE)
+public final class AccountDictionary {
+	/**
+	 * Collects the dictionaries of the accounts of {@code budgets}.
+	 *
+	 * @param budgets the budgets
+	 * @return the dictionaries
+	 */
+	@SuppressWarnings("PMD.ShortMethodName")
+	public static AccountDictionary of(final Collection<Budget> budgets) {
+		final AccountDictionary dictionary = new AccountDictionary();
+		for (final Account account : Budgets.getAccounts(budgets)) {
+			final Product product = account.getProduct();
+			dictionary.municipalities.putIfAbsent(product.getMunicipality(), dictionary.municipalities.size());
+			dictionary.products.putIfAbsent(getKey(product), dictionary.products.size());
+			dictionary.accounts.putIfAbsent(getKey(account), dictionary.accounts.size());
+		}
+		return dictionary;
+	}
+
+	private static List<Object> getKey(final Account account) {
+		return Arrays.asList(account, account.getDescription(), getKey(account.getProduct()));
+	}
+
+	private static List<Object> getKey(final Product product) {
+		return Arrays.asList(product, product.getDescription());
+	}
+
+	Map<Municipality, Integer> municipalities = new LinkedHashMap<>();
+
+	Map<List<Object>, Integer> products = new LinkedHashMap<>();
+
+	Map<List<Object>, Integer> accounts = new LinkedHashMap<>();
+
+	/**
+	 * Returns the distinct accounts in order of their index.
+	 *
+	 * @return the accounts
+	 */
+	public List<Account> getAccounts() {
+		final List<Account> accounts = new ArrayList<>(this.accounts.size());
+		for (final List<Object> key : this.accounts.keySet()) {
+			accounts.add((Account) key.get(0));
+		}
+		return accounts;
+	}
+
+	/**
+	 * Returns the index of {@code account} including its description.
+	 *
+	 * @param account the account
+	 * @return the index
+	 * @throws IllegalArgumentException if {@code account} is not part of this
+	 *                                  dictionary
+	 */
+	public int indexOf(final Account account) {
+		final Integer index = accounts.get(getKey(account));
+		if (index == null) {
+			throw new IllegalArgumentException(
+					String.format("Account %d is not part of the dictionary.", account.getId()));
+		}
+		return index;
+	}
+
+	/**
+	 * Returns the number of distinct accounts.
+	 *
+	 * @return the number of accounts
+	 */
+	public int size() {
+		return accounts.size();
+	}
+
+	/**
+	 * Writes the municipalities, products and accounts, each prefixed by their
+	 * count. Municipalities are written as their ID. Products and accounts are
+	 * written as index of their municipality or product, their ID and their
+	 * description as written by {@code descriptionWriter}.
+	 *
+	 * @param output            the output
+	 * @param descriptionWriter writes descriptions
+	 * @throws IOException on IO error
+	 */
+	public void write(final DataOutput output, final DescriptionWriter descriptionWriter) throws IOException {
+		output.writeInt(municipalities.size());
+		for (final Municipality municipality : municipalities.keySet()) {
+			output.writeInt(municipality.getId());
+		}
+
+		output.writeInt(products.size());
+		for (final List<Object> key : products.keySet()) {
+			final Product product = (Product) key.get(0);
+			output.writeInt(municipalities.get(product.getMunicipality()));
+			output.writeInt(product.getId());
+			descriptionWriter.write(output, product.getDescription());
+		}
+
+		output.writeInt(accounts.size());
+		for (final List<Object> key : accounts.keySet()) {
+			final Account account = (Account) key.get(0);
+			output.writeInt(products.get(getKey(account.getProduct())));
+			output.writeInt(account.getId());
+			descriptionWriter.write(output, account.getDescription());
+		}
+	}
+
+	/**
+	 * Writes descriptions of products and accounts
+	 */
+	@FunctionalInterface
+	public interface DescriptionWriter {
+		/**
+		 * Writes {@code description} to {@code output}.
+		 *
+		 * @param output      the output
+		 * @param description the description
+		 * @throws IOException on IO error
+		 */
+		void write(DataOutput output, String description) throws IOException;
+	}
+}
@@ -0,0 +1,119 @@
+package de.larssh.budget.aggregator.data;
+
+import static java.util.Collections.emptyList;
+import static java.util.Collections.unmodifiableList;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+
+import de.larssh.utils.annotations.PackagePrivate;
+import lombok.AccessLevel;
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+import lombok.ToString;
+
+/**
+ * Filter of accounts by the IDs of their municipality and product and by ranges
+ * of account IDs. Empty criteria match all accounts.
+ *
+ * <p>
+ * Passed down using {@link ParseContext},
+ * {@link Budget#of(de.larssh.budget.aggregator.sheets.Sheet, ParseContext)}
+ * checks the key columns of each row against this filter and skips non-matching
+ * rows before reading any balance column.
+ */
+@ToString
+@EqualsAndHashCode
+@RequiredArgsConstructor(access = AccessLevel.PRIVATE)
+public final class AccountFilter {
+	/**
+	 * Filter matching all accounts
+	 */
+	public static final AccountFilter ALL = new AccountFilter(new int[0], new int[0], emptyList());
+
+	/**
+	 * Creates a filter of accounts.
+	 *
+	 * @param municipalityIds the municipality IDs to keep or an empty collection to
+	 *                        keep all municipalities
+	 * @param productIds      the product IDs to keep or an empty collection to keep
+	 *                        all products
+	 * @param accountRanges   the ranges of account IDs to keep or an empty
+	 *                        collection to keep all accounts
+	 * @return the filter
+	 */
+	@SuppressWarnings("PMD.ShortMethodName")
+	public static AccountFilter of(final Collection<Integer> municipalityIds,
+			final Collection<Integer> productIds,
+			final Collection<AccountRange> accountRanges) {
+		return new AccountFilter(toSortedArray(municipalityIds),
+				toSortedArray(productIds),
+				unmodifiableList(new ArrayList<>(accountRanges)));
+	}
+
+	private static int[] toSortedArray(final Collection<Integer> values) {
+		final int[] array = values.stream().mapToInt(Integer::intValue).toArray();
+		Arrays.sort(array);
+		return array;
+	}
+
+	/**
+	 * Sorted municipality IDs, allowing lookups without boxing
+	 */
+	int[] municipalityIds;
+
+	/**
+	 * Sorted product IDs, allowing lookups without boxing
+	 */
+	int[] productIds;
+
+	@Getter
+	List<AccountRange> accountRanges;
+
+	/**
+	 * Determines if this filter matches all accounts.
+	 *
+	 * @return {@code true} if no criteria are given, else {@code false}
+	 */
+	public boolean isAll() {
+		return municipalityIds.length == 0 && productIds.length == 0 && accountRanges.isEmpty();
+	}
+
+	/**
+	 * Determines if {@code account} matches all criteria of this filter.
+	 *
+	 * @param account the account
+	 * @return {@code true} if matching, else {@code false}
+	 */
+	public boolean test(final Account account) {
+		return testMunicipality(account.getProduct().getMunicipality().getId())
+				&& testProduct(account.getProduct().getId())
+				&& testAccount(account.getId());
+	}
+
+	@PackagePrivate
+	boolean testMunicipality(final int municipalityId) {
+		return municipalityIds.length == 0 || Arrays.binarySearch(municipalityIds, municipalityId) >= 0;
+	}
+
+	@PackagePrivate
+	boolean testProduct(final int productId) {
+		return productIds.length == 0 || Arrays.binarySearch(productIds, productId) >= 0;
+	}
+
+	@PackagePrivate
+	boolean testAccount(final int accountId) {
+		if (accountRanges.isEmpty()) {
+			return true;
+		}
+		for (final AccountRange accountRange : accountRanges) {
+			if (accountRange.contains(accountId)) {
+				return true;
+			}
+		}
+		return false;
+	}
+}
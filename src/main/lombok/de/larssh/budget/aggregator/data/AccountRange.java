@@ -0,0 +1,40 @@
+package de.larssh.budget.aggregator.data;
+
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+import lombok.ToString;
+
+/**
+ * Inclusive range of account IDs, e.g. all accounts of an {@link AccountType}
+ */
+@Getter
+@ToString
+@EqualsAndHashCode
+@RequiredArgsConstructor
+public final class AccountRange {
+	/**
+	 * Creates the range of all account IDs of {@code accountType}.
+	 *
+	 * @param accountType the account type
+	 * @return the range of account IDs
+	 */
+	@SuppressWarnings("PMD.ShortMethodName")
+	public static AccountRange of(final AccountType accountType) {
+		return new AccountRange(accountType.getAccountIdMin(), accountType.getAccountIdMax());
+	}
+
+	int min;
+
+	int max;
+
+	/**
+	 * Determines if {@code accountId} is inside this range.
+	 *
+	 * @param accountId the account ID
+	 * @return {@code true} if inside this range, else {@code false}
+	 */
+	public boolean contains(final int accountId) {
+		return accountId >= min && accountId <= max;
+	}
+}
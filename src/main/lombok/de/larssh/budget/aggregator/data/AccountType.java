@@ -3,32 +3,32 @@ package de.larssh.budget.aggregator.data;
 import java.util.Optional;
 
 import de.larssh.utils.annotations.PackagePrivate;
-import lombok.AccessLevel;
 import lombok.Getter;
 import lombok.RequiredArgsConstructor;
 
 @Getter
 @RequiredArgsConstructor
+@SuppressWarnings("PMD.DataClass")
 public enum AccountType {
 	/**
 	 * In German: Erträge im Ergebnisplan/Ergebnisrechnung
 	 */
-	RESULT_POSITIVE(1, 4_000_000, 5_000_000 - 1),
+	RESULT_POSITIVE(1, 4_000_000, 5_000_000 - 1, "Erträge"),
 
 	/**
 	 * In German: Aufwendungen im Ergebnisplan/Ergebnisrechnung
 	 */
-	RESULT_NEGATIVE(-1, 5_000_000, 6_000_000 - 1),
+	RESULT_NEGATIVE(-1, 5_000_000, 6_000_000 - 1, "Aufwendungen"),
 
 	/**
 	 * In German: Einzahlungen im Finanzplan/Finanzrechnung
 	 */
-	INVEST_POSITIVE(1, 6_000_000, 7_000_000 - 1),
+	INVEST_POSITIVE(1, 6_000_000, 7_000_000 - 1, "Einzahlungen"),
 
 	/**
 	 * In German: Auszahlungen im Finanzplan/Finanzrechnung
 	 */
-	INVEST_NEGATIVE(-1, 7_000_000, 8_000_000 - 1);
+	INVEST_NEGATIVE(-1, 7_000_000, 8_000_000 - 1, "Auszahlungen");
 
 	@PackagePrivate
 	@SuppressWarnings("PMD.ShortMethodName")
@@ -43,9 +43,9 @@ public enum AccountType {
 
 	int sign;
 
-	@Getter(AccessLevel.PRIVATE)
 	int accountIdMin;
 
-	@Getter(AccessLevel.PRIVATE)
 	int accountIdMax;
+
+	String displayValue;
 }
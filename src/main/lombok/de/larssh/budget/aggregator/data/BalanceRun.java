@@ -0,0 +1,250 @@
+package de.larssh.budget.aggregator.data;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutput;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.function.Predicate;
+
+import de.larssh.utils.annotations.PackagePrivate;
+import edu.umd.cs.findbugs.annotations.Nullable;
+import edu.umd.cs.findbugs.annotations.SuppressFBWarnings;
+import lombok.AccessLevel;
+import lombok.RequiredArgsConstructor;
+import lombok.experimental.NonFinal;
+
+/**
+ * Balances of a single budget spilled to a temporary file, sorted by account.
+ *
+ * <p>
+ * Runs are written once and read sequentially, either completely or by merging
+ * multiple runs in order of their accounts.
+ *
+ * <p>
+ * Descriptions are written once per run only. Later occurrences refer to the
+ * index of their first occurrence, so reading a run creates one instance per
+ * distinct description.
+ */
+@PackagePrivate
+@RequiredArgsConstructor(access = AccessLevel.PRIVATE)
+final class BalanceRun {
+	private static final String FILE_PREFIX = "balances-";
+
+	private static final String FILE_SUFFIX = ".run";
+
+	/**
+	 * Writes {@code balances} to a new run inside {@code directory}.
+	 *
+	 * @param directory the directory to create the run file in
+	 * @param balances  the balances in order of their accounts
+	 * @return the new run
+	 * @throws IOException on IO error
+	 */
+	@PackagePrivate
+	static BalanceRun write(final Path directory, final Collection<Balance> balances) throws IOException {
+		final Path file = Files.createTempFile(directory, FILE_PREFIX, FILE_SUFFIX);
+		try (DataOutputStream output = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(file)))) {
+			final Map<String, Integer> strings = new HashMap<>();
+			output.writeInt(balances.size());
+			for (final Balance balance : balances) {
+				final Account account = balance.getAccount();
+				final Product product = account.getProduct();
+				output.writeInt(product.getMunicipality().getId());
+				output.writeInt(product.getId());
+				writeString(output, strings, product.getDescription());
+				output.writeInt(account.getId());
+				writeString(output, strings, account.getDescription());
+
+				final byte[] unscaledValue = balance.getValue().unscaledValue().toByteArray();
+				output.writeInt(balance.getValue().scale());
+				output.writeInt(unscaledValue.length);
+				output.write(unscaledValue);
+			}
+		}
+		return new BalanceRun(file);
+	}
+
+	/**
+	 * Writes the index of {@code value} inside {@code strings}, followed by the
+	 * length and the UTF-8 bytes of {@code value} itself if written for the first
+	 * time. Other than {@link DataOutput#writeUTF(String)}, strings are not limited
+	 * to 64 KiB.
+	 *
+	 * @param output  the output
+	 * @param strings the indexes of the strings written before
+	 * @param value   the string to write
+	 * @throws IOException on IO error
+	 */
+	private static void writeString(final DataOutput output, final Map<String, Integer> strings, final String value)
+			throws IOException {
+		final Integer index = strings.get(value);
+		if (index != null) {
+			output.writeInt(index);
+			return;
+		}
+
+		final byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+		output.writeInt(strings.size());
+		output.writeInt(bytes.length);
+		output.write(bytes);
+		strings.put(value, strings.size());
+	}
+
+	Path file;
+
+	/**
+	 * Opens a reader for the balances of this run matching {@code filter}. The
+	 * reader must be closed.
+	 *
+	 * @param filter predicate selecting the balances to read
+	 * @return the reader
+	 * @throws IOException on IO error
+	 */
+	@PackagePrivate
+	Reader open(final Predicate<Balance> filter) throws IOException {
+		return new Reader(new DataInputStream(new BufferedInputStream(Files.newInputStream(file))), filter);
+	}
+
+	/**
+	 * Deletes the file of this run. Readers opened before must be closed already.
+	 *
+	 * @throws IOException on IO error
+	 */
+	@PackagePrivate
+	void delete() throws IOException {
+		Files.deleteIfExists(file);
+	}
+
+	/**
+	 * Sequential reader of the balances of a run. IO errors while iterating are
+	 * thrown as {@link UncheckedIOException}.
+	 */
+	@PackagePrivate
+	static final class Reader implements Iterator<Balance>, Closeable {
+		DataInputStream input;
+
+		Predicate<Balance> filter;
+
+		/**
+		 * Strings read so far by their index
+		 */
+		List<String> strings = new ArrayList<>();
+
+		@NonFinal
+		int remaining;
+
+		@NonFinal
+		@Nullable
+		Balance nextBalance;
+
+		/**
+		 * Product of the previous balance, reused as runs are sorted by product
+		 */
+		@NonFinal
+		@Nullable
+		Product previousProduct;
+
+		@PackagePrivate
+		Reader(final DataInputStream input, final Predicate<Balance> filter) throws IOException {
+			this.input = input;
+			this.filter = filter;
+			remaining = input.readInt();
+			nextBalance = readNext();
+		}
+
+		@Nullable
+		private Balance readNext() throws IOException {
+			while (remaining > 0) {
+				remaining -= 1;
+				final Balance balance = readBalance();
+				if (filter.test(balance)) {
+					return balance;
+				}
+			}
+			return null;
+		}
+
+		private Balance readBalance() throws IOException {
+			final int municipalityId = input.readInt();
+			final int productId = input.readInt();
+			final String productDescription = readString();
+			final Product product = getProduct(municipalityId, productId, productDescription);
+			final Account account = Account.of(product, input.readInt(), readString());
+
+			final int scale = input.readInt();
+			final byte[] unscaledValue = new byte[input.readInt()];
+			input.readFully(unscaledValue);
+			return new Balance(account, new BigDecimal(new BigInteger(unscaledValue), scale));
+		}
+
+		private String readString() throws IOException {
+			final int index = input.readInt();
+			if (index == strings.size()) {
+				final byte[] bytes = new byte[input.readInt()];
+				input.readFully(bytes);
+				strings.add(new String(bytes, StandardCharsets.UTF_8));
+			}
+			return strings.get(index);
+		}
+
+		private Product getProduct(final int municipalityId, final int productId, final String description) {
+			final Product previous = previousProduct;
+			if (previous != null
+					&& previous.getMunicipality().getId() == municipalityId
+					&& previous.getId() == productId
+					&& previous.getDescription().equals(description)) {
+				return previous;
+			}
+
+			final Product product = Product.of(Municipality.of(municipalityId), productId, description);
+			previousProduct = product;
+			return product;
+		}
+
+		/** {@inheritDoc} */
+		@Override
+		public boolean hasNext() {
+			return nextBalance != null;
+		}
+
+		/** {@inheritDoc} */
+		@SuppressFBWarnings(value = "EXS_EXCEPTION_SOFTENING_NO_CONSTRAINTS",
+				justification = "implementing Iterator without checked exceptions")
+		@Override
+		public Balance next() {
+			final Balance balance = nextBalance;
+			if (balance == null) {
+				throw new NoSuchElementException();
+			}
+			try {
+				nextBalance = readNext();
+			} catch (final IOException e) {
+				throw new UncheckedIOException(e);
+			}
+			return balance;
+		}
+
+		/** {@inheritDoc} */
+		@Override
+		@SuppressWarnings("PMD.CloseResource")
+		public void close() throws IOException {
+			input.close();
+		}
+	}
+}
@@ -0,0 +1,114 @@
+package de.larssh.budget.aggregator.data;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Collection;
+
+import edu.umd.cs.findbugs.annotations.Nullable;
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+import lombok.experimental.NonFinal;
+
+/**
+ * Spills the balances of budgets to temporary files as soon as the estimated
+ * heap size of all balances held in memory exceeds a threshold.
+ *
+ * <p>
+ * Spilled budgets keep their year, type and references in memory, while their
+ * balances are written to a sorted run per budget and read again on demand.
+ * Accounts of multiple spilled budgets are collected by merging their runs, see
+ * {@link Budgets#getAccounts(Collection)}. The temporary files are deleted on
+ * {@link #close()} or as soon as their budgets are replaced, see
+ * {@link #delete(Collection)}.
+ */
+@Getter
+@RequiredArgsConstructor
+public class BalanceSpill implements Closeable {
+	/**
+	 * Estimated heap size of a single balance held in memory in bytes, including
+	 * its map entry, account and value
+	 */
+	private static final int ESTIMATED_BALANCE_SIZE = 200;
+
+	private static final String DIRECTORY_PREFIX = "budget-aggregator-";
+
+	/**
+	 * Maximum estimated heap size of balances held in memory in bytes
+	 */
+	long maxMemory;
+
+	@NonFinal
+	@Nullable
+	Path directory;
+
+	/**
+	 * Spills the balances of all {@code budgets} held in memory if their estimated
+	 * heap size exceeds {@link #getMaxMemory()}.
+	 *
+	 * @param budgets the budgets to check
+	 * @return the number of budgets spilled
+	 * @throws IOException on IO error
+	 */
+	public int spillIfRequired(final Collection<Budget> budgets) throws IOException {
+		long balancesInMemory = 0;
+		for (final Budget budget : budgets) {
+			if (!budget.isSpilled()) {
+				balancesInMemory += budget.getBalances().size();
+			}
+		}
+		if (balancesInMemory * ESTIMATED_BALANCE_SIZE <= maxMemory) {
+			return 0;
+		}
+
+		int count = 0;
+		for (final Budget budget : budgets) {
+			if (!budget.isSpilled()) {
+				budget.spill(getOrCreateDirectory());
+				count += 1;
+			}
+		}
+		return count;
+	}
+
+	/**
+	 * Deletes the runs of all spilled {@code budgets}, e.g. of budgets replaced by
+	 * reading their source again, instead of keeping them until {@link #close()}.
+	 * The budgets and their copies are empty afterwards.
+	 *
+	 * @param budgets the budgets to delete the runs of
+	 * @throws IOException on IO error
+	 */
+	public void delete(final Collection<Budget> budgets) throws IOException {
+		for (final Budget budget : budgets) {
+			budget.deleteBalanceRun();
+		}
+	}
+
+	private Path getOrCreateDirectory() throws IOException {
+		Path spillDirectory = directory;
+		if (spillDirectory == null) {
+			spillDirectory = Files.createTempDirectory(DIRECTORY_PREFIX);
+			directory = spillDirectory;
+		}
+		return spillDirectory;
+	}
+
+	/** {@inheritDoc} */
+	@Override
+	@SuppressWarnings("PMD.NullAssignment")
+	public void close() throws IOException {
+		final Path spillDirectory = directory;
+		if (spillDirectory != null) {
+			try (DirectoryStream<Path> files = Files.newDirectoryStream(spillDirectory)) {
+				for (final Path file : files) {
+					Files.delete(file);
+				}
+			}
+			Files.delete(spillDirectory);
+			directory = null;
+		}
+	}
+}
@@ -1,28 +1,43 @@
 package de.larssh.budget.aggregator.data;
 
+import static java.util.Collections.emptyList;
 import static java.util.Collections.emptySet;
 import static java.util.Collections.unmodifiableMap;
 
+import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.math.BigDecimal;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
 import java.util.Comparator;
 import java.util.EnumMap;
 import java.util.Iterator;
 import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
 import java.util.Map;
-import java.util.Map.Entry;
 import java.util.Optional;
 import java.util.OptionalInt;
 import java.util.Set;
+import java.util.Spliterator;
+import java.util.Spliterators;
 import java.util.TreeMap;
+import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.function.Function;
+import java.util.function.Predicate;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
-
-import org.apache.poi.ss.util.CellReference;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 
 import de.larssh.budget.aggregator.sheets.Row;
 import de.larssh.budget.aggregator.sheets.Sheet;
 import de.larssh.budget.aggregator.sheets.csv.CsvFiles;
+import de.larssh.budget.aggregator.stats.Statistics;
+import de.larssh.utils.Nullables;
+import de.larssh.utils.annotations.PackagePrivate;
 import de.larssh.utils.text.Patterns;
 import de.larssh.utils.text.StringParseException;
 import de.larssh.utils.text.Strings;
@@ -31,7 +46,6 @@ import edu.umd.cs.findbugs.annotations.SuppressFBWarnings;
 import lombok.AccessLevel;
 import lombok.EqualsAndHashCode;
 import lombok.Getter;
-import lombok.RequiredArgsConstructor;
 import lombok.ToString;
 import lombok.experimental.NonFinal;
 
@@ -40,30 +54,66 @@ import lombok.experimental.NonFinal;
  */
 @Getter
 @ToString
-@SuppressWarnings("PMD.GodClass")
+@SuppressWarnings({ "PMD.CouplingBetweenObjects", "PMD.CyclomaticComplexity", "PMD.ExcessiveImports", "PMD.GodClass" })
 @EqualsAndHashCode(onlyExplicitlyIncluded = true)
-@RequiredArgsConstructor(access = AccessLevel.PRIVATE)
 public final class Budget implements Comparable<Budget> {
 	private static final Pattern BUDGET_HEADER_PATTERN
 			= Pattern.compile("^\\s*(?<budgetType>.+?)\\s*((?<year>\\d+)|(?<yearBefore>Vorjahr))?\\s*$");
 
+	private static final String GROUP_BUDGET_TYPE = "budgetType";
+
+	private static final String GROUP_YEAR = "year";
+
+	private static final String GROUP_YEAR_BEFORE = "yearBefore";
+
+	/**
+	 * Number of letters used for spreadsheet column names
+	 */
+	private static final int COLUMN_NAME_LETTERS = 'Z' - 'A' + 1;
+
 	private static final Comparator<Budget> COMPARATOR
 			= Comparator.<Budget>comparingInt(Budget::getYear).thenComparing(Budget::getType);
 
+	/**
+	 * Creates a new, empty and modifiable budget.
+	 *
+	 * @param year the budget year
+	 * @param type the budget type
+	 * @return the new budget
+	 */
+	@SuppressWarnings("PMD.ShortMethodName")
+	public static Budget of(final int year, final BudgetType type) {
+		return new Budget(year, type);
+	}
+
+	/**
+	 * Reads the budgets of {@code sheet}, skipping rows not matching the account
+	 * filter of {@code context} before reading any balance column.
+	 *
+	 * @param sheet   the sheet
+	 * @param context the context of reading
+	 * @return the budgets of {@code sheet}
+	 * @throws StringParseException on parse error
+	 */
 	@SuppressWarnings({ "checkstyle:XIllegalCatchDefault", "PMD.AvoidCatchingGenericException", "PMD.ShortMethodName" })
 	@SuppressFBWarnings(value = "WEM_WEAK_EXCEPTION_MESSAGING",
 			justification = "false-positive, using StringFormatter here")
-	public static Set<Budget> of(final Sheet sheet) throws StringParseException {
+	public static Set<Budget> of(final Sheet sheet, final ParseContext context) throws StringParseException {
 		final int lastNonBalanceColumn = sheet.getHeader().indexOf(CsvFiles.COLUMN_NAME_ACCOUNT);
 		if (lastNonBalanceColumn == -1) {
 			return emptySet();
 		}
 
 		final boolean applyBudgetTypeSign = sheet.isApplyBudgetTypeSign();
+		final AccountFilter filter = context.getAccountFilter();
+		final Descriptions descriptions = context.getDescriptions();
 		final Map<Budget, Budget> budgets = new LinkedHashMap<>();
+		long rows = 0;
+		long cells = 0;
 		for (final Row row : sheet.getRows()) {
+			rows += 1;
 			try {
-				final Optional<Account> account = Account.of(row);
+				final Optional<Account> account = Account.of(row, filter, descriptions);
 				if (account.isPresent()) {
 					final boolean negate = applyBudgetTypeSign && account.get().getType().getSign() < 0;
 
@@ -71,14 +121,102 @@ public final class Budget implements Comparable<Budget> {
 					for (int columnIndex = lastNonBalanceColumn + 1; columnIndex < headerSize; columnIndex += 1) {
 						addBalance(budgets, account.get(), negate, row, sheet, columnIndex);
 					}
+					cells += Math.max(0, headerSize - lastNonBalanceColumn - 1);
 				}
 			} catch (final Exception e) {
 				throw new StringParseException(e, "Failed reading row %d.", row.getRowIndex());
 			}
 		}
+		Statistics.addRowsAndCells(rows, cells);
 		return budgets.keySet();
 	}
 
+	/**
+	 * Creates a new, empty and modifiable budget, which keeps its balances in order
+	 * of insertion instead of the order of their accounts, e.g. for rankings.
+	 * Ranked budgets are not spilled.
+	 *
+	 * @param year the budget year
+	 * @param type the budget type
+	 * @return the new budget
+	 */
+	@PackagePrivate
+	static Budget ofRanked(final int year, final BudgetType type) {
+		return new Budget(year, type, true);
+	}
+
+	/**
+	 * Determines if the years of the budget columns of {@code header} depend on the
+	 * budget year column {@link CsvFiles#COLUMN_NAME_BUDGET_YEAR}, as at least one
+	 * of them does not state its year, e.g. {@code Ist} or {@code Ist Vorjahr}.
+	 *
+	 * @param header the header of a sheet
+	 * @return {@code true} if the budget year column is required, else
+	 *         {@code false}
+	 */
+	public static boolean isBudgetYearRequired(final List<String> header) {
+		for (final Matcher matcher : matchBudgetHeaders(header)) {
+			if (matcher.group(GROUP_YEAR) == null) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	/**
+	 * Creates the empty budgets of a sheet based on its header only, without
+	 * reading its balances. Columns without year result in one budget per value of
+	 * {@code budgetYears}.
+	 *
+	 * <p>
+	 * Other than {@link #of(Sheet)} budgets are created for all budget columns,
+	 * even if they do not contain any value.
+	 *
+	 * @param header      the header of the sheet
+	 * @param budgetYears the distinct values of the budget year column, see
+	 *                    {@link #isBudgetYearRequired(List)}
+	 * @return the empty budgets in order of their columns
+	 */
+	@SuppressFBWarnings(value = "OCP_OVERLY_CONCRETE_PARAMETER", justification = "only valid for Java 20 and later")
+	public static Set<Budget> ofHeader(final List<String> header, final Collection<Integer> budgetYears) {
+		final Set<Budget> budgets = new LinkedHashSet<>();
+		for (final Matcher matcher : matchBudgetHeaders(header)) {
+			final BudgetType budgetType = BudgetType.of(matcher.group(GROUP_BUDGET_TYPE));
+			final String year = matcher.group(GROUP_YEAR);
+			if (year == null) {
+				final int offsetYears = matcher.group(GROUP_YEAR_BEFORE) == null ? 0 : -1;
+				for (final int budgetYear : budgetYears) {
+					budgets.add(new Budget(budgetYear + offsetYears, budgetType));
+				}
+			} else {
+				budgets.add(new Budget(Integer.parseInt(year), budgetType));
+			}
+		}
+		return budgets;
+	}
+
+	/**
+	 * Matches the titles of the budget columns of {@code header}, which follow the
+	 * column {@link CsvFiles#COLUMN_NAME_ACCOUNT}. Blank titles are skipped.
+	 *
+	 * @param header the header of a sheet
+	 * @return the matching titles in order of their columns
+	 */
+	private static List<Matcher> matchBudgetHeaders(final List<String> header) {
+		final int lastNonBalanceColumn = header.indexOf(CsvFiles.COLUMN_NAME_ACCOUNT);
+		if (lastNonBalanceColumn == -1) {
+			return emptyList();
+		}
+
+		final List<Matcher> matchers = new ArrayList<>();
+		for (final String title : header.subList(lastNonBalanceColumn + 1, header.size())) {
+			if (!Strings.isBlank(title)) {
+				Patterns.matches(BUDGET_HEADER_PATTERN, title).ifPresent(matchers::add);
+			}
+		}
+		return matchers;
+	}
+
 	@SuppressWarnings("PMD.CompareObjectsWithEquals")
 	private static void addBalance(final Map<Budget, Budget> budgets,
 			final Account account,
@@ -102,7 +240,7 @@ public final class Budget implements Comparable<Budget> {
 			return;
 		}
 
-		final BudgetType budgetType = BudgetType.of(columnHeaderMatcher.get().group("budgetType"));
+		final BudgetType budgetType = BudgetType.of(columnHeaderMatcher.get().group(GROUP_BUDGET_TYPE));
 		final Budget newBudget = new Budget(year.getAsInt(), budgetType);
 		final Budget budget = budgets.computeIfAbsent(newBudget, Function.identity());
 
@@ -118,12 +256,30 @@ public final class Budget implements Comparable<Budget> {
 		}
 		row.get(CsvFiles.COLUMN_NAME_BUDGET_YEAR)
 				.ifPresent(y -> budget.setReferenceIfAbsent(BudgetReference.BUDGET_YEAR, y));
-		budget.setReferenceIfAbsent(BudgetReference.COLUMN, CellReference.convertNumToColString(columnIndex));
+		budget.setReferenceIfAbsent(BudgetReference.COLUMN, getColumnName(columnIndex));
+	}
+
+	/**
+	 * Converts a zero based column index to its spreadsheet column name, e.g.
+	 * {@code 0} to {@code A} and {@code 26} to {@code AA}.
+	 *
+	 * <p>
+	 * Implemented locally instead of using POI to keep POI off the CSV path.
+	 *
+	 * @param columnIndex the zero based column index
+	 * @return the column name
+	 */
+	private static String getColumnName(final int columnIndex) {
+		final StringBuilder builder = new StringBuilder();
+		for (int remaining = columnIndex + 1; remaining > 0; remaining = (remaining - 1) / COLUMN_NAME_LETTERS) {
+			builder.append((char) ('A' + (remaining - 1) % COLUMN_NAME_LETTERS));
+		}
+		return builder.reverse().toString();
 	}
 
 	@SuppressFBWarnings(value = "OCP_OVERLY_CONCRETE_PARAMETER", justification = "only valid for Java 20 and later")
 	private static OptionalInt determineYear(final Row row, final Matcher columnHeaderMatcher) {
-		final String year = columnHeaderMatcher.group("year");
+		final String year = columnHeaderMatcher.group(GROUP_YEAR);
 		if (year != null) {
 			return OptionalInt.of(Integer.parseInt(year));
 		}
@@ -133,7 +289,7 @@ public final class Budget implements Comparable<Budget> {
 			return OptionalInt.empty();
 		}
 
-		final int offsetYears = columnHeaderMatcher.group("yearBefore") == null ? 0 : -1;
+		final int offsetYears = columnHeaderMatcher.group(GROUP_YEAR_BEFORE) == null ? 0 : -1;
 		return OptionalInt.of(Integer.parseInt(yearCell.get()) + offsetYears);
 	}
 
@@ -142,61 +298,220 @@ public final class Budget implements Comparable<Budget> {
 		return negate ? number.negate() : number;
 	}
 
+	/**
+	 * Determines if the aligned {@code balances} differ in their values, ignoring
+	 * missing balances.
+	 *
+	 * @param balances the aligned balances, {@code null} for missing balances
+	 * @return {@code true} if at least two balances differ, else {@code false}
+	 */
+	private static boolean hasDifferentValues(final Balance... balances) {
+		BigDecimal value = null;
+		for (final Balance balance : balances) {
+			if (balance != null) {
+				if (value != null && value.compareTo(balance.getValue()) != 0) {
+					return true;
+				}
+				value = balance.getValue();
+			}
+		}
+		return false;
+	}
+
+	private static boolean isEmptyBalance(final Balance balance) {
+		return balance.getValue().compareTo(BigDecimal.ZERO) == 0;
+	}
+
 	@EqualsAndHashCode.Include
 	int year;
 
 	@EqualsAndHashCode.Include
 	BudgetType type;
 
+	/**
+	 * Balances are kept in order of insertion instead of the order of their
+	 * accounts, see {@link #ofRanked(int, BudgetType)}
+	 */
+	boolean ranked;
+
 	@ToString.Exclude
-	Map<Account, Balance> balances = new TreeMap<>();
+	Map<Account, Balance> balances;
 
 	Map<BudgetReference, String> references = new EnumMap<>(BudgetReference.class);
 
 	@NonFinal
 	boolean modifiable = true;
 
+	/**
+	 * Run holding the balances of this budget after spilling
+	 */
+	@ToString.Exclude
+	@Getter(AccessLevel.NONE)
+	@NonFinal
+	@Nullable
+	BalanceRun balanceRun;
+
+	/**
+	 * Balances of {@link #balanceRun} to keep, as runs cannot be modified
+	 */
+	@ToString.Exclude
+	@Getter(AccessLevel.NONE)
+	@NonFinal
+	Predicate<Balance> balanceRunFilter = balance -> true;
+
+	private Budget(final int year, final BudgetType type) {
+		this(year, type, false);
+	}
+
+	private Budget(final int year, final BudgetType type, final boolean ranked) {
+		this.year = year;
+		this.type = type;
+		this.ranked = ranked;
+		balances = ranked ? new LinkedHashMap<>() : new TreeMap<>();
+	}
+
 	@Override
 	public int compareTo(@Nullable final Budget other) {
 		return COMPARATOR.compare(this, other);
 	}
 
-	public boolean equalsIncludingBalances(final Budget other) {
-		return equals(other) && containsBalances(other) && other.containsBalances(this);
+	/**
+	 * Creates a modifiable copy of this budget, including its balances and
+	 * references. Use this to hand out budgets shared by multiple consumers, as
+	 * hiding and filtering modify budgets in place.
+	 *
+	 * @return a modifiable copy of this budget
+	 */
+	public Budget copy() {
+		final Budget copy = new Budget(year, type, ranked);
+		copy.balances.putAll(balances);
+		copy.references.putAll(references);
+		copy.balanceRun = balanceRun;
+		copy.balanceRunFilter = balanceRunFilter;
+		return copy;
 	}
 
-	private boolean containsBalances(final Budget other) {
-		for (final Entry<Account, Balance> entry : other.getBalances().entrySet()) {
-			final BigDecimal otherValue = entry.getValue().getValue();
+	/**
+	 * Determines if this budget equals {@code other} including their balances.
+	 * Balances of accounts missing in one of both budgets are not compared. The
+	 * balances of spilled budgets are merged sequentially instead of being loaded.
+	 *
+	 * @param other the other budget
+	 * @return {@code true} if both budgets are equal, else {@code false}
+	 */
+	public boolean equalsIncludingBalances(final Budget other) {
+		if (!equals(other)) {
+			return false;
+		}
 
-			if (otherValue.compareTo(BigDecimal.ZERO) != 0) {
-				final Balance thisBalance = getBalances().get(entry.getKey());
-				if (thisBalance != null && thisBalance.getValue().compareTo(otherValue) != 0) {
-					return false;
-				}
+		final AtomicBoolean equal = new AtomicBoolean(true);
+		Budgets.alignBalances(Arrays.asList(this, other), (account, balances) -> {
+			if (hasDifferentValues(balances)) {
+				equal.set(false);
 			}
-		}
-		return true;
+		});
+		return equal.get();
 	}
 
+	/**
+	 * Returns the balances of this budget. Balances of a spilled budget are read
+	 * from disk on each call and cannot be modified using the returned map. Use
+	 * {@link #streamBalances()} to iterate spilled balances without loading them.
+	 *
+	 * @return the balances by account
+	 */
 	public Map<Account, Balance> getBalances() {
+		if (balanceRun != null) {
+			final Map<Account, Balance> spilledBalances = new TreeMap<>();
+			try (Stream<Balance> stream = streamBalances()) {
+				stream.forEach(balance -> spilledBalances.put(balance.getAccount(), balance));
+			}
+			return unmodifiableMap(spilledBalances);
+		}
 		return modifiable ? balances : unmodifiableMap(balances);
 	}
 
+	/**
+	 * Streams the balances of this budget in order of their accounts. Balances of a
+	 * spilled budget are read sequentially instead of being loaded at once,
+	 * therefore the stream must be closed.
+	 *
+	 * @return the balances
+	 */
+	@PackagePrivate
+	@SuppressFBWarnings(value = "EXS_EXCEPTION_SOFTENING_NO_CONSTRAINTS",
+			justification = "spilled balances are accessed through interfaces without checked exceptions")
+	@SuppressWarnings("PMD.CloseResource")
+	Stream<Balance> streamBalances() {
+		if (balanceRun == null) {
+			return balances.values().stream();
+		}
+
+		final BalanceRun.Reader reader;
+		try {
+			reader = openBalanceRun();
+		} catch (final IOException e) {
+			throw new UncheckedIOException(e);
+		}
+		return StreamSupport.stream(Spliterators.spliteratorUnknownSize(reader, Spliterator.ORDERED), false)
+				.onClose(() -> {
+					try {
+						reader.close();
+					} catch (final IOException e) {
+						throw new UncheckedIOException(e);
+					}
+				});
+	}
+
+	/**
+	 * Determines if the balances of this budget have been spilled to disk.
+	 *
+	 * @return {@code true} if spilled, else {@code false}
+	 */
+	public boolean isSpilled() {
+		return balanceRun != null;
+	}
+
+	/**
+	 * Opens a reader for the spilled balances of this budget in order of their
+	 * accounts. The reader must be closed.
+	 *
+	 * @return the reader
+	 * @throws IOException on IO error
+	 */
+	@PackagePrivate
+	BalanceRun.Reader openBalanceRun() throws IOException {
+		return Nullables.orElseThrow(balanceRun).open(balanceRunFilter);
+	}
+
 	public Map<BudgetReference, String> getReferences() {
 		return unmodifiableMap(references);
 	}
 
+	public void putBalance(final Account account, final BigDecimal value) {
+		if (!modifiable || balanceRun != null) {
+			throw new UnsupportedOperationException();
+		}
+		balances.put(account, new Balance(account, value));
+	}
+
 	public int removeEmptyBalances() {
 		if (!modifiable) {
 			throw new UnsupportedOperationException();
 		}
+		if (balanceRun != null) {
+			final int count;
+			try (Stream<Balance> stream = streamBalances()) {
+				count = (int) stream.filter(Budget::isEmptyBalance).count();
+			}
+			balanceRunFilter = balanceRunFilter.and(balance -> !isEmptyBalance(balance));
+			return count;
+		}
 
 		int count = 0;
 		final Iterator<Balance> iterator = getBalances().values().iterator();
 		while (iterator.hasNext()) {
-			final Balance balance = iterator.next();
-			if (balance.getValue().compareTo(BigDecimal.ZERO) == 0) {
+			if (isEmptyBalance(iterator.next())) {
 				iterator.remove();
 				count += 1;
 			}
@@ -204,6 +519,71 @@ public final class Budget implements Comparable<Budget> {
 		return count;
 	}
 
+	/**
+	 * Removes the balances of {@code accounts}.
+	 *
+	 * @param accounts the accounts to remove, a sorted set comparing accounts using
+	 *                 their natural order
+	 */
+	@PackagePrivate
+	void removeAccounts(final Set<Account> accounts) {
+		removeAccounts(accounts::contains);
+	}
+
+	/**
+	 * Removes the balances of all accounts matching {@code predicate}.
+	 *
+	 * @param predicate the predicate of accounts to remove
+	 */
+	@PackagePrivate
+	void removeAccounts(final Predicate<Account> predicate) {
+		if (!modifiable) {
+			throw new UnsupportedOperationException();
+		}
+		if (balanceRun != null) {
+			balanceRunFilter = balanceRunFilter.and(balance -> !predicate.test(balance.getAccount()));
+		} else {
+			balances.keySet().removeIf(predicate);
+		}
+	}
+
+	/**
+	 * Splits the balances of this budget into one modifiable copy per key of
+	 * {@code keys}, using {@code classifier} to determine the key of each account.
+	 * Copies include the references of this budget and might be empty. Balances of
+	 * accounts with other keys are left out. Spilled balances are not read, but
+	 * filtered per copy instead.
+	 *
+	 * @param <K>        the key type
+	 * @param classifier function determining the key of an account
+	 * @param keys       the keys to create copies for
+	 * @return the copies by key in order of {@code keys}
+	 */
+	@PackagePrivate
+	@SuppressWarnings("PMD.AvoidInstantiatingObjectsInLoops")
+	<K> Map<K, Budget> partition(final Function<Account, K> classifier, final Collection<K> keys) {
+		final Map<K, Budget> parts = new LinkedHashMap<>(keys.size());
+		for (final K key : keys) {
+			final Budget part = new Budget(year, type, ranked);
+			part.references.putAll(references);
+			if (balanceRun != null) {
+				part.balanceRun = balanceRun;
+				part.balanceRunFilter
+						= balanceRunFilter.and(balance -> key.equals(classifier.apply(balance.getAccount())));
+			}
+			parts.put(key, part);
+		}
+		if (balanceRun == null) {
+			for (final Balance balance : balances.values()) {
+				final Budget part = parts.get(classifier.apply(balance.getAccount()));
+				if (part != null) {
+					part.balances.put(balance.getAccount(), balance);
+				}
+			}
+		}
+		return parts;
+	}
+
 	public void setReferenceIfAbsent(final BudgetReference reference, final String value) {
 		if (!modifiable) {
 			throw new UnsupportedOperationException();
@@ -211,6 +591,39 @@ public final class Budget implements Comparable<Budget> {
 		references.putIfAbsent(reference, value);
 	}
 
+	/**
+	 * Writes the balances of this budget to a run inside {@code directory} and
+	 * releases them from memory. Spilling a spilled or ranked budget has no effect,
+	 * as runs are sorted by account.
+	 *
+	 * @param directory the directory to create the run file in
+	 * @throws IOException on IO error
+	 */
+	@PackagePrivate
+	void spill(final Path directory) throws IOException {
+		if (balanceRun == null && !ranked) {
+			balanceRun = BalanceRun.write(directory, balances.values());
+			balances.clear();
+		}
+	}
+
+	/**
+	 * Deletes the run holding the balances of this budget after spilling. Use this
+	 * for budgets replaced by others, as this budget and all of its copies are
+	 * empty afterwards. Deleting the run of a budget held in memory has no effect.
+	 *
+	 * @throws IOException on IO error
+	 */
+	@PackagePrivate
+	@SuppressWarnings("PMD.NullAssignment")
+	void deleteBalanceRun() throws IOException {
+		final BalanceRun run = balanceRun;
+		if (run != null) {
+			balanceRun = null;
+			run.delete();
+		}
+	}
+
 	public Budget unmodifiable() {
 		modifiable = false;
 		return this;
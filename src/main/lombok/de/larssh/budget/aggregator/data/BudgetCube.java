@@ -0,0 +1,244 @@
+package de.larssh.budget.aggregator.data;
+
+import static java.util.Collections.unmodifiableSet;
+
+import java.math.BigDecimal;
+import java.util.Collection;
+import java.util.EnumSet;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.stream.Stream;
+
+import de.larssh.budget.aggregator.stats.Phase;
+import de.larssh.budget.aggregator.stats.Statistics;
+import de.larssh.utils.annotations.PackagePrivate;
+import edu.umd.cs.findbugs.annotations.Nullable;
+import edu.umd.cs.findbugs.annotations.SuppressFBWarnings;
+import lombok.AccessLevel;
+import lombok.RequiredArgsConstructor;
+
+/**
+ * Sums of balances with the dimensions municipality, product, account type and
+ * budget, pre-aggregated at every level of these dimensions
+ *
+ * <p>
+ * The cube is built in one pass over the balances of all budgets. Each balance
+ * is added to the sums of all combinations of its dimension values and "any",
+ * so that any rollup, e.g. the expenses of a municipality per budget, is a
+ * single lookup afterwards.
+ *
+ * <p>
+ * Budgets of relative values, see {@link BudgetType#isPercentage()}, cannot be
+ * summed up and are left out. Budgets are distinguished by identity, just like
+ * the columns of the output, as budgets of the same type and year might differ
+ * in their balances.
+ *
+ * <p>
+ * Products are distinguished by municipality, ID and description, just like the
+ * rows of the products sheet, while {@link Product#equals(Object)} ignores the
+ * description.
+ */
+@RequiredArgsConstructor(access = AccessLevel.PRIVATE)
+public final class BudgetCube {
+	/**
+	 * Creates a cube of the balances of {@code budgets}. Balances of spilled
+	 * budgets are read once and sequentially, without loading them at once.
+	 *
+	 * @param budgets the budgets
+	 * @return the cube
+	 */
+	@SuppressWarnings("PMD.ShortMethodName")
+	public static BudgetCube of(final Collection<Budget> budgets) {
+		try (Phase phase = Statistics.start("cube")) {
+			final BudgetCube cube = new BudgetCube();
+			for (final Budget budget : budgets) {
+				if (!budget.getType().isPercentage()) {
+					try (Stream<Balance> balances = budget.streamBalances()) {
+						balances.forEach(balance -> cube.add(budget, balance));
+					}
+				}
+			}
+			phase.produced(budgets);
+			return cube;
+		}
+	}
+
+	Map<Coordinates, BigDecimal> sums = new HashMap<>();
+
+	Set<Municipality> municipalities = new TreeSet<>();
+
+	Set<Product> products = new TreeSet<>();
+
+	Set<AccountType> accountTypes = EnumSet.noneOf(AccountType.class);
+
+	private void add(final Budget budget, final Balance balance) {
+		final Product product = balance.getAccount().getProduct();
+		final AccountType accountType = balance.getAccount().getType();
+		municipalities.add(product.getMunicipality());
+		products.add(product);
+		accountTypes.add(accountType);
+
+		add(null, null, product, balance.getValue());
+		add(null, accountType, product, balance.getValue());
+		add(budget, null, product, balance.getValue());
+		add(budget, accountType, product, balance.getValue());
+	}
+
+	/**
+	 * Adds {@code value} to the sums of {@code product}, its municipality and all
+	 * municipalities at the given budget and account type level. Sums of a product
+	 * are not stored per municipality again, as a product determines its
+	 * municipality.
+	 *
+	 * @param budget      the budget or {@code null} for any budget
+	 * @param accountType the account type or {@code null} for any account type
+	 * @param product     the product
+	 * @param value       the value to add
+	 */
+	private void add(@Nullable final Budget budget,
+			@Nullable final AccountType accountType,
+			final Product product,
+			final BigDecimal value) {
+		add(new Coordinates(null, null, accountType, budget), value);
+		add(new Coordinates(product.getMunicipality(), null, accountType, budget), value);
+		add(new Coordinates(null, product, accountType, budget), value);
+	}
+
+	private void add(final Coordinates coordinates, final BigDecimal value) {
+		sums.merge(coordinates, value, BigDecimal::add);
+	}
+
+	/**
+	 * Municipalities with at least one balance, in natural order
+	 *
+	 * @return the municipalities
+	 */
+	public Set<Municipality> getMunicipalities() {
+		return unmodifiableSet(municipalities);
+	}
+
+	/**
+	 * Products with at least one balance, in natural order
+	 *
+	 * @return the products
+	 */
+	public Set<Product> getProducts() {
+		return unmodifiableSet(products);
+	}
+
+	/**
+	 * Account types with at least one balance, in declaration order
+	 *
+	 * @return the account types
+	 */
+	public Set<AccountType> getAccountTypes() {
+		return unmodifiableSet(accountTypes);
+	}
+
+	/**
+	 * Sums up the balances matching all given dimension values. Empty dimension
+	 * values match any value of their dimension.
+	 *
+	 * @param municipality the municipality
+	 * @param product      the product
+	 * @param accountType  the account type
+	 * @param budget       the budget
+	 * @return the sum of the matching balances or zero if none match
+	 */
+	public BigDecimal getSum(final Optional<Municipality> municipality,
+			final Optional<Product> product,
+			final Optional<AccountType> accountType,
+			final Optional<Budget> budget) {
+		if (product.isPresent()) {
+			if (municipality.isPresent() && !municipality.get().equals(product.get().getMunicipality())) {
+				return BigDecimal.ZERO;
+			}
+			return get(new Coordinates(null, product.get(), accountType, budget));
+		}
+		return get(new Coordinates(municipality.orElse(null), null, accountType, budget));
+	}
+
+	/**
+	 * Sums up the balances of {@code product} inside {@code budget}.
+	 *
+	 * @param product the product
+	 * @param budget  the budget
+	 * @return the sum of the matching balances or zero if none match
+	 */
+	public BigDecimal getSum(final Product product, final Budget budget) {
+		return get(new Coordinates(null, product, Optional.empty(), Optional.of(budget)));
+	}
+
+	/**
+	 * Sums up all balances of {@code budget}.
+	 *
+	 * @param budget the budget
+	 * @return the sum of the balances of {@code budget}
+	 */
+	public BigDecimal getSum(final Budget budget) {
+		return get(new Coordinates(null, null, Optional.empty(), Optional.of(budget)));
+	}
+
+	private BigDecimal get(final Coordinates coordinates) {
+		final BigDecimal sum = sums.get(coordinates);
+		return sum == null ? BigDecimal.ZERO : sum;
+	}
+
+	/**
+	 * Position inside the cube. {@code null} values stand for "any".
+	 */
+	@RequiredArgsConstructor(access = AccessLevel.PACKAGE)
+	private static final class Coordinates {
+		@Nullable
+		Municipality municipality;
+
+		@Nullable
+		Product product;
+
+		@Nullable
+		AccountType accountType;
+
+		@Nullable
+		Budget budget;
+
+		@PackagePrivate
+		Coordinates(@Nullable final Municipality municipality,
+				@Nullable final Product product,
+				final Optional<AccountType> accountType,
+				final Optional<Budget> budget) {
+			this(municipality, product, accountType.orElse(null), budget.orElse(null));
+		}
+
+		@Override
+		public int hashCode() {
+			return Objects.hash(municipality,
+					product,
+					product == null ? null : product.getDescription(),
+					accountType,
+					System.identityHashCode(budget));
+		}
+
+		@Override
+		@SuppressFBWarnings(value = "NP_METHOD_PARAMETER_TIGHTENS_ANNOTATION",
+				justification = "false-positive, the parameter is nullable")
+		public boolean equals(@Nullable final Object object) {
+			if (this == object) {
+				return true;
+			}
+			if (!(object instanceof Coordinates)) {
+				return false;
+			}
+			final Coordinates other = (Coordinates) object;
+			return accountType == other.accountType
+					&& budget == other.budget
+					&& Objects.equals(municipality, other.municipality)
+					&& (product == null
+							? other.product == null
+							: other.product != null && product.compareTo(other.product) == 0);
+		}
+	}
+}
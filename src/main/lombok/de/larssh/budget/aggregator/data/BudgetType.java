@@ -11,6 +11,8 @@ import java.util.Map;
 import java.util.Set;
 
 import de.larssh.budget.aggregator.utils.Comparators;
+import de.larssh.utils.Finals;
+import de.larssh.utils.annotations.PackagePrivate;
 import de.larssh.utils.text.Strings;
 import edu.umd.cs.findbugs.annotations.Nullable;
 import edu.umd.cs.findbugs.annotations.SuppressFBWarnings;
@@ -25,6 +27,13 @@ import lombok.ToString;
 @EqualsAndHashCode(onlyExplicitlyIncluded = true)
 @RequiredArgsConstructor(access = AccessLevel.PRIVATE)
 public final class BudgetType implements Comparable<BudgetType> {
+	/**
+	 * Name prefix of budget types holding relative values, e.g. percentage
+	 * variances
+	 */
+	@PackagePrivate
+	static final String NAME_PREFIX_PERCENTAGE = Finals.constant("Abweichung % ");
+
 	private static final Map<String, BudgetType> CACHE = synchronizedMap(new HashMap<>());
 
 	private static final BudgetType IST = of("Ist");
@@ -67,6 +76,18 @@ public final class BudgetType implements Comparable<BudgetType> {
 	@EqualsAndHashCode.Include
 	String name;
 
+	/**
+	 * Determines if balances of this budget type are relative values instead of
+	 * amounts, e.g. {@code 0.25} for 25 percent. Relative values cannot be summed
+	 * up.
+	 *
+	 * @return {@code true} if balances are relative values, else {@code false}
+	 */
+	@SuppressFBWarnings(value = "STT_STRING_PARSING_A_FIELD", justification = "budget types consist of their name only")
+	public boolean isPercentage() {
+		return name.startsWith(NAME_PREFIX_PERCENTAGE);
+	}
+
 	@Override
 	public int compareTo(@Nullable final BudgetType other) {
 		return COMPARATOR.compare(this, other);
@@ -0,0 +1,290 @@
+package de.larssh.budget.aggregator.data;
+
+import static java.util.Collections.emptyList;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.Queue;
+
+import lombok.AccessLevel;
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+import lombok.ToString;
+
+/**
+ * Variance between two budgets, e.g. plan versus actual ({@code Ist 2024} minus
+ * {@code Plan 2024}) or year over year ({@code Ist 2024} minus
+ * {@code Ist 2023})
+ *
+ * <p>
+ * Variances are computed as two additional budgets of the year of the minuend:
+ * the absolute difference and the difference relative to the absolute value of
+ * the subtrahend. Multiple budgets of the same type and year, e.g. of multiple
+ * municipalities, are combined first, preferring the balances of earlier
+ * budgets.
+ */
+@Getter
+@ToString
+@EqualsAndHashCode
+@RequiredArgsConstructor
+@SuppressWarnings("PMD.GodClass")
+public final class BudgetVariance {
+	private static final String NAME_PREFIX = "Abweichung ";
+
+	/**
+	 * Number of decimal places of relative variances
+	 */
+	private static final int PERCENTAGE_SCALE = 6;
+
+	/**
+	 * Orders deviations ascending by rank, so that the head of a heap is the
+	 * smallest deviation. Equally ranked deviations prefer lower accounts.
+	 */
+	private static final Comparator<Deviation> DEVIATION_COMPARATOR
+			= Comparator.comparing(Deviation::getRank).thenComparing(Deviation::getAccount, Comparator.reverseOrder());
+
+	private static List<Budget> getBudgets(final Collection<Budget> budgets, final BudgetType type, final int year) {
+		final List<Budget> matches = new ArrayList<>();
+		for (final Budget budget : budgets) {
+			if (budget.getYear() == year && budget.getType().equals(type)) {
+				matches.add(budget);
+			}
+		}
+		return matches;
+	}
+
+	/**
+	 * Value of the first balance of {@code balances} from index {@code start}
+	 * (inclusive) to {@code end} (exclusive)
+	 *
+	 * @param balances the aligned balances, {@code null} for missing balances
+	 * @param start    the first index
+	 * @param end      the index after the last index
+	 * @return the first value or zero if there is no balance in range
+	 */
+	private static BigDecimal getFirstValue(final Balance[] balances, final int start, final int end) {
+		for (int index = start; index < end; index += 1) {
+			if (balances[index] != null) {
+				return balances[index].getValue();
+			}
+		}
+		return BigDecimal.ZERO;
+	}
+
+	/**
+	 * Adds the deviation of {@code account} to {@code deviations} if it is one of
+	 * the {@code limit} largest by {@code order}. The deviation is not created at
+	 * all if it is smaller than the smallest deviation of a full heap.
+	 *
+	 * @param deviations the heap of the largest deviations
+	 * @param limit      the maximum size of {@code deviations}
+	 * @param order      the measure to rank deviations by
+	 * @param account    the account
+	 * @param minuend    the minuend value
+	 * @param subtrahend the subtrahend value
+	 */
+	@SuppressWarnings("checkstyle:ParameterNumber")
+	private static void offer(final Queue<Deviation> deviations,
+			final int limit,
+			final DeviationOrder order,
+			final Account account,
+			final BigDecimal minuend,
+			final BigDecimal subtrahend) {
+		final BigDecimal difference = minuend.subtract(subtrahend).abs();
+		final BigDecimal rank;
+		if (order == DeviationOrder.ABSOLUTE) {
+			rank = difference;
+		} else if (subtrahend.signum() == 0) {
+			return;
+		} else {
+			rank = difference.divide(subtrahend.abs(), PERCENTAGE_SCALE, RoundingMode.HALF_EVEN);
+		}
+
+		final Deviation smallest = deviations.peek();
+		if (deviations.size() < limit || smallest != null && rank.compareTo(smallest.getRank()) > 0) {
+			deviations.add(new Deviation(account, minuend, subtrahend, rank));
+			if (deviations.size() > limit) {
+				deviations.remove();
+			}
+		}
+	}
+
+	private static void putVariance(final Budget absolute,
+			final Budget percentage,
+			final Account account,
+			final BigDecimal minuend,
+			final BigDecimal subtrahend) {
+		final BigDecimal difference = minuend.subtract(subtrahend);
+		absolute.putBalance(account, difference);
+		if (subtrahend.signum() != 0) {
+			percentage.putBalance(account,
+					difference.divide(subtrahend.abs(), PERCENTAGE_SCALE, RoundingMode.HALF_EVEN));
+		}
+	}
+
+	BudgetType minuendType;
+
+	int minuendYear;
+
+	BudgetType subtrahendType;
+
+	int subtrahendYear;
+
+	/**
+	 * Computes the variance budgets of {@code budgets}.
+	 *
+	 * <p>
+	 * The balances of minuend and subtrahend budgets are merged in order of their
+	 * accounts, reading the runs of spilled budgets sequentially instead of loading
+	 * them, so that both variances are computed in a single pass. Relative
+	 * variances of accounts without subtrahend or with a subtrahend of zero are
+	 * left out.
+	 *
+	 * @param budgets the budgets to compute the variance of
+	 * @return the absolute and the relative variance budget or an empty list if the
+	 *         minuend or the subtrahend budget does not exist
+	 */
+	public List<Budget> apply(final Collection<Budget> budgets) {
+		final List<Budget> aligned = getBudgets(budgets, minuendType, minuendYear);
+		final int minuends = aligned.size();
+		aligned.addAll(getBudgets(budgets, subtrahendType, subtrahendYear));
+		if (minuends == 0 || minuends == aligned.size()) {
+			return emptyList();
+		}
+
+		final Budget absolute = Budget.of(minuendYear, getAbsoluteType());
+		final Budget percentage = Budget.of(minuendYear, getPercentageType());
+		Budgets.alignBalances(aligned,
+				(account, balances) -> putVariance(absolute,
+						percentage,
+						account,
+						getFirstValue(balances, 0, minuends),
+						getFirstValue(balances, minuends, balances.length)));
+		return Arrays.asList(absolute, percentage);
+	}
+
+	/**
+	 * Computes a report of the {@code limit} accounts of {@code budgets} with the
+	 * largest deviations by {@code order}.
+	 *
+	 * <p>
+	 * The balances of minuend and subtrahend budgets are merged in order of their
+	 * accounts in a single pass, reading the runs of spilled budgets sequentially
+	 * instead of loading them. The largest deviations are kept inside a heap
+	 * bounded to {@code limit}, so that no memory is allocated per account apart
+	 * from the balances of budgets held in memory anyway.
+	 *
+	 * <p>
+	 * The reported budgets are ranked, see {@link Budget#isRanked()}, so that their
+	 * accounts are in order of descending deviation.
+	 *
+	 * @param budgets the budgets to compute the deviations of
+	 * @param limit   the maximum number of accounts to report
+	 * @param order   the measure to rank deviations by
+	 * @return the minuend, the subtrahend, the absolute and the relative variance
+	 *         budget, each restricted to the reported accounts, or an empty list if
+	 *         the minuend or the subtrahend budget does not exist
+	 */
+	public List<Budget> top(final Collection<Budget> budgets, final int limit, final DeviationOrder order) {
+		final List<Budget> aligned = getBudgets(budgets, minuendType, minuendYear);
+		final int minuends = aligned.size();
+		aligned.addAll(getBudgets(budgets, subtrahendType, subtrahendYear));
+		if (minuends == 0 || minuends == aligned.size() || limit < 1) {
+			return emptyList();
+		}
+
+		// Rank
+		final Queue<Deviation> deviations = new PriorityQueue<>(limit + 1, DEVIATION_COMPARATOR);
+		Budgets.alignBalances(aligned,
+				(account, balances) -> offer(deviations,
+						limit,
+						order,
+						account,
+						getFirstValue(balances, 0, minuends),
+						getFirstValue(balances, minuends, balances.length)));
+
+		// Report (the heap drains ascending by rank)
+		final List<Deviation> ranking = new ArrayList<>(deviations.size());
+		while (!deviations.isEmpty()) {
+			ranking.add(deviations.remove());
+		}
+		Collections.reverse(ranking);
+
+		final Budget minuend = Budget.ofRanked(minuendYear, minuendType);
+		final Budget subtrahend = Budget.ofRanked(subtrahendYear, subtrahendType);
+		final Budget absolute = Budget.ofRanked(minuendYear, getAbsoluteType());
+		final Budget percentage = Budget.ofRanked(minuendYear, getPercentageType());
+		for (final Deviation deviation : ranking) {
+			minuend.putBalance(deviation.getAccount(), deviation.getMinuend());
+			subtrahend.putBalance(deviation.getAccount(), deviation.getSubtrahend());
+			putVariance(absolute,
+					percentage,
+					deviation.getAccount(),
+					deviation.getMinuend(),
+					deviation.getSubtrahend());
+		}
+		return Arrays.asList(minuend, subtrahend, absolute, percentage);
+	}
+
+	/**
+	 * Names the minuend and subtrahend budgets missing in {@code budgets}, e.g. due
+	 * to a typo or a filter.
+	 *
+	 * @param budgets the budgets to compute the variance of
+	 * @return the names of the missing budgets, e.g. {@code Plan 2024}, or an empty
+	 *         list if both exist
+	 */
+	public List<String> getMissingBudgets(final Collection<Budget> budgets) {
+		final List<String> missing = new ArrayList<>(2);
+		if (getBudgets(budgets, minuendType, minuendYear).isEmpty()) {
+			missing.add(minuendType.getName() + ' ' + minuendYear);
+		}
+		if (getBudgets(budgets, subtrahendType, subtrahendYear).isEmpty()) {
+			missing.add(subtrahendType.getName() + ' ' + subtrahendYear);
+		}
+		return missing;
+	}
+
+	private BudgetType getAbsoluteType() {
+		return BudgetType.of(NAME_PREFIX + getName());
+	}
+
+	private BudgetType getPercentageType() {
+		return BudgetType.of(BudgetType.NAME_PREFIX_PERCENTAGE + getName());
+	}
+
+	/**
+	 * Name of this variance without prefix and minuend year, e.g. {@code Ist/Plan}
+	 * or {@code Ist/Ist 2023}
+	 *
+	 * @return the name
+	 */
+	private String getName() {
+		final String name = minuendType.getName() + '/' + subtrahendType.getName();
+		return minuendYear == subtrahendYear ? name : name + ' ' + subtrahendYear;
+	}
+
+	/**
+	 * Deviation of one account, ranked by a {@link DeviationOrder}
+	 */
+	@Getter
+	@RequiredArgsConstructor(access = AccessLevel.PRIVATE)
+	@SuppressWarnings("PMD.DataClass")
+	private static final class Deviation {
+		Account account;
+
+		BigDecimal minuend;
+
+		BigDecimal subtrahend;
+
+		BigDecimal rank;
+	}
+}
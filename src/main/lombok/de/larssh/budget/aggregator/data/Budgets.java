@@ -3,38 +3,225 @@ package de.larssh.budget.aggregator.data;
 import static java.util.stream.Collectors.toCollection;
 import static java.util.stream.Collectors.toSet;
 
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.math.BigDecimal;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.OptionalInt;
+import java.util.PriorityQueue;
+import java.util.Queue;
 import java.util.Set;
 import java.util.TreeSet;
+import java.util.function.BiConsumer;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
 
+import de.larssh.budget.aggregator.sheets.Row;
 import de.larssh.budget.aggregator.sheets.Sheet;
+import de.larssh.budget.aggregator.sheets.SheetFilter;
 import de.larssh.budget.aggregator.sheets.SheetsFile;
+import de.larssh.budget.aggregator.sheets.csv.CsvFiles;
+import de.larssh.budget.aggregator.stats.Phase;
+import de.larssh.budget.aggregator.stats.Statistics;
+import de.larssh.utils.Nullables;
+import de.larssh.utils.annotations.PackagePrivate;
+import de.larssh.utils.text.Patterns;
 import de.larssh.utils.text.StringParseException;
+import edu.umd.cs.findbugs.annotations.Nullable;
+import edu.umd.cs.findbugs.annotations.SuppressFBWarnings;
+import lombok.AccessLevel;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.experimental.NonFinal;
 import lombok.experimental.UtilityClass;
 
 @UtilityClass
+@SuppressWarnings({ "PMD.CouplingBetweenObjects", "PMD.ExcessiveImports", "PMD.GodClass" })
 public class Budgets {
+	/**
+	 * Whole numbers as written by spreadsheet applications, e.g. {@code 2024} or
+	 * {@code 2024.0}
+	 */
+	private static final Pattern BUDGET_YEAR_PATTERN = Pattern.compile("^\\s*(\\d{1,9})(\\.0*)?\\s*$");
+
+	/**
+	 * Collects the accounts of {@code budgets} in their natural order. Accounts of
+	 * ranked budgets, see {@link Budget#isRanked()}, keep their order of insertion
+	 * instead.
+	 *
+	 * @param budgets the budgets
+	 * @return the distinct accounts
+	 */
 	public static Set<Account> getAccounts(final Collection<Budget> budgets) {
+		if (isAnySpilled(budgets)) {
+			final Set<Account> accounts = new TreeSet<>();
+			mergeBalances(budgets, (account, balances) -> accounts.add(account));
+			return accounts;
+		}
 		return budgets.stream()
 				.flatMap(budget -> budget.getBalances().keySet().stream())
-				.collect(toCollection(TreeSet::new));
+				.collect(toCollection(budgets.stream().anyMatch(Budget::isRanked) ? LinkedHashSet::new : TreeSet::new));
 	}
 
+	@SuppressFBWarnings(value = "OPM_OVERLY_PERMISSIVE_METHOD", justification = "API method")
 	public static Set<Product> getProducts(final Collection<Budget> budgets) {
+		if (isAnySpilled(budgets)) {
+			final Set<Product> products = new TreeSet<>();
+			mergeBalances(budgets, (account, balances) -> products.add(account.getProduct()));
+			return products;
+		}
 		return budgets.stream()
 				.flatMap(budget -> budget.getBalances().keySet().stream())
 				.map(Account::getProduct)
 				.collect(toCollection(TreeSet::new));
 	}
 
+	/**
+	 * Partitions {@code budgets} by municipality. Each partition contains one
+	 * modifiable copy of each budget, restricted to the balances of its
+	 * municipality and possibly empty, so partitions can be hidden, sorted and
+	 * written independently of each other.
+	 *
+	 * @param budgets the budgets to partition
+	 * @return the partitions in order of their municipalities, each in order of
+	 *         {@code budgets}
+	 */
+	@SuppressWarnings("PMD.AvoidInstantiatingObjectsInLoops")
+	public static Map<Municipality, List<Budget>> partitionByMunicipality(final Collection<Budget> budgets) {
+		final Set<Municipality> municipalities
+				= getProducts(budgets).stream().map(Product::getMunicipality).collect(toCollection(TreeSet::new));
+
+		final Map<Municipality, List<Budget>> partitions = new LinkedHashMap<>(municipalities.size());
+		for (final Municipality municipality : municipalities) {
+			partitions.put(municipality, new ArrayList<>(budgets.size()));
+		}
+		for (final Budget budget : budgets) {
+			budget.partition(account -> account.getProduct().getMunicipality(), municipalities)
+					.forEach((municipality, part) -> partitions.get(municipality).add(part));
+		}
+		return partitions;
+	}
+
+	private static boolean isAnySpilled(final Collection<Budget> budgets) {
+		return budgets.stream().anyMatch(Budget::isSpilled);
+	}
+
+	/**
+	 * Merges the balances of {@code budgets} in order of their accounts, reading
+	 * the runs of spilled budgets sequentially instead of loading them at once.
+	 * {@code consumer} is called once per account with the balances of all budgets
+	 * containing it.
+	 *
+	 * @param budgets  the budgets to merge
+	 * @param consumer consumer of each account and its balances
+	 */
+	private static void mergeBalances(final Collection<Budget> budgets,
+			final BiConsumer<Account, List<Balance>> consumer) {
+		final List<Balance> balances = new ArrayList<>(budgets.size());
+		alignBalances(budgets, (account, aligned) -> {
+			balances.clear();
+			for (final Balance balance : aligned) {
+				if (balance != null) {
+					balances.add(balance);
+				}
+			}
+			consumer.accept(account, balances);
+		});
+	}
+
+	/**
+	 * Aligns the balances of {@code budgets} in order of their accounts, reading
+	 * the runs of spilled budgets sequentially instead of loading them at once.
+	 * {@code consumer} is called once per account with the balance of each budget
+	 * at the position of the budget inside {@code budgets} or {@code null} if the
+	 * budget does not contain the account. The array is reused between calls.
+	 *
+	 * @param budgets  the budgets to align
+	 * @param consumer consumer of each account and its aligned balances
+	 */
+	@SuppressFBWarnings(value = "EXS_EXCEPTION_SOFTENING_NO_CONSTRAINTS",
+			justification = "spilled balances are accessed through interfaces without checked exceptions")
+	@SuppressWarnings("PMD.CloseResource")
+	static void alignBalances(final Collection<Budget> budgets, final BiConsumer<Account, Balance[]> consumer) {
+		final List<Closeable> readers = new ArrayList<>();
+		try {
+			final Queue<BalanceCursor> queue = new PriorityQueue<>(Math.max(1, budgets.size()));
+			int index = 0;
+			for (final Budget budget : budgets) {
+				final Iterator<Balance> iterator;
+				if (budget.isSpilled()) {
+					final BalanceRun.Reader reader = budget.openBalanceRun();
+					readers.add(reader);
+					iterator = reader;
+				} else {
+					iterator = budget.getBalances().values().iterator();
+				}
+				BalanceCursor.of(iterator, index).ifPresent(queue::add);
+				index += 1;
+			}
+
+			final Balance[] balances = new Balance[budgets.size()];
+			while (!queue.isEmpty()) {
+				final Account account = queue.peek().getHead().getAccount();
+				Arrays.fill(balances, null);
+				while (!queue.isEmpty() && queue.peek().getHead().getAccount().compareTo(account) == 0) {
+					final BalanceCursor cursor = queue.poll();
+					balances[cursor.getIndex()] = cursor.getHead();
+					if (cursor.advance()) {
+						queue.add(cursor);
+					}
+				}
+				consumer.accept(account, balances);
+			}
+		} catch (final IOException e) {
+			throw new UncheckedIOException(e);
+		} finally {
+			closeAll(readers);
+		}
+	}
+
+	@SuppressFBWarnings(value = "EXS_EXCEPTION_SOFTENING_NO_CONSTRAINTS",
+			justification = "spilled balances are accessed through interfaces without checked exceptions")
+	@SuppressWarnings("PMD.CloseResource")
+	private static void closeAll(final Collection<Closeable> closeables) {
+		for (final Closeable closeable : closeables) {
+			try {
+				closeable.close();
+			} catch (final IOException e) {
+				throw new UncheckedIOException(e);
+			}
+		}
+	}
+
 	@SuppressWarnings("PMD.ShortMethodName")
-	public static List<Budget> of(final SheetsFile sheetsFile) throws StringParseException {
+	public static List<Budget> of(final SheetsFile sheetsFile, final ParseContext context) throws StringParseException {
+		try (Phase phase = Statistics.start("budgets", sheetsFile.getFileName())) {
+			final List<Budget> budgets = ofSheets(sheetsFile, context);
+			phase.produced(budgets);
+			return budgets;
+		}
+	}
+
+	private static List<Budget> ofSheets(final SheetsFile sheetsFile, final ParseContext context)
+			throws StringParseException {
 		final List<Budget> budgets = new ArrayList<>();
 		for (final Sheet sheet : sheetsFile.getSheets()) {
-			final Set<Budget> budget = Budget.of(sheet);
+			final Set<Budget> budget;
+			try (Phase phase = Statistics.start("sheet", sheetsFile.getFileName())) {
+				phase.recordSheet(sheet.getName(), sheet.getHeader().size());
+				budget = Budget.of(sheet, context);
+				phase.produced(budget);
+			}
 			budgets.addAll(budget);
 
 			// Add References
@@ -45,6 +232,97 @@ public class Budgets {
 		return budgets;
 	}
 
+	/**
+	 * Lists the budgets of {@code sheetsFile} based on the headers of its sheets,
+	 * see {@link Budget#ofHeader(List, Collection)}. Rows are iterated only to
+	 * collect the values of the budget year column if required by a header.
+	 *
+	 * @param sheetsFile the sheets file
+	 * @return the empty budgets in order of their sheets and columns
+	 */
+	@SuppressWarnings("PMD.AvoidInstantiatingObjectsInLoops")
+	public static List<Budget> ofHeaders(final SheetsFile sheetsFile) {
+		final List<Budget> budgets = new ArrayList<>();
+		for (final Sheet sheet : sheetsFile.getSheets()) {
+			final Set<Integer> budgetYears = new TreeSet<>();
+			if (Budget.isBudgetYearRequired(sheet.getHeader())) {
+				for (final Row row : sheet.getRows()) {
+					parseBudgetYear(row.get(CsvFiles.COLUMN_NAME_BUDGET_YEAR).orElse(null)).ifPresent(budgetYears::add);
+				}
+			}
+			budgets.addAll(ofHeader(sheetsFile.getFileName(), sheet.getName(), sheet.getHeader(), budgetYears));
+		}
+		return budgets;
+	}
+
+	/**
+	 * Lists the budgets of a sheet based on its header, see
+	 * {@link Budget#ofHeader(List, Collection)}, referencing its file and sheet
+	 * name.
+	 *
+	 * @param fileName    the file name
+	 * @param sheetName   the sheet name
+	 * @param header      the header of the sheet
+	 * @param budgetYears the distinct values of the budget year column
+	 * @return the empty budgets in order of their columns
+	 */
+	public static List<Budget> ofHeader(final Optional<String> fileName,
+			final Optional<String> sheetName,
+			final List<String> header,
+			final Collection<Integer> budgetYears) {
+		final Set<Budget> budgets = Budget.ofHeader(header, budgetYears);
+		fileName.ifPresent(value -> setReferenceIfAbsent(budgets, BudgetReference.FILE_NAME, value));
+		sheetName.ifPresent(value -> setReferenceIfAbsent(budgets, BudgetReference.SHEET, value));
+		return new ArrayList<>(budgets);
+	}
+
+	/**
+	 * Parses a value of the budget year column. Values other than whole numbers,
+	 * e.g. inside rows of sums, are skipped.
+	 *
+	 * @param value the cell value or {@code null}
+	 * @return the budget year or empty if {@code value} is no budget year
+	 */
+	public static OptionalInt parseBudgetYear(@Nullable final String value) {
+		if (value == null) {
+			return OptionalInt.empty();
+		}
+		final Optional<Matcher> matcher = Patterns.matches(BUDGET_YEAR_PATTERN, value);
+		return matcher.isPresent() ? OptionalInt.of(Integer.parseInt(matcher.get().group(1))) : OptionalInt.empty();
+	}
+
+	/**
+	 * Removes the balances of all accounts not matching {@code filter}. Use this
+	 * for budgets read without pushing down {@code filter}, e.g. out of a cache.
+	 *
+	 * @param budgets the budgets to modify
+	 * @param filter  the filter
+	 */
+	public static void removeAccounts(final Collection<Budget> budgets, final AccountFilter filter) {
+		if (!filter.isAll()) {
+			for (final Budget budget : budgets) {
+				budget.removeAccounts(account -> !filter.test(account));
+			}
+		}
+	}
+
+	/**
+	 * Removes all budgets read out of sheets not matching {@code filter}, based on
+	 * their sheet reference. Budgets without sheet reference are kept. Use this for
+	 * budgets read without pushing down {@code filter}, e.g. out of a cache.
+	 *
+	 * @param budgets the budgets to modify
+	 * @param filter  the filter
+	 */
+	public static void removeSheets(final Collection<Budget> budgets, final SheetFilter filter) {
+		if (!filter.isAll()) {
+			budgets.removeIf(budget -> {
+				final String sheetName = budget.getReferences().get(BudgetReference.SHEET);
+				return sheetName != null && !filter.test(sheetName);
+			});
+		}
+	}
+
 	public static void removeDuplicateBudgets(final List<Budget> budgets) {
 		// Prerequisite: budgets must be sorted!
 		for (int index = budgets.size() - 1; index > 0; index -= 1) {
@@ -56,6 +334,19 @@ public class Budgets {
 	}
 
 	public static void removeEmptyAccounts(final Collection<Budget> budgets) {
+		if (isAnySpilled(budgets)) {
+			final Set<Account> emptyAccounts = new TreeSet<>();
+			mergeBalances(budgets, (account, balances) -> {
+				if (balances.stream().allMatch(balance -> balance.getValue().compareTo(BigDecimal.ZERO) == 0)) {
+					emptyAccounts.add(account);
+				}
+			});
+			for (final Budget budget : budgets) {
+				budget.removeAccounts(emptyAccounts);
+			}
+			return;
+		}
+
 		// Get all accounts
 		final Set<Account> accounts = budgets.stream() //
 				.flatMap(budget -> budget.getBalances().keySet().stream())
@@ -77,10 +368,13 @@ public class Budgets {
 	}
 
 	public static void removeEmptyBudgets(final Collection<Budget> budgets) {
-		budgets.removeIf(budget -> budget.getBalances()
-				.values()
-				.stream()
-				.allMatch(balance -> balance.getValue().compareTo(BigDecimal.ZERO) == 0));
+		budgets.removeIf(Budgets::isEmptyBudget);
+	}
+
+	private static boolean isEmptyBudget(final Budget budget) {
+		try (Stream<Balance> balances = budget.streamBalances()) {
+			return balances.allMatch(balance -> balance.getValue().compareTo(BigDecimal.ZERO) == 0);
+		}
 	}
 
 	private static void setReferenceIfAbsent(final Set<Budget> budgets,
@@ -90,4 +384,51 @@ public class Budgets {
 			budget.setReferenceIfAbsent(reference, value);
 		}
 	}
+
+	/**
+	 * Position inside the sorted balances of a budget while merging
+	 */
+	@Getter
+	@AllArgsConstructor(access = AccessLevel.PRIVATE)
+	private static final class BalanceCursor implements Comparable<BalanceCursor> {
+		@PackagePrivate
+		@SuppressWarnings("PMD.ShortMethodName")
+		static Optional<BalanceCursor> of(final Iterator<Balance> iterator, final int index) {
+			return iterator.hasNext()
+					? Optional.of(new BalanceCursor(iterator, index, iterator.next()))
+					: Optional.empty();
+		}
+
+		@Getter(AccessLevel.NONE)
+		Iterator<Balance> iterator;
+
+		/**
+		 * Position of the budget inside the merged budgets
+		 */
+		int index;
+
+		@NonFinal
+		Balance head;
+
+		/**
+		 * Moves to the next balance.
+		 *
+		 * @return {@code true} if another balance is available, else {@code false}
+		 */
+		@PackagePrivate
+		boolean advance() {
+			if (!iterator.hasNext()) {
+				return false;
+			}
+			head = iterator.next();
+			return true;
+		}
+
+		@SuppressFBWarnings(value = "EQ_COMPARETO_USE_OBJECT_EQUALS",
+				justification = "cursors are compared by their head only to order the merge queue")
+		@Override
+		public int compareTo(@Nullable final BalanceCursor other) {
+			return head.getAccount().compareTo(Nullables.orElseThrow(other).head.getAccount());
+		}
+	}
 }
@@ -0,0 +1,72 @@
+package de.larssh.budget.aggregator.data;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import lombok.AccessLevel;
+import lombok.RequiredArgsConstructor;
+
+/**
+ * Run-scoped dictionary of product and account descriptions
+ *
+ * <p>
+ * The same few thousand descriptions repeat in every row of every year and
+ * municipality. Passed down using {@link ParseContext}, descriptions parsed out
+ * of sources, caches and snapshots are replaced by canonical instances, so each
+ * distinct description is retained once per run only.
+ *
+ * <p>
+ * Dictionaries are not thread-safe, therefore each run passes down its own
+ * dictionary.
+ */
+@RequiredArgsConstructor(access = AccessLevel.PRIVATE)
+public final class Descriptions {
+	/**
+	 * Dictionary keeping descriptions as they are
+	 */
+	public static final Descriptions NONE = new Descriptions(false);
+
+	/**
+	 * Creates a new, empty dictionary.
+	 *
+	 * @return the new dictionary
+	 */
+	public static Descriptions create() {
+		return new Descriptions(true);
+	}
+
+	/**
+	 * {@code true} to replace descriptions by canonical instances, {@code false} to
+	 * keep them as they are
+	 */
+	boolean canonicalize;
+
+	/**
+	 * Canonical instances of descriptions by themselves
+	 */
+	Map<String, String> canonicals = new HashMap<>();
+
+	/**
+	 * Returns the canonical instance of {@code description}, adding it to this
+	 * dictionary if missing.
+	 *
+	 * @param description the description
+	 * @return the canonical instance equal to {@code description}
+	 */
+	public String get(final String description) {
+		if (!canonicalize) {
+			return description;
+		}
+		final String canonical = canonicals.putIfAbsent(description, description);
+		return canonical == null ? description : canonical;
+	}
+
+	/**
+	 * Number of distinct descriptions inside this dictionary
+	 *
+	 * @return the number of distinct descriptions
+	 */
+	public int size() {
+		return canonicals.size();
+	}
+}
@@ -0,0 +1,18 @@
+package de.larssh.budget.aggregator.data;
+
+/**
+ * Measures to rank the deviations of a {@link BudgetVariance} by, see
+ * {@link BudgetVariance#top(java.util.Collection, int, DeviationOrder)}
+ */
+public enum DeviationOrder {
+	/**
+	 * Absolute value of the difference of minuend and subtrahend
+	 */
+	ABSOLUTE,
+
+	/**
+	 * Absolute value of the difference relative to the absolute value of the
+	 * subtrahend. Accounts with a subtrahend of zero are not ranked.
+	 */
+	RELATIVE;
+}
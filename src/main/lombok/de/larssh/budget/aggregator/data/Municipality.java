@@ -31,17 +31,22 @@ public final class Municipality implements Comparable<Municipality> {
 
 	private static final Comparator<Municipality> COMPARATOR = Comparator.comparingInt(Municipality::getId);
 
-	@PackagePrivate
 	@SuppressFBWarnings(value = "NAB_NEEDLESS_BOXING_VALUEOF",
 			justification = "false-positive, not boxing an int explicitly here")
 	@SuppressWarnings({ "PMD.ShortMethodName", "PMD.ShortVariable" })
+	public static Municipality of(final int id) {
+		return CACHE.computeIfAbsent(id, Municipality::new);
+	}
+
+	@PackagePrivate
+	@SuppressWarnings({ "PMD.ShortMethodName", "PMD.ShortVariable" })
 	static Optional<Municipality> of(final Row row) {
 		final Optional<String> id = row.get(CsvFiles.COLUMN_NAME_MUNICIPALITY);
 		if (!id.isPresent() || Strings.isBlank(id.get())) {
 			return Optional.empty();
 		}
 
-		return Optional.of(CACHE.computeIfAbsent(Integer.parseInt(id.get()), Municipality::new));
+		return Optional.of(of(Integer.parseInt(id.get())));
 	}
 
 	@EqualsAndHashCode.Include
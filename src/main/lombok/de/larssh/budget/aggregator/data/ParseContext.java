@@ -0,0 +1,68 @@
+package de.larssh.budget.aggregator.data;
+
+import de.larssh.budget.aggregator.sheets.SheetFilter;
+import lombok.AccessLevel;
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+import lombok.ToString;
+
+/**
+ * Context of reading sources, passed down to parsing
+ *
+ * <p>
+ * Workbooks skip sheets not matching the sheet filter before reading their
+ * header or any of their rows, and
+ * {@link Budget#of(de.larssh.budget.aggregator.sheets.Sheet, ParseContext)}
+ * skips rows not matching the account filter before reading any balance column.
+ * Descriptions are replaced by the canonical instances of the dictionary.
+ */
+@Getter
+@ToString
+@RequiredArgsConstructor(access = AccessLevel.PRIVATE)
+public final class ParseContext {
+	/**
+	 * Context reading all sheets and accounts, keeping descriptions as they are
+	 */
+	public static final ParseContext DEFAULT = new ParseContext(AccountFilter.ALL, SheetFilter.ALL, Descriptions.NONE);
+
+	/**
+	 * Creates a context of reading sources.
+	 *
+	 * @param accountFilter the filter of accounts to read
+	 * @param sheetFilter   the filter of sheets to read
+	 * @param descriptions  the dictionary of descriptions
+	 * @return the context
+	 */
+	@SuppressWarnings("PMD.ShortMethodName")
+	public static ParseContext of(final AccountFilter accountFilter,
+			final SheetFilter sheetFilter,
+			final Descriptions descriptions) {
+		return new ParseContext(accountFilter, sheetFilter, descriptions);
+	}
+
+	/**
+	 * The filter of accounts to read
+	 */
+	AccountFilter accountFilter;
+
+	/**
+	 * The filter of sheets to read
+	 */
+	SheetFilter sheetFilter;
+
+	/**
+	 * The dictionary of descriptions
+	 */
+	Descriptions descriptions;
+
+	/**
+	 * Creates a context reading all sheets and accounts, keeping the dictionary of
+	 * descriptions. Readers sharing or caching parsed sources must not depend on
+	 * the filters of the current reader.
+	 *
+	 * @return the context without filters
+	 */
+	public ParseContext withoutFilters() {
+		return new ParseContext(AccountFilter.ALL, SheetFilter.ALL, descriptions);
+	}
+}
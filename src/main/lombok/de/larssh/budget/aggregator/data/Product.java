@@ -27,11 +27,31 @@ public final class Product implements Comparable<Product> {
 			.thenComparingInt(Product::getId)
 			.thenComparing(Comparators.compareCaseInsensitiveFirst(Product::getDescription));
 
-	@PackagePrivate
 	@SuppressWarnings({ "PMD.ShortMethodName", "PMD.ShortVariable" })
+	public static Product of(final Municipality municipality, final int id, final String description) {
+		return new Product(municipality, id, description);
+	}
+
+	@PackagePrivate
+	@SuppressWarnings("PMD.ShortMethodName")
 	static Optional<Product> of(final Row row) {
+		return of(row, AccountFilter.ALL, Descriptions.NONE);
+	}
+
+	/**
+	 * Reads the product of {@code row}, skipping rows of municipalities and
+	 * products not matching {@code filter} before reading the product description.
+	 *
+	 * @param row          the row
+	 * @param filter       the filter
+	 * @param descriptions the dictionary of descriptions
+	 * @return the product or empty if missing or not matching {@code filter}
+	 */
+	@PackagePrivate
+	@SuppressWarnings({ "PMD.ShortMethodName", "PMD.ShortVariable" })
+	static Optional<Product> of(final Row row, final AccountFilter filter, final Descriptions descriptions) {
 		final Optional<Municipality> municipality = Municipality.of(row);
-		if (!municipality.isPresent()) {
+		if (!municipality.isPresent() || !filter.testMunicipality(municipality.get().getId())) {
 			return Optional.empty();
 		}
 
@@ -39,13 +59,17 @@ public final class Product implements Comparable<Product> {
 		if (!id.isPresent() || Strings.isBlank(id.get())) {
 			return Optional.empty();
 		}
+		final int productId = Integer.parseInt(id.get());
+		if (!filter.testProduct(productId)) {
+			return Optional.empty();
+		}
 
 		final Optional<String> description = row.get(CsvFiles.COLUMN_NAME_PRODUCT_DESCRIPTION);
 		if (!id.isPresent()) {
 			return Optional.empty();
 		}
 
-		return Optional.of(new Product(municipality.get(), Integer.parseInt(id.get()), description.get().trim()));
+		return Optional.of(new Product(municipality.get(), productId, descriptions.get(description.get().trim())));
 	}
 
 	@EqualsAndHashCode.Include
@@ -0,0 +1,457 @@
+package de.larssh.budget.aggregator.generator;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+
+import org.apache.poi.ss.SpreadsheetVersion;
+import org.apache.poi.ss.usermodel.Row;
+import org.apache.poi.ss.usermodel.Sheet;
+import org.apache.poi.xssf.streaming.SXSSFWorkbook;
+
+import de.larssh.budget.aggregator.data.AccountType;
+import de.larssh.budget.aggregator.sheets.csv.CsvFiles;
+import de.larssh.utils.Finals;
+import edu.umd.cs.findbugs.annotations.SuppressFBWarnings;
+import lombok.Getter;
+
+/**
+ * Generator of synthetic sources in the layout of municipal exports as read by
+ * {@link de.larssh.budget.aggregator.data.Budget#of(de.larssh.budget.aggregator.sheets.Sheet, de.larssh.budget.aggregator.data.ParseContext)}
+ *
+ * <p>
+ * Sources contain the columns {@code GKZ}, {@code HHJ}, {@code Budget},
+ * {@code Bezeichnung Budget} and {@code Bezeichnung Position} followed by the
+ * balance columns {@code Plan <year>}, {@code Ist} and {@code Vorjahr}.
+ * Additional balance columns contain the plans of the following years. The
+ * accounts of each product are spread over the ranges of all
+ * {@link AccountType}s.
+ *
+ * <p>
+ * Rows are generated one after another, so memory usage does not depend on the
+ * number of rows. The same seed results in the same sources.
+ *
+ * <p>
+ * Multiple sources of one generator share their products and accounts. Each of
+ * their balance columns is a copy of the first source's column with a
+ * probability of {@link #getDuplicateRatio()}, else it contains different
+ * values. That way aggregating multiple sources finds duplicate budgets.
+ */
+@Getter
+@SuppressWarnings("PMD.GodClass")
+public final class SourceGenerator {
+	/**
+	 * Name of generated worksheets
+	 */
+	public static final String SHEET_NAME = Finals.constant("Daten");
+
+	/**
+	 * Number of accounts per product
+	 */
+	private static final int ACCOUNTS_PER_PRODUCT = 40;
+
+	private static final AccountType[] ACCOUNT_TYPES = AccountType.values();
+
+	/**
+	 * Range of account ids per account of a product and account type
+	 */
+	private static final int ACCOUNT_ID_SLOT_SIZE = 100_000;
+
+	/**
+	 * Distance between generated account ids
+	 */
+	private static final int ACCOUNT_ID_STEP = 10;
+
+	private static final String BUDGET_TYPE_PLAN = "Plan";
+
+	private static final String[] BUDGET_COLUMN_NAMES = { "Ist", "Vorjahr" };
+
+	private static final int COLUMN_INDEX_MUNICIPALITY = 0;
+
+	private static final int COLUMN_INDEX_BUDGET_YEAR = 1;
+
+	private static final int COLUMN_INDEX_PRODUCT_ID = 2;
+
+	private static final int COLUMN_INDEX_PRODUCT_DESCRIPTION = 3;
+
+	private static final int COLUMN_INDEX_ACCOUNT = 4;
+
+	/**
+	 * Number of non-balance columns
+	 */
+	private static final int COLUMNS_BEFORE_BALANCES = 5;
+
+	private static final int MUNICIPALITY_ID_MIN = 1_062_001;
+
+	private static final int PRODUCT_ID_MIN = 10_000;
+
+	private static final String[] PRODUCT_DESCRIPTIONS = {
+			"Verwaltung",
+			"Schulen",
+			"Kindertagesstätten",
+			"Brandschutz",
+			"Gemeindestraßen",
+			"Friedhöfe",
+			"Bauhof",
+			"Sportstätten" };
+
+	private static final String[] ACCOUNT_DESCRIPTIONS_RESULT_POSITIVE
+			= { "Steuern", "Zuweisungen", "Gebühren", "Mieten und Pachten", "Erstattungen" };
+
+	private static final String[] ACCOUNT_DESCRIPTIONS_RESULT_NEGATIVE
+			= { "Personal", "Unterhaltung", "Bewirtschaftung", "Abschreibungen", "Umlagen" };
+
+	private static final String[] ACCOUNT_DESCRIPTIONS_INVEST_POSITIVE
+			= { "Investitionszuweisungen", "Beiträge", "Veräußerung von Grundstücken", "Veräußerung von Vermögen" };
+
+	private static final String[] ACCOUNT_DESCRIPTIONS_INVEST_NEGATIVE
+			= { "Erwerb von Grundstücken", "Baumaßnahmen", "Erwerb von Vermögen", "Investitionsförderungen" };
+
+	/**
+	 * Upper bound of generated absolute values in cents
+	 */
+	private static final int VALUE_MAX_CENTS = 100_000_000;
+
+	private static final double NEGATIVE_VALUE_RATIO = 0.05;
+
+	private static final int CENTS_PER_UNIT = 100;
+
+	private static final int CENTS_PER_TENTH = 10;
+
+	/**
+	 * Multiplier used to derive seeds
+	 */
+	private static final long SEED_MULTIPLIER = 0x9E37_79B9_7F4A_7C15L;
+
+	/**
+	 * Number of rows kept in memory while writing workbooks
+	 */
+	private static final int WORKBOOK_WINDOW_SIZE = 1000;
+
+	@SuppressWarnings("PMD.ExhaustiveSwitchHasDefault")
+	private static String[] getAccountDescriptions(final AccountType accountType) {
+		switch (accountType) {
+		case RESULT_POSITIVE:
+			return ACCOUNT_DESCRIPTIONS_RESULT_POSITIVE;
+		case RESULT_NEGATIVE:
+			return ACCOUNT_DESCRIPTIONS_RESULT_NEGATIVE;
+		case INVEST_POSITIVE:
+			return ACCOUNT_DESCRIPTIONS_INVEST_POSITIVE;
+		case INVEST_NEGATIVE:
+		default:
+			return ACCOUNT_DESCRIPTIONS_INVEST_NEGATIVE;
+		}
+	}
+
+	@SuppressFBWarnings(value = "OCP_OVERLY_CONCRETE_PARAMETER", justification = "only valid for Java 17 and later")
+	private static String pick(final SplittableRandom random, final String... values) {
+		return values[random.nextInt(values.length)];
+	}
+
+	/**
+	 * Derives a seed from {@code seed} and {@code parts}, so that different parts
+	 * result in independent sequences of random values.
+	 *
+	 * @param seed  the base seed
+	 * @param parts the parts to derive from
+	 * @return the derived seed
+	 */
+	private static long deriveSeed(final long seed, final long... parts) {
+		long derivedSeed = seed;
+		for (final long part : parts) {
+			derivedSeed = derivedSeed * SEED_MULTIPLIER + part;
+		}
+		return derivedSeed;
+	}
+
+	/**
+	 * Base seed of all random values
+	 */
+	long seed;
+
+	/**
+	 * Number of account rows per source
+	 */
+	long rows;
+
+	/**
+	 * Budget year, used for the {@code HHJ} column and the first {@code Plan}
+	 * column
+	 */
+	int year;
+
+	/**
+	 * Number of balance columns per source
+	 */
+	int budgetColumns;
+
+	/**
+	 * Number of municipalities the products are distributed to
+	 */
+	int municipalities;
+
+	/**
+	 * Share of empty balance cells, between {@code 0} and {@code 1}
+	 */
+	double sparsity;
+
+	/**
+	 * Share of balance columns of additional sources being copies of the first
+	 * source, between {@code 0} and {@code 1}
+	 */
+	double duplicateRatio;
+
+	/**
+	 * Creates a new source generator.
+	 *
+	 * @param seed           base seed of all random values
+	 * @param rows           number of account rows per source
+	 * @param year           budget year
+	 * @param budgetColumns  number of balance columns per source
+	 * @param municipalities number of municipalities
+	 * @param sparsity       share of empty balance cells
+	 * @param duplicateRatio share of balance columns of additional sources being
+	 *                       copies of the first source
+	 * @throws IllegalArgumentException if a value is out of range
+	 */
+	@SuppressWarnings({ "checkstyle:ParameterNumber", "PMD.CyclomaticComplexity" })
+	public SourceGenerator(final long seed,
+			final long rows,
+			final int year,
+			final int budgetColumns,
+			final int municipalities,
+			final double sparsity,
+			final double duplicateRatio) {
+		if (rows < 0) {
+			throw new IllegalArgumentException(String.format("The number of rows must not be negative, got %d.", rows));
+		}
+		if (budgetColumns < 1) {
+			throw new IllegalArgumentException(
+					String.format("The number of budget columns must be positive, got %d.", budgetColumns));
+		}
+		if (municipalities < 1) {
+			throw new IllegalArgumentException(
+					String.format("The number of municipalities must be positive, got %d.", municipalities));
+		}
+		if (sparsity < 0 || sparsity > 1) {
+			throw new IllegalArgumentException(
+					String.format("The sparsity must be between 0 and 1, got %s.", sparsity));
+		}
+		if (duplicateRatio < 0 || duplicateRatio > 1) {
+			throw new IllegalArgumentException(
+					String.format("The duplicate ratio must be between 0 and 1, got %s.", duplicateRatio));
+		}
+
+		this.seed = seed;
+		this.rows = rows;
+		this.year = year;
+		this.budgetColumns = budgetColumns;
+		this.municipalities = municipalities;
+		this.sparsity = sparsity;
+		this.duplicateRatio = duplicateRatio;
+	}
+
+	/**
+	 * Header of generated sources
+	 *
+	 * @return the column names
+	 */
+	public List<String> getHeader() {
+		final List<String> header = new ArrayList<>(COLUMNS_BEFORE_BALANCES + budgetColumns);
+		header.add(CsvFiles.COLUMN_NAME_MUNICIPALITY);
+		header.add(CsvFiles.COLUMN_NAME_BUDGET_YEAR);
+		header.add(CsvFiles.COLUMN_NAME_PRODUCT_ID);
+		header.add(CsvFiles.COLUMN_NAME_PRODUCT_DESCRIPTION);
+		header.add(CsvFiles.COLUMN_NAME_ACCOUNT);
+
+		header.add(BUDGET_TYPE_PLAN + ' ' + year);
+		for (int column = 1; column < budgetColumns; column += 1) {
+			header.add(column <= BUDGET_COLUMN_NAMES.length
+					? BUDGET_COLUMN_NAMES[column - 1]
+					: BUDGET_TYPE_PLAN + ' ' + (year + column - BUDGET_COLUMN_NAMES.length));
+		}
+		return header;
+	}
+
+	/**
+	 * Writes the source with index {@code sourceIndex} as tab separated values.
+	 *
+	 * @param sourceIndex zero based index of the source
+	 * @param writer      the writer to write to
+	 * @throws IOException on IO error
+	 */
+	public void writeCsv(final int sourceIndex, final Writer writer) throws IOException {
+		writeCsvRow(writer, getHeader().toArray(new String[0]));
+		generate(sourceIndex, cells -> writeCsvRow(writer, cells));
+		writer.flush();
+	}
+
+	private static void writeCsvRow(final Writer writer, final String... cells) throws IOException {
+		for (int column = 0; column < cells.length; column += 1) {
+			if (column > 0) {
+				writer.write(CsvFiles.SEPARATOR);
+			}
+			writer.write(cells[column]);
+		}
+		writer.write('\n');
+	}
+
+	/**
+	 * Checks if the number of rows fits into a single worksheet, including the
+	 * header row.
+	 *
+	 * @return {@code true} if sources can be written as workbook, else
+	 *         {@code false}
+	 */
+	public boolean isWorkbookSupported() {
+		return rows < SpreadsheetVersion.EXCEL2007.getMaxRows();
+	}
+
+	/**
+	 * Writes the source with index {@code sourceIndex} as Office Open XML workbook.
+	 * Rows are flushed to temporary files while writing, so memory usage does not
+	 * depend on the number of rows.
+	 *
+	 * <p>
+	 * Identifiers and balances are written as numeric cells, descriptions as string
+	 * cells.
+	 *
+	 * @param sourceIndex  zero based index of the source
+	 * @param outputStream the output stream to write to
+	 * @throws IOException              on IO error
+	 * @throws IllegalArgumentException if the number of rows exceeds the maximum
+	 *                                  number of rows of a worksheet
+	 */
+	public void writeWorkbook(final int sourceIndex, final OutputStream outputStream) throws IOException {
+		if (!isWorkbookSupported()) {
+			throw new IllegalArgumentException(String.format(
+					"Workbooks cannot contain more than %d rows, got %d. Use tab separated values instead.",
+					SpreadsheetVersion.EXCEL2007.getMaxRows() - 1,
+					rows));
+		}
+
+		try (SXSSFWorkbook workbook = new SXSSFWorkbook(WORKBOOK_WINDOW_SIZE)) {
+			final Sheet sheet = workbook.createSheet(SHEET_NAME);
+			final List<String> header = getHeader();
+			final Row headerRow = sheet.createRow(0);
+			for (int column = 0; column < header.size(); column += 1) {
+				headerRow.createCell(column).setCellValue(header.get(column));
+			}
+
+			generate(sourceIndex, cells -> writeWorkbookRow(sheet.createRow(sheet.getLastRowNum() + 1), cells));
+			workbook.write(outputStream);
+		}
+	}
+
+	private static void writeWorkbookRow(final Row row, final String... cells) {
+		for (int column = 0; column < cells.length; column += 1) {
+			final String value = cells[column];
+			if (column == COLUMN_INDEX_PRODUCT_DESCRIPTION || column == COLUMN_INDEX_ACCOUNT) {
+				row.createCell(column).setCellValue(value);
+			} else if (!value.isEmpty()) {
+				row.createCell(column).setCellValue(Double.parseDouble(value));
+			}
+		}
+	}
+
+	/**
+	 * Generates the rows of the source with index {@code sourceIndex}, reusing the
+	 * same array of cells for all rows.
+	 *
+	 * @param sourceIndex zero based index of the source
+	 * @param consumer    the consumer of each row
+	 * @throws IOException if {@code consumer} fails
+	 */
+	private void generate(final int sourceIndex, final RowConsumer consumer) throws IOException {
+		final SplittableRandom rowRandom = new SplittableRandom(seed);
+		final SplittableRandom[] valueRandoms = createValueRandoms(sourceIndex);
+
+		final String[] cells = new String[COLUMNS_BEFORE_BALANCES + budgetColumns];
+		cells[COLUMN_INDEX_BUDGET_YEAR] = Integer.toString(year);
+		for (long row = 0; row < rows; row += 1) {
+			final long productIndex = row / ACCOUNTS_PER_PRODUCT;
+			final int accountIndex = (int) (row % ACCOUNTS_PER_PRODUCT);
+			if (accountIndex == 0) {
+				cells[COLUMN_INDEX_MUNICIPALITY] = Long.toString(MUNICIPALITY_ID_MIN + productIndex % municipalities);
+				cells[COLUMN_INDEX_PRODUCT_ID] = Long.toString(PRODUCT_ID_MIN + productIndex);
+				cells[COLUMN_INDEX_PRODUCT_DESCRIPTION] = pick(rowRandom, PRODUCT_DESCRIPTIONS);
+			}
+
+			final AccountType accountType = ACCOUNT_TYPES[accountIndex % ACCOUNT_TYPES.length];
+			final int accountId = accountType.getAccountIdMin()
+					+ accountIndex / ACCOUNT_TYPES.length * ACCOUNT_ID_SLOT_SIZE
+					+ rowRandom.nextInt(ACCOUNT_ID_SLOT_SIZE / ACCOUNT_ID_STEP) * ACCOUNT_ID_STEP;
+			cells[COLUMN_INDEX_ACCOUNT] = accountId + " " + pick(rowRandom, getAccountDescriptions(accountType));
+
+			for (int column = 0; column < budgetColumns; column += 1) {
+				cells[COLUMNS_BEFORE_BALANCES + column] = nextValue(valueRandoms[column]);
+			}
+			consumer.accept(cells);
+		}
+	}
+
+	/**
+	 * Creates one random generator per balance column. Columns duplicating the
+	 * first source use the first source's generator.
+	 *
+	 * @param sourceIndex zero based index of the source
+	 * @return the random generators
+	 */
+	private SplittableRandom[] createValueRandoms(final int sourceIndex) {
+		final SplittableRandom duplicateRandom = new SplittableRandom(deriveSeed(seed, -1, sourceIndex));
+		final SplittableRandom[] valueRandoms = new SplittableRandom[budgetColumns];
+		for (int column = 0; column < budgetColumns; column += 1) {
+			final boolean duplicate = sourceIndex == 0 || duplicateRandom.nextDouble() < duplicateRatio;
+			valueRandoms[column] = new SplittableRandom(deriveSeed(seed, duplicate ? 0 : sourceIndex, column));
+		}
+		return valueRandoms;
+	}
+
+	/**
+	 * Generates the next balance value, formatted without trailing zeros like
+	 * numeric cells of workbooks. Empty balances are returned as empty string.
+	 *
+	 * @param random the random generator of the balance column
+	 * @return the formatted value
+	 */
+	@SuppressFBWarnings(value = "OCP_OVERLY_CONCRETE_PARAMETER", justification = "only valid for Java 17 and later")
+	private String nextValue(final SplittableRandom random) {
+		if (random.nextDouble() < sparsity) {
+			return "";
+		}
+
+		final int cents = random.nextInt(VALUE_MAX_CENTS);
+		final StringBuilder builder = new StringBuilder();
+		if (cents > 0 && random.nextDouble() < NEGATIVE_VALUE_RATIO) {
+			builder.append('-');
+		}
+		builder.append(cents / CENTS_PER_UNIT);
+
+		final int fraction = cents % CENTS_PER_UNIT;
+		if (fraction % CENTS_PER_TENTH == 0) {
+			if (fraction != 0) {
+				builder.append('.').append(fraction / CENTS_PER_TENTH);
+			}
+		} else {
+			builder.append('.').append(fraction < CENTS_PER_TENTH ? "0" : "").append(fraction);
+		}
+		return builder.toString();
+	}
+
+	/**
+	 * Consumer of generated rows
+	 */
+	@FunctionalInterface
+	private interface RowConsumer {
+		/**
+		 * Consumes a generated row. {@code cells} is reused for the following row.
+		 *
+		 * @param cells the cells of the row
+		 * @throws IOException on IO error
+		 */
+		void accept(String... cells) throws IOException;
+	}
+}
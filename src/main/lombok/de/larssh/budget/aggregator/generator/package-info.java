@@ -0,0 +1,5 @@
+/**
+ * Generation of synthetic sources for load testing
+ */
+@de.larssh.utils.annotations.NonNullByDefault
+package de.larssh.budget.aggregator.generator;
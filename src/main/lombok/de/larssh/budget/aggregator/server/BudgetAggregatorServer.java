@@ -0,0 +1,500 @@
+package de.larssh.budget.aggregator.server;
+
+import static java.util.Collections.unmodifiableSet;
+
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.PrintWriter;
+import java.io.StringWriter;
+import java.net.HttpURLConnection;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.FileVisitResult;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.Optional;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+import java.util.regex.Pattern;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import de.larssh.budget.aggregator.sheets.tidy.TidyFormat;
+import de.larssh.utils.Finals;
+import de.larssh.utils.Nullables;
+import de.larssh.utils.text.Strings;
+import edu.umd.cs.findbugs.annotations.Nullable;
+import edu.umd.cs.findbugs.annotations.SuppressFBWarnings;
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+import lombok.experimental.NonFinal;
+import picocli.CommandLine;
+import picocli.CommandLine.ExitCode;
+
+/**
+ * Resident HTTP server accepting the same {@code multipart/form-data} uploads
+ * as the web form. Each request is aggregated inside the already running JVM,
+ * therefore loaded classes, JIT compiled code and static caches are reused
+ * across requests.
+ *
+ * <p>
+ * Uploaded files are expected as parts named {@code sources}, optionally
+ * followed by brackets as used by HTML forms. Fields named like the options in
+ * {@link #FORWARDED_OPTIONS} are forwarded to the CLI, where boolean options
+ * accept {@code true}, {@code on}, {@code false} and {@code off}. The field
+ * {@code format} selects the output format out of {@link #FORMATS}.
+ */
+@Getter
+@RequiredArgsConstructor
+@SuppressWarnings({ "PMD.CouplingBetweenObjects", "PMD.DoNotUseThreads", "PMD.ExcessiveImports", "PMD.GodClass" })
+@SuppressFBWarnings(value = "REDOS",
+		justification = "false-positive, FILE_NAME_INVALID_CHARACTERS is a single character class")
+public class BudgetAggregatorServer {
+	public static final String FIELD_NAME_FORMAT = Finals.constant("format");
+
+	public static final String FIELD_NAME_SOURCES = Finals.constant("sources");
+
+	/**
+	 * Names of CLI options (without leading dashes) that can be set by requests
+	 */
+	public static final Set<String> FORWARDED_OPTIONS = unmodifiableSet(new TreeSet<>(Arrays.asList(//
+			"csv-sums",
+			"filter-accounts",
+			"filter-budget-types",
+			"filter-municipalities",
+			"filter-products",
+			"filter-years",
+			"hide-duplicate-budgets",
+			"hide-empty-accounts",
+			"hide-empty-balances",
+			"hide-empty-budgets",
+			"reverse-budgets",
+			"sheets",
+			"top-deviations",
+			"top-deviations-by",
+			"top-deviations-limit",
+			"variance")));
+
+	/**
+	 * Supported output formats and their content types
+	 */
+	public static final Map<String, String> FORMATS = createFormats();
+
+	private static final String DEFAULT_FORMAT = "xlsx";
+
+	/**
+	 * Format writing the long format as tab-separated values
+	 */
+	private static final String FORMAT_TSV = "tsv";
+
+	private static final Set<String> VALUES_FALSE = new TreeSet<>(Arrays.asList("false", "off"));
+
+	private static final Set<String> VALUES_TRUE = new TreeSet<>(Arrays.asList("true", "on"));
+
+	private static final Pattern FILE_NAME_INVALID_CHARACTERS
+			= Pattern.compile("[^ !#$%&'()+,\\-.0-9;=@A-Z\\[\\]^_a-z{}~]+");
+
+	private static final String CONTENT_TYPE_TEXT = "text/plain; charset=UTF-8";
+
+	private static final String HEADER_CONTENT_TYPE = "Content-Type";
+
+	private static final String MESSAGE_FAILED = "Failed aggregating the uploaded sources.";
+
+	private static final String MESSAGE_MAX_SIZE = "The request exceeds the maximum size of %d bytes.";
+
+	private static final String METHOD_POST = "POST";
+
+	private static final String OPTION_PREFIX = "--";
+
+	/**
+	 * Number of arguments created in addition to forwarded fields and sources
+	 */
+	private static final int ADDITIONAL_ARGUMENTS = 3;
+
+	private static final Pattern FILE_NAME_EXTENSION = Pattern.compile("\\.[^.]*$");
+
+	/**
+	 * {@code true} while the thread accepting connections handles a request
+	 * rejected by the executor, see {@link #reject(Runnable, ThreadPoolExecutor)}
+	 */
+	private static final ThreadLocal<Boolean> REJECTED = ThreadLocal.withInitial(() -> Boolean.FALSE);
+
+	private static Map<String, String> createFormats() {
+		final Map<String, String> formats = new LinkedHashMap<>();
+		formats.put("csv", "text/csv; charset=UTF-8");
+		formats.put("ndjson", "application/x-ndjson; charset=UTF-8");
+		formats.put("snapshot", "application/octet-stream");
+		formats.put(FORMAT_TSV, "text/tab-separated-values; charset=UTF-8");
+		formats.put(DEFAULT_FORMAT, "application/vnd.openxmlformats-officedocument.spreadsheetml.sheet");
+		return formats;
+	}
+
+	/**
+	 * Handles a request not fitting into the queue of {@code executor} on the
+	 * thread accepting connections. The request is answered with
+	 * {@link HttpURLConnection#HTTP_UNAVAILABLE} right away instead of being
+	 * aggregated, so that accepting connections does not wait for an aggregation.
+	 *
+	 * @param task     the rejected task
+	 * @param executor the executor
+	 */
+	@SuppressFBWarnings(value = "UP_UNUSED_PARAMETER", justification = "implementing RejectedExecutionHandler")
+	private static void reject(final Runnable task, @SuppressWarnings("unused") final ThreadPoolExecutor executor) {
+		REJECTED.set(Boolean.TRUE);
+		try {
+			task.run();
+		} finally {
+			REJECTED.remove();
+		}
+	}
+
+	/**
+	 * Deletes {@code path} including its contents.
+	 *
+	 * @param path the path to delete
+	 * @throws IOException on IO error
+	 */
+	private static void deleteRecursively(final Path path) throws IOException {
+		if (!Files.exists(path)) {
+			return;
+		}
+		Files.walkFileTree(path, new SimpleFileVisitor<Path>() {
+			@Override
+			public FileVisitResult visitFile(@Nullable final Path file, @Nullable final BasicFileAttributes attrs)
+					throws IOException {
+				Files.delete(Nullables.orElseThrow(file));
+				return FileVisitResult.CONTINUE;
+			}
+
+			@Override
+			public FileVisitResult postVisitDirectory(@Nullable final Path directory,
+					@Nullable final IOException exception) throws IOException {
+				Files.delete(Nullables.orElseThrow(directory));
+				return FileVisitResult.CONTINUE;
+			}
+		});
+	}
+
+	@SuppressFBWarnings(value = "WEM_WEAK_EXCEPTION_MESSAGING", justification = "false-positive, formatting here")
+	private static long parseContentLength(final String contentLength) throws HttpStatusException {
+		try {
+			return Long.parseLong(contentLength.trim());
+		} catch (final NumberFormatException e) {
+			throw new HttpStatusException(HttpURLConnection.HTTP_BAD_REQUEST,
+					e,
+					"Malformed header Content-Length: %s",
+					contentLength);
+		}
+	}
+
+	private static boolean isSourcesField(final String name) {
+		return name.equals(FIELD_NAME_SOURCES) || name.startsWith(FIELD_NAME_SOURCES + "[");
+	}
+
+	private static void sendFile(final HttpExchange exchange, final String contentType, final Path file)
+			throws IOException {
+		exchange.getResponseHeaders().set(HEADER_CONTENT_TYPE, contentType);
+		exchange.sendResponseHeaders(HttpURLConnection.HTTP_OK, Files.size(file));
+		try (OutputStream outputStream = exchange.getResponseBody()) {
+			Files.copy(file, outputStream);
+		}
+	}
+
+	private static void sendText(final HttpExchange exchange, final int status, final String text) throws IOException {
+		final byte[] bytes = text.getBytes(StandardCharsets.UTF_8);
+		exchange.getResponseHeaders().set(HEADER_CONTENT_TYPE, CONTENT_TYPE_TEXT);
+		exchange.sendResponseHeaders(status, bytes.length);
+		try (OutputStream outputStream = exchange.getResponseBody()) {
+			outputStream.write(bytes);
+		}
+	}
+
+	/**
+	 * Socket address to listen on
+	 */
+	InetSocketAddress address;
+
+	/**
+	 * Number of requests handled concurrently
+	 */
+	int threads;
+
+	/**
+	 * Number of accepted requests waiting for a worker thread. Further requests are
+	 * rejected with {@link HttpURLConnection#HTTP_UNAVAILABLE}.
+	 */
+	int queueSize;
+
+	/**
+	 * Maximum size of a request body in bytes
+	 */
+	long maxRequestSize;
+
+	/**
+	 * Creates a new CLI instance per request
+	 */
+	Supplier<CommandLine> commandLineFactory;
+
+	/**
+	 * Writer used to log failed requests
+	 */
+	PrintWriter errorWriter;
+
+	CountDownLatch stopped = new CountDownLatch(1);
+
+	@Nullable
+	@NonFinal
+	HttpServer server;
+
+	@Nullable
+	@NonFinal
+	ThreadPoolExecutor executor;
+
+	public void start() throws IOException {
+		final ThreadPoolExecutor executor = new ThreadPoolExecutor(threads,
+				threads,
+				0,
+				TimeUnit.MILLISECONDS,
+				new ArrayBlockingQueue<>(queueSize),
+				BudgetAggregatorServer::reject);
+
+		final HttpServer server = HttpServer.create(address, queueSize);
+		server.setExecutor(executor);
+		server.createContext("/", this::handle);
+		server.start();
+
+		this.executor = executor;
+		this.server = server;
+	}
+
+	public void stop() {
+		Nullables.ifNonNull(server, server -> server.stop(0));
+		Nullables.ifNonNull(executor, ThreadPoolExecutor::shutdown);
+		stopped.countDown();
+	}
+
+	public void awaitStop() throws InterruptedException {
+		stopped.await();
+	}
+
+	@SuppressWarnings({
+			"checkstyle:IllegalCatch",
+			"PMD.AvoidCatchingGenericException",
+			"PMD.AvoidSynchronizedStatement" })
+	@SuppressFBWarnings(
+			value = { "IMC_IMMATURE_CLASS_PRINTSTACKTRACE", "INFORMATION_EXPOSURE_THROUGH_AN_ERROR_MESSAGE" },
+			justification = "logging to configured writer")
+	private void handle(final HttpExchange exchange) throws IOException {
+		if (REJECTED.get()) {
+			try {
+				sendText(exchange,
+						HttpURLConnection.HTTP_UNAVAILABLE,
+						"Too many requests are pending. Please try again later.");
+			} finally {
+				exchange.close();
+			}
+			return;
+		}
+
+		Path directory = null;
+		try {
+			directory = Files.createTempDirectory(getClass().getSimpleName() + "-");
+			handle(exchange, directory);
+		} catch (final HttpStatusException e) {
+			sendText(exchange, e.getStatus(), e.getMessage());
+		} catch (final Exception e) {
+			synchronized (errorWriter) {
+				e.printStackTrace(errorWriter);
+				errorWriter.flush();
+			}
+			sendText(exchange, HttpURLConnection.HTTP_INTERNAL_ERROR, MESSAGE_FAILED);
+		} finally {
+			exchange.close();
+			if (directory != null) {
+				deleteTemporaryDirectory(directory);
+			}
+		}
+	}
+
+	@SuppressWarnings("PMD.CyclomaticComplexity")
+	@SuppressFBWarnings(value = "WEM_WEAK_EXCEPTION_MESSAGING",
+			justification = "no relevant information available here")
+	private void handle(final HttpExchange exchange, final Path directory) throws IOException {
+		if (!METHOD_POST.equals(exchange.getRequestMethod())) {
+			exchange.getResponseHeaders().set("Allow", METHOD_POST);
+			throw new HttpStatusException(HttpURLConnection.HTTP_BAD_METHOD, "Expecting a POST request.");
+		}
+
+		final String contentLength = exchange.getRequestHeaders().getFirst("Content-Length");
+		if (contentLength != null && parseContentLength(contentLength) > getMaxRequestSize()) {
+			throw new HttpStatusException(HttpURLConnection.HTTP_ENTITY_TOO_LARGE,
+					MESSAGE_MAX_SIZE,
+					getMaxRequestSize());
+		}
+
+		final String boundary = MultipartReader.getBoundary(exchange.getRequestHeaders().getFirst(HEADER_CONTENT_TYPE))
+				.orElseThrow(() -> new HttpStatusException(HttpURLConnection.HTTP_BAD_REQUEST,
+						"Expecting a request of content type multipart/form-data."));
+
+		// Read Request
+		final Map<String, String> fields = new LinkedHashMap<>();
+		final List<Path> sources = new ArrayList<>();
+		try (InputStream inputStream = new LimitedInputStream(exchange.getRequestBody(), getMaxRequestSize())) {
+			final MultipartReader reader = new MultipartReader(inputStream, boundary);
+			while (reader.next()) {
+				final Optional<String> fileName = reader.getFileName();
+				if (isSourcesField(reader.getName()) && fileName.isPresent()) {
+					sources.add(
+							readSource(reader, directory.resolve(Integer.toString(sources.size())), fileName.get()));
+				} else if (!fileName.isPresent()) {
+					fields.put(reader.getName(), reader.readBodyAsString());
+				}
+			}
+		}
+		if (sources.isEmpty()) {
+			throw new HttpStatusException(HttpURLConnection.HTTP_BAD_REQUEST, "Expecting at least one source file.");
+		}
+
+		// Aggregate
+		final String format = Strings.toLowerCaseAscii(fields.getOrDefault(FIELD_NAME_FORMAT, DEFAULT_FORMAT).trim());
+		final String contentType = FORMATS.get(format);
+		if (contentType == null) {
+			throw new HttpStatusException(HttpURLConnection.HTTP_BAD_REQUEST, "Unsupported format \"%s\".", format);
+		}
+		final Path output = directory.resolve("output" + getFileExtension(format));
+		aggregate(createArguments(fields, output, sources));
+
+		// Send Response
+		exchange.getResponseHeaders()
+				.set("Content-Disposition", String.format("attachment; filename=\"%s\"", getFileName(sources, format)));
+		sendFile(exchange, contentType, output);
+	}
+
+	private Path readSource(final MultipartReader reader, final Path directory, final String fileName)
+			throws IOException {
+		final String fileNameWithoutPath
+				= fileName.substring(Math.max(fileName.lastIndexOf('/'), fileName.lastIndexOf('\\')) + 1);
+		final String safeFileName = Strings.replaceAll(fileNameWithoutPath, FILE_NAME_INVALID_CHARACTERS, "");
+
+		Files.createDirectories(directory);
+		final Path source = directory.resolve(safeFileName.replace(".", "").isEmpty() ? "source" : safeFileName);
+		try (OutputStream outputStream = new BufferedOutputStream(Files.newOutputStream(source))) {
+			reader.copyBody(outputStream);
+		}
+		return source;
+	}
+
+	@SuppressFBWarnings(value = "WEM_WEAK_EXCEPTION_MESSAGING", justification = "false-positive, formatting here")
+	private String[] createArguments(final Map<String, String> fields, final Path output, final List<Path> sources)
+			throws HttpStatusException {
+		final List<String> arguments = new ArrayList<>(fields.size() + ADDITIONAL_ARGUMENTS + sources.size());
+		for (final Entry<String, String> field : fields.entrySet()) {
+			final String name = field.getKey();
+			if (FORWARDED_OPTIONS.contains(name)) {
+				final String value = field.getValue().trim();
+				final String lowerCaseValue = Strings.toLowerCaseAscii(value);
+				if (VALUES_TRUE.contains(lowerCaseValue)) {
+					arguments.add(OPTION_PREFIX + name);
+				} else if (VALUES_FALSE.contains(lowerCaseValue)) {
+					arguments.add(OPTION_PREFIX + "no-" + name);
+				} else if (!value.isEmpty()) {
+					arguments.add(OPTION_PREFIX + name + "=" + value);
+				}
+			} else if (!FIELD_NAME_FORMAT.equals(name)) {
+				throw new HttpStatusException(HttpURLConnection.HTTP_BAD_REQUEST, "Unsupported field \"%s\".", name);
+			}
+		}
+		arguments.add(OPTION_PREFIX + "output=" + output);
+		arguments.add(OPTION_PREFIX + "no-open-output");
+		arguments.add(OPTION_PREFIX); // end of options
+		for (final Path source : sources) {
+			arguments.add(source.toString());
+		}
+		return arguments.toArray(new String[0]);
+	}
+
+	@SuppressWarnings("PMD.AvoidSynchronizedStatement")
+	@SuppressFBWarnings(value = "WEM_WEAK_EXCEPTION_MESSAGING",
+			justification = "no relevant information available here")
+	private void aggregate(final String... arguments) throws HttpStatusException {
+		final StringWriter errors = new StringWriter();
+		final CommandLine commandLine = commandLineFactory.get();
+		commandLine.setOut(new PrintWriter(new StringWriter()));
+		commandLine.setErr(new PrintWriter(errors));
+
+		final int exitCode = commandLine.execute(arguments);
+		if (exitCode == ExitCode.USAGE) {
+			throw new HttpStatusException(HttpURLConnection.HTTP_BAD_REQUEST, "%s", errors.toString().trim());
+		}
+		if (exitCode != ExitCode.OK) {
+			synchronized (errorWriter) {
+				errorWriter.print(errors);
+				errorWriter.flush();
+			}
+			throw new HttpStatusException(HttpURLConnection.HTTP_INTERNAL_ERROR, MESSAGE_FAILED);
+		}
+	}
+
+	/**
+	 * Deletes the temporary {@code directory} of a request. Failures are logged
+	 * only, as the response has been sent already.
+	 *
+	 * @param directory the temporary directory
+	 */
+	@SuppressWarnings("PMD.AvoidSynchronizedStatement")
+	@SuppressFBWarnings(
+			value = { "IMC_IMMATURE_CLASS_PRINTSTACKTRACE", "INFORMATION_EXPOSURE_THROUGH_AN_ERROR_MESSAGE" },
+			justification = "logging to configured writer")
+	private void deleteTemporaryDirectory(final Path directory) {
+		try {
+			deleteRecursively(directory);
+		} catch (final IOException e) {
+			synchronized (errorWriter) {
+				e.printStackTrace(errorWriter);
+				errorWriter.flush();
+			}
+		}
+	}
+
+	/**
+	 * File extension of the output file of {@code format}. Long format TSV outputs
+	 * require their own file extension, see {@link TidyFormat#TSV}.
+	 *
+	 * @param format the format
+	 * @return the file extension including its leading dot
+	 */
+	private static String getFileExtension(final String format) {
+		return FORMAT_TSV.equals(format) ? TidyFormat.TSV.getFileExtensions().get(0) : '.' + format;
+	}
+
+	private String getFileName(final List<Path> sources, final String format) {
+		if (sources.size() == 1) {
+			final String sourceFileName = Nullables.orElseThrow(sources.get(0).getFileName()).toString();
+			return String.format("budget-aggregator-%s.%s",
+					Strings.replaceFirst(sourceFileName, FILE_NAME_EXTENSION, ""),
+					format);
+		}
+		return String.format("%s-budget-aggregator.%s",
+				DateTimeFormatter.ofPattern("yyyy-MM-dd_HH-mm-ss", Locale.ROOT).format(LocalDateTime.now()),
+				format);
+	}
+}
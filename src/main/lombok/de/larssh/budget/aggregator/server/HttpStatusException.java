@@ -0,0 +1,30 @@
+package de.larssh.budget.aggregator.server;
+
+import java.io.IOException;
+
+import de.larssh.utils.annotations.PackagePrivate;
+import edu.umd.cs.findbugs.annotations.SuppressFBWarnings;
+import lombok.Getter;
+
+/**
+ * Exception to abort handling a request with a specific HTTP status code.
+ */
+@Getter
+@PackagePrivate
+class HttpStatusException extends IOException {
+	int status;
+
+	@PackagePrivate
+	@SuppressFBWarnings(value = "FORMAT_STRING_MANIPULATION", justification = "messages are constants of the callers")
+	HttpStatusException(final int status, final String message, final Object... arguments) {
+		super(String.format(message, arguments));
+		this.status = status;
+	}
+
+	@PackagePrivate
+	@SuppressFBWarnings(value = "FORMAT_STRING_MANIPULATION", justification = "messages are constants of the callers")
+	HttpStatusException(final int status, final Throwable cause, final String message, final Object... arguments) {
+		super(String.format(message, arguments), cause);
+		this.status = status;
+	}
+}
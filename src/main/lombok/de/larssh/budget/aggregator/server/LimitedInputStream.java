@@ -0,0 +1,70 @@
+package de.larssh.budget.aggregator.server;
+
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.HttpURLConnection;
+
+import de.larssh.utils.annotations.PackagePrivate;
+import edu.umd.cs.findbugs.annotations.SuppressFBWarnings;
+import lombok.ToString;
+import lombok.experimental.NonFinal;
+
+/**
+ * Input stream failing with {@link HttpURLConnection#HTTP_ENTITY_TOO_LARGE} as
+ * soon as more than a given number of bytes is read.
+ */
+@ToString(callSuper = true)
+@PackagePrivate
+class LimitedInputStream extends FilterInputStream {
+	long limit;
+
+	@NonFinal
+	long bytesRead;
+
+	@PackagePrivate
+	LimitedInputStream(final InputStream inputStream, final long limit) {
+		super(inputStream);
+		this.limit = limit;
+	}
+
+	@SuppressFBWarnings(value = "WEM_WEAK_EXCEPTION_MESSAGING", justification = "false-positive, formatting here")
+	private void count(final long bytes) throws HttpStatusException {
+		bytesRead += bytes;
+		if (bytesRead > limit) {
+			throw new HttpStatusException(HttpURLConnection.HTTP_ENTITY_TOO_LARGE,
+					"The request exceeds the maximum size of %d bytes.",
+					limit);
+		}
+	}
+
+	@Override
+	public int read() throws IOException {
+		final int value = super.read();
+		if (value != -1) {
+			count(1);
+		}
+		return value;
+	}
+
+	@Override
+	public int read(final byte[] buffer, final int offset, final int length) throws IOException {
+		final int read = super.read(buffer, offset, length);
+		if (read > 0) {
+			count(read);
+		}
+		return read;
+	}
+
+	@Override
+	public long skip(final long length) throws IOException {
+		final long skipped = super.skip(length);
+		count(skipped);
+		return skipped;
+	}
+
+	@Override
+	public boolean markSupported() {
+		return false;
+	}
+}
@@ -0,0 +1,254 @@
+package de.larssh.budget.aggregator.server;
+
+import java.io.BufferedInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.HttpURLConnection;
+import java.nio.charset.StandardCharsets;
+import java.util.Optional;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import de.larssh.utils.annotations.PackagePrivate;
+import de.larssh.utils.text.Patterns;
+import edu.umd.cs.findbugs.annotations.Nullable;
+import edu.umd.cs.findbugs.annotations.SuppressFBWarnings;
+import lombok.Getter;
+import lombok.experimental.NonFinal;
+
+/**
+ * Streaming reader for {@code multipart/form-data} request bodies as of RFC
+ * 7578.
+ *
+ * <p>
+ * Parts are read one after another. The body of the current part can be
+ * consumed once using {@link #copyBody(OutputStream)} or
+ * {@link #readBodyAsString()} and is skipped otherwise.
+ */
+@PackagePrivate
+class MultipartReader {
+	private static final Pattern BOUNDARY_PATTERN = Pattern.compile(
+			"^\\s*multipart/form-data\\s*;(.*;)?\\s*boundary\\s*=\\s*(\"(?<quoted>[^\"]+)\"|(?<plain>[^;\\s]+))",
+			Pattern.CASE_INSENSITIVE);
+
+	private static final Pattern CONTENT_DISPOSITION_PATTERN = Pattern
+			.compile("^\\s*Content-Disposition\\s*:\\s*form-data\\s*(?<parameters>;.*)$", Pattern.CASE_INSENSITIVE);
+
+	private static final Pattern FILE_NAME_PATTERN
+			= Pattern.compile(";\\s*filename\\s*=\\s*\"(?<value>[^\"]*)\"", Pattern.CASE_INSENSITIVE);
+
+	private static final Pattern NAME_PATTERN
+			= Pattern.compile(";\\s*name\\s*=\\s*\"(?<value>[^\"]*)\"", Pattern.CASE_INSENSITIVE);
+
+	/**
+	 * Maximum length of a single header line in bytes
+	 */
+	private static final int HEADER_LINE_MAX_LENGTH = 8 * 1024;
+
+	private static final String GROUP_VALUE = "value";
+
+	/**
+	 * Output stream discarding all bytes, used to skip preamble and unconsumed
+	 * bodies
+	 */
+	private static final OutputStream DISCARDING_OUTPUT_STREAM = new OutputStream() {
+		@Override
+		public void write(final int value) {
+			// discard
+		}
+	};
+
+	public static Optional<String> getBoundary(@Nullable final String contentType) {
+		if (contentType == null) {
+			return Optional.empty();
+		}
+		return Patterns.find(BOUNDARY_PATTERN, contentType)
+				.map(matcher -> Optional.ofNullable(matcher.group("quoted")).orElseGet(() -> matcher.group("plain")));
+	}
+
+	private static HttpStatusException malformed(final String message) {
+		return new HttpStatusException(HttpURLConnection.HTTP_BAD_REQUEST, "Malformed multipart body: %s", message);
+	}
+
+	InputStream inputStream;
+
+	/**
+	 * Delimiter in front of each boundary, including the leading line break
+	 */
+	byte[] delimiter;
+
+	@NonFinal
+	boolean started;
+
+	@NonFinal
+	boolean finished;
+
+	@NonFinal
+	boolean bodyPending;
+
+	@Getter
+	@NonFinal
+	String name = "";
+
+	@Getter
+	@NonFinal
+	Optional<String> fileName = Optional.empty();
+
+	@PackagePrivate
+	MultipartReader(final InputStream inputStream, final String boundary) {
+		this.inputStream = new BufferedInputStream(inputStream);
+		delimiter = ("\r\n--" + boundary).getBytes(StandardCharsets.ISO_8859_1);
+	}
+
+	/**
+	 * Moves to the next part, skipping the body of the current part if not consumed
+	 * yet.
+	 *
+	 * @return {@code true} if another part is available, else {@code false}
+	 * @throws IOException on IO error or malformed body
+	 */
+	public boolean next() throws IOException {
+		if (finished) {
+			return false;
+		}
+		if (started) {
+			if (bodyPending) {
+				readUntilDelimiter(DISCARDING_OUTPUT_STREAM, 0);
+			}
+		} else {
+			// The first boundary is not preceded by a line break
+			readUntilDelimiter(DISCARDING_OUTPUT_STREAM, 2);
+			started = true;
+		}
+		bodyPending = false;
+
+		final int first = read();
+		final int second = read();
+		if (first == '-' && second == '-') {
+			finished = true;
+			return false;
+		}
+		if (first != '\r' || second != '\n') {
+			throw malformed("missing line break after boundary");
+		}
+
+		readHeaders();
+		bodyPending = true;
+		return true;
+	}
+
+	@SuppressFBWarnings(value = "WEM_WEAK_EXCEPTION_MESSAGING",
+			justification = "no relevant information available here")
+	public void copyBody(final OutputStream outputStream) throws IOException {
+		if (!bodyPending) {
+			throw new IllegalStateException("The body of the current part has been consumed already.");
+		}
+		readUntilDelimiter(outputStream, 0);
+		bodyPending = false;
+	}
+
+	public String readBodyAsString() throws IOException {
+		final ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+		copyBody(outputStream);
+		return new String(outputStream.toByteArray(), StandardCharsets.UTF_8);
+	}
+
+	@SuppressFBWarnings(value = "WEM_WEAK_EXCEPTION_MESSAGING",
+			justification = "no relevant information available here")
+	private int read() throws IOException {
+		final int value = inputStream.read();
+		if (value == -1) {
+			throw new EOFException("Unexpected end of multipart body.");
+		}
+		return value;
+	}
+
+	private void readHeaders() throws IOException {
+		name = "";
+		fileName = Optional.empty();
+
+		for (String line = readHeaderLine(); !line.isEmpty(); line = readHeaderLine()) {
+			final Optional<Matcher> contentDisposition = Patterns.matches(CONTENT_DISPOSITION_PATTERN, line);
+			if (contentDisposition.isPresent()) {
+				final String parameters = contentDisposition.get().group("parameters");
+				name = Patterns.find(NAME_PATTERN, parameters).map(matcher -> matcher.group(GROUP_VALUE)).orElse("");
+				fileName = Patterns.find(FILE_NAME_PATTERN, parameters).map(matcher -> matcher.group(GROUP_VALUE));
+			}
+		}
+	}
+
+	private String readHeaderLine() throws IOException {
+		final ByteArrayOutputStream line = new ByteArrayOutputStream();
+		int previous = -1;
+		for (int value = read(); previous != '\r' || value != '\n'; value = read()) {
+			if (previous != -1) {
+				line.write(previous);
+			}
+			if (line.size() > HEADER_LINE_MAX_LENGTH) {
+				throw malformed("header line too long");
+			}
+			previous = value;
+		}
+		return new String(line.toByteArray(), StandardCharsets.UTF_8);
+	}
+
+	/**
+	 * Copies bytes to {@code outputStream} until the next delimiter has been read
+	 * completely.
+	 *
+	 * @param outputStream   the output stream to copy to
+	 * @param initialMatched number of delimiter bytes assumed to be matched already
+	 * @throws IOException on IO error
+	 */
+	private void readUntilDelimiter(final OutputStream outputStream, final int initialMatched) throws IOException {
+		int matched = initialMatched;
+		while (matched < delimiter.length) {
+			final int value = read();
+			if (value == Byte.toUnsignedInt(delimiter[matched])) {
+				matched += 1;
+			} else if (matched == 0) {
+				outputStream.write(value);
+			} else {
+				matched = writeMismatch(outputStream, matched, (byte) value);
+			}
+		}
+	}
+
+	/**
+	 * Handles a partially matched delimiter followed by a mismatching byte. Bytes
+	 * not being part of a delimiter are written to {@code outputStream} while the
+	 * longest remaining delimiter prefix is kept.
+	 *
+	 * @param outputStream the output stream to write to
+	 * @param matched      number of delimiter bytes matched before the mismatch
+	 * @param value        the mismatching byte
+	 * @return the number of delimiter bytes matched afterwards
+	 * @throws IOException on IO error
+	 */
+	private int writeMismatch(final OutputStream outputStream, final int matched, final byte value) throws IOException {
+		final byte[] candidate = new byte[matched + 1];
+		System.arraycopy(delimiter, 0, candidate, 0, matched);
+		candidate[matched] = value;
+
+		for (int start = 1; start < candidate.length; start += 1) {
+			if (isDelimiterPrefix(candidate, start)) {
+				outputStream.write(candidate, 0, start);
+				return candidate.length - start;
+			}
+		}
+		outputStream.write(candidate);
+		return 0;
+	}
+
+	private boolean isDelimiterPrefix(final byte[] candidate, final int start) {
+		for (int index = start; index < candidate.length; index += 1) {
+			if (candidate[index] != delimiter[index - start]) {
+				return false;
+			}
+		}
+		return true;
+	}
+}
@@ -0,0 +1,5 @@
+/**
+ * Resident HTTP server of the Budget Aggregator
+ */
+@de.larssh.utils.annotations.NonNullByDefault
+package de.larssh.budget.aggregator.server;
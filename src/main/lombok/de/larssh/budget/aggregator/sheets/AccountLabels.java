@@ -0,0 +1,33 @@
+package de.larssh.budget.aggregator.sheets;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import de.larssh.budget.aggregator.data.Account;
+import lombok.NoArgsConstructor;
+
+/**
+ * Cache of account labels as written to outputs, e.g. {@code 4110000 Steuern}
+ *
+ * <p>
+ * The same account IDs and descriptions repeat for every product and
+ * municipality, therefore each label is formatted once per output only.
+ */
+@NoArgsConstructor
+public final class AccountLabels {
+	/**
+	 * Formatted labels by account description and account ID
+	 */
+	Map<String, Map<Integer, String>> labels = new HashMap<>();
+
+	/**
+	 * Returns the label of {@code account}, formatting it if missing.
+	 *
+	 * @param account the account
+	 * @return the label consisting of account ID and description
+	 */
+	public String get(final Account account) {
+		return labels.computeIfAbsent(account.getDescription(), description -> new HashMap<>())
+				.computeIfAbsent(account.getId(), id -> String.format("%d %s", id, account.getDescription()));
+	}
+}
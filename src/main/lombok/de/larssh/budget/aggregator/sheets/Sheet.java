@@ -13,6 +13,16 @@ public interface Sheet {
 
 	Optional<String> getName();
 
+	/**
+	 * Rows below the header.
+	 *
+	 * <p>
+	 * Iterators may return a single row instance, which is moved to the next row
+	 * when advancing. Rows must therefore not be kept after advancing. Copy the
+	 * required values instead.
+	 *
+	 * @return the rows
+	 */
 	@SuppressWarnings("java:S1452")
 	Iterable<? extends Row> getRows();
 
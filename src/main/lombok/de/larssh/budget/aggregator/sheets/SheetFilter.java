@@ -0,0 +1,116 @@
+package de.larssh.budget.aggregator.sheets;
+
+import static java.util.Collections.emptyList;
+import static java.util.Collections.unmodifiableList;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.regex.Pattern;
+
+import lombok.AccessLevel;
+import lombok.RequiredArgsConstructor;
+import lombok.ToString;
+
+/**
+ * Filter of sheets by their names. Patterns may contain the wildcards {@code *}
+ * and {@code ?} and are matched case-insensitively against the whole sheet
+ * name. Patterns starting with {@code !} exclude matching sheets. Without
+ * including patterns all sheets not excluded match.
+ *
+ * <p>
+ * Passed down using {@link de.larssh.budget.aggregator.data.ParseContext},
+ * workbooks skip non-matching sheets before reading their header or any of
+ * their rows.
+ */
+@ToString
+@RequiredArgsConstructor(access = AccessLevel.PRIVATE)
+public final class SheetFilter {
+	/**
+	 * Filter matching all sheets
+	 */
+	public static final SheetFilter ALL = new SheetFilter(emptyList(), emptyList());
+
+	private static final char EXCLUDE_PREFIX = '!';
+
+	/**
+	 * Creates a filter of sheets.
+	 *
+	 * @param patterns the patterns of sheet names to include or, prefixed with
+	 *                 {@code !}, to exclude
+	 * @return the filter
+	 */
+	@SuppressWarnings("PMD.ShortMethodName")
+	public static SheetFilter of(final Collection<String> patterns) {
+		final List<Pattern> includes = new ArrayList<>();
+		final List<Pattern> excludes = new ArrayList<>();
+		for (final String pattern : patterns) {
+			if (!pattern.isEmpty() && pattern.charAt(0) == EXCLUDE_PREFIX) {
+				excludes.add(compile(pattern.substring(1)));
+			} else {
+				includes.add(compile(pattern));
+			}
+		}
+		return new SheetFilter(unmodifiableList(includes), unmodifiableList(excludes));
+	}
+
+	/**
+	 * Compiles a pattern with the wildcards {@code *} and {@code ?} to a regular
+	 * expression.
+	 *
+	 * @param pattern the pattern
+	 * @return the regular expression
+	 */
+	private static Pattern compile(final String pattern) {
+		// case-insensitive (Unicode aware), dot matching line terminators
+		final StringBuilder builder = new StringBuilder("(?ius)");
+		int start = 0;
+		for (int index = 0; index < pattern.length(); index += 1) {
+			final char character = pattern.charAt(index);
+			if (character == '*' || character == '?') {
+				if (start < index) {
+					builder.append(Pattern.quote(pattern.substring(start, index)));
+				}
+				builder.append(character == '*' ? ".*" : ".");
+				start = index + 1;
+			}
+		}
+		if (start < pattern.length()) {
+			builder.append(Pattern.quote(pattern.substring(start)));
+		}
+		return Pattern.compile(builder.toString());
+	}
+
+	private static boolean matchesAny(final Iterable<Pattern> patterns, final String sheetName) {
+		for (final Pattern pattern : patterns) {
+			if (pattern.matcher(sheetName).matches()) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	List<Pattern> includes;
+
+	List<Pattern> excludes;
+
+	/**
+	 * Determines if this filter matches all sheets.
+	 *
+	 * @return {@code true} if no patterns are given, else {@code false}
+	 */
+	public boolean isAll() {
+		return includes.isEmpty() && excludes.isEmpty();
+	}
+
+	/**
+	 * Determines if {@code sheetName} matches any including pattern, if given, and
+	 * none of the excluding patterns.
+	 *
+	 * @param sheetName the sheet name
+	 * @return {@code true} if matching, else {@code false}
+	 */
+	public boolean test(final String sheetName) {
+		return (includes.isEmpty() || matchesAny(includes, sheetName)) && !matchesAny(excludes, sheetName);
+	}
+}
@@ -1,5 +1,8 @@
 package de.larssh.budget.aggregator.sheets.csv;
 
+import static java.util.Collections.emptyList;
+
+import java.io.BufferedReader;
 import java.io.IOException;
 import java.io.Reader;
 import java.io.Writer;
@@ -13,12 +16,21 @@ import java.util.Arrays;
 import java.util.List;
 import java.util.Locale;
 import java.util.Map;
+import java.util.Optional;
 import java.util.Set;
+import java.util.TreeSet;
 
 import de.larssh.budget.aggregator.data.Account;
+import de.larssh.budget.aggregator.data.AccountType;
 import de.larssh.budget.aggregator.data.Balance;
 import de.larssh.budget.aggregator.data.Budget;
+import de.larssh.budget.aggregator.data.BudgetCube;
 import de.larssh.budget.aggregator.data.Budgets;
+import de.larssh.budget.aggregator.data.Municipality;
+import de.larssh.budget.aggregator.data.ParseContext;
+import de.larssh.budget.aggregator.sheets.AccountLabels;
+import de.larssh.budget.aggregator.stats.Phase;
+import de.larssh.budget.aggregator.stats.Statistics;
 import de.larssh.utils.Finals;
 import de.larssh.utils.Nullables;
 import de.larssh.utils.annotations.PackagePrivate;
@@ -29,6 +41,7 @@ import lombok.RequiredArgsConstructor;
 import lombok.experimental.UtilityClass;
 
 @UtilityClass
+@SuppressWarnings({ "PMD.CouplingBetweenObjects", "PMD.ExcessiveImports" })
 public class CsvFiles {
 	public static final char SEPARATOR = Finals.constant('\t');
 
@@ -44,23 +57,88 @@ public class CsvFiles {
 
 	public static final String COLUMN_NAME_ACCOUNT = Finals.constant("Bezeichnung Position");
 
-	@SuppressWarnings("PMD.LooseCoupling")
 	public static List<Budget> read(final Path source) throws IOException, StringParseException {
 		try (Reader reader = Files.newBufferedReader(source)) {
-			final String fileName = Nullables.orElseThrow(source.getFileName()).toString();
-			final Csv csv = Csv.parse(reader, SEPARATOR, ESCAPER);
-			return Budgets.of(new CsvSheets(fileName, csv));
+			return read(Nullables.orElseThrow(source.getFileName()).toString(), reader, ParseContext.DEFAULT);
+		}
+	}
+
+	/**
+	 * Reads the budgets of a CSV file.
+	 *
+	 * @param fileName the file name of the CSV file
+	 * @param reader   the CSV content
+	 * @param context  the context of reading
+	 * @return the budgets
+	 * @throws IOException          on IO error
+	 * @throws StringParseException on parse error
+	 */
+	@SuppressWarnings("PMD.LooseCoupling")
+	public static List<Budget> read(final String fileName, final Reader reader, final ParseContext context)
+			throws IOException, StringParseException {
+		final Csv csv;
+		try (Phase ignored = Statistics.start("parse CSV", fileName)) {
+			csv = Csv.parse(reader, SEPARATOR, ESCAPER);
+		}
+		return Budgets.of(new CsvSheets(fileName, csv), context);
+	}
+
+	/**
+	 * Lists the budgets of a CSV file based on its header, see
+	 * {@link Budgets#ofHeader(Optional, Optional, List, java.util.Collection)}. The
+	 * file is read up to its header only, unless the budget year column is
+	 * required. In that case only the values of the budget year column are parsed.
+	 *
+	 * @param fileName the file name of the CSV file
+	 * @param reader   the CSV content
+	 * @return the empty budgets
+	 * @throws IOException on IO error
+	 */
+	public static List<Budget> list(final String fileName, final Reader reader) throws IOException {
+		try (Phase phase = Statistics.start("list CSV", fileName)) {
+			final CsvRecordReader records = new CsvRecordReader(new BufferedReader(reader));
+			final List<String> header = records.next() ? records.getValues() : emptyList();
+
+			final Set<Integer> budgetYears = new TreeSet<>();
+			final int budgetYearColumn = header.indexOf(COLUMN_NAME_BUDGET_YEAR);
+			if (budgetYearColumn != -1 && Budget.isBudgetYearRequired(header)) {
+				while (records.next()) {
+					Budgets.parseBudgetYear(records.getValue(budgetYearColumn)).ifPresent(budgetYears::add);
+				}
+			}
+
+			final List<Budget> budgets = Budgets.ofHeader(Optional.of(fileName), Optional.empty(), header, budgetYears);
+			phase.produced(budgets);
+			return budgets;
 		}
 	}
 
 	public static void write(final List<Budget> budgets, final Writer writer) throws IOException {
-		new CsvFileWriter(budgets, writer).write();
+		write(budgets, writer, false);
+	}
+
+	/**
+	 * Writes {@code budgets} as CSV to {@code writer}.
+	 *
+	 * @param budgets the budgets to write
+	 * @param writer  the writer
+	 * @param sums    {@code true} to append the sums per municipality and account
+	 *                type below the accounts
+	 * @throws IOException on IO error
+	 */
+	public static void write(final List<Budget> budgets, final Writer writer, final boolean sums) throws IOException {
+		new CsvFileWriter(budgets, writer, sums).write();
 	}
 
 	@RequiredArgsConstructor(access = AccessLevel.PACKAGE)
 	private static class CsvFileWriter {
 		private static final String DECIMAL_FORMAT_SUFFIX = " €";
 
+		/**
+		 * Prefix of the product description of sums
+		 */
+		private static final String LABEL_TOTAL = "Summe";
+
 		private static final ThreadLocal<NumberFormat> DECIMAL_FORMAT = ThreadLocal.withInitial(() -> {
 			final DecimalFormat format = (DecimalFormat) NumberFormat.getCurrencyInstance(Locale.GERMANY);
 			format.setPositiveSuffix(DECIMAL_FORMAT_SUFFIX);
@@ -68,19 +146,43 @@ public class CsvFiles {
 			return format;
 		});
 
+		private static final ThreadLocal<NumberFormat> PERCENTAGE_FORMAT = ThreadLocal.withInitial(() -> {
+			final NumberFormat format = NumberFormat.getPercentInstance(Locale.GERMANY);
+			format.setMinimumFractionDigits(1);
+			format.setMaximumFractionDigits(1);
+			return format;
+		});
+
+		private static NumberFormat getNumberFormat(final Budget budget) {
+			return (budget.getType().isPercentage() ? PERCENTAGE_FORMAT : DECIMAL_FORMAT).get();
+		}
+
 		List<Budget> budgets;
 
 		Writer writer;
 
+		/**
+		 * Append the sums per municipality and account type
+		 */
+		boolean sums;
+
+		AccountLabels accountLabels = new AccountLabels();
+
 		@PackagePrivate
 		@SuppressWarnings("PMD.LooseCoupling")
 		void write() throws IOException {
-			final Set<Account> accounts = Budgets.getAccounts(budgets);
-
 			final Csv csv = new Csv();
-			appendAccounts(csv, accounts);
-			appendBudgets(csv, accounts);
-			writer.write(csv.toString(SEPARATOR, ESCAPER));
+			try (Phase ignored = Statistics.start("build CSV")) {
+				final Set<Account> accounts = Budgets.getAccounts(budgets);
+				appendAccounts(csv, accounts);
+				appendBudgets(csv, accounts);
+				if (sums) {
+					appendAccountTypes(csv, BudgetCube.of(budgets));
+				}
+			}
+			try (Phase ignored = Statistics.start("write CSV")) {
+				writer.write(csv.toString(SEPARATOR, ESCAPER));
+			}
 		}
 
 		@SuppressWarnings("PMD.LooseCoupling")
@@ -97,7 +199,7 @@ public class CsvFiles {
 						Integer.toString(account.getProduct().getMunicipality().getId()),
 						Integer.toString(account.getProduct().getId()),
 						account.getProduct().getDescription(),
-						String.format("%d %s", account.getId(), account.getDescription()))));
+						accountLabels.get(account))));
 			}
 		}
 
@@ -118,12 +220,56 @@ public class CsvFiles {
 					} else {
 						final boolean negate = account.getType().getSign() < 0;
 						final BigDecimal value = balance.getValue();
-						displayValue = DECIMAL_FORMAT.get().format(negate ? value.negate() : value);
+						displayValue = getNumberFormat(budget).format(negate ? value.negate() : value);
 					}
 					csv.get(rowIndex).add(displayValue);
 					rowIndex += 1;
 				}
 			}
 		}
+
+		/**
+		 * Appends the sums per municipality and account type, followed by the sums per
+		 * account type of all municipalities if there are multiple municipalities.
+		 *
+		 * <p>
+		 * Sum rows leave the municipality and product columns empty, so they are
+		 * skipped when reading the output as source again.
+		 *
+		 * @param csv  the CSV to modify
+		 * @param cube the pre-aggregated sums
+		 */
+		@SuppressWarnings("PMD.LooseCoupling")
+		private void appendAccountTypes(final Csv csv, final BudgetCube cube) {
+			for (final Municipality municipality : cube.getMunicipalities()) {
+				appendAccountTypes(csv,
+						cube,
+						Optional.of(municipality),
+						String.format("%s %s %d", LABEL_TOTAL, COLUMN_NAME_MUNICIPALITY, municipality.getId()));
+			}
+			if (cube.getMunicipalities().size() > 1) {
+				appendAccountTypes(csv, cube, Optional.empty(), LABEL_TOTAL);
+			}
+		}
+
+		@SuppressWarnings({ "PMD.AvoidInstantiatingObjectsInLoops", "PMD.LooseCoupling" })
+		private void appendAccountTypes(final Csv csv,
+				final BudgetCube cube,
+				final Optional<Municipality> municipality,
+				final String label) {
+			for (final AccountType accountType : cube.getAccountTypes()) {
+				final List<String> row = new ArrayList<>(Arrays.asList("", "", label, accountType.getDisplayValue()));
+				for (final Budget budget : budgets) {
+					if (budget.getType().isPercentage()) {
+						row.add("");
+					} else {
+						final BigDecimal value = cube
+								.getSum(municipality, Optional.empty(), Optional.of(accountType), Optional.of(budget));
+						row.add(DECIMAL_FORMAT.get().format(accountType.getSign() < 0 ? value.negate() : value));
+					}
+				}
+				csv.add(row);
+			}
+		}
 	}
 }
@@ -0,0 +1,126 @@
+package de.larssh.budget.aggregator.sheets.csv;
+
+import static java.util.Collections.emptyList;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.io.StringReader;
+import java.util.List;
+
+import de.larssh.utils.annotations.PackagePrivate;
+import de.larssh.utils.text.Csv;
+import lombok.RequiredArgsConstructor;
+
+/**
+ * Reads a CSV file record by record, splitting records into values only on
+ * request
+ *
+ * <p>
+ * Other than {@link Csv#parse(Reader, char, char)} the file is not parsed as a
+ * whole. Records are kept as raw text, so that reading a single value out of a
+ * record does not require parsing the other values of the record.
+ */
+@PackagePrivate
+@RequiredArgsConstructor
+@SuppressWarnings("PMD.AvoidStringBufferField")
+class CsvRecordReader {
+	private static final String ESCAPED_ESCAPER = new String(new char[] { CsvFiles.ESCAPER, CsvFiles.ESCAPER });
+
+	/**
+	 * Removes the escapers surrounding {@code value} and unescapes the escapers
+	 * inside.
+	 *
+	 * @param value the raw value
+	 * @return the unescaped value
+	 */
+	private static String unescape(final String value) {
+		final String trimmed = value.trim();
+		if (trimmed.length() < 2
+				|| trimmed.charAt(0) != CsvFiles.ESCAPER
+				|| trimmed.charAt(trimmed.length() - 1) != CsvFiles.ESCAPER) {
+			return trimmed;
+		}
+		return trimmed.substring(1, trimmed.length() - 1)
+				.replace(ESCAPED_ESCAPER, Character.toString(CsvFiles.ESCAPER));
+	}
+
+	/**
+	 * Buffered reader of the CSV file
+	 */
+	Reader reader;
+
+	/**
+	 * Raw text of the current record, excluding its line break
+	 */
+	StringBuilder text = new StringBuilder();
+
+	/**
+	 * Reads the next record. Line breaks inside escaped values do not end a record.
+	 *
+	 * @return {@code true} if a record has been read, {@code false} at the end of
+	 *         the file
+	 * @throws IOException on IO error
+	 */
+	@PackagePrivate
+	boolean next() throws IOException {
+		text.setLength(0);
+		int character = reader.read();
+		if (character == -1) {
+			return false;
+		}
+		boolean escaped = false;
+		for (; character != -1 && (character != '\n' || escaped); character = reader.read()) {
+			if (character == CsvFiles.ESCAPER) {
+				escaped = !escaped;
+			}
+			text.append((char) character);
+		}
+
+		final int length = text.length();
+		if (length > 0 && text.charAt(length - 1) == '\r') {
+			text.setLength(length - 1);
+		}
+		return true;
+	}
+
+	/**
+	 * Parses all values of the current record, e.g. to read the header.
+	 *
+	 * @return the values of the current record
+	 * @throws IOException on IO error
+	 */
+	@PackagePrivate
+	@SuppressWarnings("PMD.LooseCoupling")
+	List<String> getValues() throws IOException {
+		final Csv csv = Csv.parse(new StringReader(text.toString()), CsvFiles.SEPARATOR, CsvFiles.ESCAPER);
+		return csv.isEmpty() ? emptyList() : csv.get(0);
+	}
+
+	/**
+	 * Returns the value at {@code index} of the current record without parsing the
+	 * other values.
+	 *
+	 * @param index the zero based index of the value
+	 * @return the value or an empty string if the record has less values
+	 */
+	@PackagePrivate
+	String getValue(final int index) {
+		int start = 0;
+		int separators = 0;
+		boolean escaped = false;
+		final int length = text.length();
+		for (int position = 0; position < length; position += 1) {
+			final char character = text.charAt(position);
+			if (character == CsvFiles.ESCAPER) {
+				escaped = !escaped;
+			} else if (character == CsvFiles.SEPARATOR && !escaped) {
+				if (separators == index) {
+					return unescape(text.substring(start, position));
+				}
+				separators += 1;
+				start = position + 1;
+			}
+		}
+		return separators == index ? unescape(text.substring(start)) : "";
+	}
+}
@@ -1,6 +1,7 @@
 package de.larssh.budget.aggregator.sheets.csv;
 
-import static java.util.Collections.emptyList;
+import static java.util.Collections.emptyMap;
+import static java.util.Collections.nCopies;
 import static java.util.stream.Collectors.toList;
 
 import java.util.Collection;
@@ -44,7 +45,7 @@ class CsvSheet implements Sheet {
 
 	@Override
 	public List<Map<BudgetReference, String>> getHeaderReferences() {
-		return emptyList();
+		return nCopies(getHeader().size(), emptyMap());
 	}
 
 	@Override
@@ -1,9 +1,10 @@
 package de.larssh.budget.aggregator.sheets.excel;
 
+import java.io.File;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
-import java.nio.file.Files;
+import java.math.BigDecimal;
 import java.nio.file.Path;
 import java.text.DecimalFormat;
 import java.text.DecimalFormatSymbols;
@@ -22,6 +23,10 @@ import java.util.Set;
 import java.util.function.BiConsumer;
 
 import org.apache.poi.hssf.usermodel.HSSFWorkbookFactory;
+import org.apache.poi.openxml4j.exceptions.InvalidFormatException;
+import org.apache.poi.openxml4j.opc.OPCPackage;
+import org.apache.poi.openxml4j.opc.PackageAccess;
+import org.apache.poi.poifs.filesystem.FileMagic;
 import org.apache.poi.ss.SpreadsheetVersion;
 import org.apache.poi.ss.usermodel.Cell;
 import org.apache.poi.ss.usermodel.CellStyle;
@@ -49,13 +54,21 @@ import org.openxmlformats.schemas.spreadsheetml.x2006.main.STCellType;
 import org.openxmlformats.schemas.spreadsheetml.x2006.main.STTotalsRowFunction;
 
 import de.larssh.budget.aggregator.data.Account;
+import de.larssh.budget.aggregator.data.AccountType;
 import de.larssh.budget.aggregator.data.Balance;
 import de.larssh.budget.aggregator.data.Budget;
+import de.larssh.budget.aggregator.data.BudgetCube;
 import de.larssh.budget.aggregator.data.BudgetReference;
 import de.larssh.budget.aggregator.data.BudgetType;
 import de.larssh.budget.aggregator.data.Budgets;
+import de.larssh.budget.aggregator.data.Municipality;
+import de.larssh.budget.aggregator.data.ParseContext;
 import de.larssh.budget.aggregator.data.Product;
+import de.larssh.budget.aggregator.sheets.AccountLabels;
+import de.larssh.budget.aggregator.sheets.SheetFilter;
 import de.larssh.budget.aggregator.sheets.csv.CsvFiles;
+import de.larssh.budget.aggregator.stats.Phase;
+import de.larssh.budget.aggregator.stats.Statistics;
 import de.larssh.utils.Finals;
 import de.larssh.utils.Nullables;
 import de.larssh.utils.OptionalInts;
@@ -76,6 +89,10 @@ public class ExcelFiles {
 	@PackagePrivate
 	static final String COLUMN_NAME_MUNICIPALITY = Finals.constant("Gemeinde");
 
+	private static final String PHASE_LIST_WORKBOOK = "list workbook";
+
+	private static final String PHASE_PARSE_WORKBOOK = "parse workbook";
+
 	static {
 		// Making sure that both Workbook Factories are registered to support XLS and
 		// XLSX. Registering automatically might be a problem when creating a JAR with
@@ -84,16 +101,119 @@ public class ExcelFiles {
 		WorkbookFactory.addProvider(new HSSFWorkbookFactory());
 	}
 
-	public static List<Budget> read(final Path source) throws IOException, StringParseException {
-		try (InputStream inputStream = Files.newInputStream(source);
-				Workbook workbook = WorkbookFactory.create(inputStream)) {
-			final String fileName = Nullables.orElseThrow(source.getFileName()).toString();
-			return Budgets.of(new ExcelSheets(fileName, workbook));
+	/**
+	 * Reads the budgets of the workbook {@code source}. The workbook is opened by
+	 * file in read-only mode, allowing Apache POI to use random access instead of
+	 * buffering the whole file in memory.
+	 *
+	 * @param source  the workbook file
+	 * @param context the context of reading
+	 * @return the budgets
+	 * @throws IOException          on IO error
+	 * @throws StringParseException on parse error
+	 */
+	public static List<Budget> read(final Path source, final ParseContext context)
+			throws IOException, StringParseException {
+		final String fileName = Nullables.orElseThrow(source.getFileName()).toString();
+		final Workbook parsedWorkbook;
+		try (Phase ignored = Statistics.start(PHASE_PARSE_WORKBOOK, fileName)) {
+			parsedWorkbook = WorkbookFactory.create(source.toFile(), null, true);
+		}
+		try (Workbook workbook = parsedWorkbook) {
+			return Budgets.of(new ExcelSheets(fileName, workbook, context.getSheetFilter()), context);
+		}
+	}
+
+	/**
+	 * Reads the budgets of a workbook given as stream, e.g. out of an archive.
+	 * Apache POI buffers the whole workbook in memory. {@code inputStream} is not
+	 * closed.
+	 *
+	 * @param fileName    the file name of the workbook
+	 * @param inputStream the workbook content
+	 * @param context     the context of reading
+	 * @return the budgets
+	 * @throws IOException          on IO error
+	 * @throws StringParseException on parse error
+	 */
+	public static List<Budget> read(final String fileName, final InputStream inputStream, final ParseContext context)
+			throws IOException, StringParseException {
+		final Workbook parsedWorkbook;
+		try (Phase ignored = Statistics.start(PHASE_PARSE_WORKBOOK, fileName)) {
+			parsedWorkbook = WorkbookFactory.create(inputStream);
+		}
+		try (Workbook workbook = parsedWorkbook) {
+			return Budgets.of(new ExcelSheets(fileName, workbook, context.getSheetFilter()), context);
+		}
+	}
+
+	/**
+	 * Lists the budgets of the workbook {@code source} based on the headers of its
+	 * sheets, see
+	 * {@link Budgets#ofHeaders(de.larssh.budget.aggregator.sheets.SheetsFile)}.
+	 * Office Open XML workbooks are streamed without building the workbook model,
+	 * while the legacy binary format is opened just like reading it.
+	 *
+	 * @param source the workbook file
+	 * @param filter the filter of sheets to list
+	 * @return the empty budgets
+	 * @throws IOException on IO or parse error
+	 */
+	public static List<Budget> list(final Path source, final SheetFilter filter) throws IOException {
+		final String fileName = Nullables.orElseThrow(source.getFileName()).toString();
+		try (Phase phase = Statistics.start(PHASE_LIST_WORKBOOK, fileName)) {
+			final List<Budget> budgets;
+			final File file = source.toFile();
+			if (FileMagic.valueOf(file) == FileMagic.OLE2) {
+				try (Workbook workbook = WorkbookFactory.create(file, null, true)) {
+					budgets = Budgets.ofHeaders(new ExcelSheets(fileName, workbook, filter));
+				}
+			} else {
+				try (OPCPackage workbook = OPCPackage.open(file, PackageAccess.READ)) {
+					budgets = ExcelHeaderReader.read(fileName, workbook, filter);
+				} catch (final InvalidFormatException e) {
+					throw new IOException(e);
+				}
+			}
+			phase.produced(budgets);
+			return budgets;
+		}
+	}
+
+	/**
+	 * Lists the budgets of a workbook given as stream based on the headers of its
+	 * sheets, see {@link #list(Path, SheetFilter)}. {@code inputStream} is not
+	 * closed.
+	 *
+	 * @param fileName    the file name of the workbook
+	 * @param inputStream the workbook content
+	 * @param filter      the filter of sheets to list
+	 * @return the empty budgets
+	 * @throws IOException on IO or parse error
+	 */
+	public static List<Budget> list(final String fileName, final InputStream inputStream, final SheetFilter filter)
+			throws IOException {
+		try (Phase phase = Statistics.start(PHASE_LIST_WORKBOOK, fileName)) {
+			final InputStream checkedInputStream = FileMagic.prepareToCheckMagic(inputStream);
+			final List<Budget> budgets;
+			if (FileMagic.valueOf(checkedInputStream) == FileMagic.OLE2) {
+				try (Workbook workbook = WorkbookFactory.create(checkedInputStream)) {
+					budgets = Budgets.ofHeaders(new ExcelSheets(fileName, workbook, filter));
+				}
+			} else {
+				try (OPCPackage workbook = OPCPackage.open(checkedInputStream)) {
+					budgets = ExcelHeaderReader.read(fileName, workbook, filter);
+				} catch (final InvalidFormatException e) {
+					throw new IOException(e);
+				}
+			}
+			phase.produced(budgets);
+			return budgets;
 		}
 	}
 
 	public static void write(final List<Budget> budgets, final OutputStream outputStream) throws IOException {
-		new ExcelFileWriter(budgets, outputStream).write();
+		new ExcelFileWriter(budgets, BudgetCube.of(budgets), outputStream).write();
 	}
 
 	@RequiredArgsConstructor(access = AccessLevel.PACKAGE)
@@ -122,14 +242,20 @@ public class ExcelFiles {
 
 		private static final String DATA_FORMAT_CURRENCY = "#,##0.00\\ \"€\";[Red]\\-#,##0.00\\ \"€\";\"\"";
 
+		private static final String DATA_FORMAT_PERCENTAGE = "0.0\\ %;[Red]\\-0.0\\ %;\"\"";
+
 		private static final String SHEET_NAME_ACCOUNTS = "Konten";
 
+		private static final String SHEET_NAME_ACCOUNT_TYPES = "Kontoarten";
+
 		private static final String SHEET_NAME_PRODUCTS = "Produkte";
 
 		private static final String COLUMN_NAME_ACCOUNT = "Konto";
 
 		private static final String COLUMN_NAME_ACCOUNT_DESCRIPTION = "Kontobeschreibung";
 
+		private static final String COLUMN_NAME_ACCOUNT_TYPE = "Kontoart";
+
 		private static final String COLUMN_NAME_DESCRIPTION = "Beschreibung";
 
 		private static final String COLUMN_NAME_PRODUCT = "Produkt";
@@ -138,6 +264,11 @@ public class ExcelFiles {
 
 		private static final String COLUMN_NAME_SUM = "Summieren";
 
+		/**
+		 * Label of the sums of all municipalities
+		 */
+		private static final String LABEL_TOTAL = "Summe";
+
 		/**
 		 * Excel data format for any number with any number of decimal places
 		 */
@@ -211,6 +342,10 @@ public class ExcelFiles {
 			return table;
 		}
 
+		private static String getDataFormat(final Budget budget) {
+			return budget.getType().isPercentage() ? DATA_FORMAT_PERCENTAGE : DATA_FORMAT_CURRENCY;
+		}
+
 		private static SimplifiedCellStyle getSimplifiedCellStyle(final Budget budget) {
 			return Nullables.orElse(SIMPLIFIED_CELL_STYLES.get(budget.getType()), SimplifiedCellStyle.ITALIC);
 		}
@@ -233,6 +368,12 @@ public class ExcelFiles {
 
 		List<Budget> budgets;
 
+		/**
+		 * Pre-aggregated sums of {@link #budgets}, used to write sums as values instead
+		 * of relying on spreadsheet recalculation
+		 */
+		BudgetCube cube;
+
 		OutputStream outputStream;
 
 		Set<String> budgetColumnNamesUsed = new HashSet<>();
@@ -244,6 +385,8 @@ public class ExcelFiles {
 		 */
 		Map<String, CellStyle> cellStyleCache = new HashMap<>();
 
+		AccountLabels accountLabels = new AccountLabels();
+
 		@SuppressWarnings({ "checkstyle:SuppressWarnings", "resource" })
 		private <T> Cell appendCell(final Row row,
 				final SimplifiedCellStyle simplifiedCellStyle,
@@ -287,6 +430,28 @@ public class ExcelFiles {
 					Optional.of(formula));
 		}
 
+		/**
+		 * Appends a formula cell, which already contains {@code cachedValue} as result.
+		 * Applications displaying the cached result do not need to recalculate the
+		 * formula.
+		 *
+		 * @param row                 the row to modify
+		 * @param simplifiedCellStyle the cell style
+		 * @param dataFormat          the data format
+		 * @param formula             the formula
+		 * @param cachedValue         the pre-calculated result of {@code formula}
+		 * @return the created cell
+		 */
+		private Cell appendFormula(final Row row,
+				final SimplifiedCellStyle simplifiedCellStyle,
+				final String dataFormat,
+				final String formula,
+				final BigDecimal cachedValue) {
+			final Cell cell = appendFormula(row, simplifiedCellStyle, dataFormat, formula);
+			((XSSFCell) cell).getCTCell().setV(DECIMAL_FORMAT.get().format(cachedValue));
+			return cell;
+		}
+
 		private Cell appendNumber(final Row row, final OptionalInt value) {
 			return appendCell(row,
 					SimplifiedCellStyle.NORMAL,
@@ -369,34 +534,45 @@ public class ExcelFiles {
 			try (XSSFWorkbook workbook = new XSSFWorkbook()) {
 				workbook.setCellFormulaValidation(false);
 
-				writeProducts(workbook.createSheet(SHEET_NAME_PRODUCTS));
-				writeAccounts(workbook.createSheet(SHEET_NAME_ACCOUNTS));
+				try (Phase ignored = Statistics.start("build workbook")) {
+					writeProducts(workbook.createSheet(SHEET_NAME_PRODUCTS));
+					writeAccounts(workbook.createSheet(SHEET_NAME_ACCOUNTS));
+					writeAccountTypes(workbook.createSheet(SHEET_NAME_ACCOUNT_TYPES));
+				}
 
 				// Auto Size Columns
-				workbook.sheetIterator().forEachRemaining(sheet -> {
-					final int numberOfColumns = sheet.getRow(0).getLastCellNum();
-					for (int columnIndex = 0; columnIndex < numberOfColumns; columnIndex += 1) {
-						sheet.autoSizeColumn(columnIndex);
-
-						// Add the width of the auto filter
-						final double widthOfHeader = SheetUtil.getColumnWidth(sheet, columnIndex, false, 0, 0);
-						if (widthOfHeader != -1) {
-							final int intWidth = (int) Math.round(
-									Math.min(CHARACTER_WIDTH * widthOfHeader + AUTO_FILTER_WIDTH, COLUMN_MAX_WIDTH));
-							if (intWidth > sheet.getColumnWidth(columnIndex)) {
-								sheet.setColumnWidth(columnIndex, intWidth);
-							}
-						}
-					}
-				});
+				try (Phase ignored = Statistics.start("auto-size columns")) {
+					autoSizeColumns(workbook);
+				}
 
-				workbook.write(outputStream);
+				try (Phase ignored = Statistics.start("write ZIP")) {
+					workbook.write(outputStream);
+				}
 			}
 		}
 
+		private static void autoSizeColumns(final Workbook workbook) {
+			workbook.sheetIterator().forEachRemaining(sheet -> {
+				final int numberOfColumns = sheet.getRow(0).getLastCellNum();
+				for (int columnIndex = 0; columnIndex < numberOfColumns; columnIndex += 1) {
+					sheet.autoSizeColumn(columnIndex);
+
+					// Add the width of the auto filter
+					final double widthOfHeader = SheetUtil.getColumnWidth(sheet, columnIndex, false, 0, 0);
+					if (widthOfHeader != -1) {
+						final int intWidth = (int) Math
+								.round(Math.min(CHARACTER_WIDTH * widthOfHeader + AUTO_FILTER_WIDTH, COLUMN_MAX_WIDTH));
+						if (intWidth > sheet.getColumnWidth(columnIndex)) {
+							sheet.setColumnWidth(columnIndex, intWidth);
+						}
+					}
+				}
+			});
+		}
+
 		@SuppressWarnings("checkstyle:MagicNumber")
 		private void writeProducts(final XSSFSheet sheet) {
-			final Set<Product> products = Budgets.getProducts(budgets);
+			final Set<Product> products = cube.getProducts();
 			appendProducts(sheet, products);
 			appendProductBudgets(sheet, products);
 
@@ -433,24 +609,34 @@ public class ExcelFiles {
 						= appendString(sheet.getRow(0), getSimplifiedCellStyle(budget), getBudgetColumnName(budget));
 				addBudgetsComment(headerCell, budget);
 
-				// Balances
+				// Balances (relative values cannot be summed up)
 				int rowIndex = 1;
-				for (int i = products.size(); i > 0; i -= 1) {
-					appendFormula(sheet.getRow(rowIndex),
-							getSimplifiedCellStyle(budget),
-							DATA_FORMAT_CURRENCY,
-							String.format(
-									"SUMIFS(%1$s[%7$s], "
-											+ "%1$s[%3$s], %2$s[[#This Row],[%3$s]], "
-											+ "%1$s[%4$s], %2$s[[#This Row],[%5$s]], "
-											+ "%1$s[%6$s], TRUE)",
-									SHEET_NAME_ACCOUNTS, // 1
-									SHEET_NAME_PRODUCTS, // 2
-									COLUMN_NAME_PRODUCT, // 3
-									COLUMN_NAME_PRODUCT_DESCRIPTION, // 4
-									COLUMN_NAME_DESCRIPTION, // 5
-									COLUMN_NAME_SUM, // 6
-									getBudgetColumnName(budget))); // 7
+				for (final Product product : products) {
+					if (budget.getType().isPercentage()) {
+						appendNumber(sheet.getRow(rowIndex),
+								getSimplifiedCellStyle(budget),
+								DATA_FORMAT_PERCENTAGE,
+								Optional.empty());
+					} else {
+						appendFormula(sheet.getRow(rowIndex),
+								getSimplifiedCellStyle(budget),
+								DATA_FORMAT_CURRENCY,
+								String.format(
+										"SUMIFS(%1$s[%7$s], "
+												+ "%1$s[%8$s], %2$s[[#This Row],[%8$s]], "
+												+ "%1$s[%3$s], %2$s[[#This Row],[%3$s]], "
+												+ "%1$s[%4$s], %2$s[[#This Row],[%5$s]], "
+												+ "%1$s[%6$s], TRUE)",
+										SHEET_NAME_ACCOUNTS, // 1
+										SHEET_NAME_PRODUCTS, // 2
+										COLUMN_NAME_PRODUCT, // 3
+										COLUMN_NAME_PRODUCT_DESCRIPTION, // 4
+										COLUMN_NAME_DESCRIPTION, // 5
+										COLUMN_NAME_SUM, // 6
+										getBudgetColumnName(budget), // 7
+										COLUMN_NAME_MUNICIPALITY), // 8
+								cube.getSum(product, budget));
+					}
 					rowIndex += 1;
 				}
 			}
@@ -506,7 +692,7 @@ public class ExcelFiles {
 				appendNumber(row, OptionalInt.of(account.getProduct().getMunicipality().getId()));
 				appendNumber(row, OptionalInt.of(account.getProduct().getId()));
 				appendString(row, account.getProduct().getDescription());
-				appendString(row, String.format("%d %s", account.getId(), account.getDescription()));
+				appendString(row, accountLabels.get(account));
 			}
 		}
 
@@ -525,7 +711,7 @@ public class ExcelFiles {
 
 					appendNumber(sheet.getRow(rowIndex),
 							getSimplifiedCellStyle(budget),
-							DATA_FORMAT_CURRENCY,
+							getDataFormat(budget),
 							balance.map(Balance::getValue));
 					rowIndex += 1;
 				}
@@ -539,14 +725,73 @@ public class ExcelFiles {
 
 		private void appendSumsForBudgets(final Row row, final Iterator<CTTableColumn> columnsIterator) {
 			for (final Budget budget : budgets) {
-				columnsIterator.next().setTotalsRowFunction(STTotalsRowFunction.CUSTOM);
-				appendFormula(row,
-						getSimplifiedCellStyle(budget),
-						DATA_FORMAT_CURRENCY,
-						String.format("SUMIFS(%1$s[%3$s], %1$s[%2$s], TRUE)",
-								SHEET_NAME_PRODUCTS,
-								COLUMN_NAME_SUM,
-								getBudgetColumnName(budget)));
+				final CTTableColumn column = columnsIterator.next();
+				if (budget.getType().isPercentage()) {
+					column.setTotalsRowLabel("");
+					appendNumber(row, getSimplifiedCellStyle(budget), DATA_FORMAT_PERCENTAGE, Optional.empty());
+				} else {
+					column.setTotalsRowFunction(STTotalsRowFunction.CUSTOM);
+					appendFormula(row,
+							getSimplifiedCellStyle(budget),
+							DATA_FORMAT_CURRENCY,
+							String.format("SUMIFS(%1$s[%3$s], %1$s[%2$s], TRUE)",
+									SHEET_NAME_PRODUCTS,
+									COLUMN_NAME_SUM,
+									getBudgetColumnName(budget)),
+							cube.getSum(budget));
+				}
+			}
+		}
+
+		/**
+		 * Writes the sums per municipality and account type as values, followed by the
+		 * sums per account type of all municipalities if there are multiple
+		 * municipalities.
+		 *
+		 * @param sheet the sheet to modify
+		 */
+		private void writeAccountTypes(final XSSFSheet sheet) {
+			// Headers
+			final Row headerRow = appendRow(sheet);
+			appendStrings(headerRow, COLUMN_NAME_MUNICIPALITY, COLUMN_NAME_ACCOUNT_TYPE);
+			for (final Budget budget : budgets) {
+				appendString(headerRow, getSimplifiedCellStyle(budget), getBudgetColumnName(budget));
+			}
+
+			// Values
+			for (final Municipality municipality : cube.getMunicipalities()) {
+				appendAccountTypes(sheet, Optional.of(municipality));
+			}
+			if (cube.getMunicipalities().size() > 1) {
+				appendAccountTypes(sheet, Optional.empty());
+			}
+
+			if (sheet.getLastRowNum() > 0) {
+				createTable(sheet, SHEET_NAME_ACCOUNT_TYPES);
+			}
+		}
+
+		private void appendAccountTypes(final Sheet sheet, final Optional<Municipality> municipality) {
+			for (final AccountType accountType : cube.getAccountTypes()) {
+				final Row row = appendRow(sheet);
+				if (municipality.isPresent()) {
+					appendNumber(row, OptionalInt.of(municipality.get().getId()));
+				} else {
+					appendString(row, LABEL_TOTAL);
+				}
+				appendString(row, accountType.getDisplayValue());
+
+				for (final Budget budget : budgets) {
+					appendNumber(row,
+							getSimplifiedCellStyle(budget),
+							getDataFormat(budget),
+							budget.getType().isPercentage()
+									? Optional.empty()
+									: Optional.of(cube.getSum(municipality,
+											Optional.empty(),
+											Optional.of(accountType),
+											Optional.of(budget))));
+				}
 			}
 		}
 	}
@@ -0,0 +1,340 @@
+package de.larssh.budget.aggregator.sheets.excel;
+
+import static java.util.Collections.emptyList;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.SortedMap;
+import java.util.TreeMap;
+import java.util.TreeSet;
+
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+
+import org.apache.poi.openxml4j.exceptions.OpenXML4JException;
+import org.apache.poi.openxml4j.opc.OPCPackage;
+import org.apache.poi.openxml4j.opc.PackagePart;
+import org.apache.poi.ss.util.CellReference;
+import org.apache.poi.util.XMLHelper;
+import org.apache.poi.xssf.eventusermodel.XSSFReader;
+import org.apache.poi.xssf.usermodel.XSSFRelation;
+
+import de.larssh.budget.aggregator.data.Budget;
+import de.larssh.budget.aggregator.data.Budgets;
+import de.larssh.budget.aggregator.sheets.SheetFilter;
+import de.larssh.budget.aggregator.sheets.csv.CsvFiles;
+import de.larssh.utils.annotations.PackagePrivate;
+import edu.umd.cs.findbugs.annotations.Nullable;
+import edu.umd.cs.findbugs.annotations.SuppressFBWarnings;
+import lombok.AccessLevel;
+import lombok.RequiredArgsConstructor;
+import lombok.experimental.NonFinal;
+
+/**
+ * Lists the budgets of an Office Open XML workbook based on the headers of its
+ * sheets, see
+ * {@link Budgets#ofHeader(Optional, Optional, List, java.util.Collection)}.
+ *
+ * <p>
+ * The XML of each sheet is pulled using StAX instead of building the workbook
+ * model, so reading stops right after the header row, unless the budget year
+ * column is required to determine the years of the budget columns. In that case
+ * only the cells of the budget year column are converted. Shared strings are
+ * read lazily up to the highest index referenced so far, and neither styles nor
+ * number formats are loaded. Sheets not matching the {@link SheetFilter} are
+ * not parsed at all.
+ */
+@PackagePrivate
+@RequiredArgsConstructor(access = AccessLevel.PRIVATE)
+final class ExcelHeaderReader {
+	private static final String ATTRIBUTE_REFERENCE = "r";
+
+	/**
+	 * Local name of the cell type attribute as well as of text elements
+	 */
+	private static final String NAME_TYPE_OR_TEXT = "t";
+
+	private static final String ELEMENT_CELL = "c";
+
+	private static final String ELEMENT_ROW = "row";
+
+	private static final String ELEMENT_VALUE = "v";
+
+	private static final String TYPE_SHARED_STRING = "s";
+
+	/**
+	 * Lists the budgets of {@code workbook}.
+	 *
+	 * @param fileName the file name of the workbook
+	 * @param workbook the workbook package
+	 * @param filter   the filter of sheets to list
+	 * @return the empty budgets in order of their sheets and columns
+	 * @throws IOException on IO or parse error
+	 */
+	@PackagePrivate
+	@SuppressWarnings("PMD.AvoidInstantiatingObjectsInLoops")
+	@SuppressFBWarnings(value = "XXE_XMLSTREAMREADER",
+			justification = "false-positive, XMLHelper creates secure factories")
+	static List<Budget> read(final String fileName, final OPCPackage workbook, final SheetFilter filter)
+			throws IOException {
+		final XMLInputFactory factory = XMLHelper.newXMLInputFactory();
+		try (SharedStrings sharedStrings = new SharedStrings(factory, workbook)) {
+			final List<Budget> budgets = new ArrayList<>();
+			final XSSFReader.SheetIterator sheets = new XSSFReader(workbook).getSheetIterator();
+			while (sheets.hasNext()) {
+				try (InputStream sheet = sheets.next()) {
+					if (filter.test(sheets.getSheetName())) {
+						final ExcelHeaderReader header = new ExcelHeaderReader(sharedStrings);
+						header.readSheet(factory.createXMLStreamReader(sheet));
+						budgets.addAll(Budgets.ofHeader(Optional.of(fileName),
+								Optional.of(sheets.getSheetName()),
+								header.header,
+								header.budgetYears));
+					}
+				}
+			}
+			return budgets;
+		} catch (final OpenXML4JException | XMLStreamException e) {
+			throw new IOException(e);
+		}
+	}
+
+	/**
+	 * Shared strings of the workbook
+	 */
+	SharedStrings sharedStrings;
+
+	/**
+	 * Cell values of the header row by column index
+	 */
+	SortedMap<Integer, String> headerCells = new TreeMap<>();
+
+	/**
+	 * Header of the sheet, filled after reading the header row
+	 */
+	@NonFinal
+	List<String> header = emptyList();
+
+	/**
+	 * Column index of the budget year column, filled after reading the header row
+	 * if required
+	 */
+	@NonFinal
+	int budgetYearColumn = -1;
+
+	/**
+	 * Distinct values of the budget year column
+	 */
+	Set<Integer> budgetYears = new TreeSet<>();
+
+	/**
+	 * Pulls the rows of a sheet until the header row is read and the budget year
+	 * column is not required or until the end of the sheet.
+	 *
+	 * @param reader the XML of the sheet
+	 * @throws XMLStreamException on parse error
+	 */
+	@SuppressWarnings({
+			"PMD.AvoidInstantiatingObjectsInLoops",
+			"PMD.CognitiveComplexity",
+			"PMD.CyclomaticComplexity",
+			"PMD.NullAssignment" })
+	@SuppressFBWarnings(value = "AFBR_ABNORMAL_FINALLY_BLOCK_RETURN",
+			justification = "failing to close the reader is a parse error")
+	private void readSheet(final XMLStreamReader reader) throws XMLStreamException {
+		try {
+			int column = -1;
+			String type = null;
+			String value = null;
+			boolean readNext = true;
+			while (readNext && reader.hasNext()) {
+				final int event = reader.next();
+				if (event == XMLStreamConstants.START_ELEMENT) {
+					final String name = reader.getLocalName();
+					if (ELEMENT_CELL.equals(name)) {
+						final String reference = reader.getAttributeValue(null, ATTRIBUTE_REFERENCE);
+						column = reference == null ? column + 1 : new CellReference(reference).getCol();
+						type = reader.getAttributeValue(null, NAME_TYPE_OR_TEXT);
+						value = null;
+					} else if (ELEMENT_VALUE.equals(name) || NAME_TYPE_OR_TEXT.equals(name)) {
+						value = value == null ? reader.getElementText() : value + reader.getElementText();
+					} else if (ELEMENT_ROW.equals(name)) {
+						column = -1;
+					}
+				} else if (event == XMLStreamConstants.END_ELEMENT) {
+					final String name = reader.getLocalName();
+					if (value != null && ELEMENT_CELL.equals(name)) {
+						readCell(column, type, value);
+					} else if (ELEMENT_ROW.equals(name)) {
+						readNext = readRowEnd();
+					}
+				}
+			}
+		} finally {
+			reader.close();
+		}
+	}
+
+	private void readCell(final int column, @Nullable final String type, final String value) throws XMLStreamException {
+		if (header.isEmpty()) {
+			headerCells.put(column, getString(type, value));
+		} else if (column == budgetYearColumn) {
+			Budgets.parseBudgetYear(getString(type, value)).ifPresent(budgetYears::add);
+		}
+	}
+
+	/**
+	 * Determines the header after reading the first row.
+	 *
+	 * @return {@code true} to continue reading rows, else {@code false}
+	 */
+	private boolean readRowEnd() {
+		if (!header.isEmpty()) {
+			return true;
+		}
+		if (headerCells.isEmpty()) {
+			return false;
+		}
+
+		final int firstColumn = headerCells.firstKey();
+		final int lastColumn = headerCells.lastKey();
+		final List<String> cells = new ArrayList<>(lastColumn - firstColumn + 1);
+		for (int column = firstColumn; column <= lastColumn; column += 1) {
+			cells.add(headerCells.getOrDefault(column, ""));
+		}
+		header = cells;
+
+		final int budgetYearIndex = header.indexOf(CsvFiles.COLUMN_NAME_BUDGET_YEAR);
+		if (budgetYearIndex == -1 || !Budget.isBudgetYearRequired(header)) {
+			return false;
+		}
+		budgetYearColumn = firstColumn + budgetYearIndex;
+		return true;
+	}
+
+	private String getString(@Nullable final String type, final String value) throws XMLStreamException {
+		return TYPE_SHARED_STRING.equals(type) ? sharedStrings.get(Integer.parseInt(value.trim())) : value;
+	}
+
+	/**
+	 * Shared strings table of a workbook, pulled lazily up to the highest index
+	 * requested so far
+	 */
+	private static final class SharedStrings implements AutoCloseable {
+		private static final String ELEMENT_PHONETIC_RUN = "rPh";
+
+		private static final String ELEMENT_STRING_ITEM = "si";
+
+		private static String readItem(final XMLStreamReader reader) throws XMLStreamException {
+			final StringBuilder builder = new StringBuilder();
+			boolean phonetic = false;
+			for (int event = reader.next();
+					event != XMLStreamConstants.END_ELEMENT || !ELEMENT_STRING_ITEM.equals(reader.getLocalName());
+					event = reader.next()) {
+				if (event == XMLStreamConstants.START_ELEMENT) {
+					final String name = reader.getLocalName();
+					if (ELEMENT_PHONETIC_RUN.equals(name)) {
+						phonetic = true;
+					} else if (!phonetic && NAME_TYPE_OR_TEXT.equals(name)) {
+						builder.append(reader.getElementText());
+					}
+				} else if (event == XMLStreamConstants.END_ELEMENT
+						&& ELEMENT_PHONETIC_RUN.equals(reader.getLocalName())) {
+					phonetic = false;
+				}
+			}
+			return builder.toString();
+		}
+
+		/**
+		 * Content of the shared strings part or {@code null} if the workbook has none
+		 */
+		@Nullable
+		InputStream inputStream;
+
+		@Nullable
+		XMLStreamReader reader;
+
+		List<String> strings = new ArrayList<>();
+
+		@PackagePrivate
+		@SuppressWarnings("PMD.CloseResource")
+		@SuppressFBWarnings(value = "XXE_XMLSTREAMREADER",
+				justification = "false-positive, XMLHelper creates secure factories")
+		SharedStrings(final XMLInputFactory factory, final OPCPackage workbook)
+				throws IOException, OpenXML4JException, XMLStreamException {
+			final List<PackagePart> parts
+					= workbook.getPartsByContentType(XSSFRelation.SHARED_STRINGS.getContentType());
+			if (parts.isEmpty()) {
+				inputStream = null;
+				reader = null;
+			} else {
+				final InputStream partInputStream = parts.get(0).getInputStream();
+				inputStream = partInputStream;
+				reader = factory.createXMLStreamReader(partInputStream);
+			}
+		}
+
+		/**
+		 * Returns the shared string at {@code index}, reading further strings if
+		 * required.
+		 *
+		 * @param index the zero based index
+		 * @return the shared string or an empty string if there is no such index
+		 * @throws XMLStreamException on parse error
+		 */
+		@PackagePrivate
+		String get(final int index) throws XMLStreamException {
+			boolean hasNext = true;
+			while (hasNext && strings.size() <= index) {
+				hasNext = readNext();
+			}
+			return index < strings.size() ? strings.get(index) : "";
+		}
+
+		/**
+		 * Reads the next string item.
+		 *
+		 * @return {@code true} if a string has been read, {@code false} at the end of
+		 *         the table
+		 * @throws XMLStreamException on parse error
+		 */
+		private boolean readNext() throws XMLStreamException {
+			final XMLStreamReader reader = this.reader;
+			if (reader == null) {
+				return false;
+			}
+			while (reader.hasNext()) {
+				if (reader.next() == XMLStreamConstants.START_ELEMENT
+						&& ELEMENT_STRING_ITEM.equals(reader.getLocalName())) {
+					strings.add(readItem(reader));
+					return true;
+				}
+			}
+			return false;
+		}
+
+		/** {@inheritDoc} */
+		@Override
+		@SuppressWarnings("PMD.CloseResource")
+		public void close() throws IOException {
+			try {
+				if (reader != null) {
+					reader.close();
+				}
+			} catch (final XMLStreamException e) {
+				throw new IOException(e);
+			} finally {
+				if (inputStream != null) {
+					inputStream.close();
+				}
+			}
+		}
+	}
+}
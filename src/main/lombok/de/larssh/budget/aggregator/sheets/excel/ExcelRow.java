@@ -7,17 +7,56 @@ import org.apache.poi.ss.usermodel.Row;
 
 import de.larssh.budget.aggregator.utils.CellValues;
 import de.larssh.utils.annotations.PackagePrivate;
-import lombok.RequiredArgsConstructor;
+import lombok.ToString;
+import lombok.experimental.NonFinal;
 
+/**
+ * Mutable view of a row of an {@link ExcelSheet}
+ *
+ * <p>
+ * Iterating the rows of a sheet moves a single view from row to row instead of
+ * creating one object per row, therefore a view must not be retained after
+ * advancing the iterator. Row index and size are calculated once per row.
+ */
+@ToString
 @PackagePrivate
-@RequiredArgsConstructor
 class ExcelRow implements de.larssh.budget.aggregator.sheets.Row {
 	int firstColumnIndex;
 
+	int firstRowIndex;
+
 	List<String> header;
 
+	@NonFinal
 	Row row;
 
+	@NonFinal
+	int rowIndex;
+
+	@NonFinal
+	int cellCount;
+
+	@PackagePrivate
+	ExcelRow(final int firstColumnIndex, final int firstRowIndex, final List<String> header, final Row row) {
+		this.firstColumnIndex = firstColumnIndex;
+		this.firstRowIndex = firstRowIndex;
+		this.header = header;
+		this.row = row;
+		move(row);
+	}
+
+	/**
+	 * Moves this view to {@code row}.
+	 *
+	 * @param row the row to view
+	 */
+	@PackagePrivate
+	final void move(final Row row) {
+		this.row = row;
+		rowIndex = row.getRowNum() - firstRowIndex;
+		cellCount = row.getLastCellNum() - firstColumnIndex + 1;
+	}
+
 	@Override
 	public Optional<String> get(final int index) {
 		return Optional.ofNullable(row.getCell(firstColumnIndex + index))
@@ -32,11 +71,11 @@ class ExcelRow implements de.larssh.budget.aggregator.sheets.Row {
 
 	@Override
 	public int getRowIndex() {
-		return row.getRowNum() - firstColumnIndex;
+		return rowIndex;
 	}
 
 	@Override
 	public int size() {
-		return row.getLastCellNum() - firstColumnIndex + 1;
+		return cellCount;
 	}
 }
@@ -8,9 +8,11 @@ import static java.util.stream.Collectors.toList;
 import java.util.Arrays;
 import java.util.EnumMap;
 import java.util.HashMap;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
+import java.util.NoSuchElementException;
 import java.util.Optional;
 import java.util.regex.Pattern;
 
@@ -21,24 +23,43 @@ import org.apache.poi.ss.usermodel.Row;
 import org.apache.poi.ss.usermodel.Sheet;
 
 import de.larssh.budget.aggregator.data.BudgetReference;
+import de.larssh.budget.aggregator.sheets.csv.CsvFiles;
 import de.larssh.budget.aggregator.utils.CellValues;
 import de.larssh.budget.aggregator.utils.Workbooks;
 import de.larssh.utils.annotations.PackagePrivate;
 import de.larssh.utils.collection.Maps;
 import de.larssh.utils.text.Patterns;
+import edu.umd.cs.findbugs.annotations.Nullable;
 import lombok.AccessLevel;
 import lombok.Getter;
-import lombok.RequiredArgsConstructor;
+import lombok.experimental.NonFinal;
 
-@RequiredArgsConstructor
 @PackagePrivate
-class ExcelSheet implements de.larssh.budget.aggregator.sheets.Sheet {
+final class ExcelSheet implements de.larssh.budget.aggregator.sheets.Sheet {
 	private static final Map<BudgetReference, Pattern> HEADER_PATTERNS = Arrays.stream(BudgetReference.values())
 			.map(reference -> Maps.entry(reference,
 					Pattern.compile('^' + Pattern.quote(reference.getDisplayValue()) + ": (?<value>.*)$",
 							Pattern.MULTILINE)))
 			.collect(toMap(HashMap::new));
 
+	/**
+	 * Determines the minimum index of the first cell of all rows, skipping rows
+	 * without cells.
+	 *
+	 * @param sheet the sheet
+	 * @return the index of the first column
+	 */
+	private static int getFirstColumnIndex(final Sheet sheet) {
+		int firstColumnIndex = Integer.MAX_VALUE;
+		for (final Row row : sheet) {
+			final int firstCellIndex = row.getFirstCellNum();
+			if (firstCellIndex >= 0) {
+				firstColumnIndex = Math.min(firstColumnIndex, firstCellIndex);
+			}
+		}
+		return firstColumnIndex == Integer.MAX_VALUE ? 0 : firstColumnIndex;
+	}
+
 	private static Map<BudgetReference, String> parseHeaderComment(final Cell cell) {
 		final String comment = Optional.ofNullable(cell)
 				.map(Cell::getCellComment)
@@ -57,6 +78,29 @@ class ExcelSheet implements de.larssh.budget.aggregator.sheets.Sheet {
 		return unmodifiableMap(headerReferences);
 	}
 
+	/**
+	 * Probes the header row of {@code sheet} and opens the sheet only if it is a
+	 * budget sheet, as its header contains {@link CsvFiles#COLUMN_NAME_ACCOUNT}.
+	 * Neither header comments nor any other row are read for other sheets, e.g.
+	 * empty sheets or the formula-only products sheet of aggregated workbooks.
+	 *
+	 * @param sheet the sheet
+	 * @return the budget sheet or empty if {@code sheet} is no budget sheet
+	 */
+	@PackagePrivate
+	static Optional<ExcelSheet> probe(final Sheet sheet) {
+		final Row headerRow = sheet.getRow(sheet.getFirstRowNum());
+		if (headerRow == null) {
+			return Optional.empty();
+		}
+		final List<String> header = Workbooks.cells(headerRow) //
+				.map(cell -> CellValues.getAsString(CellValues.create(cell, true)))
+				.collect(toList());
+		return header.contains(CsvFiles.COLUMN_NAME_ACCOUNT)
+				? Optional.of(new ExcelSheet(sheet, headerRow, header))
+				: Optional.empty();
+	}
+
 	@Getter(AccessLevel.PRIVATE)
 	Sheet sheet;
 
@@ -66,34 +110,42 @@ class ExcelSheet implements de.larssh.budget.aggregator.sheets.Sheet {
 	@Getter
 	List<Map<BudgetReference, String>> headerReferences;
 
-	@Getter
-	Iterable<ExcelRow> rows;
+	/**
+	 * Index of the first column of all rows, determined on iterating the rows for
+	 * the first time
+	 */
+	@NonFinal
+	int firstColumnIndex = -1;
 
-	@PackagePrivate
-	ExcelSheet(final Sheet sheet) {
-		this.sheet = sheet;
+	/**
+	 * Index of the header row
+	 */
+	int firstRowIndex;
 
-		final int firstColumnIndex = Workbooks.rows(sheet) //
-				.mapToInt(Row::getFirstCellNum)
-				.min()
-				.orElse(0);
-
-		// Header
-		final int firstRowIndex = sheet.getFirstRowNum();
-		header = Workbooks.cells(sheet.getRow(firstRowIndex)) //
-				.map(cell -> CellValues.getAsString(CellValues.create(cell, true)))
-				.collect(toList());
+	private ExcelSheet(final Sheet sheet, final Row headerRow, final List<String> header) {
+		this.sheet = sheet;
+		this.header = header;
+		firstRowIndex = headerRow.getRowNum();
 
 		// Header References
-		headerReferences = Workbooks.cells(sheet.getRow(firstRowIndex)) //
+		headerReferences = Workbooks.cells(headerRow) //
 				.map(ExcelSheet::parseHeaderComment)
 				.collect(toList());
+	}
 
-		// Rows
-		rows = Workbooks.rows(sheet) //
-				.skip(1) // skip header
-				.map(row -> new ExcelRow(firstColumnIndex, header, row))
-				.collect(toList());
+	/**
+	 * Iterates the rows below the header lazily, skipping rows not physically
+	 * present. All rows of one iterator share a single {@link ExcelRow} view, which
+	 * is moved to the next row on advancing.
+	 *
+	 * @return the rows
+	 */
+	@Override
+	public Iterable<ExcelRow> getRows() {
+		if (firstColumnIndex == -1) {
+			firstColumnIndex = getFirstColumnIndex(sheet);
+		}
+		return () -> new RowIterator(sheet.rowIterator(), firstColumnIndex, firstRowIndex, header);
 	}
 
 	@Override
@@ -110,4 +162,73 @@ class ExcelSheet implements de.larssh.budget.aggregator.sheets.Sheet {
 	public int size() {
 		return sheet.getLastRowNum() - sheet.getFirstRowNum() + 1;
 	}
+
+	/**
+	 * Iterator of the rows below the header, moving a single view
+	 */
+	private static final class RowIterator implements Iterator<ExcelRow> {
+		Iterator<Row> iterator;
+
+		int firstColumnIndex;
+
+		int firstRowIndex;
+
+		List<String> header;
+
+		@NonFinal
+		@Nullable
+		ExcelRow view;
+
+		@NonFinal
+		@Nullable
+		Row nextRow;
+
+		@PackagePrivate
+		RowIterator(final Iterator<Row> iterator,
+				final int firstColumnIndex,
+				final int firstRowIndex,
+				final List<String> header) {
+			this.iterator = iterator;
+			this.firstColumnIndex = firstColumnIndex;
+			this.firstRowIndex = firstRowIndex;
+			this.header = header;
+			nextRow = advance();
+		}
+
+		@Nullable
+		private Row advance() {
+			while (iterator.hasNext()) {
+				final Row row = iterator.next();
+				if (row.getRowNum() > firstRowIndex) {
+					return row;
+				}
+			}
+			return null;
+		}
+
+		/** {@inheritDoc} */
+		@Override
+		public boolean hasNext() {
+			return nextRow != null;
+		}
+
+		/** {@inheritDoc} */
+		@Override
+		public ExcelRow next() {
+			final Row row = nextRow;
+			if (row == null) {
+				throw new NoSuchElementException();
+			}
+			nextRow = advance();
+
+			final ExcelRow current = view;
+			if (current == null) {
+				final ExcelRow created = new ExcelRow(firstColumnIndex, firstRowIndex, header, row);
+				view = created;
+				return created;
+			}
+			current.move(row);
+			return current;
+		}
+	}
 }
@@ -1,15 +1,24 @@
 package de.larssh.budget.aggregator.sheets.excel;
 
-import static java.util.stream.Collectors.toList;
-
 import java.util.Optional;
 
 import org.apache.poi.ss.usermodel.Workbook;
 
+import de.larssh.budget.aggregator.sheets.SheetFilter;
 import de.larssh.budget.aggregator.sheets.SheetsFile;
 import de.larssh.budget.aggregator.utils.Workbooks;
 import lombok.Getter;
 
+/**
+ * Budget sheets of a workbook
+ *
+ * <p>
+ * Sheets are opened lazily while iterating. Sheets not matching the
+ * {@link SheetFilter} given on creation are skipped by name, and the header row
+ * of all other sheets is probed first, skipping sheets other than budget sheets
+ * before reading any further row, see
+ * {@link ExcelSheet#probe(org.apache.poi.ss.usermodel.Sheet)}.
+ */
 public class ExcelSheets implements SheetsFile {
 	@Getter
 	Optional<String> fileName;
@@ -17,11 +26,14 @@ public class ExcelSheets implements SheetsFile {
 	@Getter
 	Iterable<ExcelSheet> sheets;
 
-	public ExcelSheets(final String fileName, final Workbook workbook) {
+	public ExcelSheets(final String fileName, final Workbook workbook, final SheetFilter filter) {
 		this.fileName = Optional.of(fileName);
 
-		sheets = Workbooks.sheets(workbook) //
-				.map(ExcelSheet::new)
-				.collect(toList());
+		sheets = () -> Workbooks.sheets(workbook) //
+				.filter(sheet -> filter.test(sheet.getSheetName()))
+				.map(ExcelSheet::probe)
+				.filter(Optional::isPresent)
+				.map(Optional::get)
+				.iterator();
 	}
 }
@@ -0,0 +1,358 @@
+package de.larssh.budget.aggregator.sheets.snapshot;
+
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.math.BigDecimal;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileChannel.MapMode;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+
+import de.larssh.budget.aggregator.data.Account;
+import de.larssh.budget.aggregator.data.AccountDictionary;
+import de.larssh.budget.aggregator.data.Balance;
+import de.larssh.budget.aggregator.data.Budget;
+import de.larssh.budget.aggregator.data.BudgetReference;
+import de.larssh.budget.aggregator.data.BudgetType;
+import de.larssh.budget.aggregator.data.Descriptions;
+import de.larssh.budget.aggregator.data.Municipality;
+import de.larssh.budget.aggregator.data.Product;
+import de.larssh.budget.aggregator.stats.Phase;
+import de.larssh.budget.aggregator.stats.Statistics;
+import de.larssh.utils.Finals;
+import de.larssh.utils.Nullables;
+import de.larssh.utils.annotations.PackagePrivate;
+import edu.umd.cs.findbugs.annotations.Nullable;
+import lombok.AccessLevel;
+import lombok.RequiredArgsConstructor;
+import lombok.experimental.NonFinal;
+import lombok.experimental.UtilityClass;
+
+/**
+ * Reads and writes columnar binary snapshots of budgets, allowing to pass
+ * aggregated budgets between pipeline stages without spreadsheet serialization
+ * costs.
+ *
+ * <p>
+ * A snapshot consists of
+ * <ol>
+ * <li>the magic bytes {@code BASNAP\r\n} and the format version,
+ * <li>a string table holding all descriptions, budget type names and
+ * references,
+ * <li>dictionaries of municipalities, products and accounts,
+ * <li>a header table with year, type, references and scale of each budget and
+ * <li>one column per budget, holding a presence bitmap and one fixed-point
+ * value per account of the dictionary.
+ * </ol>
+ * All numbers are written in big-endian byte order. Strings and dictionary
+ * entries are referenced by their zero based index. Snapshots are read using a
+ * memory mapped {@link FileChannel}.
+ */
+@UtilityClass
+@SuppressWarnings("PMD.ExcessiveImports")
+public class SnapshotFiles {
+	public static final String FILE_EXTENSION = Finals.constant(".snapshot");
+
+	private static final byte[] MAGIC = { 'B', 'A', 'S', 'N', 'A', 'P', '\r', '\n' };
+
+	private static final int VERSION = 1;
+
+	private static final String MESSAGE_CORRUPT = "Snapshot is truncated or corrupt at byte %d.";
+
+	/**
+	 * String index of missing references
+	 */
+	private static final int NO_STRING = -1;
+
+	/**
+	 * Checks if {@code header} starts with the magic bytes of snapshots.
+	 *
+	 * @param header the leading bytes of a file
+	 * @return {@code true} if {@code header} starts like a snapshot
+	 */
+	public static boolean hasMagic(final byte[] header) {
+		return header.length >= MAGIC.length && Arrays.equals(Arrays.copyOf(header, MAGIC.length), MAGIC);
+	}
+
+	public static List<Budget> read(final Path path) throws IOException {
+		try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+			return read(channel.map(MapMode.READ_ONLY, 0, channel.size()), Descriptions.NONE);
+		}
+	}
+
+	/**
+	 * Reads the budgets of a snapshot.
+	 *
+	 * @param buffer       the snapshot content
+	 * @param descriptions the dictionary of descriptions
+	 * @return the budgets
+	 * @throws IOException if the snapshot is not supported, truncated or corrupt
+	 */
+	public static List<Budget> read(final ByteBuffer buffer, final Descriptions descriptions) throws IOException {
+		try (Phase ignored = Statistics.start("parse snapshot")) {
+			return readBuffer(buffer, descriptions);
+		} catch (final BufferUnderflowException | IndexOutOfBoundsException e) {
+			throw new IOException(String.format(MESSAGE_CORRUPT, buffer.position()), e);
+		}
+	}
+
+	/**
+	 * Lists the budgets of a snapshot by reading its header table only, skipping
+	 * dictionaries and columns. Budgets do not contain references.
+	 *
+	 * @param buffer the snapshot content
+	 * @return the empty budgets
+	 * @throws IOException if the snapshot is not supported, truncated or corrupt
+	 */
+	public static List<Budget> list(final ByteBuffer buffer) throws IOException {
+		try (Phase phase = Statistics.start("list snapshot")) {
+			final String[] strings = readStrings(buffer);
+			skipAccounts(buffer);
+
+			final int budgetCount = buffer.getInt();
+			final List<Budget> budgets = new ArrayList<>(budgetCount);
+			for (int index = 0; index < budgetCount; index += 1) {
+				budgets.add(Budget.of(buffer.getInt(), BudgetType.of(strings[buffer.getInt()])));
+				skip(buffer, (BudgetReference.values().length + 1) * Integer.BYTES);
+			}
+			phase.produced(budgets);
+			return budgets;
+		} catch (final BufferUnderflowException | IndexOutOfBoundsException | IllegalArgumentException e) {
+			throw new IOException(String.format(MESSAGE_CORRUPT, buffer.position()), e);
+		}
+	}
+
+	private static List<Budget> readBuffer(final ByteBuffer buffer, final Descriptions descriptions)
+			throws IOException {
+		final String[] strings = readStrings(buffer);
+		return readBudgets(buffer, strings, readAccounts(buffer, descriptions, strings));
+	}
+
+	/**
+	 * Reads the magic bytes, the format version and the string table.
+	 *
+	 * @param buffer the snapshot content
+	 * @return the string table
+	 * @throws IOException if the snapshot is not supported
+	 */
+	private static String[] readStrings(final ByteBuffer buffer) throws IOException {
+		final byte[] magic = new byte[MAGIC.length];
+		buffer.get(magic);
+		final int version = buffer.getInt();
+		if (!Arrays.equals(magic, MAGIC) || version != VERSION) {
+			throw new IOException(String.format("Unsupported snapshot version %d.", version));
+		}
+
+		final String[] strings = new String[buffer.getInt()];
+		for (int index = 0; index < strings.length; index += 1) {
+			strings[index] = readString(buffer);
+		}
+		return strings;
+	}
+
+	private static String readString(final ByteBuffer buffer) {
+		final byte[] bytes = new byte[buffer.getInt()];
+		buffer.get(bytes);
+		return new String(bytes, StandardCharsets.UTF_8);
+	}
+
+	/**
+	 * Skips the dictionaries of municipalities, products and accounts.
+	 *
+	 * @param buffer the snapshot content
+	 */
+	@SuppressWarnings("checkstyle:MagicNumber")
+	private static void skipAccounts(final ByteBuffer buffer) {
+		skip(buffer, buffer.getInt() * Integer.BYTES);
+		skip(buffer, buffer.getInt() * 3 * Integer.BYTES);
+		skip(buffer, buffer.getInt() * 3 * Integer.BYTES);
+	}
+
+	private static void skip(final ByteBuffer buffer, final int length) {
+		buffer.position(buffer.position() + length);
+	}
+
+	private static Account[] readAccounts(final ByteBuffer buffer,
+			final Descriptions descriptions,
+			final String... strings) {
+		final Municipality[] municipalities = new Municipality[buffer.getInt()];
+		for (int index = 0; index < municipalities.length; index += 1) {
+			municipalities[index] = Municipality.of(buffer.getInt());
+		}
+
+		final Product[] products = new Product[buffer.getInt()];
+		for (int index = 0; index < products.length; index += 1) {
+			products[index] = Product
+					.of(municipalities[buffer.getInt()], buffer.getInt(), descriptions.get(strings[buffer.getInt()]));
+		}
+
+		final Account[] accounts = new Account[buffer.getInt()];
+		for (int index = 0; index < accounts.length; index += 1) {
+			accounts[index] = Account
+					.of(products[buffer.getInt()], buffer.getInt(), descriptions.get(strings[buffer.getInt()]));
+		}
+		return accounts;
+	}
+
+	private static List<Budget> readBudgets(final ByteBuffer buffer,
+			final String[] strings,
+			final Account... accounts) {
+		// Header Table
+		final int budgetCount = buffer.getInt();
+		final List<Budget> budgets = new ArrayList<>(budgetCount);
+		final int[] scales = new int[budgetCount];
+		for (int index = 0; index < scales.length; index += 1) {
+			final Budget budget = Budget.of(buffer.getInt(), BudgetType.of(strings[buffer.getInt()]));
+			for (final BudgetReference reference : BudgetReference.values()) {
+				final int value = buffer.getInt();
+				if (value != NO_STRING) {
+					budget.setReferenceIfAbsent(reference, strings[value]);
+				}
+			}
+			scales[index] = buffer.getInt();
+			budgets.add(budget);
+		}
+
+		// Columns
+		final byte[] presence = new byte[getPresenceLength(accounts.length)];
+		for (int index = 0; index < budgetCount; index += 1) {
+			buffer.get(presence);
+			for (int accountIndex = 0; accountIndex < accounts.length; accountIndex += 1) {
+				final long value = buffer.getLong();
+				if (isPresent(presence, accountIndex)) {
+					budgets.get(index).putBalance(accounts[accountIndex], BigDecimal.valueOf(value, scales[index]));
+				}
+			}
+		}
+		return budgets;
+	}
+
+	@PackagePrivate
+	@SuppressWarnings("checkstyle:MagicNumber")
+	static int getPresenceLength(final int accountCount) {
+		return (accountCount + 7) / 8;
+	}
+
+	@SuppressWarnings("checkstyle:MagicNumber")
+	private static boolean isPresent(final byte[] presence, final int accountIndex) {
+		return (presence[accountIndex / 8] >> accountIndex % 8) % 2 != 0;
+	}
+
+	@PackagePrivate
+	@SuppressWarnings("checkstyle:MagicNumber")
+	static void setPresent(final byte[] presence, final int accountIndex) {
+		presence[accountIndex / 8] |= 1 << accountIndex % 8;
+	}
+
+	public static void write(final List<Budget> budgets, final OutputStream outputStream) throws IOException {
+		final DataOutputStream output = new DataOutputStream(outputStream);
+		output.write(MAGIC);
+		output.writeInt(VERSION);
+		new SnapshotFileWriter(budgets, output).write();
+	}
+
+	@RequiredArgsConstructor(access = AccessLevel.PACKAGE)
+	private static class SnapshotFileWriter {
+		List<Budget> budgets;
+
+		DataOutputStream output;
+
+		Map<String, Integer> strings = new LinkedHashMap<>();
+
+		@NonFinal
+		@Nullable
+		AccountDictionary accounts;
+
+		public void write() throws IOException {
+			collectDictionaries();
+
+			output.writeInt(strings.size());
+			for (final String value : strings.keySet()) {
+				final byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+				output.writeInt(bytes.length);
+				output.write(bytes);
+			}
+
+			getAccounts().write(output, (dataOutput, description) -> dataOutput.writeInt(strings.get(description)));
+
+			final int[] scales = writeHeaderTable();
+			for (int index = 0; index < budgets.size(); index += 1) {
+				writeColumn(budgets.get(index), scales[index]);
+			}
+			output.flush();
+		}
+
+		private AccountDictionary getAccounts() {
+			return Nullables.orElseThrow(accounts);
+		}
+
+		private void collectDictionaries() {
+			final AccountDictionary dictionary = AccountDictionary.of(budgets);
+			for (final Account account : dictionary.getAccounts()) {
+				strings.putIfAbsent(account.getProduct().getDescription(), strings.size());
+				strings.putIfAbsent(account.getDescription(), strings.size());
+			}
+			for (final Budget budget : budgets) {
+				strings.putIfAbsent(budget.getType().getName(), strings.size());
+				for (final String reference : budget.getReferences().values()) {
+					strings.putIfAbsent(reference, strings.size());
+				}
+			}
+			accounts = dictionary;
+		}
+
+		private int[] writeHeaderTable() throws IOException {
+			output.writeInt(budgets.size());
+
+			final int[] scales = new int[budgets.size()];
+			for (int index = 0; index < scales.length; index += 1) {
+				final Budget budget = budgets.get(index);
+				output.writeInt(budget.getYear());
+				output.writeInt(strings.get(budget.getType().getName()));
+				for (final BudgetReference reference : BudgetReference.values()) {
+					final String value = budget.getReferences().get(reference);
+					output.writeInt(value == null ? NO_STRING : strings.get(value));
+				}
+
+				scales[index] = budget.getBalances()
+						.values()
+						.stream()
+						.mapToInt(balance -> balance.getValue().scale())
+						.reduce(0, Math::max);
+				output.writeInt(scales[index]);
+			}
+			return scales;
+		}
+
+		private void writeColumn(final Budget budget, final int scale) throws IOException {
+			final byte[] presence = new byte[getPresenceLength(getAccounts().size())];
+			final long[] values = new long[getAccounts().size()];
+			for (final Entry<Account, Balance> entry : budget.getBalances().entrySet()) {
+				final int accountIndex = getAccounts().indexOf(entry.getKey());
+				setPresent(presence, accountIndex);
+				try {
+					values[accountIndex] = entry.getValue().getValue().setScale(scale).unscaledValue().longValueExact();
+				} catch (final ArithmeticException e) {
+					throw new IOException(String.format("Value %s of account %d exceeds the snapshot value range.",
+							entry.getValue().getValue(),
+							entry.getKey().getId()), e);
+				}
+			}
+
+			output.write(presence);
+			for (final long value : values) {
+				output.writeLong(value);
+			}
+		}
+	}
+}
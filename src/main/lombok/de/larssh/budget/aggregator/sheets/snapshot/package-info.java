@@ -0,0 +1,5 @@
+/**
+ * Columnar binary snapshots of budgets
+ */
+@de.larssh.utils.annotations.NonNullByDefault
+package de.larssh.budget.aggregator.sheets.snapshot;
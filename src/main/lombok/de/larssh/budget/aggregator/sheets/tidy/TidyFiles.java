@@ -0,0 +1,183 @@
+package de.larssh.budget.aggregator.sheets.tidy;
+
+import static java.util.Collections.unmodifiableList;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+
+import de.larssh.budget.aggregator.data.Account;
+import de.larssh.budget.aggregator.data.Balance;
+import de.larssh.budget.aggregator.data.Budget;
+import de.larssh.budget.aggregator.data.BudgetReference;
+import de.larssh.budget.aggregator.sheets.csv.CsvFiles;
+import de.larssh.budget.aggregator.utils.JsonStrings;
+import de.larssh.utils.Finals;
+import de.larssh.utils.annotations.PackagePrivate;
+import edu.umd.cs.findbugs.annotations.Nullable;
+import lombok.AccessLevel;
+import lombok.RequiredArgsConstructor;
+import lombok.experimental.NonFinal;
+import lombok.experimental.UtilityClass;
+
+/**
+ * Writes budgets in a long format ("tidy data"), one record per balance.
+ *
+ * <p>
+ * Records are streamed straight from the given budgets without creating an
+ * intermediate sheet. Values are written using the sign of the internal model,
+ * therefore negative account types result in negative values.
+ */
+@UtilityClass
+public class TidyFiles {
+	public static final String COLUMN_NAME_ACCOUNT_ID = Finals.constant("Konto");
+
+	public static final String COLUMN_NAME_ACCOUNT_DESCRIPTION = Finals.constant("Kontobeschreibung");
+
+	public static final String COLUMN_NAME_BUDGET_TYPE = Finals.constant("Haushaltstyp");
+
+	public static final String COLUMN_NAME_YEAR = Finals.constant("Jahr");
+
+	public static final String COLUMN_NAME_VALUE = Finals.constant("Betrag");
+
+	public static void write(final List<Budget> budgets, final TidyFormat format, final Writer writer)
+			throws IOException {
+		new TidyFileWriter(budgets, format, writer).write();
+	}
+
+	@RequiredArgsConstructor(access = AccessLevel.PACKAGE)
+	private static class TidyFileWriter {
+		private static final List<String> COLUMN_NAMES;
+
+		static {
+			final List<String> columnNames = new ArrayList<>(Arrays.asList(CsvFiles.COLUMN_NAME_MUNICIPALITY,
+					CsvFiles.COLUMN_NAME_PRODUCT_ID,
+					CsvFiles.COLUMN_NAME_PRODUCT_DESCRIPTION,
+					COLUMN_NAME_ACCOUNT_ID,
+					COLUMN_NAME_ACCOUNT_DESCRIPTION,
+					COLUMN_NAME_BUDGET_TYPE,
+					COLUMN_NAME_YEAR,
+					COLUMN_NAME_VALUE));
+			for (final BudgetReference reference : BudgetReference.values()) {
+				columnNames.add(reference.getDisplayValue());
+			}
+			COLUMN_NAMES = unmodifiableList(columnNames);
+		}
+
+		private static final char TSV_ESCAPER = CsvFiles.ESCAPER;
+
+		private static final char TSV_SEPARATOR = CsvFiles.SEPARATOR;
+
+		/**
+		 * Appends {@code value} to {@code writer} as TSV field, escaping it only if
+		 * required.
+		 *
+		 * @param writer the writer to append to
+		 * @param value  the value to escape
+		 * @throws IOException on IO error
+		 */
+		private static void appendTsvString(final Writer writer, final String value) throws IOException {
+			if (value.indexOf(TSV_SEPARATOR) == -1
+					&& value.indexOf(TSV_ESCAPER) == -1
+					&& value.indexOf('\n') == -1
+					&& value.indexOf('\r') == -1) {
+				writer.write(value);
+				return;
+			}
+
+			writer.write(TSV_ESCAPER);
+			final int length = value.length();
+			for (int index = 0; index < length; index += 1) {
+				final char character = value.charAt(index);
+				if (character == TSV_ESCAPER) {
+					writer.write(TSV_ESCAPER);
+				}
+				writer.write(character);
+			}
+			writer.write(TSV_ESCAPER);
+		}
+
+		List<Budget> budgets;
+
+		TidyFormat format;
+
+		Writer writer;
+
+		/**
+		 * Index of the next field inside the current record
+		 */
+		@NonFinal
+		int fieldIndex;
+
+		@PackagePrivate
+		void write() throws IOException {
+			if (format == TidyFormat.TSV) {
+				for (final String columnName : COLUMN_NAMES) {
+					appendField(columnName, columnName, false);
+				}
+				endRecord();
+			}
+
+			for (final Budget budget : budgets) {
+				final String budgetType = budget.getType().getName();
+				final String year = Integer.toString(budget.getYear());
+				final Map<BudgetReference, String> references = budget.getReferences();
+
+				for (final Balance balance : budget.getBalances().values()) {
+					final Account account = balance.getAccount();
+
+					appendField(CsvFiles.COLUMN_NAME_MUNICIPALITY,
+							Integer.toString(account.getProduct().getMunicipality().getId()),
+							true);
+					appendField(CsvFiles.COLUMN_NAME_PRODUCT_ID, Integer.toString(account.getProduct().getId()), true);
+					appendField(CsvFiles.COLUMN_NAME_PRODUCT_DESCRIPTION, account.getProduct().getDescription(), false);
+					appendField(COLUMN_NAME_ACCOUNT_ID, Integer.toString(account.getId()), true);
+					appendField(COLUMN_NAME_ACCOUNT_DESCRIPTION, account.getDescription(), false);
+					appendField(COLUMN_NAME_BUDGET_TYPE, budgetType, false);
+					appendField(COLUMN_NAME_YEAR, year, true);
+					appendField(COLUMN_NAME_VALUE, balance.getValue().toPlainString(), true);
+					for (final BudgetReference reference : BudgetReference.values()) {
+						appendField(reference.getDisplayValue(), references.get(reference), false);
+					}
+					endRecord();
+				}
+			}
+			writer.flush();
+		}
+
+		private void appendField(final String columnName, @Nullable final String value, final boolean numeric)
+				throws IOException {
+			if (format == TidyFormat.NDJSON) {
+				writer.write(fieldIndex == 0 ? '{' : ',');
+				JsonStrings.appendString(writer, columnName);
+				writer.write(':');
+				if (value == null) {
+					writer.write("null");
+				} else if (numeric) {
+					writer.write(value);
+				} else {
+					JsonStrings.appendString(writer, value);
+				}
+			} else {
+				if (fieldIndex > 0) {
+					writer.write(TSV_SEPARATOR);
+				}
+				if (value != null) {
+					appendTsvString(writer, value);
+				}
+			}
+			fieldIndex += 1;
+		}
+
+		private void endRecord() throws IOException {
+			if (format == TidyFormat.NDJSON) {
+				writer.write('}');
+			}
+			writer.write('\n');
+			fieldIndex = 0;
+		}
+	}
+}
@@ -0,0 +1,50 @@
+package de.larssh.budget.aggregator.sheets.tidy;
+
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Optional;
+
+import de.larssh.utils.text.Strings;
+import lombok.Getter;
+
+/**
+ * Long formats ("tidy data") supported by {@link TidyFiles}, which write one
+ * record per balance.
+ */
+@Getter
+public enum TidyFormat {
+	/**
+	 * Newline delimited JSON, one object per record
+	 */
+	NDJSON(".ndjson", ".jsonl"),
+
+	/**
+	 * Tab-separated values with a header line
+	 *
+	 * <p>
+	 * The file extension differs from plain {@code .tsv}, which is used for
+	 * tab-separated values in wide layout, e.g. by CSV outputs and generated
+	 * sources.
+	 */
+	TSV(".long.tsv");
+
+	@SuppressWarnings("PMD.ShortMethodName")
+	public static Optional<TidyFormat> of(final Path path) {
+		final String fileName = path.toString();
+		for (final TidyFormat format : values()) {
+			for (final String fileExtension : format.getFileExtensions()) {
+				if (Strings.endsWithIgnoreCaseAscii(fileName, fileExtension)) {
+					return Optional.of(format);
+				}
+			}
+		}
+		return Optional.empty();
+	}
+
+	List<String> fileExtensions;
+
+	TidyFormat(final String... fileExtensions) {
+		this.fileExtensions = Arrays.asList(fileExtensions);
+	}
+}
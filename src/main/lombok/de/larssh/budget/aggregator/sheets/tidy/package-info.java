@@ -0,0 +1,5 @@
+/**
+ * Long format ("tidy data") output for budgets
+ */
+@de.larssh.utils.annotations.NonNullByDefault
+package de.larssh.budget.aggregator.sheets.tidy;
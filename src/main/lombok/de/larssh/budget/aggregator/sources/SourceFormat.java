@@ -0,0 +1,82 @@
+package de.larssh.budget.aggregator.sources;
+
+import java.util.Arrays;
+
+import de.larssh.budget.aggregator.sheets.snapshot.SnapshotFiles;
+import de.larssh.utils.Finals;
+
+/**
+ * Formats of sources, detected by their leading bytes
+ */
+public enum SourceFormat {
+	/**
+	 * GZIP compressed source
+	 */
+	GZIP,
+
+	/**
+	 * OLE2 compound document, e.g. an XLS workbook
+	 */
+	OLE2,
+
+	/**
+	 * Snapshot as written by {@link SnapshotFiles}
+	 */
+	SNAPSHOT,
+
+	/**
+	 * Text, e.g. CSV
+	 */
+	TEXT,
+
+	/**
+	 * ZIP file, either an XLSX workbook or an archive of sources
+	 */
+	ZIP;
+
+	/**
+	 * Number of leading bytes required to detect all formats
+	 */
+	public static final int HEADER_LENGTH = Finals.constant(8);
+
+	private static final byte[] GZIP_MAGIC = { 0x1F, (byte) 0x8B };
+
+	private static final byte[] OLE2_MAGIC = {
+			(byte) 0xD0,
+			(byte) 0xCF,
+			(byte) 0x11,
+			(byte) 0xE0,
+			(byte) 0xA1,
+			(byte) 0xB1,
+			(byte) 0x1A,
+			(byte) 0xE1 };
+
+	private static final byte[] ZIP_MAGIC = { 'P', 'K', 3, 4 };
+
+	/**
+	 * Detects the format of a source by its leading bytes.
+	 *
+	 * @param header up to {@link #HEADER_LENGTH} leading bytes of the source
+	 * @return the detected format, {@link #TEXT} if no other format matches
+	 */
+	@SuppressWarnings("PMD.ShortMethodName")
+	public static SourceFormat of(final byte[] header) {
+		if (startsWith(header, GZIP_MAGIC)) {
+			return GZIP;
+		}
+		if (startsWith(header, OLE2_MAGIC)) {
+			return OLE2;
+		}
+		if (startsWith(header, ZIP_MAGIC)) {
+			return ZIP;
+		}
+		if (SnapshotFiles.hasMagic(header)) {
+			return SNAPSHOT;
+		}
+		return TEXT;
+	}
+
+	private static boolean startsWith(final byte[] header, final byte[] magic) {
+		return header.length >= magic.length && Arrays.equals(Arrays.copyOf(header, magic.length), magic);
+	}
+}
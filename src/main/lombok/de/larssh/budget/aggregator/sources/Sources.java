@@ -0,0 +1,249 @@
+package de.larssh.budget.aggregator.sources;
+
+import java.io.BufferedInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileChannel.MapMode;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.regex.Pattern;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipInputStream;
+
+import de.larssh.budget.aggregator.data.AccountFilter;
+import de.larssh.budget.aggregator.data.Budget;
+import de.larssh.budget.aggregator.data.BudgetReference;
+import de.larssh.budget.aggregator.data.Descriptions;
+import de.larssh.budget.aggregator.data.ParseContext;
+import de.larssh.budget.aggregator.sheets.SheetFilter;
+import de.larssh.budget.aggregator.sheets.csv.CsvFiles;
+import de.larssh.budget.aggregator.sheets.excel.ExcelFiles;
+import de.larssh.budget.aggregator.sheets.snapshot.SnapshotFiles;
+import de.larssh.utils.Nullables;
+import de.larssh.utils.annotations.PackagePrivate;
+import de.larssh.utils.text.StringParseException;
+import de.larssh.utils.text.Strings;
+import lombok.experimental.UtilityClass;
+
+/**
+ * Reads the budgets of sources, detecting their format by the leading bytes.
+ *
+ * <p>
+ * Each source file is opened once. Workbooks are handed to Apache POI by file,
+ * allowing random access, while snapshots are memory mapped. GZIP compressed
+ * sources and ZIP archives of sources (file extension {@code .zip}) are read by
+ * streaming without extracting them to disk. Apache POI is not loaded unless a
+ * workbook is read.
+ */
+@UtilityClass
+@SuppressWarnings("PMD.ExcessiveImports")
+public class Sources {
+	private static final Pattern GZIP_FILE_EXTENSION = Pattern.compile("\\.gz$", Pattern.CASE_INSENSITIVE);
+
+	private static final String ZIP_FILE_EXTENSION = ".zip";
+
+	private static final int BUFFER_SIZE = 64 * 1024;
+
+	/**
+	 * Lists the budgets of the source file {@code path} based on the headers of its
+	 * sheets, without reading balances. Workbooks and CSV files are streamed up to
+	 * their headers, continuing with the budget year column only if required.
+	 * Snapshots are read up to their header table.
+	 *
+	 * @param path   the source file
+	 * @param filter the filter of sheets to list
+	 * @return the empty budgets, referencing their file and sheet
+	 * @throws IOException          on IO error
+	 * @throws StringParseException on parse error
+	 */
+	public static List<Budget> list(final Path path, final SheetFilter filter)
+			throws IOException, StringParseException {
+		return read(path, ParseContext.of(AccountFilter.ALL, filter, Descriptions.NONE), true);
+	}
+
+	/**
+	 * Reads the budgets of the source file {@code path}.
+	 *
+	 * @param path    the source file
+	 * @param context the context of reading
+	 * @return the budgets
+	 * @throws IOException          on IO error
+	 * @throws StringParseException on parse error
+	 */
+	public static List<Budget> read(final Path path, final ParseContext context)
+			throws IOException, StringParseException {
+		return read(path, context, false);
+	}
+
+	/**
+	 * Reads or lists the budgets of the source file {@code path}.
+	 *
+	 * @param path        the source file
+	 * @param context     the context of reading
+	 * @param headersOnly {@code true} to list the budgets based on headers only
+	 * @return the budgets
+	 * @throws IOException          on IO error
+	 * @throws StringParseException on parse error
+	 */
+	@SuppressWarnings("PMD.CloseResource")
+	private static List<Budget> read(final Path path, final ParseContext context, final boolean headersOnly)
+			throws IOException, StringParseException {
+		final String fileName = Nullables.orElseThrow(path.getFileName()).toString();
+
+		final SourceFormat format;
+		try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+			final ByteBuffer header = ByteBuffer.allocate(SourceFormat.HEADER_LENGTH);
+			// Read until the header is complete or the file ends
+			int length = 0;
+			while (length != -1 && header.hasRemaining()) {
+				length = channel.read(header);
+			}
+			format = SourceFormat.of(Arrays.copyOf(header.array(), header.position()));
+
+			if (format == SourceFormat.SNAPSHOT) {
+				return readSnapshot(fileName, channel.map(MapMode.READ_ONLY, 0, channel.size()), context, headersOnly);
+			}
+			if (!isWorkbook(format, fileName)) {
+				channel.position(0);
+				final InputStream inputStream = new BufferedInputStream(Channels.newInputStream(channel), BUFFER_SIZE);
+				return read(fileName, format, inputStream, context, headersOnly);
+			}
+		}
+		return headersOnly ? ExcelFiles.list(path, context.getSheetFilter()) : ExcelFiles.read(path, context);
+	}
+
+	/**
+	 * Reads the budgets of a source given as stream. {@code inputStream} is not
+	 * closed.
+	 *
+	 * @param fileName    the file name of the source
+	 * @param inputStream the source content, supporting
+	 *                    {@link InputStream#mark(int)}
+	 * @param context     the context of reading
+	 * @return the budgets
+	 * @throws IOException          on IO error
+	 * @throws StringParseException on parse error
+	 */
+	public static List<Budget> read(final String fileName, final InputStream inputStream, final ParseContext context)
+			throws IOException, StringParseException {
+		return read(fileName, inputStream, context, false);
+	}
+
+	private static List<Budget> read(final String fileName,
+			final InputStream inputStream,
+			final ParseContext context,
+			final boolean headersOnly) throws IOException, StringParseException {
+		final byte[] header = new byte[SourceFormat.HEADER_LENGTH];
+		inputStream.mark(header.length);
+		int length = 0;
+		for (int read = 0;
+				read != -1 && length < header.length;
+				read = inputStream.read(header, length, header.length - length)) {
+			length += read;
+		}
+		inputStream.reset();
+
+		return read(fileName, SourceFormat.of(Arrays.copyOf(header, length)), inputStream, context, headersOnly);
+	}
+
+	private static List<Budget> read(final String fileName,
+			final SourceFormat format,
+			final InputStream inputStream,
+			final ParseContext context,
+			final boolean headersOnly) throws IOException, StringParseException {
+		final InputStream unclosable = new UnclosableInputStream(inputStream);
+		if (format == SourceFormat.GZIP) {
+			return read(Strings.replaceFirst(fileName, GZIP_FILE_EXTENSION, ""),
+					new BufferedInputStream(new GZIPInputStream(unclosable, BUFFER_SIZE), BUFFER_SIZE),
+					context,
+					headersOnly);
+		}
+		if (format == SourceFormat.ZIP && isArchive(fileName)) {
+			return readArchive(unclosable, context, headersOnly);
+		}
+		if (format == SourceFormat.OLE2 || format == SourceFormat.ZIP) {
+			return headersOnly
+					? ExcelFiles.list(fileName, unclosable, context.getSheetFilter())
+					: ExcelFiles.read(fileName, unclosable, context);
+		}
+		if (format == SourceFormat.SNAPSHOT) {
+			return readSnapshot(fileName, ByteBuffer.wrap(readAllBytes(unclosable)), context, headersOnly);
+		}
+		final InputStreamReader reader = new InputStreamReader(unclosable, StandardCharsets.UTF_8);
+		return headersOnly ? CsvFiles.list(fileName, reader) : CsvFiles.read(fileName, reader, context);
+	}
+
+	private static List<Budget> readSnapshot(final String fileName,
+			final ByteBuffer buffer,
+			final ParseContext context,
+			final boolean headersOnly) throws IOException {
+		if (!headersOnly) {
+			return SnapshotFiles.read(buffer, context.getDescriptions());
+		}
+		final List<Budget> budgets = SnapshotFiles.list(buffer);
+		for (final Budget budget : budgets) {
+			budget.setReferenceIfAbsent(BudgetReference.FILE_NAME, fileName);
+		}
+		return budgets;
+	}
+
+	private static List<Budget> readArchive(final InputStream inputStream,
+			final ParseContext context,
+			final boolean headersOnly) throws IOException, StringParseException {
+		final List<Budget> budgets = new ArrayList<>();
+		final ZipInputStream zipInputStream = new ZipInputStream(inputStream, StandardCharsets.UTF_8);
+		for (ZipEntry entry = zipInputStream.getNextEntry(); entry != null; entry = zipInputStream.getNextEntry()) {
+			if (!entry.isDirectory()) {
+				budgets.addAll(read(entry.getName(),
+						new BufferedInputStream(zipInputStream, BUFFER_SIZE),
+						context,
+						headersOnly));
+			}
+		}
+		return budgets;
+	}
+
+	private static boolean isArchive(final String fileName) {
+		return Strings.endsWithIgnoreCaseAscii(fileName, ZIP_FILE_EXTENSION);
+	}
+
+	private static boolean isWorkbook(final SourceFormat format, final String fileName) {
+		return format == SourceFormat.OLE2 || format == SourceFormat.ZIP && !isArchive(fileName);
+	}
+
+	private static byte[] readAllBytes(final InputStream inputStream) throws IOException {
+		final ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+		final byte[] buffer = new byte[BUFFER_SIZE];
+		for (int read = inputStream.read(buffer); read != -1; read = inputStream.read(buffer)) {
+			outputStream.write(buffer, 0, read);
+		}
+		return outputStream.toByteArray();
+	}
+
+	/**
+	 * Input stream ignoring {@link #close()}, as parsers close their input while
+	 * archive entries and channels are closed by their owners
+	 */
+	private static class UnclosableInputStream extends FilterInputStream {
+		@PackagePrivate
+		UnclosableInputStream(final InputStream inputStream) {
+			super(inputStream);
+		}
+
+		@Override
+		public void close() {
+			// the owner of the underlying stream closes it
+		}
+	}
+}
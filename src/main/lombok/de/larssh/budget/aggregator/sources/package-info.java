@@ -0,0 +1,5 @@
+/**
+ * Opening and format detection of source files
+ */
+@de.larssh.utils.annotations.NonNullByDefault
+package de.larssh.budget.aggregator.sources;
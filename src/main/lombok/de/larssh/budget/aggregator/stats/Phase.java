@@ -0,0 +1,242 @@
+package de.larssh.budget.aggregator.stats;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.Collection;
+import java.util.Optional;
+
+import de.larssh.budget.aggregator.data.Budget;
+import de.larssh.budget.aggregator.data.Budgets;
+import de.larssh.utils.Finals;
+import de.larssh.utils.annotations.PackagePrivate;
+import edu.umd.cs.findbugs.annotations.Nullable;
+import lombok.AccessLevel;
+import lombok.Getter;
+import lombok.experimental.NonFinal;
+
+/**
+ * A measured phase, started using {@link Statistics#start(String)} and ended by
+ * closing it.
+ *
+ * <p>
+ * Phases measure wall time, CPU time and allocated bytes of the current thread.
+ * Values not supported by the JVM are {@code -1}. Rows and cells read by nested
+ * phases are added to their enclosing phase.
+ *
+ * <p>
+ * While JDK Flight Recorder records, each phase is emitted as
+ * {@code de.larssh.budget.aggregator.Phase} event, even if statistics are not
+ * enabled.
+ */
+@Getter
+@SuppressWarnings("PMD.DataClass")
+public final class Phase implements AutoCloseable {
+	/**
+	 * Value of measurements not supported or not applicable
+	 */
+	public static final long UNKNOWN = Finals.constant(-1L);
+
+	private static final ThreadMXBean THREAD_MX_BEAN = ManagementFactory.getThreadMXBean();
+
+	/**
+	 * JDK Flight Recorder is available starting with Java 8u272 only.
+	 */
+	private static final boolean FLIGHT_RECORDER_AVAILABLE = isFlightRecorderAvailable();
+
+	/**
+	 * Phase not being measured, used while statistics are disabled
+	 */
+	@PackagePrivate
+	static final Phase DISABLED = new Phase(null, "", Optional.empty(), 0);
+
+	private static boolean isFlightRecorderAvailable() {
+		try {
+			Class.forName("jdk.jfr.Event");
+			return true;
+		} catch (final ClassNotFoundException | LinkageError e) {
+			return false;
+		}
+	}
+
+	/**
+	 * Checks if JDK Flight Recorder records phase events.
+	 *
+	 * @return {@code true} if phase events are recorded, else {@code false}
+	 */
+	@PackagePrivate
+	static boolean isRecording() {
+		return FLIGHT_RECORDER_AVAILABLE && PhaseEvent.isEnabledByRecording();
+	}
+
+	private static long getCurrentThreadCpuTime() {
+		return THREAD_MX_BEAN.isCurrentThreadCpuTimeSupported() ? THREAD_MX_BEAN.getCurrentThreadCpuTime() : UNKNOWN;
+	}
+
+	@SuppressWarnings("PMD.DoNotUseThreads")
+	private static long getCurrentThreadAllocatedBytes() {
+		if (THREAD_MX_BEAN instanceof com.sun.management.ThreadMXBean) {
+			final com.sun.management.ThreadMXBean threadMXBean = (com.sun.management.ThreadMXBean) THREAD_MX_BEAN;
+			if (threadMXBean.isThreadAllocatedMemorySupported() && threadMXBean.isThreadAllocatedMemoryEnabled()) {
+				return threadMXBean.getThreadAllocatedBytes(Thread.currentThread().getId());
+			}
+		}
+		return UNKNOWN;
+	}
+
+	private static long difference(final long start, final long end) {
+		return start == UNKNOWN || end == UNKNOWN ? UNKNOWN : end - start;
+	}
+
+	@Getter(AccessLevel.NONE)
+	@Nullable
+	Statistics statistics;
+
+	String name;
+
+	Optional<String> source;
+
+	/**
+	 * Number of enclosing phases
+	 */
+	int depth;
+
+	/**
+	 * Event emitted to JDK Flight Recorder or {@code null} if not recording
+	 */
+	@Nullable
+	@Getter(AccessLevel.NONE)
+	PhaseEvent event;
+
+	@Getter(AccessLevel.NONE)
+	long startWallTime;
+
+	@Getter(AccessLevel.NONE)
+	long startCpuTime;
+
+	@Getter(AccessLevel.NONE)
+	long startAllocatedBytes;
+
+	@NonFinal
+	long wallNanos = UNKNOWN;
+
+	@NonFinal
+	long cpuNanos = UNKNOWN;
+
+	@NonFinal
+	long allocatedBytes = UNKNOWN;
+
+	@NonFinal
+	Optional<String> sheet = Optional.empty();
+
+	@NonFinal
+	long columns = UNKNOWN;
+
+	@NonFinal
+	long rows;
+
+	@NonFinal
+	long cells;
+
+	@NonFinal
+	long budgets = UNKNOWN;
+
+	@NonFinal
+	long accounts = UNKNOWN;
+
+	@NonFinal
+	long balances = UNKNOWN;
+
+	@PackagePrivate
+	@SuppressWarnings("PMD.NullAssignment")
+	Phase(@Nullable final Statistics statistics, final String name, final Optional<String> source, final int depth) {
+		this.statistics = statistics;
+		this.name = name;
+		this.source = source;
+		this.depth = depth;
+
+		final boolean enabled = statistics != null;
+		startAllocatedBytes = enabled ? getCurrentThreadAllocatedBytes() : UNKNOWN;
+		startCpuTime = enabled ? getCurrentThreadCpuTime() : UNKNOWN;
+		startWallTime = System.nanoTime();
+
+		event = enabled && isRecording() ? new PhaseEvent() : null;
+		if (event != null) {
+			event.begin();
+		}
+	}
+
+	/**
+	 * Adds the number of rows and cells read.
+	 *
+	 * @param rowsRead  number of rows read
+	 * @param cellsRead number of cells read
+	 */
+	@PackagePrivate
+	void addRowsAndCells(final long rowsRead, final long cellsRead) {
+		rows += rowsRead;
+		cells += cellsRead;
+	}
+
+	/**
+	 * Records the sheet processed by this phase and its number of columns.
+	 *
+	 * @param sheetName   the name of the sheet
+	 * @param columnCount the number of columns
+	 */
+	public void recordSheet(final Optional<String> sheetName, final int columnCount) {
+		sheet = sheetName;
+		columns = columnCount;
+	}
+
+	/**
+	 * Records the number of budgets, distinct accounts and balances produced by
+	 * this phase. Counting is skipped while neither statistics are enabled nor JDK
+	 * Flight Recorder records.
+	 *
+	 * <p>
+	 * Accounts and balances of spilled budgets are not counted, as counting them
+	 * would read their runs once more. Both stay {@link #UNKNOWN} in that case.
+	 *
+	 * @param producedBudgets the budgets produced
+	 */
+	public void produced(final Collection<Budget> producedBudgets) {
+		if (statistics == null) {
+			return;
+		}
+
+		budgets = producedBudgets.size();
+		if (producedBudgets.stream().anyMatch(Budget::isSpilled)) {
+			accounts = UNKNOWN;
+			balances = UNKNOWN;
+			return;
+		}
+
+		accounts = Budgets.getAccounts(producedBudgets).size();
+		long balanceCount = 0;
+		for (final Budget budget : producedBudgets) {
+			balanceCount += budget.getBalances().size();
+		}
+		balances = balanceCount;
+	}
+
+	/**
+	 * Ends this phase.
+	 */
+	@Override
+	public void close() {
+		final Statistics owner = statistics;
+		if (owner == null) {
+			return;
+		}
+
+		wallNanos = System.nanoTime() - startWallTime;
+		cpuNanos = difference(startCpuTime, getCurrentThreadCpuTime());
+		allocatedBytes = difference(startAllocatedBytes, getCurrentThreadAllocatedBytes());
+		owner.end(this);
+
+		final PhaseEvent phaseEvent = event;
+		if (phaseEvent != null) {
+			phaseEvent.commit(this);
+		}
+	}
+}
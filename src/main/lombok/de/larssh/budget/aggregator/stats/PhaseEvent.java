@@ -0,0 +1,112 @@
+package de.larssh.budget.aggregator.stats;
+
+import de.larssh.utils.annotations.PackagePrivate;
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Timespan;
+import lombok.NoArgsConstructor;
+import lombok.experimental.NonFinal;
+
+/**
+ * JDK Flight Recorder event of a {@link Phase}, tying recordings to the source,
+ * sheet or output being processed.
+ *
+ * <p>
+ * This class must be loaded only if the JVM supports JDK Flight Recorder, see
+ * {@link Phase#isRecording()}. Counts not applicable to a phase are {@code -1}.
+ */
+@PackagePrivate
+@NoArgsConstructor
+@Name("de.larssh.budget.aggregator.Phase")
+@Label("Budget Aggregator Phase")
+@Category("Budget Aggregator")
+@Description("Reading a source or sheet, aggregating budgets or writing the output")
+@StackTrace(false)
+class PhaseEvent extends Event {
+	/**
+	 * Checks if a recording of phase events is running.
+	 *
+	 * @return {@code true} if phase events are recorded, else {@code false}
+	 */
+	@PackagePrivate
+	static boolean isEnabledByRecording() {
+		return new PhaseEvent().isEnabled();
+	}
+
+	@NonFinal
+	@Label("Phase")
+	String phase = "";
+
+	@NonFinal
+	@Label("Source")
+	@Description("File name of the source or output")
+	String source = "";
+
+	@NonFinal
+	@Label("Sheet")
+	String sheet = "";
+
+	@NonFinal
+	@Label("Columns")
+	long columns;
+
+	@NonFinal
+	@Label("Rows")
+	long rows;
+
+	@NonFinal
+	@Label("Cells")
+	long cells;
+
+	@NonFinal
+	@Label("Budgets")
+	long budgets;
+
+	@NonFinal
+	@Label("Accounts")
+	long accounts;
+
+	@NonFinal
+	@Label("Balances")
+	long balances;
+
+	@NonFinal
+	@Label("CPU Time")
+	@Timespan
+	long cpuTime;
+
+	@NonFinal
+	@Label("Allocated")
+	@DataAmount
+	long allocated;
+
+	/**
+	 * Ends this event and commits the values of {@code ended} if the event is
+	 * recorded.
+	 *
+	 * @param ended the ended phase
+	 */
+	@PackagePrivate
+	void commit(final Phase ended) {
+		end();
+		if (shouldCommit()) {
+			phase = ended.getName();
+			source = ended.getSource().orElse("");
+			sheet = ended.getSheet().orElse("");
+			columns = ended.getColumns();
+			rows = ended.getRows();
+			cells = ended.getCells();
+			budgets = ended.getBudgets();
+			accounts = ended.getAccounts();
+			balances = ended.getBalances();
+			cpuTime = ended.getCpuNanos();
+			allocated = ended.getAllocatedBytes();
+			commit();
+		}
+	}
+}
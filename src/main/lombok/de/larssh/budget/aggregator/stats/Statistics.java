@@ -0,0 +1,310 @@
+package de.larssh.budget.aggregator.stats;
+
+import static java.util.Collections.nCopies;
+import static java.util.Collections.unmodifiableList;
+import static java.util.stream.Collectors.toList;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.Optional;
+
+import de.larssh.budget.aggregator.utils.JsonStrings;
+import de.larssh.utils.annotations.PackagePrivate;
+import edu.umd.cs.findbugs.annotations.Nullable;
+import lombok.AccessLevel;
+import lombok.RequiredArgsConstructor;
+
+/**
+ * Per-phase timing and throughput statistics of the current thread.
+ *
+ * <p>
+ * Phases are measured only after enabling statistics for the current thread
+ * using {@link #enable()}. Otherwise {@link #start(String)} returns a phase
+ * without measurements, so instrumented code does not need to check whether
+ * statistics are enabled.
+ *
+ * <p>
+ * While JDK Flight Recorder records, phases are measured and emitted as events
+ * even if statistics are not enabled. Such phases are not retained.
+ */
+@RequiredArgsConstructor(access = AccessLevel.PRIVATE)
+public final class Statistics {
+	private static final ThreadLocal<Statistics> THREAD_STATISTICS = new ThreadLocal<>();
+
+	/**
+	 * Statistics tracking the open phases of the current thread while recording
+	 * without statistics being enabled
+	 */
+	private static final ThreadLocal<Statistics> RECORDING = ThreadLocal.withInitial(() -> new Statistics(false));
+
+	private static final double NANOS_PER_MILLI = 1_000_000d;
+
+	private static final long BYTES_PER_KIBIBYTE = 1024;
+
+	private static final String JSON_NULL = "null";
+
+	private static final String TEXT_UNKNOWN = "-";
+
+	private static final String TEXT_FORMAT = "%-28s %-24s %10s %10s %15s %10s %10s %8s %9s %9s%n";
+
+	/**
+	 * Enables statistics for the current thread, discarding previous measurements.
+	 *
+	 * @return the statistics of the current thread
+	 */
+	public static Statistics enable() {
+		final Statistics statistics = new Statistics(true);
+		THREAD_STATISTICS.set(statistics);
+		return statistics;
+	}
+
+	/**
+	 * Returns the statistics of the current thread if enabled.
+	 *
+	 * @return the statistics of the current thread
+	 */
+	public static Optional<Statistics> current() {
+		return Optional.ofNullable(THREAD_STATISTICS.get());
+	}
+
+	/**
+	 * Disables statistics for the current thread.
+	 */
+	public static void disable() {
+		THREAD_STATISTICS.remove();
+	}
+
+	/**
+	 * Starts a phase. The phase ends when being closed.
+	 *
+	 * @param name the name of the phase
+	 * @return the started phase
+	 */
+	public static Phase start(final String name) {
+		return start(name, Optional.empty());
+	}
+
+	/**
+	 * Starts a phase processing {@code source}. The phase ends when being closed.
+	 *
+	 * @param name   the name of the phase
+	 * @param source the source or output processed
+	 * @return the started phase
+	 */
+	public static Phase start(final String name, final String source) {
+		return start(name, Optional.of(source));
+	}
+
+	/**
+	 * Starts a phase processing {@code source} if present. The phase ends when
+	 * being closed.
+	 *
+	 * @param name   the name of the phase
+	 * @param source the source or output processed
+	 * @return the started phase
+	 */
+	public static Phase start(final String name, final Optional<String> source) {
+		final Statistics statistics = getActive();
+		if (statistics == null) {
+			return Phase.DISABLED;
+		}
+
+		final Phase phase = new Phase(statistics, name, source, statistics.openPhases.size());
+		statistics.phases.add(phase);
+		statistics.openPhases.push(phase);
+		return phase;
+	}
+
+	/**
+	 * Adds the number of rows and cells read to the innermost phase.
+	 *
+	 * @param rows  number of rows read
+	 * @param cells number of cells read
+	 */
+	public static void addRowsAndCells(final long rows, final long cells) {
+		final Statistics statistics = getActive();
+		if (statistics != null && !statistics.openPhases.isEmpty()) {
+			statistics.openPhases.peek().addRowsAndCells(rows, cells);
+		}
+	}
+
+	/**
+	 * Returns the statistics measuring phases of the current thread, either because
+	 * statistics are enabled or because JDK Flight Recorder records.
+	 *
+	 * @return the statistics or {@code null} if phases are not measured
+	 */
+	@Nullable
+	private static Statistics getActive() {
+		final Statistics statistics = THREAD_STATISTICS.get();
+		if (statistics != null) {
+			return statistics;
+		}
+		return Phase.isRecording() ? RECORDING.get() : null;
+	}
+
+	private static String formatMillis(final long nanos) {
+		return nanos == Phase.UNKNOWN ? TEXT_UNKNOWN : String.format("%.1f", nanos / NANOS_PER_MILLI);
+	}
+
+	private static String formatKibibytes(final long bytes) {
+		return bytes == Phase.UNKNOWN ? TEXT_UNKNOWN : String.format("%,d", bytes / BYTES_PER_KIBIBYTE);
+	}
+
+	private static String formatCount(final long count) {
+		return count == Phase.UNKNOWN ? TEXT_UNKNOWN : Long.toString(count);
+	}
+
+	private static String formatJsonNumber(final long value) {
+		return value == Phase.UNKNOWN ? JSON_NULL : Long.toString(value);
+	}
+
+	/**
+	 * Whether ended phases are retained for writing them
+	 */
+	boolean retainPhases;
+
+	/**
+	 * Phases in order of their start
+	 */
+	List<Phase> phases = new ArrayList<>();
+
+	Deque<Phase> openPhases = new ArrayDeque<>();
+
+	/**
+	 * Ends {@code phase}, which must be the innermost phase.
+	 *
+	 * @param phase the ended phase
+	 */
+	@PackagePrivate
+	@SuppressWarnings({ "PMD.CloseResource", "PMD.CompareObjectsWithEquals" })
+	void end(final Phase phase) {
+		if (openPhases.peek() != phase) {
+			throw new IllegalStateException(String.format("Phase \"%s\" is not the innermost phase.", phase.getName()));
+		}
+		openPhases.pop();
+		if (!retainPhases) {
+			// The innermost phase is the last one started and not removed yet
+			phases.remove(phases.size() - 1);
+		}
+
+		final Phase parent = openPhases.peek();
+		if (parent != null) {
+			parent.addRowsAndCells(phase.getRows(), phase.getCells());
+		}
+	}
+
+	/**
+	 * Measured phases in order of their start
+	 *
+	 * @return the measured phases
+	 */
+	public List<Phase> getPhases() {
+		return unmodifiableList(phases);
+	}
+
+	/**
+	 * Removes all ended phases, e.g. after writing them.
+	 */
+	public void clear() {
+		phases.retainAll(openPhases);
+	}
+
+	/**
+	 * Writes the ended phases to {@code writer}.
+	 *
+	 * @param format  the output format
+	 * @param version the application version, included in JSON output to compare
+	 *                releases
+	 * @param writer  the writer to write to
+	 * @throws IOException on IO error
+	 */
+	public void write(final StatisticsFormat format, final String version, final Writer writer) throws IOException {
+		if (format == StatisticsFormat.JSON) {
+			writeJson(version, writer);
+		} else {
+			writeText(writer);
+		}
+		writer.flush();
+	}
+
+	@SuppressWarnings("PMD.CloseResource")
+	private void writeJson(final String version, final Writer writer) throws IOException {
+		writer.write("{\"version\":");
+		JsonStrings.appendString(writer, version);
+		writer.write(",\"phases\":[");
+		final List<Phase> endedPhases = getEndedPhases();
+		for (int index = 0; index < endedPhases.size(); index += 1) {
+			final Phase phase = endedPhases.get(index);
+			if (index > 0) {
+				writer.write(',');
+			}
+
+			writer.write("{\"name\":");
+			JsonStrings.appendString(writer, phase.getName());
+			writer.write(",\"source\":");
+			if (phase.getSource().isPresent()) {
+				JsonStrings.appendString(writer, phase.getSource().get());
+			} else {
+				writer.write(JSON_NULL);
+			}
+			writer.write(",\"sheet\":");
+			if (phase.getSheet().isPresent()) {
+				JsonStrings.appendString(writer, phase.getSheet().get());
+			} else {
+				writer.write(JSON_NULL);
+			}
+			writer.write(String.format(
+					",\"columns\":%s,\"depth\":%d,\"wallNanos\":%s,\"cpuNanos\":%s,\"allocatedBytes\":%s,\"rows\":%d,\"cells\":%d"
+							+ ",\"budgets\":%s,\"accounts\":%s,\"balances\":%s}",
+					formatJsonNumber(phase.getColumns()),
+					phase.getDepth(),
+					formatJsonNumber(phase.getWallNanos()),
+					formatJsonNumber(phase.getCpuNanos()),
+					formatJsonNumber(phase.getAllocatedBytes()),
+					phase.getRows(),
+					phase.getCells(),
+					formatJsonNumber(phase.getBudgets()),
+					formatJsonNumber(phase.getAccounts()),
+					formatJsonNumber(phase.getBalances())));
+		}
+		writer.write("]}");
+		writer.write(System.lineSeparator());
+	}
+
+	@SuppressWarnings("PMD.CloseResource")
+	private void writeText(final Writer writer) throws IOException {
+		writer.write(String.format(TEXT_FORMAT,
+				"Phase",
+				"Source",
+				"Wall [ms]",
+				"CPU [ms]",
+				"Allocated [KiB]",
+				"Rows",
+				"Cells",
+				"Budgets",
+				"Accounts",
+				"Balances"));
+		for (final Phase phase : getEndedPhases()) {
+			writer.write(String.format(TEXT_FORMAT,
+					String.join("", nCopies(phase.getDepth(), "  ")) + phase.getName(),
+					phase.getSheet().map(Optional::of).orElseGet(phase::getSource).orElse(""),
+					formatMillis(phase.getWallNanos()),
+					formatMillis(phase.getCpuNanos()),
+					formatKibibytes(phase.getAllocatedBytes()),
+					phase.getRows(),
+					phase.getCells(),
+					formatCount(phase.getBudgets()),
+					formatCount(phase.getAccounts()),
+					formatCount(phase.getBalances())));
+		}
+	}
+
+	private List<Phase> getEndedPhases() {
+		return phases.stream().filter(phase -> !openPhases.contains(phase)).collect(toList());
+	}
+}
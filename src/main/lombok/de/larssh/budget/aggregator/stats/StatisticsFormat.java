@@ -0,0 +1,16 @@
+package de.larssh.budget.aggregator.stats;
+
+/**
+ * Output formats of {@link Statistics}
+ */
+public enum StatisticsFormat {
+	/**
+	 * Single line JSON object, meant to be collected and compared across releases
+	 */
+	JSON,
+
+	/**
+	 * Human readable table, one line per phase
+	 */
+	TEXT;
+}
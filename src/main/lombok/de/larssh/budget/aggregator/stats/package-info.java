@@ -0,0 +1,5 @@
+/**
+ * Per-phase timing and throughput statistics
+ */
+@de.larssh.utils.annotations.NonNullByDefault
+package de.larssh.budget.aggregator.stats;
@@ -1,5 +1,7 @@
 package de.larssh.budget.aggregator.utils;
 
+import static java.util.Collections.synchronizedMap;
+
 import java.lang.reflect.Constructor;
 import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
@@ -29,7 +31,7 @@ public class CellValues {
 
 	private static final String DATE_STRING_VALUE = "__DATE__";
 
-	private static final Map<Workbook, FormulaEvaluator> FORMULA_EVALUATORS = new WeakHashMap<>();
+	private static final Map<Workbook, FormulaEvaluator> FORMULA_EVALUATORS = synchronizedMap(new WeakHashMap<>());
 
 	@SuppressWarnings({
 			"java:S112",
@@ -0,0 +1,43 @@
+package de.larssh.budget.aggregator.utils;
+
+import java.io.IOException;
+import java.io.Writer;
+
+import lombok.experimental.UtilityClass;
+
+/**
+ * Minimal helpers to write JSON without depending on a JSON library
+ */
+@UtilityClass
+public class JsonStrings {
+	/**
+	 * Appends {@code value} to {@code writer} as JSON string literal.
+	 *
+	 * @param writer the writer to append to
+	 * @param value  the value to escape
+	 * @throws IOException on IO error
+	 */
+	@SuppressWarnings({ "checkstyle:MagicNumber", "PMD.AvoidLiteralsInIfCondition" })
+	public static void appendString(final Writer writer, final String value) throws IOException {
+		writer.write('"');
+		final int length = value.length();
+		for (int index = 0; index < length; index += 1) {
+			final char character = value.charAt(index);
+			if (character == '"' || character == '\\') {
+				writer.write('\\');
+				writer.write(character);
+			} else if (character == '\n') {
+				writer.write("\\n");
+			} else if (character == '\r') {
+				writer.write("\\r");
+			} else if (character == '\t') {
+				writer.write("\\t");
+			} else if (character < 0x20) {
+				writer.write(String.format("\\u%04x", (int) character));
+			} else {
+				writer.write(character);
+			}
+		}
+		writer.write('"');
+	}
+}
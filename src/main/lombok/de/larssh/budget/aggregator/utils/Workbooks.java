@@ -42,16 +42,6 @@ public class Workbooks {
 		return false;
 	}
 
-	public static Stream<Row> rows(final Sheet sheet) {
-		final AtomicInteger index = new AtomicInteger(sheet.getFirstRowNum());
-		final int lastRowIndex = sheet.getLastRowNum();
-
-		return Iterators.stream(state -> {
-			final int currentIndex = index.getAndIncrement();
-			return currentIndex > lastRowIndex ? state.endOfData() : sheet.getRow(currentIndex);
-		});
-	}
-
 	public static Stream<Sheet> sheets(final Workbook workbook) {
 		final AtomicInteger index = new AtomicInteger(0);
 		final int numberOfSheets = workbook.getNumberOfSheets();
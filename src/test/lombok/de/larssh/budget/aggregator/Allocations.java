@@ -0,0 +1,70 @@
+package de.larssh.budget.aggregator;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+
+import de.larssh.utils.function.ThrowingRunnable;
+import lombok.experimental.UtilityClass;
+
+/**
+ * Assertions on the bytes allocated by the current thread, used by the tests
+ * tagged {@code allocation}
+ *
+ * <p>
+ * Actions are warmed up before being measured, so that allocations eliminated
+ * by the JIT compiler are not counted. The minimum of multiple measurements is
+ * compared against the budget to ignore allocations of concurrent JVM
+ * activities, e.g. class loading.
+ */
+@UtilityClass
+public class Allocations {
+	private static final int WARM_UP_ITERATIONS = 50;
+
+	private static final int MEASURED_ITERATIONS = 5;
+
+	private static final ThreadMXBean THREAD_MX_BEAN = ManagementFactory.getThreadMXBean();
+
+	/**
+	 * Asserts that {@code action} allocates at most {@code maxBytesPerUnit} bytes
+	 * per unit, e.g. per row or cell processed by {@code action}. The test is
+	 * skipped if the JVM does not support measuring allocated bytes.
+	 *
+	 * @param description     description of a unit, used for the failure message
+	 * @param maxBytesPerUnit maximum number of bytes allowed per unit
+	 * @param units           number of units processed by each execution of
+	 *                        {@code action}
+	 * @param action          the measured action
+	 */
+	public static void assertAllocatedBytesPerUnit(final String description,
+			final long maxBytesPerUnit,
+			final long units,
+			final ThrowingRunnable action) {
+		assumeTrue(THREAD_MX_BEAN instanceof com.sun.management.ThreadMXBean,
+				"Measuring allocated bytes is not supported.");
+		final com.sun.management.ThreadMXBean threadMXBean = (com.sun.management.ThreadMXBean) THREAD_MX_BEAN;
+		assumeTrue(threadMXBean.isThreadAllocatedMemorySupported() && threadMXBean.isThreadAllocatedMemoryEnabled(),
+				"Measuring allocated bytes is not enabled.");
+
+		for (int iteration = 0; iteration < WARM_UP_ITERATIONS; iteration += 1) {
+			action.run();
+		}
+
+		final long threadId = Thread.currentThread().getId();
+		long minBytes = Long.MAX_VALUE;
+		for (int iteration = 0; iteration < MEASURED_ITERATIONS; iteration += 1) {
+			final long start = threadMXBean.getThreadAllocatedBytes(threadId);
+			action.run();
+			minBytes = Math.min(minBytes, threadMXBean.getThreadAllocatedBytes(threadId) - start);
+		}
+
+		final double bytesPerUnit = (double) minBytes / units;
+		assertTrue(bytesPerUnit <= maxBytesPerUnit,
+				() -> String.format("Allocated %.1f bytes per %s, budget is %d bytes.",
+						bytesPerUnit,
+						description,
+						maxBytesPerUnit));
+	}
+}
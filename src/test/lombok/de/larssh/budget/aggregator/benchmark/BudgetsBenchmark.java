@@ -0,0 +1,114 @@
+package de.larssh.budget.aggregator.benchmark;
+
+import static java.util.stream.Collectors.toList;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import de.larssh.budget.aggregator.data.Account;
+import de.larssh.budget.aggregator.data.Budget;
+import de.larssh.budget.aggregator.data.Budgets;
+import de.larssh.budget.aggregator.data.ParseContext;
+import de.larssh.budget.aggregator.sheets.csv.CsvFiles;
+import de.larssh.utils.text.StringParseException;
+import lombok.NoArgsConstructor;
+import lombok.experimental.NonFinal;
+
+/**
+ * Aggregating budgets: {@link Budgets} and the comparators of accounts
+ */
+@Fork(1)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@State(Scope.Benchmark)
+@NoArgsConstructor
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+public class BudgetsBenchmark {
+	@NonFinal
+	@Param({ "WIDE", "TALL" })
+	SourceShape shape = SourceShape.WIDE;
+
+	/**
+	 * Parsed budgets, read twice to contain duplicates
+	 */
+	@NonFinal
+	List<Budget> budgets;
+
+	@NonFinal
+	List<Account> shuffledAccounts;
+
+	/**
+	 * Modifiable copies of {@link #budgets}, recreated for each invocation
+	 */
+	@NonFinal
+	List<Budget> copies;
+
+	/**
+	 * Creates the budgets of {@link #shape}.
+	 *
+	 * @throws IOException          on IO error
+	 * @throws StringParseException on parse error
+	 */
+	@Setup
+	public void setUp() throws IOException, StringParseException {
+		final String source = shape.createSource();
+		budgets = new ArrayList<>(CsvFiles.read("first.tsv", new StringReader(source), ParseContext.DEFAULT));
+		budgets.addAll(CsvFiles.read("second.tsv", new StringReader(source), ParseContext.DEFAULT));
+		Collections.sort(budgets);
+
+		shuffledAccounts = new ArrayList<>(Budgets.getAccounts(budgets));
+		Collections.shuffle(shuffledAccounts, new Random(0));
+	}
+
+	/**
+	 * Copies {@link #budgets}, as benchmarks modify them.
+	 */
+	@Setup(Level.Invocation)
+	public void setUpCopies() {
+		copies = budgets.stream().map(Budget::copy).collect(toList());
+	}
+
+	@Benchmark
+	public Set<Account> getAccounts() {
+		return Budgets.getAccounts(budgets);
+	}
+
+	@Benchmark
+	public List<Account> sortAccounts() {
+		final List<Account> accounts = new ArrayList<>(shuffledAccounts);
+		Collections.sort(accounts);
+		return accounts;
+	}
+
+	@Benchmark
+	public List<Budget> removeEmptyAccounts() {
+		Budgets.removeEmptyAccounts(copies);
+		return copies;
+	}
+
+	@Benchmark
+	public List<Budget> removeDuplicateBudgets() {
+		Budgets.removeDuplicateBudgets(copies);
+		return copies;
+	}
+}
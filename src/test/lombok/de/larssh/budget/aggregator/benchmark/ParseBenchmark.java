@@ -0,0 +1,96 @@
+package de.larssh.budget.aggregator.benchmark;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.StringReader;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import de.larssh.budget.aggregator.data.Budget;
+import de.larssh.budget.aggregator.data.ParseContext;
+import de.larssh.budget.aggregator.sheets.Sheet;
+import de.larssh.budget.aggregator.sheets.csv.CsvFiles;
+import de.larssh.budget.aggregator.sheets.csv.CsvSheets;
+import de.larssh.budget.aggregator.sheets.excel.ExcelFiles;
+import de.larssh.utils.text.Csv;
+import de.larssh.utils.text.StringParseException;
+import lombok.NoArgsConstructor;
+import lombok.experimental.NonFinal;
+
+/**
+ * Parsing sources: {@link Budget#of(Sheet, ParseContext)}, {@link CsvFiles} and
+ * {@link ExcelFiles}
+ */
+@Fork(1)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@State(Scope.Benchmark)
+@NoArgsConstructor
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+public class ParseBenchmark {
+	private static final String CSV_FILE_NAME = "benchmark.tsv";
+
+	private static final String EXCEL_FILE_NAME = "benchmark.xlsx";
+
+	@NonFinal
+	@Param({ "WIDE", "TALL" })
+	SourceShape shape = SourceShape.WIDE;
+
+	@NonFinal
+	String source = "";
+
+	@NonFinal
+	Sheet sheet;
+
+	@NonFinal
+	byte[] workbook = new byte[0];
+
+	/**
+	 * Creates the source of {@link #shape} as CSV, parsed sheet and workbook.
+	 *
+	 * @throws IOException          on IO error
+	 * @throws StringParseException on parse error
+	 */
+	@Setup
+	public void setUp() throws IOException, StringParseException {
+		source = shape.createSource();
+		sheet = new CsvSheets(CSV_FILE_NAME, Csv.parse(new StringReader(source), CsvFiles.SEPARATOR, CsvFiles.ESCAPER))
+				.getSheets()
+				.iterator()
+				.next();
+
+		final ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+		ExcelFiles.write(CsvFiles.read(CSV_FILE_NAME, new StringReader(source), ParseContext.DEFAULT), outputStream);
+		workbook = outputStream.toByteArray();
+	}
+
+	@Benchmark
+	public Set<Budget> budgetOf() throws StringParseException {
+		return Budget.of(sheet, ParseContext.DEFAULT);
+	}
+
+	@Benchmark
+	public List<Budget> csvRead() throws IOException, StringParseException {
+		return CsvFiles.read(CSV_FILE_NAME, new StringReader(source), ParseContext.DEFAULT);
+	}
+
+	@Benchmark
+	public List<Budget> excelRead() throws IOException, StringParseException {
+		return ExcelFiles.read(EXCEL_FILE_NAME, new ByteArrayInputStream(workbook), ParseContext.DEFAULT);
+	}
+}
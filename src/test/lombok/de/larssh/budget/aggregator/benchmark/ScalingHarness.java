@@ -0,0 +1,283 @@
+package de.larssh.budget.aggregator.benchmark;
+
+import static java.util.Collections.emptyList;
+
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.io.StringWriter;
+import java.io.Writer;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryType;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.stream.Stream;
+
+import de.larssh.budget.aggregator.cli.BudgetAggregatorCli;
+import de.larssh.budget.aggregator.generator.SourceGenerator;
+import de.larssh.utils.Nullables;
+import edu.umd.cs.findbugs.annotations.Nullable;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.experimental.NonFinal;
+import picocli.CommandLine;
+import picocli.CommandLine.Command;
+import picocli.CommandLine.ExitCode;
+import picocli.CommandLine.Model.CommandSpec;
+import picocli.CommandLine.Option;
+import picocli.CommandLine.Spec;
+
+/**
+ * Measures how the full {@link BudgetAggregatorCli} pipeline scales over a
+ * matrix of source counts, sheet heights (rows), sheet widths (budget columns)
+ * and concurrent aggregations.
+ *
+ * <p>
+ * Each configuration runs the given number of aggregations concurrently
+ * in-process, each reading all sources and writing its own output, so lock
+ * contention in shared static caches shows up with increasing thread counts.
+ * After one warm-up run, the median wall time of all repetitions is reported
+ * together with the peak heap usage and the rows aggregated per second as CSV.
+ */
+@Getter
+@NoArgsConstructor
+@Command(name = "scaling-harness",
+		mixinStandardHelpOptions = true,
+		showDefaultValues = true,
+		usageHelpWidth = 160,
+		description = "Measures the throughput of aggregations over a matrix of source counts, sheet sizes and threads.")
+public class ScalingHarness implements Callable<Integer> {
+	private static final String CSV_HEADER = "sources,rows,budgetColumns,threads,wallMillis,peakHeapMiB,rowsPerSecond";
+
+	private static final double NANOS_PER_MILLI = 1_000_000d;
+
+	private static final double NANOS_PER_SECOND = 1_000_000_000d;
+
+	private static final long BYTES_PER_MEBIBYTE = 1024 * 1024;
+
+	/**
+	 * Starts the scaling harness.
+	 *
+	 * @param args command line arguments
+	 */
+	@SuppressWarnings("checkstyle:UncommentedMain")
+	public static void main(final String... args) {
+		System.exit(new CommandLine(new ScalingHarness()).execute(args));
+	}
+
+	private static void resetPeakHeapUsage() {
+		getHeapPools().forEach(MemoryPoolMXBean::resetPeakUsage);
+	}
+
+	private static long getPeakHeapUsage() {
+		return getHeapPools().mapToLong(pool -> pool.getPeakUsage().getUsed()).sum();
+	}
+
+	private static Stream<MemoryPoolMXBean> getHeapPools() {
+		return ManagementFactory.getMemoryPoolMXBeans().stream().filter(pool -> pool.getType() == MemoryType.HEAP);
+	}
+
+	/**
+	 * Current {@link CommandSpec} instance
+	 */
+	@Spec
+	@NonFinal
+	@Nullable
+	CommandSpec commandSpec;
+
+	@NonFinal
+	@Option(names = "--sources", split = ",", defaultValue = "1,8", description = "Numbers of sources per aggregation")
+	List<Integer> sources = emptyList();
+
+	@NonFinal
+	@Option(names = "--rows", split = ",", defaultValue = "1000,10000", description = "Numbers of rows per source")
+	List<Long> rows = emptyList();
+
+	@NonFinal
+	@Option(names = "--budget-columns",
+			split = ",",
+			defaultValue = "3,24",
+			description = "Numbers of balance columns per source")
+	List<Integer> budgetColumns = emptyList();
+
+	@NonFinal
+	@Option(names = "--threads",
+			split = ",",
+			defaultValue = "1,2,4",
+			description = "Numbers of concurrent aggregations")
+	List<Integer> threads = emptyList();
+
+	@NonFinal
+	@Option(names = "--repetitions", defaultValue = "3")
+	int repetitions;
+
+	@NonFinal
+	@Option(names = "--output-extension",
+			defaultValue = ".csv",
+			description = "File extension of the aggregation outputs, e.g. .xlsx")
+	String outputExtension = "";
+
+	@NonFinal
+	@Option(names = "--output", description = "CSV file to write the results to instead of the standard output")
+	@Nullable
+	Path output;
+
+	@Override
+	@SuppressWarnings({ "checkstyle:SuppressWarnings", "resource" })
+	public Integer call() throws ExecutionException, InterruptedException, IOException {
+		final Path directory = Files.createTempDirectory("scaling-");
+		try (PrintWriter printWriter = output == null
+				? getCommandSpec().commandLine().getOut()
+				: new PrintWriter(Files.newBufferedWriter(Nullables.orElseThrow(output), StandardCharsets.UTF_8))) {
+			printWriter.println(CSV_HEADER);
+			printWriter.flush();
+
+			for (final long rowCount : getRows()) {
+				for (final int budgetColumnCount : getBudgetColumns()) {
+					final List<Path> sourcePaths = generateSources(directory, rowCount, budgetColumnCount);
+					for (final int sourceCount : getSources()) {
+						for (final int threadCount : getThreads()) {
+							printWriter.println(measure(directory,
+									sourcePaths.subList(0, sourceCount),
+									rowCount,
+									budgetColumnCount,
+									threadCount));
+							printWriter.flush();
+						}
+					}
+				}
+			}
+		} finally {
+			try (Stream<Path> paths = Files.walk(directory)) {
+				for (final Path path : (Iterable<Path>) paths.sorted(Comparator.reverseOrder())::iterator) {
+					Files.delete(path);
+				}
+			}
+		}
+		return ExitCode.OK;
+	}
+
+	/**
+	 * Generates as many sources of the given size as the biggest source count
+	 * requires.
+	 *
+	 * @param directory         the directory to write to
+	 * @param rowCount          number of rows per source
+	 * @param budgetColumnCount number of balance columns per source
+	 * @return the source files
+	 * @throws IOException on IO error
+	 */
+	private List<Path> generateSources(final Path directory, final long rowCount, final int budgetColumnCount)
+			throws IOException {
+		final SourceGenerator generator = new SourceGenerator(1, rowCount, 2024, budgetColumnCount, 1, 0.1, 0.5);
+		final int sourceCount = getSources().stream().mapToInt(Integer::intValue).max().orElse(0);
+
+		final List<Path> sourcePaths = new ArrayList<>(sourceCount);
+		for (int sourceIndex = 0; sourceIndex < sourceCount; sourceIndex += 1) {
+			final Path path = directory
+					.resolve(String.format("source-%d-%d-%d.tsv", rowCount, budgetColumnCount, sourceIndex + 1));
+			try (Writer writer = Files.newBufferedWriter(path, StandardCharsets.UTF_8)) {
+				generator.writeCsv(sourceIndex, writer);
+			}
+			sourcePaths.add(path);
+		}
+		return sourcePaths;
+	}
+
+	/**
+	 * Measures one configuration and formats it as CSV line.
+	 *
+	 * @param directory         the directory to write outputs to
+	 * @param sourcePaths       the sources to aggregate
+	 * @param rowCount          number of rows per source
+	 * @param budgetColumnCount number of balance columns per source
+	 * @param threadCount       number of concurrent aggregations
+	 * @return the CSV line
+	 * @throws ExecutionException   if an aggregation fails
+	 * @throws InterruptedException if interrupted while waiting for aggregations
+	 */
+	private String measure(final Path directory,
+			final List<Path> sourcePaths,
+			final long rowCount,
+			final int budgetColumnCount,
+			final int threadCount) throws ExecutionException, InterruptedException {
+		// Warm-up
+		run(directory, sourcePaths, threadCount);
+
+		final long[] wallNanos = new long[Math.max(1, getRepetitions())];
+		long peakHeapUsage = 0;
+		for (int repetition = 0; repetition < wallNanos.length; repetition += 1) {
+			System.gc();
+			resetPeakHeapUsage();
+
+			final long start = System.nanoTime();
+			run(directory, sourcePaths, threadCount);
+			wallNanos[repetition] = System.nanoTime() - start;
+			peakHeapUsage = Math.max(peakHeapUsage, getPeakHeapUsage());
+		}
+		Arrays.sort(wallNanos);
+
+		final long medianWallNanos = wallNanos[wallNanos.length / 2];
+		final long aggregatedRows = rowCount * sourcePaths.size() * threadCount;
+		return String.format("%d,%d,%d,%d,%.1f,%d,%.0f",
+				sourcePaths.size(),
+				rowCount,
+				budgetColumnCount,
+				threadCount,
+				medianWallNanos / NANOS_PER_MILLI,
+				peakHeapUsage / BYTES_PER_MEBIBYTE,
+				aggregatedRows * NANOS_PER_SECOND / medianWallNanos);
+	}
+
+	/**
+	 * Runs {@code threadCount} aggregations of {@code sourcePaths} concurrently.
+	 *
+	 * @param directory   the directory to write outputs to
+	 * @param sourcePaths the sources to aggregate
+	 * @param threadCount number of concurrent aggregations
+	 * @throws ExecutionException   if an aggregation fails
+	 * @throws InterruptedException if interrupted while waiting for aggregations
+	 */
+	private void run(final Path directory, final List<Path> sourcePaths, final int threadCount)
+			throws ExecutionException, InterruptedException {
+		final ExecutorService executor = Executors.newFixedThreadPool(threadCount);
+		try {
+			final List<Future<Integer>> futures = new ArrayList<>(threadCount);
+			for (int thread = 0; thread < threadCount; thread += 1) {
+				final Path outputPath = directory.resolve("output-" + thread + getOutputExtension());
+				futures.add(executor.submit(() -> aggregate(sourcePaths, outputPath)));
+			}
+			for (final Future<Integer> future : futures) {
+				if (future.get() != ExitCode.OK) {
+					throw new IllegalStateException("Aggregation failed with exit code " + future.get() + ".");
+				}
+			}
+		} finally {
+			executor.shutdownNow();
+		}
+	}
+
+	private static int aggregate(final List<Path> sourcePaths, final Path outputPath) {
+		final List<String> arguments = new ArrayList<>();
+		sourcePaths.forEach(path -> arguments.add(path.toString()));
+		arguments.add("--output=" + outputPath);
+
+		final CommandLine commandLine = new CommandLine(new BudgetAggregatorCli());
+		commandLine.setOut(new PrintWriter(new StringWriter()));
+		return commandLine.execute(arguments.toArray(new String[0]));
+	}
+
+	private CommandSpec getCommandSpec() {
+		return Nullables.orElseThrow(commandSpec);
+	}
+}
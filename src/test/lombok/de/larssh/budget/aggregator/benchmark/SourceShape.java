@@ -0,0 +1,94 @@
+package de.larssh.budget.aggregator.benchmark;
+
+import java.util.Random;
+
+import de.larssh.budget.aggregator.sheets.csv.CsvFiles;
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+
+/**
+ * Shapes of generated benchmark sources
+ */
+@Getter
+@RequiredArgsConstructor
+@SuppressWarnings("checkstyle:MagicNumber")
+public enum SourceShape {
+	/**
+	 * Few accounts over many years, e.g. a long-term overview
+	 */
+	WIDE(200, 30),
+
+	/**
+	 * Many accounts of a single year, e.g. a whole district
+	 */
+	TALL(20_000, 1);
+
+	/**
+	 * Budget types per year
+	 */
+	private static final String[] BUDGET_TYPES = { "Plan", "Ist" };
+
+	/**
+	 * Accounts used per product
+	 */
+	private static final int[] ACCOUNT_IDS = { 4110000, 4120000, 4210000, 5110000, 5120000, 5210000, 5310000 };
+
+	/**
+	 * Share of empty balances, so hiding empty accounts and balances has work to do
+	 */
+	private static final double EMPTY_BALANCE_RATIO = 0.2;
+
+	int rows;
+
+	int years;
+
+	/**
+	 * Creates a tab separated source of this shape. Values are pseudo-random, but
+	 * identical for each call.
+	 *
+	 * @return the source
+	 */
+	public String createSource() {
+		final Random random = new Random(rows * 31L + years);
+		final StringBuilder builder = new StringBuilder();
+
+		// Header
+		builder.append(String.join(Character.toString(CsvFiles.SEPARATOR),
+				CsvFiles.COLUMN_NAME_MUNICIPALITY,
+				CsvFiles.COLUMN_NAME_PRODUCT_ID,
+				CsvFiles.COLUMN_NAME_PRODUCT_DESCRIPTION,
+				CsvFiles.COLUMN_NAME_ACCOUNT));
+		for (int year = 0; year < years; year += 1) {
+			for (final String budgetType : BUDGET_TYPES) {
+				builder.append(CsvFiles.SEPARATOR).append(budgetType).append(' ').append(2000 + year);
+			}
+		}
+		builder.append('\n');
+
+		// Rows
+		for (int row = 0; row < rows; row += 1) {
+			final int productId = 10_000 + row / ACCOUNT_IDS.length;
+			final int accountId = ACCOUNT_IDS[row % ACCOUNT_IDS.length];
+			builder.append(1_062_001 + productId % 7)
+					.append(CsvFiles.SEPARATOR)
+					.append(productId)
+					.append(CsvFiles.SEPARATOR)
+					.append("Produkt ")
+					.append(productId)
+					.append(CsvFiles.SEPARATOR)
+					.append(accountId)
+					.append(" Konto ")
+					.append(accountId);
+			for (int column = 0; column < years * BUDGET_TYPES.length; column += 1) {
+				builder.append(CsvFiles.SEPARATOR);
+				if (random.nextDouble() < EMPTY_BALANCE_RATIO) {
+					builder.append('0');
+				} else {
+					builder.append(random.nextInt(1_000_000) / 100d);
+				}
+			}
+			builder.append('\n');
+		}
+		return builder.toString();
+	}
+}
@@ -0,0 +1,72 @@
+package de.larssh.budget.aggregator.benchmark;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import de.larssh.budget.aggregator.data.Budget;
+import de.larssh.budget.aggregator.data.ParseContext;
+import de.larssh.budget.aggregator.sheets.csv.CsvFiles;
+import de.larssh.budget.aggregator.sheets.excel.ExcelFiles;
+import de.larssh.utils.text.StringParseException;
+import lombok.NoArgsConstructor;
+import lombok.experimental.NonFinal;
+
+/**
+ * Writing outputs: {@link CsvFiles} and {@link ExcelFiles}
+ */
+@Fork(1)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@State(Scope.Benchmark)
+@NoArgsConstructor
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+public class WriteBenchmark {
+	@NonFinal
+	@Param({ "WIDE", "TALL" })
+	SourceShape shape = SourceShape.WIDE;
+
+	@NonFinal
+	List<Budget> budgets;
+
+	/**
+	 * Creates the budgets of {@link #shape}.
+	 *
+	 * @throws IOException          on IO error
+	 * @throws StringParseException on parse error
+	 */
+	@Setup
+	public void setUp() throws IOException, StringParseException {
+		budgets = CsvFiles.read("benchmark.tsv", new StringReader(shape.createSource()), ParseContext.DEFAULT);
+	}
+
+	@Benchmark
+	public int csvWrite() throws IOException {
+		final StringWriter writer = new StringWriter();
+		CsvFiles.write(budgets, writer);
+		return writer.getBuffer().length();
+	}
+
+	@Benchmark
+	public int excelWrite() throws IOException {
+		final ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+		ExcelFiles.write(budgets, outputStream);
+		return outputStream.size();
+	}
+}
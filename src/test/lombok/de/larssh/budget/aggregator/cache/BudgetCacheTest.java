@@ -0,0 +1,123 @@
+package de.larssh.budget.aggregator.cache;
+
+import static java.util.Arrays.asList;
+import static org.junit.jupiter.api.Assertions.assertDoesNotThrow;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.Stream;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import de.larssh.budget.aggregator.data.Account;
+import de.larssh.budget.aggregator.data.Budget;
+import de.larssh.budget.aggregator.data.BudgetReference;
+import de.larssh.budget.aggregator.data.BudgetType;
+import de.larssh.budget.aggregator.data.Descriptions;
+import de.larssh.budget.aggregator.data.Municipality;
+import de.larssh.budget.aggregator.data.Product;
+import de.larssh.utils.annotations.PackagePrivate;
+import lombok.NoArgsConstructor;
+
+/**
+ * {@link BudgetCache}
+ */
+@NoArgsConstructor
+@SuppressWarnings("java:S5786")
+public class BudgetCacheTest {
+	private static final String HASH = "0123456789abcdef";
+
+	private static final String FILE_NAME = "source.xlsx";
+
+	private static List<Budget> createBudgets() {
+		final Product product = Product.of(Municipality.of(1_062_001), 11_101, "Verwaltung");
+		final Account account = Account.of(product, 4_110_000, "Steuern");
+		final Account otherAccount
+				= Account.of(Product.of(Municipality.of(1_062_002), 11_101, "Verwaltung"), 5_110_000, "Personal");
+
+		final Budget plan = Budget.of(2024, BudgetType.of("Plan"));
+		plan.setReferenceIfAbsent(BudgetReference.FILE_NAME, FILE_NAME);
+		plan.setReferenceIfAbsent(BudgetReference.SHEET, "Tabelle1");
+		plan.putBalance(account, new BigDecimal("100.50"));
+		plan.putBalance(otherAccount, new BigDecimal("-12345678901234567890.123"));
+
+		final Budget result = Budget.of(2023, BudgetType.of("Ist"));
+		result.putBalance(account, new BigDecimal("1E+3"));
+
+		return asList(plan, result, Budget.of(2025, BudgetType.of("Plan")));
+	}
+
+	private static void assertBudgetsEquals(final List<Budget> expected, final List<Budget> actual) {
+		assertEquals(expected, actual);
+		for (int index = 0; index < expected.size(); index += 1) {
+			assertEquals(expected.get(index).getReferences(), actual.get(index).getReferences());
+			assertEquals(expected.get(index).getBalances(), actual.get(index).getBalances());
+		}
+	}
+
+	/**
+	 * Cached budgets equal the budgets put, including scales, descriptions and
+	 * references.
+	 *
+	 * @param directory the cache directory
+	 * @throws IOException on IO error
+	 */
+	@Test
+	@PackagePrivate
+	void testRoundTrip(@TempDir final Path directory) throws IOException {
+		final BudgetCache cache = new BudgetCache(directory);
+		assertFalse(cache.get(HASH, FILE_NAME, Descriptions.NONE).isPresent());
+
+		final List<Budget> budgets = createBudgets();
+		cache.put(HASH, FILE_NAME, budgets);
+
+		final List<Budget> cached = cache.get(HASH, FILE_NAME, Descriptions.NONE).orElseThrow(AssertionError::new);
+		assertBudgetsEquals(budgets, cached);
+		assertEquals("Verwaltung",
+				cached.get(0).getBalances().keySet().iterator().next().getProduct().getDescription());
+
+		// References to the cached file name follow the current file name
+		final List<Budget> renamed
+				= cache.get(HASH, "renamed.xlsx", Descriptions.NONE).orElseThrow(AssertionError::new);
+		assertEquals("renamed.xlsx", renamed.get(0).getReferences().get(BudgetReference.FILE_NAME));
+	}
+
+	/**
+	 * Truncated and corrupt entries are treated as missing instead of failing with
+	 * runtime exceptions.
+	 *
+	 * @param directory the cache directory
+	 * @throws IOException on IO error
+	 */
+	@Test
+	@PackagePrivate
+	void testCorruptEntry(@TempDir final Path directory) throws IOException {
+		final BudgetCache cache = new BudgetCache(directory);
+		cache.put(HASH, FILE_NAME, createBudgets());
+
+		final Path file;
+		try (Stream<Path> files = Files.list(directory)) {
+			file = files.findFirst().orElseThrow(AssertionError::new);
+		}
+		final byte[] entry = Files.readAllBytes(file);
+
+		for (int length = 0; length < entry.length; length += 1) {
+			Files.write(file, Arrays.copyOf(entry, length));
+			assertFalse(cache.get(HASH, FILE_NAME, Descriptions.NONE).isPresent(), Integer.toString(length));
+		}
+
+		for (int index = 0; index < entry.length; index += 1) {
+			final byte[] corrupt = entry.clone();
+			corrupt[index] = (byte) 0xff;
+			Files.write(file, corrupt);
+			assertDoesNotThrow(() -> cache.get(HASH, FILE_NAME, Descriptions.NONE), Integer.toString(index));
+		}
+	}
+}
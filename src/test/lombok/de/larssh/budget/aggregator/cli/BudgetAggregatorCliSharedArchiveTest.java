@@ -0,0 +1,87 @@
+package de.larssh.budget.aggregator.cli;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.List;
+
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import de.larssh.utils.annotations.PackagePrivate;
+import lombok.NoArgsConstructor;
+
+/**
+ * Start-up duration of the shaded JAR using the class data sharing archive of
+ * the profile "cds"
+ *
+ * <p>
+ * Wall-clock durations depend on the machine, therefore these tests are run by
+ * the profile "cds" only, right after creating the archive.
+ */
+@Tag("startup")
+@NoArgsConstructor
+@SuppressWarnings("java:S5786")
+public class BudgetAggregatorCliSharedArchiveTest {
+	/**
+	 * Upper bound for the fastest CSV-to-CSV run of a small source, including JVM
+	 * start-up
+	 */
+	private static final Duration CSV_RUN_MAX_DURATION = Duration.ofSeconds(1);
+
+	/**
+	 * Number of timed runs, of which the fastest is compared to
+	 * {@link #CSV_RUN_MAX_DURATION} to reduce the noise of wall-clock durations
+	 */
+	private static final int CSV_RUNS = 3;
+
+	/**
+	 * Unified logging output of classes loaded from the dynamic archive
+	 */
+	private static final String SHARED_CLASS_SOURCE = "source: shared objects file (top)";
+
+	private static List<String> run(final Path directory, final String... options)
+			throws IOException, InterruptedException {
+		final String[] launcher = new String[options.length + 3];
+		launcher[0] = "-XX:SharedArchiveFile=" + System.getProperty("startup.sharedArchiveFile");
+		System.arraycopy(options, 0, launcher, 1, options.length);
+		launcher[options.length + 1] = "-jar";
+		launcher[options.length + 2] = System.getProperty("startup.jar");
+		return BudgetAggregatorCliStartupTest.run(directory, launcher);
+	}
+
+	@Test
+	@PackagePrivate
+	void testSharedArchiveUsed(@TempDir final Path directory) throws IOException, InterruptedException {
+		final List<String> log = run(directory, "-Xlog:class+load=info");
+		assertTrue(log.stream().anyMatch(line -> line.contains(SHARED_CLASS_SOURCE)),
+				"The class data sharing archive has not been used.");
+	}
+
+	/**
+	 * Runs without class loading logs, as logging inflates the duration.
+	 *
+	 * @param directory the working directory
+	 * @throws IOException          on IO error
+	 * @throws InterruptedException if interrupted while waiting for the JVM
+	 */
+	@Test
+	@PackagePrivate
+	void testCsvDuration(@TempDir final Path directory) throws IOException, InterruptedException {
+		Duration fastest = Duration.ofNanos(Long.MAX_VALUE);
+		for (int index = 0; index < CSV_RUNS; index += 1) {
+			final long start = System.nanoTime();
+			run(directory);
+			final Duration duration = Duration.ofNanos(System.nanoTime() - start);
+			if (duration.compareTo(fastest) < 0) {
+				fastest = duration;
+			}
+		}
+
+		final Duration duration = fastest;
+		assertTrue(duration.compareTo(CSV_RUN_MAX_DURATION) < 0, () -> "Fastest CSV run took " + duration);
+	}
+}
@@ -0,0 +1,93 @@
+package de.larssh.budget.aggregator.cli;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Collections;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import de.larssh.utils.annotations.PackagePrivate;
+import lombok.NoArgsConstructor;
+import picocli.CommandLine;
+
+/**
+ * Spilling balances to disk using {@code --max-memory} of
+ * {@link BudgetAggregatorCli}
+ */
+@NoArgsConstructor
+@SuppressWarnings("java:S5786")
+public class BudgetAggregatorCliSpillTest {
+	/**
+	 * Account description exceeding the 64 KiB limit of modified UTF-8 strings
+	 */
+	private static final String LONG_DESCRIPTION = String.join("", Collections.nCopies(70_000, "ä"));
+
+	private static final String SOURCE_PLAN = "GKZ\tHHJ\tBudget\tBezeichnung Budget\tBezeichnung Position\tPlan 2024\n"
+			+ "1062001\t2024\t11101\tVerwaltung\t4110000 Steuern\t100.5\n"
+			+ "1062001\t2024\t11101\tVerwaltung\t5110000 "
+			+ LONG_DESCRIPTION
+			+ "\t-50\n"
+			+ "1062002\t2024\t11101\tVerwaltung\t4110000 Steuern\t0\n";
+
+	private static final String SOURCE_RESULT = "GKZ\tHHJ\tBudget\tBezeichnung Budget\tBezeichnung Position\tIst\n"
+			+ "1062001\t2024\t11101\tVerwaltung\t4110000 Steuern\t90\n"
+			+ "1062001\t2024\t11101\tVerwaltung\t5110000 "
+			+ LONG_DESCRIPTION
+			+ "\t-40.25\n"
+			+ "1062002\t2024\t11101\tVerwaltung\t4110000 Steuern\t0\n";
+
+	private static String aggregate(final Path directory, final String outputName, final String... options)
+			throws IOException {
+		final Path output = directory.resolve(outputName);
+		final String[] arguments = new String[options.length + 3];
+		arguments[0] = directory.resolve("plan.tsv").toString();
+		arguments[1] = directory.resolve("result.tsv").toString();
+		arguments[2] = "--output=" + output;
+		System.arraycopy(options, 0, arguments, 3, options.length);
+
+		assertEquals(0, new CommandLine(new BudgetAggregatorCli()).execute(arguments));
+		return new String(Files.readAllBytes(output), StandardCharsets.UTF_8);
+	}
+
+	/**
+	 * Spilled and in-memory aggregation result in identical outputs, including
+	 * descriptions exceeding 64 KiB.
+	 *
+	 * @param directory the working directory
+	 * @throws IOException on IO error
+	 */
+	@Test
+	@PackagePrivate
+	void testSpilledEqualsInMemory(@TempDir final Path directory) throws IOException {
+		Files.write(directory.resolve("plan.tsv"), SOURCE_PLAN.getBytes(StandardCharsets.UTF_8));
+		Files.write(directory.resolve("result.tsv"), SOURCE_RESULT.getBytes(StandardCharsets.UTF_8));
+
+		final String inMemory = aggregate(directory, "in-memory.csv", "--csv-sums");
+		final String spilled = aggregate(directory, "spilled.csv", "--csv-sums", "--max-memory=1");
+		assertEquals(inMemory, spilled);
+	}
+
+	/**
+	 * Variances of spilled budgets equal variances of budgets held in memory.
+	 *
+	 * @param directory the working directory
+	 * @throws IOException on IO error
+	 */
+	@Test
+	@PackagePrivate
+	void testVarianceSpilledEqualsInMemory(@TempDir final Path directory) throws IOException {
+		Files.write(directory.resolve("plan.tsv"), SOURCE_PLAN.getBytes(StandardCharsets.UTF_8));
+		Files.write(directory.resolve("result.tsv"), SOURCE_RESULT.getBytes(StandardCharsets.UTF_8));
+
+		final String inMemory = aggregate(directory, "in-memory.csv", "--variance=Ist 2024:Plan 2024");
+		final String spilled = aggregate(directory, "spilled.csv", "--variance=Ist 2024:Plan 2024", "--max-memory=1");
+		assertTrue(inMemory.contains("Abweichung Ist/Plan"));
+		assertEquals(inMemory, spilled);
+	}
+}
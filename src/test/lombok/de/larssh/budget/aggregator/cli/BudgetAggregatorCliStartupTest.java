@@ -0,0 +1,82 @@
+package de.larssh.budget.aggregator.cli;
+
+import static java.util.Collections.singletonList;
+import static java.util.stream.Collectors.toList;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.Stream;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import de.larssh.utils.annotations.PackagePrivate;
+import lombok.NoArgsConstructor;
+
+/**
+ * Start-up behavior of {@link BudgetAggregatorCli} in a new JVM
+ */
+@NoArgsConstructor
+@SuppressWarnings("java:S5786")
+public class BudgetAggregatorCliStartupTest {
+	private static final String SOURCE = "GKZ\tHHJ\tBudget\tBezeichnung Budget\tBezeichnung Position\tPlan 2024\tIst\n"
+			+ "1062001\t2024\t11101\tVerwaltung\t4110000 Steuern\t100.5\t90\n"
+			+ "1062001\t2024\t11101\tVerwaltung\t5110000 Personal\t50\t40\n";
+
+	/**
+	 * Runs a CSV-to-CSV aggregation of a small source in a new JVM.
+	 *
+	 * @param directory the working directory
+	 * @param launcher  the JVM arguments, followed by either the class path and the
+	 *                  main class or by {@code -jar} and the JAR file
+	 * @return the lines written to standard output and error
+	 * @throws IOException          on IO error
+	 * @throws InterruptedException if interrupted while waiting for the JVM
+	 */
+	@PackagePrivate
+	static List<String> run(final Path directory, final String... launcher) throws IOException, InterruptedException {
+		final Path source = directory.resolve("source.tsv");
+		final Path log = directory.resolve("log.txt");
+		Files.write(source, SOURCE.getBytes(StandardCharsets.UTF_8));
+
+		final List<String> java = singletonList(Paths.get(System.getProperty("java.home"), "bin", "java").toString());
+		final List<String> arguments = Arrays.asList(source.toString(), "--output=" + directory.resolve("output.csv"));
+
+		final Process process = new ProcessBuilder(
+				Stream.of(java, Arrays.asList(launcher), arguments).flatMap(List::stream).collect(toList()))
+				.redirectErrorStream(true)
+				.redirectOutput(log.toFile())
+				.start();
+		assertEquals(0, process.waitFor(), () -> readLog(log).toString());
+		return readLog(log);
+	}
+
+	private static List<String> readLog(final Path log) {
+		try {
+			return Files.readAllLines(log);
+		} catch (final IOException e) {
+			throw new UncheckedIOException(e);
+		}
+	}
+
+	@Test
+	@PackagePrivate
+	void testCsvWithoutPoi(@TempDir final Path directory) throws IOException, InterruptedException {
+		final List<String> poiClasses = run(directory,
+				"-verbose:class",
+				"-cp",
+				System.getProperty("java.class.path"),
+				BudgetAggregatorCli.class.getName()).stream()
+				.filter(line -> line.contains("org.apache.poi."))
+				.collect(toList());
+		assertTrue(poiClasses.isEmpty(), () -> "POI classes loaded: " + poiClasses);
+	}
+}
@@ -0,0 +1,110 @@
+package de.larssh.budget.aggregator.data;
+
+import static java.util.Arrays.asList;
+import static java.util.Collections.emptyList;
+import static java.util.Collections.singletonList;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+import de.larssh.budget.aggregator.cli.AccountRangeConverter;
+import de.larssh.budget.aggregator.sheets.SheetFilter;
+import de.larssh.budget.aggregator.sheets.csv.CsvFiles;
+import de.larssh.utils.annotations.PackagePrivate;
+import de.larssh.utils.text.StringParseException;
+import lombok.NoArgsConstructor;
+
+/**
+ * {@link AccountFilter}
+ */
+@NoArgsConstructor
+@SuppressWarnings("java:S5786")
+public class AccountFilterTest {
+	private static final Product PRODUCT = Product.of(Municipality.of(1_062_001), 11_101, "Verwaltung");
+
+	/**
+	 * Rows of other municipalities and accounts contain values, which cannot be
+	 * parsed as balances.
+	 */
+	private static final String SOURCE = "GKZ\tHHJ\tBudget\tBezeichnung Budget\tBezeichnung Position\tPlan 2024\n"
+			+ "1062001\t2024\t11101\tVerwaltung\t4110000 Steuern\t100.5\n"
+			+ "1062002\t2024\t11101\tVerwaltung\t4110000 Steuern\tkein Betrag\n"
+			+ "1062001\t2024\t11101\tVerwaltung\t5010000 Personal\tkein Betrag\n";
+
+	private static List<Budget> read(final AccountFilter filter) throws IOException, StringParseException {
+		return CsvFiles.read("source.csv",
+				new StringReader(SOURCE),
+				ParseContext.of(filter, SheetFilter.ALL, Descriptions.NONE));
+	}
+
+	/**
+	 * Account IDs match if inside any of the ranges, including their bounds.
+	 */
+	@Test
+	@PackagePrivate
+	@SuppressWarnings("checkstyle:MagicNumber")
+	void testAccountRanges() {
+		final AccountFilter filter = AccountFilter.of(emptyList(),
+				emptyList(),
+				asList(new AccountRange(4_110_000, 4_119_999), AccountRange.of(AccountType.INVEST_NEGATIVE)));
+
+		assertFalse(filter.isAll());
+		assertTrue(filter.test(Account.of(PRODUCT, 4_110_000, "Steuern")));
+		assertTrue(filter.test(Account.of(PRODUCT, 4_119_999, "Steuern")));
+		assertFalse(filter.test(Account.of(PRODUCT, 4_120_000, "Steuern")));
+		assertTrue(filter.test(Account.of(PRODUCT, 7_000_000, "Auszahlungen")));
+		assertTrue(filter.test(Account.of(PRODUCT, 7_999_999, "Auszahlungen")));
+		assertFalse(filter.test(Account.of(PRODUCT, 8_000_000, "Sonstiges")));
+		assertTrue(AccountFilter.of(emptyList(), emptyList(), emptyList()).isAll());
+	}
+
+	/**
+	 * Account types can be given by name and by display value, both ignoring case.
+	 */
+	@Test
+	@PackagePrivate
+	void testAccountTypeNames() {
+		final AccountRangeConverter converter = new AccountRangeConverter();
+		final AccountRange expenses = AccountRange.of(AccountType.RESULT_NEGATIVE);
+
+		assertEquals(expenses, converter.convert("RESULT_NEGATIVE"));
+		assertEquals(expenses, converter.convert(" result_negative "));
+		assertEquals(expenses, converter.convert("Aufwendungen"));
+		assertEquals(expenses, converter.convert("AUFWENDUNGEN"));
+		assertEquals(new AccountRange(5_000_000, 5_099_999), converter.convert("5000000-5099999"));
+		assertEquals(new AccountRange(5_110_000, 5_110_000), converter.convert("5110000"));
+		assertThrows(IllegalArgumentException.class, () -> converter.convert("Erträge und Aufwendungen"));
+	}
+
+	/**
+	 * Filters passed down to parsing skip non-matching rows before parsing their
+	 * balances.
+	 *
+	 * @throws IOException          on IO error
+	 * @throws StringParseException on parse error
+	 */
+	@Test
+	@PackagePrivate
+	void testPushDown() throws IOException, StringParseException {
+		assertThrows(StringParseException.class, () -> read(AccountFilter.ALL));
+
+		final AccountFilter filter = AccountFilter.of(singletonList(1_062_001),
+				singletonList(11_101),
+				singletonList(AccountRange.of(AccountType.RESULT_POSITIVE)));
+		final List<Budget> budgets = read(filter);
+
+		assertEquals(1, budgets.size());
+		assertEquals(singletonList(Account.of(PRODUCT, 4_110_000, "Steuern")),
+				new ArrayList<>(budgets.get(0).getBalances().keySet()));
+		assertEquals(new BigDecimal("100.5"), budgets.get(0).getBalances().values().iterator().next().getValue());
+	}
+}
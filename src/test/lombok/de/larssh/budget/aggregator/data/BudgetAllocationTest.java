@@ -0,0 +1,123 @@
+package de.larssh.budget.aggregator.data;
+
+import static de.larssh.budget.aggregator.Allocations.assertAllocatedBytesPerUnit;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.io.UncheckedIOException;
+
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+import de.larssh.budget.aggregator.generator.SourceGenerator;
+import de.larssh.budget.aggregator.sheets.Row;
+import de.larssh.budget.aggregator.sheets.Sheet;
+import de.larssh.budget.aggregator.sheets.csv.CsvFiles;
+import de.larssh.budget.aggregator.sheets.csv.CsvSheets;
+import de.larssh.utils.annotations.PackagePrivate;
+import de.larssh.utils.text.Csv;
+import lombok.NoArgsConstructor;
+
+/**
+ * Allocation budgets of the per-row hot path of
+ * {@link Budget#of(Sheet, ParseContext)}
+ *
+ * <p>
+ * Budgets are cumulative, e.g. {@link Account#of(Row)} includes
+ * {@link Product#of(Row)}, which includes {@link Municipality#of(Row)}. They
+ * leave about 25 percent headroom above the allocations measured on HotSpot, so
+ * lower them after optimizing.
+ */
+@Tag("allocation")
+@NoArgsConstructor
+@SuppressWarnings("java:S5786")
+public class BudgetAllocationTest {
+	private static final int ROWS = 2000;
+
+	private static final int BUDGET_COLUMNS = 3;
+
+	/**
+	 * Bytes per row of {@link Municipality#of(Row)}: the boxed cache key and the
+	 * resulting {@link java.util.Optional}
+	 */
+	private static final long MUNICIPALITY_OF_MAX_BYTES_PER_ROW = 64;
+
+	/**
+	 * Bytes per row of {@link Product#of(Row)}: the product, its trimmed
+	 * description and the resulting {@link java.util.Optional}
+	 */
+	private static final long PRODUCT_OF_MAX_BYTES_PER_ROW = 160;
+
+	/**
+	 * Bytes per row of {@link Account#of(Row)}: the product, the matcher of the
+	 * account cell, the account and its description
+	 */
+	private static final long ACCOUNT_OF_MAX_BYTES_PER_ROW = 640;
+
+	/**
+	 * Bytes per balance cell of {@link Budget#of(Sheet, ParseContext)}: the header
+	 * matcher, the balance, its value and its map entry as well as the share of the
+	 * account per cell
+	 */
+	private static final long BUDGET_OF_MAX_BYTES_PER_CELL = 1024;
+
+	private static final Sheet SHEET = createSheet();
+
+	private static Sheet createSheet() {
+		final StringWriter writer = new StringWriter();
+		try {
+			new SourceGenerator(1, ROWS, 2024, BUDGET_COLUMNS, 3, 0.1, 0).writeCsv(0, writer);
+			final Csv csv = Csv.parse(new StringReader(writer.toString()), CsvFiles.SEPARATOR, CsvFiles.ESCAPER);
+			return new CsvSheets("allocation.tsv", csv).getSheets().iterator().next();
+		} catch (final IOException e) {
+			throw new UncheckedIOException(e);
+		}
+	}
+
+	@Test
+	@PackagePrivate
+	void testMunicipalityOf() {
+		assertAllocatedBytesPerUnit("row", MUNICIPALITY_OF_MAX_BYTES_PER_ROW, ROWS, () -> {
+			int present = 0;
+			for (final Row row : SHEET.getRows()) {
+				present += Municipality.of(row).isPresent() ? 1 : 0;
+			}
+			assertEquals(ROWS, present);
+		});
+	}
+
+	@Test
+	@PackagePrivate
+	void testProductOf() {
+		assertAllocatedBytesPerUnit("row", PRODUCT_OF_MAX_BYTES_PER_ROW, ROWS, () -> {
+			int present = 0;
+			for (final Row row : SHEET.getRows()) {
+				present += Product.of(row).isPresent() ? 1 : 0;
+			}
+			assertEquals(ROWS, present);
+		});
+	}
+
+	@Test
+	@PackagePrivate
+	void testAccountOf() {
+		assertAllocatedBytesPerUnit("row", ACCOUNT_OF_MAX_BYTES_PER_ROW, ROWS, () -> {
+			int present = 0;
+			for (final Row row : SHEET.getRows()) {
+				present += Account.of(row).isPresent() ? 1 : 0;
+			}
+			assertEquals(ROWS, present);
+		});
+	}
+
+	@Test
+	@PackagePrivate
+	void testBudgetOf() {
+		assertAllocatedBytesPerUnit("cell",
+				BUDGET_OF_MAX_BYTES_PER_CELL,
+				(long) ROWS * BUDGET_COLUMNS,
+				() -> assertEquals(BUDGET_COLUMNS, Budget.of(SHEET, ParseContext.DEFAULT).size()));
+	}
+}
@@ -0,0 +1,116 @@
+package de.larssh.budget.aggregator.data;
+
+import static java.util.Arrays.asList;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Optional;
+
+import org.junit.jupiter.api.Test;
+
+import de.larssh.utils.annotations.PackagePrivate;
+import lombok.NoArgsConstructor;
+
+/**
+ * {@link BudgetCube}
+ */
+@NoArgsConstructor
+@SuppressWarnings("java:S5786")
+public class BudgetCubeTest {
+	private static final Municipality MUNICIPALITY = Municipality.of(1_062_001);
+
+	private static final Municipality OTHER_MUNICIPALITY = Municipality.of(1_062_002);
+
+	private static final Product ADMINISTRATION = Product.of(MUNICIPALITY, 11_101, "Verwaltung");
+
+	private static final Product YOUTH = Product.of(MUNICIPALITY, 36_101, "Jugend");
+
+	private static final Product OTHER_ADMINISTRATION = Product.of(OTHER_MUNICIPALITY, 11_101, "Verwaltung");
+
+	private static final Account TAXES = Account.of(ADMINISTRATION, 4_110_000, "Steuern");
+
+	private static final Account STAFF = Account.of(ADMINISTRATION, 5_010_000, "Personal");
+
+	private static final Account VEHICLES = Account.of(YOUTH, 7_830_000, "Fahrzeuge");
+
+	private static final Account OTHER_TAXES = Account.of(OTHER_ADMINISTRATION, 4_110_000, "Steuern");
+
+	private static final Optional<Municipality> ANY_MUNICIPALITY = Optional.empty();
+
+	private static final Optional<Product> ANY_PRODUCT = Optional.empty();
+
+	private static final Optional<AccountType> ANY_ACCOUNT_TYPE = Optional.empty();
+
+	private static final Optional<Budget> ANY_BUDGET = Optional.empty();
+
+	/**
+	 * Sums are rolled up along each dimension, leaving out budgets of relative
+	 * values and distinguishing budgets of the same type and year by identity.
+	 */
+	@Test
+	@PackagePrivate
+	@SuppressWarnings("checkstyle:MagicNumber")
+	void testRollups() {
+		final Budget plan = Budget.of(2024, BudgetType.of("Plan"));
+		plan.putBalance(TAXES, new BigDecimal("100"));
+		plan.putBalance(STAFF, new BigDecimal("-40"));
+		plan.putBalance(VEHICLES, new BigDecimal("-5"));
+		plan.putBalance(OTHER_TAXES, new BigDecimal("30"));
+
+		final Budget result = Budget.of(2024, BudgetType.of("Ist"));
+		result.putBalance(TAXES, new BigDecimal("90"));
+		result.putBalance(STAFF, new BigDecimal("-45"));
+		result.putBalance(OTHER_TAXES, new BigDecimal("35"));
+
+		final Budget samePlan = Budget.of(2024, BudgetType.of("Plan"));
+		samePlan.putBalance(TAXES, new BigDecimal("1"));
+
+		final Budget percentage = Budget.of(2024, BudgetType.of(BudgetType.NAME_PREFIX_PERCENTAGE + "Plan"));
+		percentage.putBalance(TAXES, new BigDecimal("12"));
+
+		final BudgetCube cube = BudgetCube.of(asList(plan, result, samePlan, percentage));
+
+		// Dimension values
+		assertEquals(asList(MUNICIPALITY, OTHER_MUNICIPALITY), new ArrayList<>(cube.getMunicipalities()));
+		assertEquals(asList(ADMINISTRATION, YOUTH, OTHER_ADMINISTRATION), new ArrayList<>(cube.getProducts()));
+		assertEquals(asList(AccountType.RESULT_POSITIVE, AccountType.RESULT_NEGATIVE, AccountType.INVEST_NEGATIVE),
+				new ArrayList<>(cube.getAccountTypes()));
+
+		// Budgets
+		assertEquals(new BigDecimal("166"), cube.getSum(ANY_MUNICIPALITY, ANY_PRODUCT, ANY_ACCOUNT_TYPE, ANY_BUDGET));
+		assertEquals(new BigDecimal("85"), cube.getSum(plan));
+		assertEquals(new BigDecimal("1"), cube.getSum(samePlan));
+		assertEquals(BigDecimal.ZERO, cube.getSum(percentage));
+
+		// Municipalities and account types
+		assertEquals(new BigDecimal("101"),
+				cube.getSum(Optional.of(MUNICIPALITY), ANY_PRODUCT, ANY_ACCOUNT_TYPE, ANY_BUDGET));
+		assertEquals(new BigDecimal("100"),
+				cube.getSum(Optional.of(MUNICIPALITY),
+						ANY_PRODUCT,
+						Optional.of(AccountType.RESULT_POSITIVE),
+						Optional.of(plan)));
+		assertEquals(new BigDecimal("130"),
+				cube.getSum(ANY_MUNICIPALITY,
+						ANY_PRODUCT,
+						Optional.of(AccountType.RESULT_POSITIVE),
+						Optional.of(plan)));
+		assertEquals(new BigDecimal("-5"),
+				cube.getSum(ANY_MUNICIPALITY, ANY_PRODUCT, Optional.of(AccountType.INVEST_NEGATIVE), ANY_BUDGET));
+
+		// Products
+		assertEquals(new BigDecimal("60"), cube.getSum(ADMINISTRATION, plan));
+		assertEquals(new BigDecimal("30"), cube.getSum(OTHER_ADMINISTRATION, plan));
+		assertEquals(new BigDecimal("-45"),
+				cube.getSum(Optional.of(MUNICIPALITY),
+						Optional.of(ADMINISTRATION),
+						Optional.of(AccountType.RESULT_NEGATIVE),
+						Optional.of(result)));
+		assertEquals(BigDecimal.ZERO,
+				cube.getSum(Optional.of(OTHER_MUNICIPALITY),
+						Optional.of(ADMINISTRATION),
+						ANY_ACCOUNT_TYPE,
+						ANY_BUDGET));
+	}
+}
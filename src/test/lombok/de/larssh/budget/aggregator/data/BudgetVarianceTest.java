@@ -0,0 +1,142 @@
+package de.larssh.budget.aggregator.data;
+
+import static java.util.Arrays.asList;
+import static java.util.Collections.emptyList;
+import static java.util.Collections.singletonList;
+import static java.util.stream.Collectors.toList;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+import de.larssh.utils.annotations.PackagePrivate;
+import lombok.NoArgsConstructor;
+
+/**
+ * {@link BudgetVariance}
+ */
+@NoArgsConstructor
+@SuppressWarnings("java:S5786")
+public class BudgetVarianceTest {
+	private static final Product PRODUCT = Product.of(Municipality.of(1_062_001), 11_101, "Verwaltung");
+
+	private static final Account TAXES = Account.of(PRODUCT, 4_110_000, "Steuern");
+
+	private static final Account FEES = Account.of(PRODUCT, 4_310_000, "Gebühren");
+
+	private static final Account STAFF = Account.of(PRODUCT, 5_010_000, "Personal");
+
+	private static final BudgetType PLAN = BudgetType.of("Plan");
+
+	private static final BudgetType RESULT = BudgetType.of("Ist");
+
+	private static final BudgetVariance VARIANCE = new BudgetVariance(RESULT, 2024, PLAN, 2024);
+
+	private static Budget createBudget(final BudgetType type,
+			final String taxes,
+			final String fees,
+			final String staff) {
+		final Budget budget = Budget.of(2024, type);
+		budget.putBalance(TAXES, new BigDecimal(taxes));
+		budget.putBalance(FEES, new BigDecimal(fees));
+		budget.putBalance(STAFF, new BigDecimal(staff));
+		return budget;
+	}
+
+	private static List<BigDecimal> getValues(final Budget budget) {
+		return budget.getBalances().values().stream().map(Balance::getValue).collect(toList());
+	}
+
+	/**
+	 * Absolute variances subtract the subtrahend, treating missing balances as
+	 * zero. Relative variances divide by the absolute value of the subtrahend at
+	 * six decimal places, rounding half to even, and leave out subtrahends of zero.
+	 */
+	@Test
+	@PackagePrivate
+	void testApply() {
+		final Account rent = Account.of(PRODUCT, 4_410_000, "Mieten");
+		final Account interest = Account.of(PRODUCT, 4_610_000, "Zinsen");
+
+		final Budget result = createBudget(RESULT, "105", "70", "-320");
+		result.putBalance(rent, new BigDecimal("200000.5"));
+		final Budget plan = createBudget(PLAN, "100", "-30", "0");
+		plan.putBalance(rent, new BigDecimal("200000"));
+		plan.putBalance(interest, new BigDecimal("8"));
+
+		final List<Budget> variances = VARIANCE.apply(asList(result, plan));
+		assertEquals(
+				asList(Budget.of(2024, BudgetType.of("Abweichung Ist/Plan")),
+						Budget.of(2024, BudgetType.of("Abweichung % Ist/Plan"))),
+				variances);
+		assertEquals(asList(TAXES, FEES, rent, interest, STAFF),
+				new ArrayList<>(variances.get(0).getBalances().keySet()));
+		assertEquals(
+				asList(new BigDecimal("5"),
+						new BigDecimal("100"),
+						new BigDecimal("0.5"),
+						new BigDecimal("-8"),
+						new BigDecimal("-320")),
+				getValues(variances.get(0)));
+		assertEquals(asList(TAXES, FEES, rent, interest), new ArrayList<>(variances.get(1).getBalances().keySet()));
+		assertEquals(
+				asList(new BigDecimal("0.050000"),
+						new BigDecimal("3.333333"),
+						new BigDecimal("0.000002"),
+						new BigDecimal("-1.000000")),
+				getValues(variances.get(1)));
+	}
+
+	/**
+	 * Variances of different years name the year of the subtrahend.
+	 */
+	@Test
+	@PackagePrivate
+	void testApplyYearOverYear() {
+		final Budget result = createBudget(RESULT, "105", "70", "-320");
+		final Budget previous = Budget.of(2023, RESULT);
+		previous.putBalance(TAXES, new BigDecimal("-50"));
+
+		final List<Budget> variances = new BudgetVariance(RESULT, 2024, RESULT, 2023).apply(asList(result, previous));
+		assertEquals(
+				asList(Budget.of(2024, BudgetType.of("Abweichung Ist/Ist 2023")),
+						Budget.of(2024, BudgetType.of("Abweichung % Ist/Ist 2023"))),
+				variances);
+		assertEquals(asList(new BigDecimal("155"), new BigDecimal("70"), new BigDecimal("-320")),
+				getValues(variances.get(0)));
+		assertEquals(singletonList(new BigDecimal("3.100000")), getValues(variances.get(1)));
+	}
+
+	/**
+	 * The report of the largest deviations lists its accounts in order of
+	 * descending deviation instead of account order.
+	 */
+	@Test
+	@PackagePrivate
+	void testTopRanking() {
+		final List<Budget> budgets
+				= asList(createBudget(RESULT, "105", "70", "-320"), createBudget(PLAN, "100", "20", "-300"));
+
+		final List<Budget> report = VARIANCE.top(budgets, 2, DeviationOrder.ABSOLUTE);
+		assertEquals(asList(FEES, STAFF), new ArrayList<>(Budgets.getAccounts(report)));
+		assertEquals(asList(new BigDecimal("50"), new BigDecimal("-20")), getValues(report.get(2)));
+	}
+
+	/**
+	 * Missing minuend and subtrahend budgets are named instead of resulting in
+	 * empty variances.
+	 */
+	@Test
+	@PackagePrivate
+	void testGetMissingBudgets() {
+		final List<Budget> budgets = singletonList(createBudget(RESULT, "1", "2", "3"));
+
+		assertEquals(emptyList(), new BudgetVariance(RESULT, 2024, RESULT, 2024).getMissingBudgets(budgets));
+		assertEquals(singletonList("Plan 2024"), VARIANCE.getMissingBudgets(budgets));
+		assertEquals(asList("Ist 2023", "Plan 2023"),
+				new BudgetVariance(RESULT, 2023, PLAN, 2023).getMissingBudgets(budgets));
+	}
+}
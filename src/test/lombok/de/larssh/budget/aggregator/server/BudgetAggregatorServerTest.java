@@ -0,0 +1,242 @@
+package de.larssh.budget.aggregator.server;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.PrintWriter;
+import java.io.StringWriter;
+import java.net.HttpURLConnection;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadPoolExecutor;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import de.larssh.budget.aggregator.cli.BudgetAggregatorCli;
+import de.larssh.utils.Nullables;
+import de.larssh.utils.annotations.PackagePrivate;
+import edu.umd.cs.findbugs.annotations.Nullable;
+import lombok.NoArgsConstructor;
+import lombok.experimental.NonFinal;
+import picocli.CommandLine;
+
+/**
+ * {@link BudgetAggregatorServer}
+ */
+@NoArgsConstructor
+@SuppressWarnings("java:S5786")
+public class BudgetAggregatorServerTest {
+	private static final String BOUNDARY = "boundary";
+
+	private static final String SOURCE = "GKZ\tHHJ\tBudget\tBezeichnung Budget\tBezeichnung Position\tPlan 2024\n"
+			+ "1062001\t2024\t11101\tVerwaltung\t4110000 Steuern\t100.5\n"
+			+ "1062002\t2024\t11101\tVerwaltung\t4110000 Steuern\t50\n";
+
+	private static byte[] createBody(final Map<String, String> fields) {
+		final StringBuilder body = new StringBuilder();
+		for (final Entry<String, String> field : fields.entrySet()) {
+			body.append("--" + BOUNDARY + "\r\nContent-Disposition: form-data; name=\"")
+					.append(field.getKey())
+					.append("\"\r\n\r\n")
+					.append(field.getValue())
+					.append("\r\n");
+		}
+		body.append(
+				"--" + BOUNDARY + "\r\nContent-Disposition: form-data; name=\"sources[]\"; filename=\"source.tsv\"\r\n")
+				.append("Content-Type: text/tab-separated-values\r\n\r\n")
+				.append(SOURCE)
+				.append("\r\n--" + BOUNDARY + "--\r\n");
+		return body.toString().getBytes(StandardCharsets.UTF_8);
+	}
+
+	private static String read(@Nullable final InputStream inputStream) throws IOException {
+		if (inputStream == null) {
+			return "";
+		}
+		try (InputStream stream = inputStream) {
+			final ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+			final byte[] buffer = new byte[4096];
+			for (int length = stream.read(buffer); length != -1; length = stream.read(buffer)) {
+				outputStream.write(buffer, 0, length);
+			}
+			return new String(outputStream.toByteArray(), StandardCharsets.UTF_8);
+		}
+	}
+
+	@NonFinal
+	@Nullable
+	BudgetAggregatorServer server;
+
+	StringWriter errors = new StringWriter();
+
+	/**
+	 * Latch aggregations wait for before starting, released by default
+	 */
+	@NonFinal
+	CountDownLatch release = new CountDownLatch(0);
+
+	@BeforeEach
+	@PackagePrivate
+	void start() throws IOException {
+		final BudgetAggregatorServer server = new BudgetAggregatorServer(new InetSocketAddress("127.0.0.1",
+				0), 1, 1, 1024 * 1024, this::createCommandLine, new PrintWriter(errors));
+		server.start();
+		this.server = server;
+	}
+
+	@AfterEach
+	@PackagePrivate
+	void stop() {
+		Nullables.ifNonNull(server, BudgetAggregatorServer::stop);
+	}
+
+	private CommandLine createCommandLine() {
+		try {
+			release.await();
+		} catch (final InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+		return new CommandLine(new BudgetAggregatorCli(BudgetAggregatorCli::readSource));
+	}
+
+	private int getPort() {
+		return Nullables.orElseThrow(Nullables.orElseThrow(server).getServer()).getAddress().getPort();
+	}
+
+	private HttpURLConnection post(final Map<String, String> fields) throws IOException {
+		final HttpURLConnection connection
+				= (HttpURLConnection) new URL("http://127.0.0.1:" + getPort() + "/").openConnection();
+		connection.setRequestMethod("POST");
+		connection.setDoOutput(true);
+		connection.setRequestProperty("Content-Type", "multipart/form-data; boundary=" + BOUNDARY);
+		try (OutputStream outputStream = connection.getOutputStream()) {
+			outputStream.write(createBody(fields));
+		}
+		return connection;
+	}
+
+	@Test
+	@PackagePrivate
+	void testAggregate() throws IOException {
+		final Map<String, String> fields = new LinkedHashMap<>();
+		fields.put("format", "tsv");
+		final HttpURLConnection connection = post(fields);
+
+		assertEquals(HttpURLConnection.HTTP_OK, connection.getResponseCode(), errors::toString);
+		final String output = read(connection.getInputStream());
+		assertTrue(output.contains("Steuern"), output);
+	}
+
+	/**
+	 * Options of the CLI are forwarded, e.g. to list the sums below the accounts of
+	 * CSV outputs.
+	 */
+	@Test
+	@PackagePrivate
+	void testOptionsForwarded() throws IOException {
+		final Map<String, String> fields = new LinkedHashMap<>();
+		fields.put("format", "csv");
+		fields.put("csv-sums", "true");
+		fields.put("sheets", "*");
+		final HttpURLConnection connection = post(fields);
+
+		assertEquals(HttpURLConnection.HTTP_OK, connection.getResponseCode(), errors::toString);
+		final String output = read(connection.getInputStream());
+		assertTrue(output.contains("Summe"), output);
+	}
+
+	/**
+	 * Splitting by municipality writes multiple outputs, which cannot be sent as
+	 * single response. Therefore the option is not forwarded.
+	 */
+	@Test
+	@PackagePrivate
+	void testSplitByMunicipalityRejected() throws IOException {
+		final Map<String, String> fields = new LinkedHashMap<>();
+		fields.put("format", "tsv");
+		fields.put("split-by-municipality", "on");
+		final HttpURLConnection connection = post(fields);
+
+		assertEquals(HttpURLConnection.HTTP_BAD_REQUEST, connection.getResponseCode());
+		final String message = read(connection.getErrorStream());
+		assertTrue(message.contains("split-by-municipality"), message);
+		assertEquals("", errors.toString());
+	}
+
+	/**
+	 * Malformed Content-Length headers are answered with 400 instead of 500,
+	 * whether rejected by the HTTP server implementation or by the handler.
+	 */
+	@Test
+	@PackagePrivate
+	void testMalformedContentLength() throws IOException {
+		try (Socket socket = new Socket("127.0.0.1", getPort())) {
+			final OutputStream outputStream = socket.getOutputStream();
+			outputStream.write(("POST / HTTP/1.1\r\n"
+					+ "Host: 127.0.0.1\r\n"
+					+ "Content-Type: multipart/form-data; boundary="
+					+ BOUNDARY
+					+ "\r\n"
+					+ "Content-Length: 12x\r\n"
+					+ "Connection: close\r\n\r\n").getBytes(StandardCharsets.ISO_8859_1));
+			outputStream.flush();
+
+			final String response = read(socket.getInputStream());
+			assertTrue(response.startsWith("HTTP/1.1 400 "), response);
+		}
+	}
+
+	/**
+	 * Requests exceeding the worker thread and the queue are rejected right away
+	 * instead of being aggregated by the thread accepting connections.
+	 */
+	@Test
+	@PackagePrivate
+	void testOverflowRejected() throws IOException, InterruptedException, ExecutionException {
+		release = new CountDownLatch(1);
+		final Map<String, String> fields = new LinkedHashMap<>();
+		fields.put("format", "tsv");
+
+		// One request is aggregated while another one is queued
+		final ExecutorService clients = Executors.newFixedThreadPool(2);
+		try {
+			final List<Future<Integer>> pending = new ArrayList<>();
+			for (int index = 0; index < 2; index += 1) {
+				pending.add(clients.submit(() -> post(fields).getResponseCode()));
+			}
+			final ThreadPoolExecutor executor = Nullables.orElseThrow(Nullables.orElseThrow(server).getExecutor());
+			while (executor.getActiveCount() < 1 || executor.getQueue().size() < 1) {
+				Thread.sleep(10);
+			}
+
+			final HttpURLConnection rejected = post(fields);
+			assertEquals(HttpURLConnection.HTTP_UNAVAILABLE, rejected.getResponseCode());
+
+			release.countDown();
+			for (final Future<Integer> future : pending) {
+				assertEquals(HttpURLConnection.HTTP_OK, future.get(), errors::toString);
+			}
+		} finally {
+			release.countDown();
+			clients.shutdown();
+		}
+	}
+}
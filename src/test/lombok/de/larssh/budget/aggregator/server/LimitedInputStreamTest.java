@@ -0,0 +1,68 @@
+package de.larssh.budget.aggregator.server;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.HttpURLConnection;
+
+import org.junit.jupiter.api.Test;
+
+import de.larssh.utils.annotations.PackagePrivate;
+import lombok.NoArgsConstructor;
+
+/**
+ * {@link LimitedInputStream}
+ */
+@NoArgsConstructor
+@SuppressWarnings("java:S5786")
+public class LimitedInputStreamTest {
+	private static final int LIMIT = 8;
+
+	private static InputStream createInputStream(final int length) {
+		return new LimitedInputStream(new ByteArrayInputStream(new byte[length]), LIMIT);
+	}
+
+	@Test
+	@PackagePrivate
+	void testReadWithinLimit() throws IOException {
+		try (InputStream inputStream = createInputStream(LIMIT)) {
+			assertEquals(LIMIT - 1, inputStream.read(new byte[LIMIT - 1]));
+			assertEquals(0, inputStream.read());
+			assertEquals(-1, inputStream.read());
+			assertEquals(-1, inputStream.read(new byte[1]));
+		}
+	}
+
+	@Test
+	@PackagePrivate
+	void testReadExceedingLimit() throws IOException {
+		try (InputStream inputStream = createInputStream(LIMIT + 1)) {
+			final HttpStatusException exception
+					= assertThrows(HttpStatusException.class, () -> inputStream.read(new byte[LIMIT * 2]));
+			assertEquals(HttpURLConnection.HTTP_ENTITY_TOO_LARGE, exception.getStatus());
+		}
+	}
+
+	@Test
+	@PackagePrivate
+	void testReadSingleBytesExceedingLimit() throws IOException {
+		try (InputStream inputStream = createInputStream(LIMIT + 1)) {
+			for (int index = 0; index < LIMIT; index += 1) {
+				assertEquals(0, inputStream.read());
+			}
+			assertThrows(HttpStatusException.class, inputStream::read);
+		}
+	}
+
+	@Test
+	@PackagePrivate
+	void testSkipExceedingLimit() throws IOException {
+		try (InputStream inputStream = createInputStream(LIMIT * 2)) {
+			assertEquals(LIMIT, inputStream.skip(LIMIT));
+			assertThrows(HttpStatusException.class, () -> inputStream.skip(1));
+		}
+	}
+}
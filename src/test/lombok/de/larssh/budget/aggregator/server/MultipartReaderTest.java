@@ -0,0 +1,167 @@
+package de.larssh.budget.aggregator.server;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.EOFException;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.HttpURLConnection;
+import java.nio.charset.StandardCharsets;
+import java.util.Optional;
+
+import org.junit.jupiter.api.Test;
+
+import de.larssh.utils.annotations.PackagePrivate;
+import lombok.NoArgsConstructor;
+
+/**
+ * {@link MultipartReader}
+ */
+@NoArgsConstructor
+@SuppressWarnings("java:S5786")
+public class MultipartReaderTest {
+	private static final String BOUNDARY = "xYz";
+
+	/**
+	 * File content containing partial delimiters and line breaks
+	 */
+	private static final String FILE_CONTENT = "a\r\n-\r\n--x\r\n--xY\r\r\n--xYy\r\n--xY";
+
+	private static final String FILE_NAME = "source.tsv";
+
+	private static final String FIELD_NAME = "format";
+
+	private static final String FIELD_VALUE = "tsv";
+
+	private static final String BODY = "preamble\r\n--"
+			+ BOUNDARY
+			+ "\r\n"
+			+ "Content-Disposition: form-data; name=\""
+			+ FIELD_NAME
+			+ "\"\r\n\r\n"
+			+ FIELD_VALUE
+			+ "\r\n--"
+			+ BOUNDARY
+			+ "\r\n"
+			+ "Content-Disposition: form-data; name=\"sources[]\"; filename=\""
+			+ FILE_NAME
+			+ "\"\r\n"
+			+ "Content-Type: text/plain\r\n\r\n"
+			+ FILE_CONTENT
+			+ "\r\n--"
+			+ BOUNDARY
+			+ "--\r\n";
+
+	private static InputStream createInputStream(final String body, final int chunkSize) {
+		return new ChunkedInputStream(new ByteArrayInputStream(body.getBytes(StandardCharsets.UTF_8)), chunkSize);
+	}
+
+	private static void assertParts(final MultipartReader reader) throws IOException {
+		assertTrue(reader.next());
+		assertEquals(FIELD_NAME, reader.getName());
+		assertEquals(Optional.empty(), reader.getFileName());
+		assertEquals(FIELD_VALUE, reader.readBodyAsString());
+
+		assertTrue(reader.next());
+		assertEquals("sources[]", reader.getName());
+		assertEquals(Optional.of(FILE_NAME), reader.getFileName());
+		final ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+		reader.copyBody(outputStream);
+		assertEquals(FILE_CONTENT, new String(outputStream.toByteArray(), StandardCharsets.UTF_8));
+
+		assertFalse(reader.next());
+		assertFalse(reader.next());
+	}
+
+	@Test
+	@PackagePrivate
+	void testGetBoundary() {
+		assertEquals(Optional.of(BOUNDARY), MultipartReader.getBoundary("multipart/form-data; boundary=" + BOUNDARY));
+		assertEquals(Optional.of("a b"),
+				MultipartReader.getBoundary("Multipart/Form-Data; charset=x; boundary=\"a b\""));
+		assertEquals(Optional.empty(), MultipartReader.getBoundary("text/plain"));
+		assertEquals(Optional.empty(), MultipartReader.getBoundary(null));
+	}
+
+	@Test
+	@PackagePrivate
+	void testNext() throws IOException {
+		assertParts(new MultipartReader(createInputStream(BODY, Integer.MAX_VALUE), BOUNDARY));
+	}
+
+	/**
+	 * Boundaries split across reads of the underlying stream
+	 */
+	@Test
+	@PackagePrivate
+	void testNextSplitReads() throws IOException {
+		for (int chunkSize = 1; chunkSize <= BOUNDARY.length() + 4; chunkSize += 1) {
+			assertParts(new MultipartReader(createInputStream(BODY, chunkSize), BOUNDARY));
+		}
+	}
+
+	@Test
+	@PackagePrivate
+	void testNextSkipsUnconsumedBodies() throws IOException {
+		final MultipartReader reader = new MultipartReader(createInputStream(BODY, 3), BOUNDARY);
+		assertTrue(reader.next());
+		assertTrue(reader.next());
+		assertEquals(Optional.of(FILE_NAME), reader.getFileName());
+		assertFalse(reader.next());
+	}
+
+	@Test
+	@PackagePrivate
+	void testNextMissingFinalBoundary() throws IOException {
+		final String body = BODY.substring(0, BODY.lastIndexOf("\r\n--" + BOUNDARY + "--"));
+		final MultipartReader reader = new MultipartReader(createInputStream(body, 5), BOUNDARY);
+		assertTrue(reader.next());
+		assertTrue(reader.next());
+		assertThrows(EOFException.class, () -> reader.copyBody(new ByteArrayOutputStream()));
+	}
+
+	@Test
+	@PackagePrivate
+	void testNextMissingLineBreak() {
+		final MultipartReader reader
+				= new MultipartReader(createInputStream("--" + BOUNDARY + "xx", Integer.MAX_VALUE), BOUNDARY);
+		final HttpStatusException exception = assertThrows(HttpStatusException.class, reader::next);
+		assertEquals(HttpURLConnection.HTTP_BAD_REQUEST, exception.getStatus());
+	}
+
+	@Test
+	@PackagePrivate
+	void testNextOversizedBody() throws IOException {
+		final MultipartReader reader = new MultipartReader(
+				new LimitedInputStream(createInputStream(BODY, 7), BODY.length() - FILE_CONTENT.length()),
+				BOUNDARY);
+		assertTrue(reader.next());
+		assertTrue(reader.next());
+		final HttpStatusException exception
+				= assertThrows(HttpStatusException.class, () -> reader.copyBody(new ByteArrayOutputStream()));
+		assertEquals(HttpURLConnection.HTTP_ENTITY_TOO_LARGE, exception.getStatus());
+	}
+
+	/**
+	 * Input stream returning at most a given number of bytes per read
+	 */
+	private static final class ChunkedInputStream extends FilterInputStream {
+		int chunkSize;
+
+		private ChunkedInputStream(final InputStream inputStream, final int chunkSize) {
+			super(inputStream);
+			this.chunkSize = chunkSize;
+		}
+
+		@Override
+		public int read(final byte[] buffer, final int offset, final int length) throws IOException {
+			return super.read(buffer, offset, Math.min(length, chunkSize));
+		}
+	}
+}
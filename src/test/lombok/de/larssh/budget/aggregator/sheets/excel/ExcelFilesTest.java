@@ -0,0 +1,75 @@
+package de.larssh.budget.aggregator.sheets.excel;
+
+import static java.util.Arrays.asList;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.apache.poi.ss.usermodel.Cell;
+import org.apache.poi.ss.usermodel.FormulaEvaluator;
+import org.apache.poi.ss.usermodel.Sheet;
+import org.apache.poi.xssf.usermodel.XSSFWorkbook;
+import org.junit.jupiter.api.Test;
+
+import de.larssh.budget.aggregator.data.Account;
+import de.larssh.budget.aggregator.data.Budget;
+import de.larssh.budget.aggregator.data.BudgetType;
+import de.larssh.budget.aggregator.data.Municipality;
+import de.larssh.budget.aggregator.data.Product;
+import de.larssh.utils.annotations.PackagePrivate;
+import lombok.NoArgsConstructor;
+
+/**
+ * {@link ExcelFiles}
+ */
+@NoArgsConstructor
+@SuppressWarnings("java:S5786")
+public class ExcelFilesTest {
+	/**
+	 * Index of the first budget column of the products sheet
+	 */
+	private static final int PRODUCTS_BUDGET_COLUMN = 4;
+
+	/**
+	 * The cached sums of the products sheet equal the results of their formulas,
+	 * even for products sharing their ID and description with products of other
+	 * municipalities and for product IDs with multiple descriptions.
+	 *
+	 * @throws IOException on IO error
+	 */
+	@Test
+	@PackagePrivate
+	void testProductSums() throws IOException {
+		final Product administration = Product.of(Municipality.of(1_062_001), 11_101, "Verwaltung");
+		final Product renamed = Product.of(Municipality.of(1_062_001), 11_101, "Zentrale Verwaltung");
+		final Product otherAdministration = Product.of(Municipality.of(1_062_002), 11_101, "Verwaltung");
+
+		final Budget budget = Budget.of(2024, BudgetType.of("Plan"));
+		budget.putBalance(Account.of(administration, 4_110_000, "Steuern"), new BigDecimal("100"));
+		budget.putBalance(Account.of(renamed, 5_110_000, "Personal"), new BigDecimal("-7.5"));
+		budget.putBalance(Account.of(otherAdministration, 4_110_000, "Steuern"), new BigDecimal("30"));
+
+		final ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+		ExcelFiles.write(asList(budget), outputStream);
+
+		try (XSSFWorkbook workbook = new XSSFWorkbook(new ByteArrayInputStream(outputStream.toByteArray()))) {
+			final Sheet sheet = workbook.getSheet("Produkte");
+			final FormulaEvaluator evaluator = workbook.getCreationHelper().createFormulaEvaluator();
+			final List<Double> cached = new ArrayList<>();
+			final List<Double> evaluated = new ArrayList<>();
+			for (int rowIndex = 1; rowIndex <= 3; rowIndex += 1) {
+				final Cell cell = sheet.getRow(rowIndex).getCell(PRODUCTS_BUDGET_COLUMN);
+				cached.add(cell.getNumericCellValue());
+				evaluated.add(evaluator.evaluate(cell).getNumberValue());
+			}
+
+			assertEquals(asList(100.0, -7.5, 30.0), cached);
+			assertEquals(cached, evaluated);
+		}
+	}
+}
@@ -0,0 +1,70 @@
+package de.larssh.budget.aggregator.sheets.excel;
+
+import static de.larssh.budget.aggregator.Allocations.assertAllocatedBytesPerUnit;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+
+import org.apache.poi.ss.usermodel.Workbook;
+import org.apache.poi.ss.usermodel.WorkbookFactory;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+import de.larssh.budget.aggregator.generator.SourceGenerator;
+import de.larssh.budget.aggregator.sheets.SheetFilter;
+import de.larssh.utils.annotations.PackagePrivate;
+import lombok.NoArgsConstructor;
+
+/**
+ * Allocation budget of iterating the rows of an {@link ExcelSheet} and
+ * {@link ExcelRow#get(int)}
+ */
+@Tag("allocation")
+@NoArgsConstructor
+@SuppressWarnings("java:S5786")
+public class ExcelRowAllocationTest {
+	private static final int ROWS = 2000;
+
+	private static final int BUDGET_COLUMNS = 3;
+
+	/**
+	 * Bytes per cell of {@link ExcelRow#get(int)}: the date format check of numeric
+	 * cells, the evaluated cell value, its string representation and the resulting
+	 * {@link java.util.Optional}. Iterating rows does not allocate per row.
+	 */
+	private static final long GET_MAX_BYTES_PER_CELL = 1152;
+
+	private static ExcelSheet createSheet() {
+		final ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+		try {
+			new SourceGenerator(1, ROWS, 2024, BUDGET_COLUMNS, 3, 0.1, 0).writeWorkbook(0, outputStream);
+			try (Workbook workbook = WorkbookFactory.create(new ByteArrayInputStream(outputStream.toByteArray()))) {
+				return new ExcelSheets("allocation.xlsx", workbook, SheetFilter.ALL).getSheets().iterator().next();
+			}
+		} catch (final IOException e) {
+			throw new UncheckedIOException(e);
+		}
+	}
+
+	@Test
+	@PackagePrivate
+	void testGet() {
+		final ExcelSheet sheet = createSheet();
+		final int columns = sheet.getHeader().size();
+		assertAllocatedBytesPerUnit("cell", GET_MAX_BYTES_PER_CELL, (long) ROWS * columns, () -> {
+			int rows = 0;
+			int present = 0;
+			for (final ExcelRow row : sheet.getRows()) {
+				rows += 1;
+				for (int index = 0; index < columns; index += 1) {
+					present += row.get(index).isPresent() ? 1 : 0;
+				}
+			}
+			assertEquals(ROWS, rows);
+			assertEquals(true, present > 0);
+		});
+	}
+}
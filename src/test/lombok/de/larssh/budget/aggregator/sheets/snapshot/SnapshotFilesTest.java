@@ -0,0 +1,117 @@
+package de.larssh.budget.aggregator.sheets.snapshot;
+
+import static java.util.Arrays.asList;
+import static java.util.Collections.singletonList;
+import static java.util.stream.Collectors.toList;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.ByteBuffer;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+import de.larssh.budget.aggregator.data.Account;
+import de.larssh.budget.aggregator.data.Balance;
+import de.larssh.budget.aggregator.data.Budget;
+import de.larssh.budget.aggregator.data.BudgetReference;
+import de.larssh.budget.aggregator.data.BudgetType;
+import de.larssh.budget.aggregator.data.Descriptions;
+import de.larssh.budget.aggregator.data.Municipality;
+import de.larssh.budget.aggregator.data.Product;
+import de.larssh.utils.annotations.PackagePrivate;
+import lombok.NoArgsConstructor;
+
+/**
+ * {@link SnapshotFiles}
+ */
+@NoArgsConstructor
+@SuppressWarnings("java:S5786")
+public class SnapshotFilesTest {
+	private static final Municipality MUNICIPALITY = Municipality.of(1_055_013);
+
+	private static final Product SCHOOL = Product.of(MUNICIPALITY, 21_101, "Grundschule");
+
+	private static final Product FIRE_BRIGADE = Product.of(MUNICIPALITY, 12_601, "Brandschutz");
+
+	private static final Account SCHOOL_RENT = Account.of(SCHOOL, 4_414_000, "Mieten und Pachten");
+
+	private static final Account SCHOOL_ENERGY = Account.of(SCHOOL, 5_241_000, "Energie");
+
+	private static final Account FIRE_BRIGADE_VEHICLES = Account.of(FIRE_BRIGADE, 7_831_000, "Fahrzeuge");
+
+	private static byte[] write(final List<Budget> budgets) throws IOException {
+		final ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+		SnapshotFiles.write(budgets, outputStream);
+		return outputStream.toByteArray();
+	}
+
+	private static List<BigDecimal> getValues(final Budget budget) {
+		return budget.getBalances().values().stream().map(Balance::getValue).collect(toList());
+	}
+
+	/**
+	 * Snapshots keep budgets, all strings of their string table and their values.
+	 * Each budget column uses the largest scale of its rows, so values of lower
+	 * scales are read with trailing zeros.
+	 *
+	 * @throws IOException on IO error
+	 */
+	@Test
+	@PackagePrivate
+	void testRoundTrip() throws IOException {
+		final Budget plan = Budget.of(2025, BudgetType.of("Nachtrag"));
+		plan.setReferenceIfAbsent(BudgetReference.FILE_NAME, "nachtrag-2025.csv");
+		plan.setReferenceIfAbsent(BudgetReference.COLUMN, "Nachtrag 2025");
+		plan.putBalance(SCHOOL_RENT, new BigDecimal("1200"));
+		plan.putBalance(SCHOOL_ENERGY, new BigDecimal("-310.5"));
+		plan.putBalance(FIRE_BRIGADE_VEHICLES, new BigDecimal("-2.5E+5"));
+
+		final Budget result = Budget.of(2024, BudgetType.of("Ergebnis"));
+		result.putBalance(SCHOOL_ENERGY, new BigDecimal("-298.125"));
+
+		final List<Budget> budgets = asList(plan, result, Budget.of(2026, BudgetType.of("Planung")));
+		final byte[] snapshot = write(budgets);
+		final List<Budget> read = SnapshotFiles.read(ByteBuffer.wrap(snapshot), Descriptions.NONE);
+
+		// Header table and string table
+		assertEquals(budgets, read);
+		assertEquals(plan.getReferences(), read.get(0).getReferences());
+		assertTrue(read.get(1).getReferences().isEmpty());
+		assertEquals(asList("Fahrzeuge", "Mieten und Pachten", "Energie"),
+				read.get(0).getBalances().keySet().stream().map(Account::getDescription).collect(toList()));
+		assertEquals(asList("Brandschutz", "Grundschule", "Grundschule"),
+				read.get(0)
+						.getBalances()
+						.keySet()
+						.stream()
+						.map(account -> account.getProduct().getDescription())
+						.collect(toList()));
+
+		// Columns
+		assertEquals(asList(new BigDecimal("-250000.0"), new BigDecimal("1200.0"), new BigDecimal("-310.5")),
+				getValues(read.get(0)));
+		assertEquals(singletonList(new BigDecimal("-298.125")), getValues(read.get(1)));
+		assertTrue(read.get(2).getBalances().isEmpty());
+
+		assertEquals(budgets, SnapshotFiles.list(ByteBuffer.wrap(snapshot)));
+	}
+
+	/**
+	 * Values exceeding the fixed-point range at the scale of their budget fail
+	 * instead of being truncated.
+	 */
+	@Test
+	@PackagePrivate
+	void testOverflow() {
+		final Budget budget = Budget.of(2024, BudgetType.of("Plan"));
+		budget.putBalance(SCHOOL_RENT, new BigDecimal("0.0000000001"));
+		budget.putBalance(SCHOOL_ENERGY, new BigDecimal("1E+9"));
+
+		assertThrows(IOException.class, () -> write(singletonList(budget)));
+	}
+}
@@ -1,6 +1,9 @@
 <?php
 define('DEBUG', false);
 
+// URL of a resident Budget Aggregator started using "java -jar budget-aggregator.jar serve" or null to start a new JVM per request
+define('BUDGET_AGGREGATOR_SERVER', null);
+
 ini_set('html_errors', false);
 if (DEBUG) {
 	error_reporting(-1);
@@ -87,8 +90,16 @@ if ($isPostRequest) {
 }
 
 function callBudgetAggregator($filterBudgetTypes, $filterYears, $hideDuplicateBudgets, $hideEmptyAccounts, $hideEmptyBalances, $hideEmptyBudgets, $output, $sources) {
-	$command = '/usr/bin/java -jar';
-	$command .= ' ' . escapeshellarg(realpath('libraries/budget-aggregator-0.9.0-SNAPSHOT.jar'));
+	if (BUDGET_AGGREGATOR_SERVER !== null) {
+		return callBudgetAggregatorServer($filterBudgetTypes, $filterYears, $hideDuplicateBudgets, $hideEmptyAccounts, $hideEmptyBalances, $hideEmptyBudgets, $output, $sources);
+	}
+
+	$command = '/usr/bin/java';
+	$archive = realpath('libraries/budget-aggregator-0.9.0-SNAPSHOT.jsa');
+	if ($archive !== false) {
+		$command .= ' ' . escapeshellarg('-XX:SharedArchiveFile=' . $archive);
+	}
+	$command .= ' -jar ' . escapeshellarg(realpath('libraries/budget-aggregator-0.9.0-SNAPSHOT.jar'));
 	$command .= $filterBudgetTypes === '' ? '' : ' ' . escapeshellarg('--filter-budget-types=' . $filterBudgetTypes);
 	$command .= $filterYears === '' ? '' : ' ' . escapeshellarg('--filter-years=' . $filterYears);
 	$command .= ' ' . escapeshellarg($hideDuplicateBudgets ? '--hide-duplicate-budgets' : '--no-hide-duplicate-budgets');
@@ -109,6 +120,38 @@ function callBudgetAggregator($filterBudgetTypes, $filterYears, $hideDuplicateBu
 	return implode("\n", $result) . "\n";
 }
 
+function callBudgetAggregatorServer($filterBudgetTypes, $filterYears, $hideDuplicateBudgets, $hideEmptyAccounts, $hideEmptyBalances, $hideEmptyBudgets, $output, $sources) {
+	$fields = array(
+		'filter-budget-types' => $filterBudgetTypes,
+		'filter-years' => $filterYears,
+		'hide-duplicate-budgets' => $hideDuplicateBudgets ? 'true' : 'false',
+		'hide-empty-accounts' => $hideEmptyAccounts ? 'true' : 'false',
+		'hide-empty-balances' => $hideEmptyBalances ? 'true' : 'false',
+		'hide-empty-budgets' => $hideEmptyBudgets ? 'true' : 'false',
+		'format' => is_string($output) ? 'xlsx' : 'csv',
+	);
+	foreach ($sources as $key => $source) {
+		$fields['sources[' . $key . ']'] = new CURLFile(realpath($source), 'application/octet-stream', basename($source));
+	}
+
+	$curl = curl_init(BUDGET_AGGREGATOR_SERVER);
+	curl_setopt($curl, CURLOPT_POST, true);
+	curl_setopt($curl, CURLOPT_POSTFIELDS, $fields);
+	curl_setopt($curl, CURLOPT_RETURNTRANSFER, true);
+	$result = curl_exec($curl);
+	$result_code = curl_getinfo($curl, CURLINFO_RESPONSE_CODE);
+	curl_close($curl);
+
+	if ($result === false || $result_code !== 200) {
+		throw new Exception(sprintf('Unexpected result code %d when calling: %s' . "\n" . '%s', $result_code, BUDGET_AGGREGATOR_SERVER, $result));
+	}
+	if (is_string($output)) {
+		file_put_contents($output, $result);
+		return '';
+	}
+	return $result;
+}
+
 function deleteRecursively($path) {
 	if (is_file($path)) {
 		return unlink($path);